@@ -52,4 +52,15 @@ tasks {
     named<JavaExec>("run") {
         jvmArgs = listOf("--enable-preview")
     }
+
+    // Runs Cora on the benchmark collections and records timings; see cora.BenchmarkRunner for
+    // the options, which are given as --args="...".
+    register<JavaExec>("benchmark") {
+        group = "verification"
+        description = "Runs Cora on all benchmarks, and records answers and per-phase timings."
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("cora.BenchmarkRunner")
+        jvmArgs = listOf("--enable-preview")
+        workingDir = rootDir
+    }
 }
@@ -0,0 +1,116 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.parser.lib;
+
+/**
+ * A BufferLexer is used to lex a complete text -- the contents of a string or file -- when it is
+ * given that no token can span over a line break.  Rather than splitting the text into lines, it
+ * keeps track of the boundaries of the current line and the line number, and lets the TokenFinder
+ * work directly on the underlying buffer, so tokens are slices of the text.
+ *
+ * This is the shared functionality of the MultilineStringLexer and FileLexer, which differ only
+ * in what they consider to be line breaks (see the constructor).
+ */
+abstract class BufferLexer implements Lexer {
+  private final TokenFinder _tokenfinder;
+  private final CharSequence _text;
+  private final String _filename;
+  private final boolean _allTerminators;
+  private final int _textEnd;     // where the last line of the text ends
+  private int _lineNumber;        // the number of the current line (starting at 1)
+  private int _lineStart;         // the index in _text where the current line starts
+  private int _lineEnd;           // the index in _text where the current line ends
+  private int _pos;               // the index in _text where we currently are
+  private boolean _eofReturned;   // whether we already returned the EOF token for the last line
+
+  /**
+   * Set up a lexer to tokenise the given text, using the tokens defined in the given token finder.
+   * The filename (which may be null) is only used for positioning information.
+   *
+   * If allTerminators is true, then lines are split as by String.split("\\R"): all unicode line
+   * terminators count as line breaks, and empty lines at the end of the text are ignored.  If it
+   * is false, then lines are split as by BufferedReader.readLine: only \n, \r and \r\n count.
+   */
+  protected BufferLexer(TokenFinder finder, CharSequence text, String filename,
+                        boolean allTerminators) {
+    _tokenfinder = finder;
+    _text = text;
+    _filename = filename;
+    _allTerminators = allTerminators;
+    int end = text.length();
+    if (allTerminators) {
+      while (end > 0 && isTerminator(text.charAt(end - 1))) end--;
+    }
+    _textEnd = end;
+    _lineNumber = 1;
+    _lineStart = 0;
+    _lineEnd = findLineEnd(0);
+    _pos = 0;
+    _eofReturned = false;
+  }
+
+  /** Returns whether the given character is a line break for this lexer. */
+  private boolean isTerminator(char c) {
+    if (c == '\n' || c == '\r') return true;
+    if (!_allTerminators) return false;
+    return c == 0x0B || c == 0x0C || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /** Returns the index of the first line break from start on (or _textEnd if there is none). */
+  private int findLineEnd(int start) {
+    for (int i = start; i < _textEnd; i++) {
+      if (isTerminator(_text.charAt(i))) return i;
+    }
+    return _textEnd;
+  }
+
+  /** Moves to the next line, if there is one; returns false if not. */
+  private boolean nextLine() {
+    if (_lineEnd >= _textEnd) return false;
+    int next = _lineEnd + 1;
+    if (_text.charAt(_lineEnd) == '\r' && next < _text.length() && _text.charAt(next) == '\n') {
+      next++;
+    }
+    if (next >= _textEnd) return false;   // a line break at the end does not start a new line
+    _lineNumber++;
+    _lineStart = next;
+    _lineEnd = findLineEnd(next);
+    _pos = next;
+    return true;
+  }
+
+  /**
+   * Returns the next token, which may be on a different line of the input.  Any SKIP tokens are
+   * automatically passed by.  When the input is exhausted, the EOF token is returned; the first
+   * time at the end of the last line, and afterwards at the start of the line after.
+   */
+  public Token nextToken() {
+    while (true) {
+      if (_pos < _lineEnd) {
+        ParsePosition pos = new ParsePosition(_filename, _lineNumber, _pos - _lineStart + 1);
+        Token ret = _tokenfinder.matchStart(_text, _lineStart, _pos, _lineEnd, pos);
+        _pos += ret.getLength();
+        if (!ret.getName().equals(Token.SKIP)) return ret;
+      }
+      else if (!nextLine()) break;
+    }
+    if (_eofReturned) {
+      return Token.eofToken(new ParsePosition(_filename, _lineNumber + 1, 1));
+    }
+    _eofReturned = true;
+    return Token.eofToken(new ParsePosition(_filename, _lineNumber, _pos - _lineStart + 1));
+  }
+}
@@ -55,11 +55,24 @@ public class ErrorCollector {
     }
   }
 
+  /**
+   * Adds all the errors stored in the given ErrorCollector to this one, in the same order, for as
+   * far as there is room.
+   */
+  public void addErrors(ErrorCollector other) {
+    for (String message : other._messages) addError(message);
+  }
+
   /** Returns the number of stored errors. There have been errors if and only if this ≥ 1. */
   public int queryErrorCount() {
     return _messages.size();
   }
 
+  /** Returns the maximum number of errors this collector keeps track of. */
+  public int queryMaxErrorCount() {
+    return _maxErrorCount;
+  }
+
   /** Returns whether or not we have reached the maximum number of errors. */
   public boolean queryFull() {
     return _messages.size() >= _maxErrorCount;
@@ -15,66 +15,81 @@
 
 package charlie.parser.lib;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * A FileLexer is used to lex a complete file, when it is given that no token can span over a
- * newline.  Thus, we go through all the lines in the file, and set appropriate positioning
- * information for each Token we encounter.
+ * newline.  Lines are split as by BufferedReader.readLine.
+ *
+ * The file is memory-mapped rather than read line by line.  If it consists only of ASCII
+ * characters (which is typical for input files), the mapped bytes are lexed directly, without
+ * copying them into Strings; tokens are only turned into Strings when their text is requested.
+ * Otherwise, the file is decoded as UTF-8 once, in full.
  */
-class FileLexer implements Lexer {
-  private TokenFinder _tokenfinder;
-  private BufferedReader _reader;
-  private StringLexer _currentLineLexer;
-  private String _filename;
-  private int _currentLine;
-
+class FileLexer extends BufferLexer {
   /**
    * Set up a file lexer to tokenise the given file, using the tokens defined in the given token
    * finder.
    */
   FileLexer(TokenFinder finder, String filename) throws IOException {
-    _tokenfinder = finder;
-    _filename = filename;
-    _reader = new BufferedReader(new FileReader(filename));
-    _currentLine = 0;
-    setupNextLexer();
+    super(finder, readFile(filename), filename, false);
   }
 
-  /**
-   * This sets _currentLineLexer up for the next line to be read.  If there is nothing left to be
-   * read, then _currentLineLexer is set to null instead.
-   */
-  private void setupNextLexer() throws IOException {
-    _currentLine++;
-    String line = _reader.readLine();
-    if (line == null) _currentLineLexer = null;
-    else {
-      _currentLineLexer = new StringLexer(_tokenfinder, line);
-      _currentLineLexer.setFilename(_filename);
-      _currentLineLexer.setLineNumber(_currentLine);
+  /** Maps the given file into memory, and returns its contents as a sequence of characters. */
+  private static CharSequence readFile(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) throw new IOException("File " + filename + " is too large.");
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      for (int i = 0; i < size; i++) {
+        if (buffer.get(i) < 0) {
+          return StandardCharsets.UTF_8.newDecoder()
+                                       .onMalformedInput(CodingErrorAction.REPLACE)
+                                       .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                                       .decode(buffer);
+        }
+      }
+      return new AsciiSequence(buffer, 0, (int)size);
     }
   }
 
-  /** Returns the next token, which may be on a different line of the input. */
-  public Token nextToken() throws LexerException {
-    Token lastEof = null;
-    while (_currentLineLexer != null) {
-      Token ret = _currentLineLexer.nextToken();
-      if (!ret.isEof()) return ret;
-      lastEof = ret;
-      try { setupNextLexer(); }
-      catch (IOException e) {
-        _currentLineLexer = null;
-        throw new LexerException(lastEof, e.getMessage());
+  /** A view of part of a buffer of ASCII bytes as a sequence of characters. */
+  private static class AsciiSequence implements CharSequence {
+    private final ByteBuffer _bytes;
+    private final int _start;
+    private final int _length;
+
+    AsciiSequence(ByteBuffer bytes, int start, int length) {
+      _bytes = bytes;
+      _start = start;
+      _length = length;
+    }
+
+    public int length() { return _length; }
+
+    public char charAt(int index) {
+      if (index < 0 || index >= _length) throw new IndexOutOfBoundsException(index);
+      return (char)_bytes.get(_start + index);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || start > end || end > _length) {
+        throw new IndexOutOfBoundsException("Illegal range " + start + ".." + end);
       }
+      return new AsciiSequence(_bytes, _start + start, end - start);
     }
-    if (lastEof == null) {
-      lastEof = Token.eofToken(new ParsePosition(_filename, _currentLine + 1, 1));
+
+    public String toString() {
+      byte[] bytes = new byte[_length];
+      _bytes.get(_start, bytes);
+      return new String(bytes, StandardCharsets.ISO_8859_1);
     }
-    return lastEof;
   }
 }
-
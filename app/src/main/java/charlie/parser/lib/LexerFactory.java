@@ -16,15 +16,31 @@
 package charlie.parser.lib;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** A LexerFactory is used to create and combine lexers, as well as TokenQueues. */
 public class LexerFactory {
+  /**
+   * Compiling a token table into a TokenFinder is relatively expensive, and the same tables are
+   * used for every string and file we lex, so we keep the finders for the tables we have seen.
+   */
+  private static ConcurrentHashMap<List<String>,TokenFinder> _finders =
+    new ConcurrentHashMap<List<String>,TokenFinder>();
+
+  /** Returns the (shared) TokenFinder for the given token table. */
+  private static TokenFinder getTokenFinder(String[] tokens) {
+    return _finders.computeIfAbsent(List.copyOf(Arrays.asList(tokens)),
+                                    _ -> new TokenFinder(tokens));
+  }
+
   /**
    * Creates a lexer that goes through the given string line by line.  Tokens cannot include a
    * newline symbol.
    */
   public static Lexer createStringLexer(String[] tokens, String text) {
-    return new MultilineStringLexer(new TokenFinder(tokens), text);
+    return new MultilineStringLexer(getTokenFinder(tokens), text);
   }
 
   /**
@@ -32,7 +48,7 @@ public class LexerFactory {
    * newline symbol.
    */
   public static Lexer createFileLexer(String[] tokens, String filename) throws IOException {
-    return new FileLexer(new TokenFinder(tokens), filename);
+    return new FileLexer(getTokenFinder(tokens), filename);
   }
 
   /**
@@ -17,49 +17,15 @@ package charlie.parser.lib;
 
 /**
  * A MultilineStringLexer is used to lex a string that may contain newlines, when it is given that
- * no token can span more than a single line.  Thus, we go through the lines, and set appropriate
- * positioning information for each Token we encounter.
+ * no token can span more than a single line.  Lines are split as by String.split("\\R"), so empty
+ * lines at the end of the string are ignored.
  */
-class MultilineStringLexer implements Lexer {
-  private TokenFinder _tokenfinder;
-  private String[] _lines;
-  private int _currentLine;
-  private StringLexer _currentLineLexer;
-
+class MultilineStringLexer extends BufferLexer {
   /**
    * Set up a string lexer to tokenise the given (multiline) search string, using the tokens
    * defined in the given token finder.
    */
   MultilineStringLexer(TokenFinder finder, String search) {
-    _tokenfinder = finder;
-    _lines = search.split("\\R");
-    _currentLine = 0;
-    setupNextLexer();
-  }
-
-  /**
-   * This sets _currentLineLexer up for the next line to be read.  If there is nothing left to be
-   * read, then _currentLineLexer is set to null instead.
-   */
-  private void setupNextLexer() {
-    if (_currentLine >= _lines.length) _currentLineLexer = null;
-    else {
-      _currentLineLexer = new StringLexer(_tokenfinder, _lines[_currentLine]);
-      _currentLineLexer.setLineNumber(_currentLine + 1);
-      _currentLine++;
-    }
-  }
-
-  /** Returns the next token, which may be on a different line of the input. */
-  public Token nextToken() throws LexerException {
-    Token lastEof = null;
-    while (_currentLineLexer != null) {
-      Token ret = _currentLineLexer.nextToken();
-      if (!ret.isEof()) return ret;
-      lastEof = ret;
-      setupNextLexer();
-    }
-    if (lastEof == null) lastEof = Token.eofToken(new ParsePosition(_currentLine + 1, 1));
-    return lastEof;
+    super(finder, search, null, true);
   }
 }
@@ -75,7 +75,7 @@ class StringLexer implements Lexer {
       ParsePosition pos = new ParsePosition(_filename, _lineno, _linepos + _start);
       Token ret = _tokenfinder.matchStart(_mystring, _start, pos);
       if (ret == null) return Token.eofToken(pos);
-      _start += ret.getText().length();
+      _start += ret.getLength();
       if (!ret.getName().equals(Token.SKIP)) return ret;
     }
   }
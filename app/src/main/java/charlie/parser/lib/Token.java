@@ -15,11 +15,21 @@
 
 package charlie.parser.lib;
 
-/** This class represents a single Token in an input string or file. */
+/**
+ * This class represents a single Token in an input string or file.
+ *
+ * Tokens produced by the lexers do not immediately copy their text out of the input: they keep a
+ * reference to the underlying buffer and the range in it, and the text is only materialised when
+ * getText() is first called.  This way, tokens that are skipped or only inspected by name never
+ * cause a String to be created.
+ */
 public class Token {
   private ParsePosition _position;
   private String _name;
-  private String _text;
+  private String _text;           // null if the text has not been materialised yet
+  private CharSequence _source;   // the buffer the text originates from, if _text is null
+  private int _start;             // the start of the text in _source
+  private int _end;               // the end of the text in _source
 
   /** The EOF token is returned for the end of input. */
   public static String EOF        = "EOF";
@@ -48,6 +58,18 @@ public class Token {
     if (text == null) _text = "";
   }
 
+  /**
+   * Creates a token at the given position, with the given token name, whose text is the part of
+   * source from start (inclusive) to end (exclusive).  The text is only copied when needed.
+   */
+  Token(ParsePosition pos, String name, CharSequence source, int start, int end) {
+    _position = pos;
+    _name = name;
+    _source = source;
+    _start = start;
+    _end = end;
+  }
+
   /** For use inside the package: returns the ParsePosition underlying this token. */
   ParsePosition getRealPosition() {
     return _position;
@@ -73,9 +95,18 @@ public class Token {
 
   /** Returns the text that was matched for this token */
   public String getText() {
+    if (_text == null) {
+      _text = _source.subSequence(_start, _end).toString();
+      _source = null;
+    }
     return _text;
   }
 
+  /** For use inside the package: returns the length of the text, without materialising it. */
+  int getLength() {
+    return _text == null ? _end - _start : _text.length();
+  }
+
   /** Returns a copy of this token, but with getText() updated to return the given text. */
   public Token updateText(String newtext) {
     return new Token(_position, _name, newtext);
@@ -93,7 +124,7 @@ public class Token {
 
   /** Returns a string representation of the current token, for use in testing and debugging. */
   public String toString() {
-    return _position.toString() + ": " + _text + " (" + _name + ")";
+    return _position.toString() + ": " + getText() + " (" + _name + ")";
   }
 }
 
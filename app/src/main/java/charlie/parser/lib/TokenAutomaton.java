@@ -0,0 +1,509 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.parser.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A TokenAutomaton is a deterministic finite automaton that recognises a list of regular
+ * expressions at the same time.  Given a text and a start position, it finds the longest prefix
+ * that matches any of the expressions -- and the first expression that matches this prefix -- by
+ * going over each character only once.  This is used by the TokenFinder, to avoid running every
+ * token regex at every position in the input.
+ *
+ * Only the fragment of the java.util.regex syntax that is commonly used for tokens is supported:
+ * literals, character classes, ., \s, \R, grouping, alternation, the quantifiers *, + and ?, the
+ * anchors ^ and $, and negative lookahead (?!c) of a single character (class).  The compile
+ * function returns null for expressions outside this fragment.
+ *
+ * The automaton is built once, and is immutable afterwards, so it can be safely shared.
+ */
+class TokenAutomaton {
+  /** Thrown by the regex parser when it encounters syntax outside the supported fragment. */
+  private static class UnsupportedException extends Exception {
+    UnsupportedException() { super(null, null, false, false); }
+  }
+
+  /** We do not build automata larger than this; for such token sets, compile returns null. */
+  private static final int MAXSTATES = 5000;
+
+  // =================================== CHARACTER SETS ===================================
+
+  /** A set of (UTF-16) characters, represented as sorted, disjoint, inclusive ranges. */
+  private static final class CharSet {
+    final int[] _ranges;    // lo0, hi0, lo1, hi1, ...
+
+    CharSet(int[] ranges) { _ranges = ranges; }
+
+    static CharSet of(int lo, int hi) { return new CharSet(new int[] { lo, hi }); }
+
+    boolean contains(int c) {
+      for (int i = 0; i < _ranges.length && _ranges[i] <= c; i += 2) {
+        if (c <= _ranges[i+1]) return true;
+      }
+      return false;
+    }
+
+    /** Returns the union of the given list of ranges (which may overlap or be unsorted). */
+    static CharSet union(List<int[]> ranges) {
+      ranges.sort((a, b) -> a[0] - b[0]);
+      ArrayList<Integer> ret = new ArrayList<Integer>();
+      for (int[] r : ranges) {
+        int n = ret.size();
+        if (n > 0 && r[0] <= ret.get(n-1) + 1) ret.set(n-1, Math.max(ret.get(n-1), r[1]));
+        else { ret.add(r[0]); ret.add(r[1]); }
+      }
+      return new CharSet(ret.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    CharSet complement() {
+      ArrayList<Integer> ret = new ArrayList<Integer>();
+      int next = 0;
+      for (int i = 0; i < _ranges.length; i += 2) {
+        if (_ranges[i] > next) { ret.add(next); ret.add(_ranges[i] - 1); }
+        next = _ranges[i+1] + 1;
+      }
+      if (next <= Character.MAX_VALUE) { ret.add(next); ret.add((int)Character.MAX_VALUE); }
+      return new CharSet(ret.stream().mapToInt(Integer::intValue).toArray());
+    }
+  }
+
+  /** The characters matched by \s. */
+  private static final int[][] WHITESPACE = { {' ', ' '}, {'\t', '\r'} };
+  /** The line terminators, which are not matched by . */
+  private static final int[][] TERMINATORS =
+    { {'\n', '\n'}, {'\r', '\r'}, {'\u0085', '\u0085'}, {'\u2028', '\u2029'} };
+
+  // ======================================== NFA =========================================
+
+  private static final int CHAR = 0;        // consume a character in _set, then go to _out1
+  private static final int EPSILON = 1;     // go to _out1 and/or _out2 without consuming anything
+  private static final int NOTAHEAD = 2;    // go to _out1 if the next character is not in _set
+  private static final int DOLLAR = 3;      // go to _out1 if $ holds at the current position
+  private static final int CARET = 4;       // go to _out1 if we are at the start of the text
+  private static final int ACCEPT = 5;      // the expression with index _pattern has matched
+
+  private static final class Node {
+    final int _id;
+    int _kind;
+    CharSet _set;
+    Node _out1, _out2;
+    int _pattern;
+    Node(int id, int kind) { _id = id; _kind = kind; }
+  }
+
+  /** A part of an NFA, with a unique entry point and a unique exit (an EPSILON without outs). */
+  private record Fragment(Node start, Node end) {}
+
+  /** Helper class to parse a regular expression into a part of an NFA. */
+  private static final class RegexParser {
+    private final String _regex;
+    private int _pos = 0;
+    private final ArrayList<Node> _nodes;
+
+    RegexParser(String regex, ArrayList<Node> nodes) { _regex = regex; _nodes = nodes; }
+
+    private Node node(int kind) {
+      Node n = new Node(_nodes.size(), kind);
+      _nodes.add(n);
+      return n;
+    }
+
+    private Fragment empty() {
+      Node n = node(EPSILON);
+      return new Fragment(n, n);
+    }
+
+    private Fragment single(int kind, CharSet set) {
+      Node n = node(kind), e = node(EPSILON);
+      n._set = set;
+      n._out1 = e;
+      return new Fragment(n, e);
+    }
+
+    private Fragment concat(Fragment a, Fragment b) {
+      a.end()._out1 = b.start();
+      return new Fragment(a.start(), b.end());
+    }
+
+    private Fragment alternative(Fragment a, Fragment b) {
+      Node s = node(EPSILON), e = node(EPSILON);
+      s._out1 = a.start();
+      s._out2 = b.start();
+      a.end()._out1 = e;
+      b.end()._out1 = e;
+      return new Fragment(s, e);
+    }
+
+    private boolean atEnd() { return _pos >= _regex.length(); }
+    private char peek() { return _regex.charAt(_pos); }
+
+    Fragment parseFull() throws UnsupportedException {
+      Fragment ret = parseAlternatives();
+      if (!atEnd()) throw new UnsupportedException();
+      return ret;
+    }
+
+    private Fragment parseAlternatives() throws UnsupportedException {
+      Fragment ret = parseSequence();
+      while (!atEnd() && peek() == '|') {
+        _pos++;
+        ret = alternative(ret, parseSequence());
+      }
+      return ret;
+    }
+
+    private Fragment parseSequence() throws UnsupportedException {
+      Fragment ret = empty();
+      while (!atEnd() && peek() != '|' && peek() != ')') {
+        ret = concat(ret, parseQuantified());
+      }
+      return ret;
+    }
+
+    private Fragment parseQuantified() throws UnsupportedException {
+      Fragment atom = parseAtom();
+      if (atEnd()) return atom;
+      char c = peek();
+      if (c != '*' && c != '+' && c != '?') {
+        if (c == '{') throw new UnsupportedException();
+        return atom;
+      }
+      _pos++;
+      // lazy and possessive quantifiers are not supported
+      if (!atEnd() && (peek() == '?' || peek() == '+' || peek() == '*')) {
+        throw new UnsupportedException();
+      }
+      Node s = node(EPSILON), e = node(EPSILON);
+      switch (c) {
+        case '*':
+          s._out1 = atom.start(); s._out2 = e; atom.end()._out1 = s;
+          return new Fragment(s, e);
+        case '+':
+          s._out1 = atom.start(); s._out2 = e; atom.end()._out1 = s;
+          return new Fragment(atom.start(), e);
+        default:
+          s._out1 = atom.start(); s._out2 = e; atom.end()._out1 = e;
+          return new Fragment(s, e);
+      }
+    }
+
+    private Fragment parseAtom() throws UnsupportedException {
+      char c = peek();
+      _pos++;
+      switch (c) {
+        case '(':
+          if (!atEnd() && peek() == '?') {
+            if (_pos + 1 >= _regex.length() || _regex.charAt(_pos + 1) != '!') {
+              throw new UnsupportedException();
+            }
+            _pos += 2;
+            CharSet set = parseSingleCharacter();
+            if (atEnd() || peek() != ')') throw new UnsupportedException();
+            _pos++;
+            return single(NOTAHEAD, set);
+          }
+          Fragment ret = parseAlternatives();
+          if (atEnd() || peek() != ')') throw new UnsupportedException();
+          _pos++;
+          return ret;
+        case '$': return single(DOLLAR, null);
+        case '^': return single(CARET, null);
+        case '\\':
+          if (!atEnd() && peek() == 'R') {
+            _pos++;
+            Fragment crlf = concat(single(CHAR, CharSet.of('\r', '\r')),
+                                   single(CHAR, CharSet.of('\n', '\n')));
+            ArrayList<int[]> ranges = new ArrayList<int[]>(Arrays.asList(TERMINATORS));
+            ranges.add(new int[] { 0x0B, 0x0C });
+            return alternative(crlf, single(CHAR, CharSet.union(ranges)));
+          }
+          _pos--;
+          return single(CHAR, parseSingleCharacter());
+        case ')': case '*': case '+': case '?': case '{': case '}': case ']':
+          throw new UnsupportedException();
+        default:
+          _pos--;
+          return single(CHAR, parseSingleCharacter());
+      }
+    }
+
+    /** Parses a literal, escape sequence, . or character class that matches one character. */
+    private CharSet parseSingleCharacter() throws UnsupportedException {
+      if (atEnd()) throw new UnsupportedException();
+      char c = peek();
+      _pos++;
+      if (c == '.') return CharSet.union(new ArrayList<int[]>(Arrays.asList(TERMINATORS)))
+                                  .complement();
+      if (c == '[') return parseClass();
+      if (c == '\\') {
+        ArrayList<int[]> ranges = new ArrayList<int[]>();
+        parseEscape(ranges);
+        return CharSet.union(ranges);
+      }
+      if (Character.isSurrogate(c) || "()|*+?{}^$]".indexOf(c) >= 0) {
+        throw new UnsupportedException();
+      }
+      return CharSet.of(c, c);
+    }
+
+    /** Parses an escape sequence (after the \), and adds the characters it matches to ranges. */
+    private void parseEscape(List<int[]> ranges) throws UnsupportedException {
+      if (atEnd()) throw new UnsupportedException();
+      char c = peek();
+      _pos++;
+      if (c == 's') ranges.addAll(Arrays.asList(WHITESPACE));
+      else if (c == 'n') ranges.add(new int[] { '\n', '\n' });
+      else if (c == 't') ranges.add(new int[] { '\t', '\t' });
+      else if (c == 'r') ranges.add(new int[] { '\r', '\r' });
+      else if (c < 128 && !Character.isLetterOrDigit(c)) ranges.add(new int[] { c, c });
+      else throw new UnsupportedException();
+    }
+
+    /** Parses a character class (after the [). */
+    private CharSet parseClass() throws UnsupportedException {
+      boolean negate = false;
+      if (!atEnd() && peek() == '^') { negate = true; _pos++; }
+      if (!atEnd() && peek() == ']') throw new UnsupportedException();
+      ArrayList<int[]> ranges = new ArrayList<int[]>();
+      while (true) {
+        if (atEnd()) throw new UnsupportedException();
+        char c = peek();
+        _pos++;
+        if (c == ']') break;
+        if (c == '[' || Character.isSurrogate(c)) throw new UnsupportedException();
+        if (c == '&' && !atEnd() && peek() == '&') throw new UnsupportedException();
+        if (c == '\\') {
+          if (atEnd() || Character.isLetterOrDigit(peek())) { parseEscape(ranges); continue; }
+          c = peek();
+          _pos++;
+        }
+        // c is a single character; check if it is the start of a range
+        if (_pos + 1 < _regex.length() && peek() == '-' && _regex.charAt(_pos + 1) != ']') {
+          _pos++;
+          char d = peek();
+          _pos++;
+          if (d == '\\' || d == '[' || Character.isSurrogate(d) || d < c) {
+            throw new UnsupportedException();
+          }
+          ranges.add(new int[] { c, d });
+        }
+        else ranges.add(new int[] { c, c });
+      }
+      CharSet ret = CharSet.union(ranges);
+      return negate ? ret.complement() : ret;
+    }
+  }
+
+  // ======================================== DFA =========================================
+
+  /**
+   * The characters are divided into classes, such that all characters in a class behave the same
+   * for all character sets in the NFA.  Class k consists of the characters from _boundaries[k]
+   * up to (but not including) _boundaries[k+1].  The end of the input has its own class
+   * _endClass.
+   */
+  private final int[] _boundaries;
+  private final int[] _asciiClass;
+  private final int _endClass;
+  private final boolean _usesDollar;
+
+  /**
+   * Each state of the DFA corresponds to a set of NFA states.  The transition on a character
+   * additionally depends on whether $ and ^ hold at the current position, since assertions are
+   * resolved when the next character is known.  Hence, for key = 4 * class + 2 * caret + dollar,
+   * _next[state][key] is the state after reading a character of the given class (or -1 if no
+   * match is possible anymore), and _accept[state][key] is the index of the first expression that
+   * matches the text read so far (or -1 if there is none).
+   */
+  private final int[][] _next;
+  private final int[][] _accept;
+
+  private TokenAutomaton(int[] boundaries, int[] asciiClass, boolean usesDollar, int[][] next,
+                         int[][] accept) {
+    _boundaries = boundaries;
+    _asciiClass = asciiClass;
+    _endClass = boundaries.length;
+    _usesDollar = usesDollar;
+    _next = next;
+    _accept = accept;
+  }
+
+  /**
+   * Builds an automaton recognising the given regular expressions.  If any of them uses syntax
+   * that is not supported, or the automaton would become too large, then null is returned.
+   */
+  static TokenAutomaton compile(String[] regexes) {
+    ArrayList<Node> nodes = new ArrayList<Node>();
+    int[] initial = new int[regexes.length];
+    try {
+      for (int i = 0; i < regexes.length; i++) {
+        Fragment frag = (new RegexParser(regexes[i], nodes)).parseFull();
+        Node accept = new Node(nodes.size(), ACCEPT);
+        nodes.add(accept);
+        accept._pattern = i;
+        frag.end()._out1 = accept;
+        initial[i] = frag.start()._id;
+      }
+    }
+    catch (UnsupportedException e) { return null; }
+
+    // determine the character classes
+    TreeSet<Integer> bounds = new TreeSet<Integer>();
+    bounds.add(0);
+    boolean usesDollar = false;
+    for (Node n : nodes) {
+      if (n._kind == DOLLAR) usesDollar = true;
+      if (n._set == null) continue;
+      for (int i = 0; i < n._set._ranges.length; i += 2) {
+        bounds.add(n._set._ranges[i]);
+        if (n._set._ranges[i+1] < Character.MAX_VALUE) bounds.add(n._set._ranges[i+1] + 1);
+      }
+    }
+    int[] boundaries = bounds.stream().mapToInt(Integer::intValue).toArray();
+    int[] asciiClass = new int[128];
+    for (int c = 0, k = 0; c < 128; c++) {
+      while (k + 1 < boundaries.length && boundaries[k+1] <= c) k++;
+      asciiClass[c] = k;
+    }
+
+    // subset construction
+    int numKeys = 4 * (boundaries.length + 1);
+    ArrayList<int[]> states = new ArrayList<int[]>();
+    HashMap<List<Integer>,Integer> stateIndex = new HashMap<List<Integer>,Integer>();
+    ArrayList<int[]> next = new ArrayList<int[]>();
+    ArrayList<int[]> accept = new ArrayList<int[]>();
+    Arrays.sort(initial);
+    states.add(initial);
+    stateIndex.put(asList(initial), 0);
+    for (int s = 0; s < states.size(); s++) {
+      int[] nxt = new int[numKeys], acc = new int[numKeys];
+      for (int key = 0; key < numKeys; key++) {
+        int cls = key / 4;
+        int c = cls == boundaries.length ? -1 : boundaries[cls];
+        BitSet closure = closure(nodes, states.get(s), c, (key & 2) != 0, (key & 1) != 0);
+        acc[key] = -1;
+        TreeSet<Integer> target = new TreeSet<Integer>();
+        for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+          Node n = nodes.get(i);
+          if (n._kind == ACCEPT && (acc[key] == -1 || n._pattern < acc[key])) {
+            acc[key] = n._pattern;
+          }
+          if (n._kind == CHAR && c >= 0 && n._set.contains(c)) target.add(n._out1._id);
+        }
+        if (target.isEmpty()) { nxt[key] = -1; continue; }
+        List<Integer> lst = new ArrayList<Integer>(target);
+        Integer index = stateIndex.get(lst);
+        if (index == null) {
+          if (states.size() >= MAXSTATES) return null;
+          index = states.size();
+          states.add(lst.stream().mapToInt(Integer::intValue).toArray());
+          stateIndex.put(lst, index);
+        }
+        nxt[key] = index;
+      }
+      next.add(nxt);
+      accept.add(acc);
+    }
+    return new TokenAutomaton(boundaries, asciiClass, usesDollar,
+                              next.toArray(new int[next.size()][]),
+                              accept.toArray(new int[accept.size()][]));
+  }
+
+  private static List<Integer> asList(int[] arr) {
+    return Arrays.stream(arr).boxed().toList();
+  }
+
+  /**
+   * Returns the NFA states reachable from the given states without consuming a character, if c is
+   * the next character (or -1 for the end of the input), and caret and dollar indicate whether ^
+   * and $ hold at the current position.
+   */
+  private static BitSet closure(ArrayList<Node> nodes, int[] start, int c, boolean caret,
+                                boolean dollar) {
+    BitSet seen = new BitSet(nodes.size());
+    ArrayList<Node> todo = new ArrayList<Node>();
+    for (int i : start) { seen.set(i); todo.add(nodes.get(i)); }
+    while (!todo.isEmpty()) {
+      Node n = todo.remove(todo.size() - 1);
+      boolean follow = switch (n._kind) {
+        case EPSILON -> true;
+        case NOTAHEAD -> c < 0 || !n._set.contains(c);
+        case DOLLAR -> dollar;
+        case CARET -> caret;
+        default -> false;
+      };
+      if (!follow) continue;
+      for (Node m : new Node[] { n._out1, n._out2 }) {
+        if (m != null && !seen.get(m._id)) { seen.set(m._id); todo.add(m); }
+      }
+    }
+    return seen;
+  }
+
+  // ====================================== MATCHING ======================================
+
+  /** Returns the class of the given character (which may be -1 for the end of the input). */
+  private int classOf(int c) {
+    if (c < 0) return _endClass;
+    if (c < 128) return _asciiClass[c];
+    int k = Arrays.binarySearch(_boundaries, c);
+    return k >= 0 ? k : -k - 2;
+  }
+
+  /**
+   * Returns whether $ holds at position i of the input txt[begin..end-1].  Following
+   * java.util.regex (without the MULTILINE flag), this is the case at the end of the input, and
+   * before a line terminator that ends the input.
+   */
+  private static boolean dollarHolds(CharSequence txt, int begin, int i, int end) {
+    int rest = end - i;
+    if (rest == 0) return true;
+    char c = txt.charAt(i);
+    if (rest == 2) return c == '\r' && txt.charAt(i + 1) == '\n';
+    if (rest > 2) return false;
+    if (c == '\n') return i == begin || txt.charAt(i - 1) != '\r';
+    return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * Finds the longest non-empty prefix of txt[start..end-1] that matches one of the expressions,
+   * where txt[begin..end-1] is considered to be the full input (so this is where ^ and $ hold).
+   * If there is no match, -1 is returned; otherwise the result is patternIndex * 2^32 + length,
+   * where patternIndex is the first expression that matches this prefix.
+   */
+  long longestMatch(CharSequence txt, int begin, int start, int end) {
+    int state = 0;
+    long best = -1;
+    for (int i = start; state >= 0; i++) {
+      int c = i < end ? txt.charAt(i) : -1;
+      int key = 4 * classOf(c);
+      if (i == begin) key += 2;
+      if (_usesDollar && dollarHolds(txt, begin, i, end)) key += 1;
+      if (i > start && _accept[state][key] >= 0) {
+        best = ((long)_accept[state][key] << 32) | (i - start);
+      }
+      if (c < 0) break;
+      state = _next[state][key];
+    }
+    return best;
+  }
+}
@@ -22,6 +22,11 @@ import java.util.regex.Matcher;
  * The TokenFinder keeps track of a number of regular expressions, each of which defines a token to
  * be used for parsing.  In addition, it can be used to check if a string starts with one of these
  * expressions, and if so, generate a Token accordingly.
+ *
+ * To avoid running every regular expression at every position, the expressions are compiled into
+ * a single TokenAutomaton, which finds the longest match in one pass over the text.  Only if some
+ * expression uses syntax the automaton does not support, do we fall back to java.util.regex.
+ * A TokenFinder is not modified after construction, so may be shared between lexers.
  */
 class TokenFinder {
   /** This class contains the information for all defined tokens */
@@ -34,6 +39,9 @@ class TokenFinder {
   /** The tokens we use for parsing the input. */
   private PatternInfo[] _patterns;
 
+  /** The compiled form of _patterns, or null if they could not be compiled. */
+  private TokenAutomaton _automaton;
+
   /**
    * Generate a TokenFinder which keeps track of the regular expression/token pairs defined by the
    * given array.  This array is expected to have a form
@@ -68,6 +76,15 @@ class TokenFinder {
        _patterns[i/2] = new PatternInfo(tokens[i+1], tokens[i]);
     }
     _patterns[tokens.length/2] = new PatternInfo(Token.CATCHALL, ".|\\R");
+
+    String[] regexes = new String[_patterns.length];
+    for (int i = 0; i < _patterns.length; i++) regexes[i] = _patterns[i]._pattern.pattern();
+    _automaton = TokenAutomaton.compile(regexes);
+  }
+
+  /** Returns whether the tokens could be compiled into an automaton (used for testing). */
+  boolean isCompiled() {
+    return _automaton != null;
   }
 
   /**
@@ -81,11 +98,40 @@ class TokenFinder {
    * character of txt.
    */
   Token matchStart(String txt, int start, ParsePosition pos) {
+    return matchStart(txt, 0, start, txt.length(), pos);
+  }
+
+  /**
+   * This function behaves like matchStart on the string txt[begin..end-1] (with start an index
+   * in txt rather than in this substring), but without copying: the text of the returned token
+   * is a slice of txt, which is only materialised when requested.
+   */
+  Token matchStart(CharSequence txt, int begin, int start, int end, ParsePosition pos) {
+    if (start < begin) throw new Error("matchStart called with start before begin");
+    if (start >= end) return null;
+    if (pos == null) pos = new ParsePosition(start - begin + 1);
+    if (_automaton != null) return matchStartByAutomaton(txt, begin, start, end, pos);
+    String line = txt.subSequence(begin, end).toString();
+    return matchStartByRegex(line, start - begin, pos);
+  }
+
+  /** Helper function for matchStart, used if the token expressions have been compiled. */
+  private Token matchStartByAutomaton(CharSequence txt, int begin, int start, int end,
+                                      ParsePosition pos) {
+    long match = _automaton.longestMatch(txt, begin, start, end);
+    if (match < 0) return new Token(pos, Token.CATCHALL, txt, start, start + 1);
+    int pattern = (int)(match >>> 32);
+    int len = (int)match;
+    // the regex . matches a full code point, rather than half of a surrogate pair
+    if (pattern == _patterns.length - 1 && len == 1 && start + 1 < end &&
+        Character.isSurrogatePair(txt.charAt(start), txt.charAt(start + 1))) len = 2;
+    return new Token(pos, _patterns[pattern]._name, txt, start, start + len);
+  }
+
+  /** Helper function for matchStart, used if the token expressions could not be compiled. */
+  private Token matchStartByRegex(String txt, int start, ParsePosition pos) {
     int bestsofar = 0;
     Token token = null;
-    if (start < 0) throw new Error("matchStart called with negative start");
-    if (start >= txt.length()) return token;
-    if (pos == null) pos = new ParsePosition(start + 1);
     for (int i = 0; i < _patterns.length; i++) {
       Matcher matcher = _patterns[i]._pattern.matcher(txt);
       matcher.useAnchoringBounds(false);
@@ -100,7 +146,7 @@ class TokenFinder {
       }
     }
     // catch characters not captured by . if any remain, just in case
-    if (token == null) token = new Token(pos, Token.CATCHALL, txt.substring(0,1));
+    if (token == null) token = new Token(pos, Token.CATCHALL, txt.substring(start, start + 1));
     return token;
   }
 }
@@ -136,11 +136,18 @@ public class CoraInputReader extends TermTyper {
     for (ParserDeclaration decl : sort(program.fundecs())) {
       handleFunctionDeclaration(decl);
     }
-    // go over the rules one by one
-    ArrayList<Rule> rules = new ArrayList<Rule>();
-    for (ParserRule rule : program.rules()) {
-      Rule rho = makeRule(rule, kind);
-      if (rho != null) rules.add(rho);
+    // go over the rules one by one, or all at once if they are numerous
+    ArrayList<Rule> rules;
+    if (ParallelRuleBuilder.useFor(program.rules().size())) {
+      rules = ParallelRuleBuilder.buildRules(program.rules(), _errors, (rule, collector) ->
+        new CoraInputReader(_symbols.copyWithEmptyEnvironment(), collector).makeRule(rule, kind));
+    }
+    else {
+      rules = new ArrayList<Rule>();
+      for (ParserRule rule : program.rules()) {
+        Rule rho = makeRule(rule, kind);
+        if (rho != null) rules.add(rho);
+      }
     }
 
     // turn the result into a TRS!
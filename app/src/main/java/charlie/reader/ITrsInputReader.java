@@ -422,11 +422,21 @@ public class ITrsInputReader {
 
   /** Once the symbol data is known, this function generates the TRS. */
   private TRS makeTRS(ParserProgram trs) {
-    ArrayList<Rule> rules = new ArrayList<Rule>();
-    for (ParserRule rho : trs.rules()) {
-      Rule r = makeRule(rho);
-      if (r != null) rules.add(r);
-    }   
+    ArrayList<Rule> rules;
+    if (ParallelRuleBuilder.useFor(trs.rules().size())) {
+      rules = ParallelRuleBuilder.buildRules(trs.rules(), _errors, (rho, collector) -> {
+        ITrsInputReader reader = new ITrsInputReader(collector);
+        reader._symbols = _symbols.copyWithEmptyEnvironment();
+        return reader.makeRule(rho);
+      });
+    }
+    else {
+      rules = new ArrayList<Rule>();
+      for (ParserRule rho : trs.rules()) {
+        Rule r = makeRule(rho);
+        if (r != null) rules.add(r);
+      }
+    }
     Alphabet alphabet = _symbols.queryCurrentAlphabet();
     try { return TrsFactory.createTrs(alphabet, rules, TrsFactory.LCTRS); }
     catch (IllegalRuleException e) {
@@ -198,11 +198,18 @@ public class OCocoSortedInputReader {
       _symbols.addFunctionSymbol(TermFactory.createConstant(name, decl.get(name).type()));
     }   
 
-    ArrayList<Rule> rules = new ArrayList<Rule>();
-    for (ParserRule rule : trs.rules()) {
-      Rule r = makeRule(rule);
-      if (r != null) rules.add(r);
-    }   
+    ArrayList<Rule> rules;
+    if (ParallelRuleBuilder.useFor(trs.rules().size())) {
+      rules = ParallelRuleBuilder.buildRules(trs.rules(), _errors, (rule, collector) ->
+        new OCocoSortedInputReader(_symbols.copyWithEmptyEnvironment(), collector).makeRule(rule));
+    }
+    else {
+      rules = new ArrayList<Rule>();
+      for (ParserRule rule : trs.rules()) {
+        Rule r = makeRule(rule);
+        if (r != null) rules.add(r);
+      }
+    }
     Alphabet alphabet = _symbols.queryCurrentAlphabet();
     return TrsFactory.createTrs(alphabet, rules, TrsFactory.MSTRS);
   }
@@ -0,0 +1,97 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.reader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import charlie.parser.lib.ErrorCollector;
+import charlie.trs.Rule;
+
+/**
+ * Once all the function symbols of a TRS are known, its rules can be typed and constructed
+ * independently of each other.  The ParallelRuleBuilder supports doing so on all available cores,
+ * which is useful for very large (typically machine-generated) input files.
+ *
+ * Parallel building is disabled by default, since it changes the order in which variables are
+ * created, and thereby their internal indexes; it can be enabled for the duration of a single
+ * reading with withEnabled.  This only affects the current thread, so analyses that run at the
+ * same time can each make their own choice.  Even when it is enabled, rules are returned -- and
+ * errors are stored -- in the order in which they occur in the input, and small TRSs are still
+ * handled sequentially.
+ */
+public class ParallelRuleBuilder {
+  /** Below this number of rules, the overhead of parallelism is not worth it. */
+  private static final int MINIMUM_RULES = 64;
+
+  private static final ThreadLocal<Boolean> _enabled = ThreadLocal.withInitial(() -> false);
+
+  /** A way to turn a single input rule into a Rule, storing errors in the given collector. */
+  interface RuleMaker<R> {
+    Rule make(R input, ErrorCollector collector);
+  }
+
+  /** Some way of reading a TRS (or anything else), which may use the ParallelRuleBuilder. */
+  public interface Reading<T> {
+    T read() throws IOException;
+  }
+
+  /**
+   * Executes the given reading in the current thread, with parallel building of rules enabled or
+   * disabled as given, and returns its result.  Afterwards, the previous choice is restored.
+   */
+  public static <T> T withEnabled(boolean enabled, Reading<T> reading) throws IOException {
+    boolean previous = _enabled.get();
+    _enabled.set(enabled);
+    try { return reading.read(); }
+    finally { _enabled.set(previous); }
+  }
+
+  /** Returns whether or not rules are built in parallel when reading a TRS in this thread. */
+  public static boolean queryEnabled() {
+    return _enabled.get();
+  }
+
+  /** Returns whether the given number of rules should be built in parallel. */
+  static boolean useFor(int numberOfRules) {
+    return _enabled.get() && numberOfRules >= MINIMUM_RULES &&
+           Runtime.getRuntime().availableProcessors() > 1;
+  }
+
+  /**
+   * Builds all the given rules in parallel, using the given maker, and returns the rules that
+   * were successfully built in the order of the input.  The maker should not modify any state that
+   * is shared between rules: each call is given its own ErrorCollector, and the errors from these
+   * collectors are afterwards added to the given collector in the order of the input.
+   */
+  static <R> ArrayList<Rule> buildRules(List<R> input, ErrorCollector errors, RuleMaker<R> maker) {
+    Rule[] rules = new Rule[input.size()];
+    ErrorCollector[] collectors = new ErrorCollector[input.size()];
+    int max = errors.queryMaxErrorCount();
+    IntStream.range(0, input.size()).parallel().forEach(i -> {
+      collectors[i] = new ErrorCollector(max);
+      rules[i] = maker.make(input.get(i), collectors[i]);
+    });
+    ArrayList<Rule> ret = new ArrayList<Rule>(rules.length);
+    for (int i = 0; i < rules.length; i++) {
+      errors.addErrors(collectors[i]);
+      if (rules[i] != null) ret.add(rules[i]);
+    }
+    return ret;
+  }
+}
@@ -57,6 +57,19 @@ class SymbolData {
     _mvariables = new TreeMap<String,MetaVariable>();
   }
 
+  /**
+   * Returns a SymbolData with the same function symbols (and TRS, if any) as this one, but with
+   * its own, empty, environment of variables and meta-variables.  The function symbols are shared
+   * rather than copied, so neither this SymbolData nor the copy should be used to declare function
+   * symbols afterwards.  This is used to read several rules simultaneously.
+   */
+  SymbolData copyWithEmptyEnvironment() {
+    SymbolData ret = new SymbolData(_trs);
+    ret._alphabet = _alphabet;
+    ret._private = _private;
+    return ret;
+  }
+
   /**
    * Returns the number of function symbols declared in the current parser data.
    * This ignores any function symbols that are included by including a TRS.
@@ -477,14 +477,14 @@ class TermTyper {
     if (args.size() == 1) {
       Term child = targs.get(0);
       if (child.isValue()) {
-        return confirmType(token, TheoryFactory.createValue(-child.toValue().getInt()), expected);
+        return confirmType(token, TheoryFactory.createValue(child.toValue().getBigInt().negate()), expected);
       }
       return confirmType(token, TheoryFactory.minusSymbol.apply(targs.get(0)), expected);
     }
     if (args.size() == 2) {
       Term a = targs.get(0);
       Term b = targs.get(1);
-      if (b.isValue()) b = TheoryFactory.createValue(-b.toValue().getInt());
+      if (b.isValue()) b = TheoryFactory.createValue(b.toValue().getBigInt().negate());
       else b = TheoryFactory.minusSymbol.apply(b);
       return confirmType(token, TermFactory.createApp(TheoryFactory.plusSymbol, a, b), expected);
     }
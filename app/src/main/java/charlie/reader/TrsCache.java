@@ -0,0 +1,112 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.reader;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import charlie.trs.TRS;
+import charlie.trs.TrsSerialiser;
+
+/**
+ * A TrsCache is a directory holding the TRSs defined by previously read input files, in the
+ * binary format of the TrsSerialiser.  Entries are identified by a hash of the contents and the
+ * extension of the input file, so a file that has not changed since it was last read is loaded
+ * from the cache rather than being lexed, parsed and typed again.
+ *
+ * The cache is a best-effort optimisation: if an entry cannot be read (for instance because it
+ * was written by a different version of Cora) the input file is simply read again, and if the
+ * cache cannot be written, this does not affect the result.
+ */
+public class TrsCache {
+  /** A way to read a TRS from an input file, for files that are not (yet) in the cache. */
+  public interface TrsReader {
+    TRS read(String filename) throws IOException;
+  }
+
+  private static final String EXTENSION = ".ctrs";
+  private final Path _directory;
+
+  /** Sets up a cache in the given directory, which is created when it is first written to. */
+  public TrsCache(String directory) {
+    _directory = Path.of(directory);
+  }
+
+  /** Returns the path to the cache entry for the given input file. */
+  private Path entryFor(String filename) throws IOException {
+    MessageDigest digest;
+    try { digest = MessageDigest.getInstance("SHA-256"); }
+    catch (NoSuchAlgorithmException e) { throw new IOException(e); }
+    String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+    digest.update(extension.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    StringBuilder name = new StringBuilder();
+    for (byte b : digest.digest()) name.append(String.format("%02x", b));
+    return _directory.resolve(name.append(EXTENSION).toString());
+  }
+
+  /**
+   * Stores the given TRS as the cache entry at the given path.  The entry is first written to a
+   * temporary file, so other processes using the same cache never see a partial entry.
+   */
+  private void store(TRS trs, Path entry) {
+    Path temp = null;
+    try {
+      Files.createDirectories(_directory);
+      temp = Files.createTempFile(_directory, "entry", ".tmp");
+      try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        TrsSerialiser.writeTrs(trs, stream);
+      }
+      try { Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE); }
+      catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      try { if (temp != null) Files.deleteIfExists(temp); }
+      catch (IOException e2) {}
+    }
+  }
+
+  /**
+   * Returns the TRS defined by the given input file.  If the cache holds an entry for a file with
+   * the same contents and extension, the TRS is loaded from there; otherwise, it is read using
+   * the given reader, and stored in the cache.
+   */
+  public TRS readTrsFromFile(String filename, TrsReader reader) throws IOException {
+    Path entry = entryFor(filename);
+    if (Files.isRegularFile(entry)) {
+      try { return TrsSerialiser.readTrsFromFile(entry); }
+      catch (IOException | RuntimeException e) {}   // unusable entry: it is replaced below
+    }
+    TRS trs = reader.read(filename);
+    store(trs, entry);
+    return trs;
+  }
+}
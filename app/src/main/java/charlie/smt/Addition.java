@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -61,17 +62,18 @@ public final class Addition extends IntegerExpression {
     if (constant == 0) return this;
     if (_children.size() == 0) return new IValue(constant);
     if (_children.get(0) instanceof IValue k) {
-      if (k.queryValue() == -constant) {
+      IValue sum = k.plus(new IValue(constant));
+      if (sum.signum() == 0) {
         if (_children.size() == 2) return _children.get(1);
         else return new Addition(_children.subList(1, _children.size()));
       }
       if (_simplified) {
         ArrayList<IntegerExpression> ret = new ArrayList<IntegerExpression>(_children);
-        ret.set(0, new IValue(k.queryValue() + constant));
+        ret.set(0, sum);
         return new Addition(ret, true);
       }
       else {
-        _children.set(0, new IValue(k.queryValue() + constant));
+        _children.set(0, sum);
         Addition ret = new Addition(_children);
         _children.set(0, k);
         return ret;
@@ -104,13 +106,13 @@ public final class Addition extends IntegerExpression {
     ArrayList<IntegerExpression> pos = new ArrayList<IntegerExpression>();
     ArrayList<IntegerExpression> neg = new ArrayList<IntegerExpression>();
 
-    int constant = 0;
+    IValue constant = new IValue(0);
     for (IntegerExpression e : _children) {
-      if (e instanceof IValue k) constant += k.queryValue();
+      if (e instanceof IValue k) constant = constant.plus(k);
     }
 
-    if (constant > 0) pos.add(new IValue(constant));
-    else if (constant < 0) neg.add(new IValue(-constant));
+    if (constant.signum() > 0) pos.add(constant);
+    else if (constant.signum() < 0) neg.add(constant.times(new IValue(-1)));
 
     for (int i = 0; i < _children.size(); i++) {
       switch (_children.get(i)) {
@@ -135,9 +137,19 @@ public final class Addition extends IntegerExpression {
     return new Pair<IntegerExpression,IntegerExpression>(p, n);
   }
 
-  public int evaluate(Valuation val) {
-    int ret = 0;
-    for (int i = 0; i < _children.size(); i++) ret += _children.get(i).evaluate(val);
+  public long evaluate(Valuation val) {
+    long ret = 0;
+    for (int i = 0; i < _children.size(); i++) {
+      ret = Math.addExact(ret, _children.get(i).evaluate(val));
+    }
+    return ret;
+  }
+
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    BigInteger ret = BigInteger.ZERO;
+    for (int i = 0; i < _children.size(); i++) {
+      ret = ret.add(_children.get(i).evaluateUnbounded(val));
+    }
     return ret;
   }
 
@@ -174,11 +186,11 @@ public final class Addition extends IntegerExpression {
     }
     // store the children into a treemap so we can count duplicates, but merge the contants directly
     TreeMap<IntegerExpression,Integer> counts = new TreeMap<IntegerExpression,Integer>();
-    int constant = 0;
+    IValue constant = new IValue(0);
     for (IntegerExpression c : todo) {
       IntegerExpression main;
       int num;
-      if (c instanceof IValue k) { constant += k.queryValue(); continue; }
+      if (c instanceof IValue k) { constant = constant.plus(k); continue; }
       else if (c instanceof CMult cm) { main = cm.queryChild(); num = cm.queryConstant(); }
       else { main = c; num = 1; }
       Integer current = counts.get(main);
@@ -187,7 +199,7 @@ public final class Addition extends IntegerExpression {
     }
     // read them out
     ArrayList<IntegerExpression> ret = new ArrayList<IntegerExpression>();
-    if (constant != 0) ret.add(new IValue(constant));
+    if (constant.signum() != 0) ret.add(constant);
     for (Map.Entry<IntegerExpression,Integer> entry : counts.entrySet()) {
       int k = entry.getValue();
       if (k == 1) ret.add(entry.getKey());
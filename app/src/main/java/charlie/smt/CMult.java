@@ -15,6 +15,8 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
+
 /** A multiplication by a constant */
 public final class CMult extends IntegerExpression {
   private int _constant;
@@ -37,8 +39,12 @@ public final class CMult extends IntegerExpression {
     return _main;
   }
 
-  public int evaluate(Valuation val) {
-    return _constant * _main.evaluate(val);
+  public long evaluate(Valuation val) {
+    return Math.multiplyExact(_constant, _main.evaluate(val));
+  }
+
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    return BigInteger.valueOf(_constant).multiply(_main.evaluateUnbounded(val));
   }
 
   public IntegerExpression simplify() {
@@ -39,7 +39,8 @@ abstract sealed class Comparison extends Constraint permits Geq0, Is0, Neq0 {
   }
 
   public boolean evaluate(Valuation val) {
-    return evaluate(_expr.evaluate(val));
+    // we only need the sign of the expression, so overflow on longs falls back to BigInteger
+    return evaluate(_expr.evaluateBig(val).signum());
   }
 
   public void addToSmtString(StringBuilder builder) {
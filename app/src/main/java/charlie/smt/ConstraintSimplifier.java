@@ -0,0 +1,555 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.smt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The ConstraintSimplifier is used to preprocess a Constraint before sending it to an external
+ * SMT solver.  This does the following:
+ * - constant folding: any comparison whose expression simplifies to a constant is replaced by
+ *   true or false, and these are propagated upwards through junctions, negations and iffs;
+ * - subsumption in junctions: duplicate literals and comparisons are removed, complementary
+ *   literals make the junction trivial, and children absorbed by a sibling are removed;
+ * - unit propagation: boolean variables that occur (possibly negated) at the top of the
+ *   constraint are fixed to the corresponding value everywhere else;
+ * - bound propagation: comparisons on a single integer variable at the top of the constraint
+ *   yield lower and upper bounds, which are used to decide linear comparisons elsewhere.
+ *
+ * The result is a residual constraint that is satisfiable if and only if the original is, along
+ * with the values that were fixed during propagation.  If the residual is true or false, then the
+ * original constraint has been decided locally, and there is no need to call a solver at all.
+ */
+public class ConstraintSimplifier {
+  private static final long INFINITY = Long.MAX_VALUE;
+  private static final long NEGINFINITY = Long.MIN_VALUE;
+
+  private TreeMap<Integer,Boolean> _bools;
+  private TreeMap<Integer,Long> _lower;
+  private TreeMap<Integer,Long> _upper;
+  private boolean _conflict;
+  private Constraint _residual;
+
+  /**
+   * Sets up a simplifier for the given constraint, and immediately does all the simplification
+   * and propagation steps.
+   */
+  public ConstraintSimplifier(Constraint constraint) {
+    _bools = new TreeMap<Integer,Boolean>();
+    _lower = new TreeMap<Integer,Long>();
+    _upper = new TreeMap<Integer,Long>();
+    _conflict = false;
+    _residual = propagate(constraint);
+  }
+
+  /**
+   * Returns the residual constraint after simplification and propagation.  This constraint is
+   * satisfiable if and only if the original constraint is, and any valuation that satisfies it
+   * also satisfies the original constraint after being passed through completeValuation.
+   */
+  public Constraint queryResidual() {
+    return _residual;
+  }
+
+  /**
+   * If the original constraint could be decided locally, this returns YES (with a satisfying
+   * valuation) or NO.  Otherwise, null is returned, and the residual constraint should be passed
+   * to a solver.
+   */
+  public SmtSolver.Answer queryLocalAnswer() {
+    return switch (_residual) {
+      case Falsehood _ -> new SmtSolver.Answer.NO();
+      case Truth _ -> {
+        Valuation val = new Valuation();
+        completeValuation(val);
+        yield new SmtSolver.Answer.YES(val);
+      }
+      default -> null;
+    };
+  }
+
+  /**
+   * Given a valuation that satisfies the residual constraint, this stores the values that were
+   * fixed during propagation into it, so that it also satisfies the original constraint.
+   */
+  public void completeValuation(Valuation val) {
+    for (Map.Entry<Integer,Boolean> entry : _bools.entrySet()) {
+      val.setBool(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer,Long> entry : _lower.entrySet()) {
+      val.setInt(entry.getKey(), (int)(long)entry.getValue());
+    }
+    for (Map.Entry<Integer,Long> entry : _upper.entrySet()) {
+      if (!_lower.containsKey(entry.getKey())) {
+        val.setInt(entry.getKey(), (int)(long)entry.getValue());
+      }
+    }
+  }
+
+  // ===================================== CONSTANT FOLDING =====================================
+
+  /**
+   * This returns a constraint that is equivalent to the given one, but where constants have been
+   * folded into their context, negations have been pushed down to the literals and comparisons,
+   * and junctions have been cleaned up by removing duplicate and subsumed children.
+   *
+   * Note that the original Constraint is not affected, as this is an immutable structure.
+   */
+  public static Constraint simplify(Constraint c) {
+    return switch (c) {
+      case BVar _, NBVar _, Truth _, Falsehood _ -> c;
+      case Comparison comp -> simplifyComparison(comp);
+      case Not n -> simplify(n.queryChild()).negate();
+      case Iff i -> simplifyIff(i);
+      case Conjunction j -> simplifyJunction(j, true);
+      case Disjunction j -> simplifyJunction(j, false);
+    };
+  }
+
+  /** Helper function for simplify: handles comparisons by simplifying the underlying expression */
+  private static Constraint simplifyComparison(Comparison comp) {
+    IntegerExpression expr = comp.queryExpression().simplify();
+    if (expr instanceof IValue k) return SmtFactory.createValue(comp.evaluate(k.signum()));
+    if (expr == comp.queryExpression()) return comp;
+    return makeComparison(comp, expr);
+  }
+
+  /** Helper function: creates a comparison of the same kind as comp, but for the given expr */
+  private static Comparison makeComparison(Comparison comp, IntegerExpression expr) {
+    return switch (comp) {
+      case Geq0 _ -> new Geq0(expr);
+      case Is0 _ -> new Is0(expr);
+      case Neq0 _ -> new Neq0(expr);
+    };
+  }
+
+  /** Helper function for simplify: handles Iff by folding constants and equal sides */
+  private static Constraint simplifyIff(Iff iff) {
+    Constraint left = simplify(iff.queryLeft());
+    Constraint right = simplify(iff.queryRight());
+    if (left instanceof Truth) return right;
+    if (left instanceof Falsehood) return right.negate();
+    if (right instanceof Truth) return left;
+    if (right instanceof Falsehood) return left.negate();
+    if (left.equals(right)) return new Truth();
+    if (left.equals(right.negate())) return new Falsehood();
+    if (left == iff.queryLeft() && right == iff.queryRight()) return iff;
+    return new Iff(left, right);
+  }
+
+  /**
+   * Helper function for simplifyJunction and the absorption check: splits a simplified expression
+   * into its constant part and the remainder.  The remainder is never null, since constant
+   * expressions have already been folded.
+   */
+  private static IntegerExpression nonConstantPart(IntegerExpression expr) {
+    if (!(expr instanceof Addition a) || !(a.queryChild(1) instanceof IValue k) || !k.fitsInt()) {
+      return expr;
+    }
+    if (a.numChildren() == 2) return a.queryChild(2);
+    ArrayList<IntegerExpression> parts = new ArrayList<IntegerExpression>();
+    for (int i = 2; i <= a.numChildren(); i++) parts.add(a.queryChild(i));
+    return new Addition(parts);
+  }
+
+  /** Helper function: returns the constant part of a simplified expression. */
+  private static int constantPart(IntegerExpression expr) {
+    if (expr instanceof Addition a && a.queryChild(1) instanceof IValue k && k.fitsInt()) {
+      return k.queryValue();
+    }
+    return 0;
+  }
+
+  /**
+   * Helper class for simplifyJunction: this keeps track of the literals and comparisons that have
+   * been added to a junction so far, so we can recognise duplicates, complements and subsumption.
+   * A conjunction is treated as a set of requirements that must all hold, a disjunction as a set
+   * of alternatives of which one must hold; for Geq0 constraints of the form rest + k ≥ 0 we only
+   * need to keep the strongest (for a conjunction) or weakest (for a disjunction) k.
+   */
+  private static class JunctionCollector {
+    private boolean _conj;
+    private ArrayList<Constraint> _parts = new ArrayList<Constraint>();
+    private TreeSet<Integer> _pos = new TreeSet<Integer>();
+    private TreeSet<Integer> _neg = new TreeSet<Integer>();
+    private TreeMap<IntegerExpression,Integer> _geqIndex = new TreeMap<IntegerExpression,Integer>();
+    private TreeSet<IntegerExpression> _eqs = new TreeSet<IntegerExpression>();
+    private TreeSet<IntegerExpression> _neqs = new TreeSet<IntegerExpression>();
+    private boolean _absorbed = false;
+
+    JunctionCollector(boolean conjunction) { _conj = conjunction; }
+
+    /** Adds a simplified child; returns false if this makes the whole junction absorbing. */
+    boolean add(Constraint c) {
+      switch (c) {
+        case Truth _: if (_conj) return true; _absorbed = true; return false;
+        case Falsehood _: if (!_conj) return true; _absorbed = true; return false;
+        case BVar x:
+          if (_neg.contains(x.queryIndex())) { _absorbed = true; return false; }
+          if (_pos.add(x.queryIndex())) _parts.add(x);
+          return true;
+        case NBVar x:
+          if (_pos.contains(x.queryIndex())) { _absorbed = true; return false; }
+          if (_neg.add(x.queryIndex())) _parts.add(x);
+          return true;
+        case Geq0 g: return addGeq(g);
+        case Is0 e:
+          if (_neqs.contains(e.queryExpression())) { _absorbed = true; return false; }
+          if (_eqs.add(e.queryExpression())) _parts.add(e);
+          return true;
+        case Neq0 e:
+          if (_eqs.contains(e.queryExpression())) { _absorbed = true; return false; }
+          if (_neqs.add(e.queryExpression())) _parts.add(e);
+          return true;
+        case Conjunction j:
+          if (_conj) { for (Constraint d : j._children) if (!add(d)) return false; return true; }
+          _parts.add(j);
+          return true;
+        case Disjunction j:
+          if (!_conj) { for (Constraint d : j._children) if (!add(d)) return false; return true; }
+          _parts.add(j);
+          return true;
+        default:
+          _parts.add(c);
+          return true;
+      }
+    }
+
+    /** Helper for add: handles rest + k ≥ 0 constraints. */
+    private boolean addGeq(Geq0 g) {
+      IntegerExpression rest = nonConstantPart(g.queryExpression());
+      int k = constantPart(g.queryExpression());
+      // rest + k ≥ 0 together with -rest + l ≥ 0 means -k ≤ rest ≤ l
+      Integer opposite = _geqIndex.get(rest.negate());
+      if (opposite != null) {
+        long l = constantPart(((Geq0)_parts.get(opposite)).queryExpression());
+        if ((_conj && k + l < 0) || (!_conj && k + l + 1 >= 0)) { _absorbed = true; return false; }
+      }
+      Integer index = _geqIndex.get(rest);
+      if (index == null) { _geqIndex.put(rest, _parts.size()); _parts.add(g); return true; }
+      int current = constantPart(((Geq0)_parts.get(index)).queryExpression());
+      if ((_conj && k < current) || (!_conj && k > current)) _parts.set(index, g);
+      return true;
+    }
+
+    /**
+     * Returns true if the given child of a sub-junction (of the opposite kind) is "covered" by
+     * what we have stored here, which means that the sub-junction can be dropped.  For a
+     * conjunction, this means that the child is implied by one of our parts; for a disjunction,
+     * that it implies one of our parts.
+     */
+    private boolean covers(Constraint c) {
+      switch (c) {
+        case BVar x: return _pos.contains(x.queryIndex());
+        case NBVar x: return _neg.contains(x.queryIndex());
+        case Is0 e: return _eqs.contains(e.queryExpression());
+        case Neq0 e: return _neqs.contains(e.queryExpression());
+        case Geq0 g:
+          Integer index = _geqIndex.get(nonConstantPart(g.queryExpression()));
+          if (index == null) return false;
+          int ours = constantPart(((Geq0)_parts.get(index)).queryExpression());
+          int theirs = constantPart(g.queryExpression());
+          return _conj ? theirs >= ours : theirs <= ours;
+        default: return false;
+      }
+    }
+
+    /** Returns the final junction after removing absorbed sub-junctions. */
+    Constraint build() {
+      if (_absorbed) return _conj ? new Falsehood() : new Truth();
+      ArrayList<Constraint> result = new ArrayList<Constraint>();
+      for (Constraint c : _parts) {
+        if (c instanceof Junction j && (j instanceof Disjunction) == _conj) {
+          boolean drop = false;
+          for (int i = 0; i < j._children.size() && !drop; i++) drop = covers(j._children.get(i));
+          if (drop) continue;
+        }
+        result.add(c);
+      }
+      if (result.size() == 0) return _conj ? new Truth() : new Falsehood();
+      if (result.size() == 1) return result.get(0);
+      return _conj ? new Conjunction(result) : new Disjunction(result);
+    }
+  }
+
+  /** Helper function for simplify: handles conjunctions and disjunctions. */
+  private static Constraint simplifyJunction(Junction junction, boolean conj) {
+    JunctionCollector collector = new JunctionCollector(conj);
+    for (Constraint child : junction._children) {
+      if (!collector.add(simplify(child))) break;
+    }
+    return collector.build();
+  }
+
+  // ======================================== PROPAGATION =======================================
+
+  /**
+   * This simplifies the given constraint, and then repeatedly stores the literals and
+   * single-variable bounds at the top of the constraint, and substitutes them into the rest of
+   * the constraint, until nothing new is learned.  The result is the residual constraint.
+   */
+  private Constraint propagate(Constraint c) {
+    c = simplify(c);
+    while (!(c instanceof Truth) && !(c instanceof Falsehood)) {
+      boolean changed = false;
+      List<Constraint> parts = c instanceof Conjunction j ? j._children : List.of(c);
+      for (Constraint part : parts) {
+        switch (part) {
+          case BVar x: _bools.put(x.queryIndex(), true); changed = true; break;
+          case NBVar x: _bools.put(x.queryIndex(), false); changed = true; break;
+          case Geq0 g: changed |= learnBound(g.queryExpression(), false); break;
+          case Is0 e: changed |= learnBound(e.queryExpression(), true); break;
+          default: break;
+        }
+      }
+      if (!changed) break;
+      if (hasConflict()) return new Falsehood();
+      c = simplify(substitute(c));
+    }
+    if (c instanceof Truth || c instanceof Falsehood) return c;
+    return addBoundsToResidual(c);
+  }
+
+  /** Returns whether we derived an impossible bound or equality. */
+  private boolean hasConflict() {
+    if (_conflict) return true;
+    for (Map.Entry<Integer,Long> entry : _lower.entrySet()) {
+      Long upper = _upper.get(entry.getKey());
+      if (upper != null && upper < entry.getValue()) return true;
+    }
+    return false;
+  }
+
+  /**
+   * If expr has the form k + a * x for an integer variable x, this stores the corresponding bound
+   * for a * x + k ≥ 0 (if equality is false) or a * x + k = 0 (if equality is true) and returns
+   * whether anything changed.  Bounds that do not fit in an int (or whose negation does not) are
+   * ignored, as are expressions of a different shape.
+   */
+  private boolean learnBound(IntegerExpression expr, boolean equality) {
+    long k = constantPart(expr);
+    IntegerExpression main = nonConstantPart(expr);
+    long a;
+    IVar x;
+    if (main instanceof IVar y) { x = y; a = 1; }
+    else if (main instanceof CMult cm && cm.queryChild() instanceof IVar y) {
+      x = y; a = cm.queryConstant();
+    }
+    else return false;
+    if (equality) {
+      if (k % a != 0) { _conflict = true; return true; }
+      return updateLower(x.queryIndex(), -k / a) | updateUpper(x.queryIndex(), -k / a);
+    }
+    if (a > 0) return updateLower(x.queryIndex(), -Math.floorDiv(k, a));
+    else return updateUpper(x.queryIndex(), Math.floorDiv(k, -a));
+  }
+
+  /** Helper function for learnBound: stores x ≥ value if this is an improvement */
+  private boolean updateLower(int index, long value) {
+    if (value <= Integer.MIN_VALUE || value > Integer.MAX_VALUE) return false;
+    Long current = _lower.get(index);
+    if (current != null && current >= value) return false;
+    _lower.put(index, value);
+    return true;
+  }
+
+  /** Helper function for learnBound: stores x ≤ value if this is an improvement */
+  private boolean updateUpper(int index, long value) {
+    if (value <= Integer.MIN_VALUE || value > Integer.MAX_VALUE) return false;
+    Long current = _upper.get(index);
+    if (current != null && current <= value) return false;
+    _upper.put(index, value);
+    return true;
+  }
+
+  /** Returns the value of the integer variable with the given index, if it is fixed; or null. */
+  private Long queryFixed(int index) {
+    Long lower = _lower.get(index);
+    if (lower == null || !lower.equals(_upper.get(index))) return null;
+    return lower;
+  }
+
+  /**
+   * This replaces all fixed boolean and integer variables in c by their values, and decides any
+   * linear comparisons that hold (or fail) for all values within the current bounds.
+   */
+  private Constraint substitute(Constraint c) {
+    switch (c) {
+      case BVar x:
+        Boolean b = _bools.get(x.queryIndex());
+        return b == null ? x : SmtFactory.createValue(b);
+      case NBVar x:
+        Boolean nb = _bools.get(x.queryIndex());
+        return nb == null ? x : SmtFactory.createValue(!nb);
+      case Truth _, Falsehood _: return c;
+      case Comparison comp: return substituteComparison(comp);
+      case Not n: return new Not(substitute(n.queryChild()));
+      case Iff i: return new Iff(substitute(i.queryLeft()), substitute(i.queryRight()));
+      case Conjunction j:
+        ArrayList<Constraint> cargs = new ArrayList<Constraint>();
+        for (Constraint child : j._children) cargs.add(substitute(child));
+        return new Conjunction(cargs);
+      case Disjunction j:
+        ArrayList<Constraint> dargs = new ArrayList<Constraint>();
+        for (Constraint child : j._children) dargs.add(substitute(child));
+        return new Disjunction(dargs);
+    }
+  }
+
+  /** Helper function for substitute: handles comparisons through interval reasoning. */
+  private Constraint substituteComparison(Comparison comp) {
+    IntegerExpression expr = substitute(comp.queryExpression());
+    if (expr != comp.queryExpression()) expr = expr.simplify();
+    long[] range = interval(expr);
+    if (range != null) {
+      long lo = range[0], hi = range[1];
+      switch (comp) {
+        case Geq0 _:
+          if (lo != NEGINFINITY && lo >= 0) return new Truth();
+          if (hi != INFINITY && hi < 0) return new Falsehood();
+          break;
+        case Is0 _:
+          if (lo == 0 && hi == 0) return new Truth();
+          if ((lo != NEGINFINITY && lo > 0) || (hi != INFINITY && hi < 0)) return new Falsehood();
+          break;
+        case Neq0 _:
+          if (lo == 0 && hi == 0) return new Falsehood();
+          if ((lo != NEGINFINITY && lo > 0) || (hi != INFINITY && hi < 0)) return new Truth();
+          break;
+      }
+    }
+    if (expr == comp.queryExpression()) return comp;
+    return makeComparison(comp, expr);
+  }
+
+  /** This replaces all fixed integer variables in expr by their values. */
+  private IntegerExpression substitute(IntegerExpression expr) {
+    switch (expr) {
+      case IValue _: return expr;
+      case IVar x:
+        Long value = queryFixed(x.queryIndex());
+        return value == null ? x : new IValue((int)(long)value);
+      case CMult cm:
+        IntegerExpression main = substitute(cm.queryChild());
+        return main == cm.queryChild() ? cm : new CMult(cm.queryConstant(), main);
+      case Addition a:
+        ArrayList<IntegerExpression> aargs = new ArrayList<IntegerExpression>();
+        if (!substituteChildren(a.numChildren(), a::queryChild, aargs)) return a;
+        return new Addition(aargs);
+      case Multiplication m:
+        ArrayList<IntegerExpression> margs = new ArrayList<IntegerExpression>();
+        if (!substituteChildren(m.numChildren(), m::queryChild, margs)) return m;
+        return new Multiplication(margs);
+      case Division d:
+        IntegerExpression dn = substitute(d.queryNumerator());
+        IntegerExpression dd = substitute(d.queryDenominator());
+        if (dn == d.queryNumerator() && dd == d.queryDenominator()) return d;
+        return new Division(dn, dd);
+      case Modulo m:
+        IntegerExpression mn = substitute(m.queryNumerator());
+        IntegerExpression md = substitute(m.queryDenominator());
+        if (mn == m.queryNumerator() && md == m.queryDenominator()) return m;
+        return new Modulo(mn, md);
+    }
+  }
+
+  /**
+   * Helper function for substitute: substitutes the children 1..num, stores them in args, and
+   * returns whether any of them was changed.
+   */
+  private boolean substituteChildren(int num, java.util.function.IntFunction<IntegerExpression> get,
+                                     ArrayList<IntegerExpression> args) {
+    boolean changed = false;
+    for (int i = 1; i <= num; i++) {
+      IntegerExpression child = get.apply(i);
+      IntegerExpression sub = substitute(child);
+      changed |= sub != child;
+      args.add(sub);
+    }
+    return changed;
+  }
+
+  /**
+   * If expr is a linear expression (that is, a sum of constants, variables and multiplications
+   * of variables by constants), this returns the lowest and highest values it may take given the
+   * current bounds (where NEGINFINITY and INFINITY indicate the absence of a bound).  Otherwise
+   * null is returned.
+   */
+  private long[] interval(IntegerExpression expr) {
+    switch (expr) {
+      case IValue k:
+        if (!k.fitsInt()) return null;
+        return new long[] { k.queryValue(), k.queryValue() };
+      case IVar x:
+        Long lo = _lower.get(x.queryIndex()), hi = _upper.get(x.queryIndex());
+        return new long[] { lo == null ? NEGINFINITY : lo, hi == null ? INFINITY : hi };
+      case CMult cm:
+        if (!(cm.queryChild() instanceof IVar)) return null;
+        long[] range = interval(cm.queryChild());
+        long a = cm.queryConstant();
+        long l = range[0] == NEGINFINITY ? NEGINFINITY : a * range[0];
+        long h = range[1] == INFINITY ? INFINITY : a * range[1];
+        if (a >= 0) return new long[] { l, h };
+        return new long[] { h == INFINITY ? NEGINFINITY : h, l == NEGINFINITY ? INFINITY : l };
+      case Addition add:
+        long[] ret = new long[] { 0, 0 };
+        for (int i = 1; i <= add.numChildren(); i++) {
+          long[] sub = interval(add.queryChild(i));
+          if (sub == null) return null;
+          ret[0] = addBound(ret[0], sub[0], NEGINFINITY);
+          ret[1] = addBound(ret[1], sub[1], INFINITY);
+        }
+        return ret;
+      default: return null;
+    }
+  }
+
+  /** Helper function for interval: adds two bounds, widening to infinity on overflow. */
+  private static long addBound(long a, long b, long infinity) {
+    if (a == infinity || b == infinity) return infinity;
+    try { return Math.addExact(a, b); }
+    catch (ArithmeticException e) { return infinity; }
+  }
+
+  /**
+   * After propagation, the bounds of variables that are not fixed are no longer present in the
+   * residual, so we add them back as explicit requirements, and forget them here.  This ensures
+   * that a solver for the residual respects the bounds, and that completeValuation only
+   * overrides variables that do not occur in the residual.
+   */
+  private Constraint addBoundsToResidual(Constraint c) {
+    ArrayList<Constraint> parts = new ArrayList<Constraint>();
+    parts.add(c);
+    TreeSet<Integer> loose = new TreeSet<Integer>();
+    for (Map.Entry<Integer,Long> entry : _lower.entrySet()) {
+      if (queryFixed(entry.getKey()) != null) continue;
+      parts.add(new Geq0(new IVar(entry.getKey()).add((int)-entry.getValue())));
+      loose.add(entry.getKey());
+    }
+    for (Map.Entry<Integer,Long> entry : _upper.entrySet()) {
+      if (queryFixed(entry.getKey()) != null) continue;
+      parts.add(new Geq0(new IVar(entry.getKey()).negate().add((int)(long)entry.getValue())));
+      loose.add(entry.getKey());
+    }
+    for (Integer index : loose) { _lower.remove(index); _upper.remove(index); }
+    if (parts.size() == 1) return c;
+    return new Conjunction(parts);
+  }
+}
@@ -15,6 +15,8 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
+
 public final class Division extends IntegerExpression {
   private IntegerExpression _numerator;
   private IntegerExpression _denominator;
@@ -39,20 +41,39 @@ public final class Division extends IntegerExpression {
    * that is: a / b following the SMTLIB standard (this is *not* the same as what _numerator /
    * _denominator returns in Java when negative values are concerned.
    */
-  public int evaluate(Valuation val) {
+  public long evaluate(Valuation val) {
     return evaluateFor(_numerator.evaluate(val), _denominator.evaluate(val));
   }
 
-  private static int evaluateFor(int n, int d) {
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    return evaluateFor(_numerator.evaluateUnbounded(val), _denominator.evaluateUnbounded(val));
+  }
+
+  private static long evaluateFor(long n, long d) {
     if (d == 0) return 0; // let's just make dividing by 0 return 0
-    int sign = (n >= 0 && d >= 0) || (n < 0 && d < 0) ? 1 : -1;
-    int abs_n = n >= 0 ? n : - n;
-    int abs_d = d >= 0 ? d : - d;
+    long sign = (n >= 0 && d >= 0) || (n < 0 && d < 0) ? 1 : -1;
+    long abs_n = n >= 0 ? n : Math.negateExact(n);
+    long abs_d = d >= 0 ? d : Math.negateExact(d);
     if (n >= 0) return sign * (abs_n / abs_d);
     else if (abs_n % abs_d == 0) return sign * (abs_n / abs_d);
     else return sign * (abs_n / abs_d + 1);
   }
 
+  /** The same as evaluateFor on longs, but for arbitrarily large numbers. */
+  private static BigInteger evaluateFor(BigInteger n, BigInteger d) {
+    if (d.signum() == 0) return BigInteger.ZERO;
+    return n.subtract(n.mod(d.abs())).divide(d);
+  }
+
+  /** Helper function for simplify: divides two constants, staying on longs if possible. */
+  private static IValue evaluateFor(IValue n, IValue d) {
+    if (n.fitsLong() && d.fitsLong()) {
+      try { return new IValue(evaluateFor(n.queryLongValue(), d.queryLongValue())); }
+      catch (ArithmeticException e) { }
+    }
+    return new IValue(evaluateFor(n.queryBigValue(), d.queryBigValue()));
+  }
+
   /**
    * Helper function for the constructor: this sets _simplified to true if the division is
    * currently presented in simplified form.
@@ -61,7 +82,7 @@ public final class Division extends IntegerExpression {
     if (_numerator instanceof IValue && _denominator instanceof IValue) return;
     if (!_numerator.isSimplified() || !_denominator.isSimplified()) return;
     if (_denominator instanceof IValue k) {
-      _simplified = k.queryValue() != 1 && k.queryValue() >= 0;
+      _simplified = !k.hasValue(1) && k.signum() >= 0;
     }   
     else if (_denominator instanceof CMult cm) {
       _simplified = cm.queryConstant() >= 2;
@@ -75,10 +96,10 @@ public final class Division extends IntegerExpression {
     IntegerExpression d = _denominator.simplify();
     switch (_denominator) {
       case IValue k:
-        if (n instanceof IValue i) return new IValue(evaluateFor(i.queryValue(), k.queryValue()));
-        if (k.queryValue() == 1) return _numerator;
-        if (k.queryValue() == -1) return _numerator.multiply(-1); // a div -1 = -a
-        if (k.queryValue() < 0) { // a div -b = - (a div b)
+        if (n instanceof IValue i) return evaluateFor(i, k);
+        if (k.hasValue(1)) return _numerator;
+        if (k.hasValue(-1)) return _numerator.multiply(-1); // a div -1 = -a
+        if (k.signum() < 0) { // a div -b = - (a div b)
           IntegerExpression ret = new CMult(-1, new Division(n, k.multiply(-1)));
           return ret.simplify();
         }
@@ -80,7 +80,8 @@ public class IExpPrinter {
    * The default functionality is just to add the value to the string builder.
    */
   protected void printValue(IValue k, StringBuilder builder) {
-    builder.append("" + k.queryValue());
+    if (k.fitsLong()) builder.append(k.queryLongValue());
+    else builder.append(k.queryBigValue());
   }
 
   /**
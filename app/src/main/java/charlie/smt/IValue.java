@@ -15,45 +15,123 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
+
+/**
+ * An integer constant.  Most constants fit in a long, and are stored as such; only if the value
+ * does not fit in a long do we fall back to a BigInteger.
+ */
 public final class IValue extends IntegerExpression {
-  private int _k;
+  private long _k;          // the value, if it fits in a long
+  private BigInteger _big;  // the value, if it does not fit in a long; null otherwise
 
   /** The constructor is hidden, since IntegerExpressions should be made through the SmtFactory. */
-  IValue(int i) {
+  IValue(long i) {
     _k = i;
+    _big = null;
     _simplified = true;
   }
 
+  /** The constructor is hidden, since IntegerExpressions should be made through the SmtFactory. */
+  IValue(BigInteger i) {
+    if (i.bitLength() < 64) { _k = i.longValue(); _big = null; }
+    else { _k = 0; _big = i; }
+    _simplified = true;
+  }
+
+  /**
+   * Returns the value of this constant, if it fits in an int.  If not, an ArithmeticException is
+   * thrown; use queryLongValue or queryBigValue instead.
+   */
   public int queryValue() {
-    return _k;
+    if (_big != null) throw new ArithmeticException("integer overflow");
+    return Math.toIntExact(_k);
   }
 
-  public int evaluate(Valuation val) {
+  /** Returns whether the value of this constant fits in a long. */
+  public boolean fitsLong() {
+    return _big == null;
+  }
+
+  /** Returns whether the value of this constant fits in an int. */
+  public boolean fitsInt() {
+    return _big == null && _k >= Integer.MIN_VALUE && _k <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the value of this constant, if it fits in a long.  If not, an ArithmeticException is
+   * thrown; use queryBigValue instead.
+   */
+  public long queryLongValue() {
+    if (_big != null) throw new ArithmeticException("long overflow");
     return _k;
   }
 
+  /** Returns the value of this constant as a BigInteger (regardless of its size). */
+  public BigInteger queryBigValue() {
+    return _big == null ? BigInteger.valueOf(_k) : _big;
+  }
+
+  /** Returns -1, 0 or 1 depending on whether the value is negative, zero or positive. */
+  public int signum() {
+    return _big == null ? Long.signum(_k) : _big.signum();
+  }
+
+  /** Returns whether this constant has exactly the given value. */
+  public boolean hasValue(long value) {
+    return _big == null && _k == value;
+  }
+
+  /** Returns the constant this + other, staying on longs if possible. */
+  public IValue plus(IValue other) {
+    if (_big == null && other._big == null) {
+      try { return new IValue(Math.addExact(_k, other._k)); }
+      catch (ArithmeticException e) { }
+    }
+    return new IValue(queryBigValue().add(other.queryBigValue()));
+  }
+
+  /** Returns the constant this * other, staying on longs if possible. */
+  public IValue times(IValue other) {
+    if (_big == null && other._big == null) {
+      try { return new IValue(Math.multiplyExact(_k, other._k)); }
+      catch (ArithmeticException e) { }
+    }
+    return new IValue(queryBigValue().multiply(other.queryBigValue()));
+  }
+
+  public long evaluate(Valuation val) {
+    return queryLongValue();
+  }
+
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    return queryBigValue();
+  }
+
   public IntegerExpression simplify() {
     return this;
   }
 
   public IntegerExpression add(int value) {
-    return new IValue(value + _k);
+    return plus(new IValue(value));
   }
 
   public IntegerExpression multiply(int value) {
-    return new IValue(value * _k);
+    return times(new IValue(value));
   }
 
   public void addToSmtString(StringBuilder builder) {
-    if (_k >= 0) builder.append("" + _k);
-    else builder.append("(- " + (-_k) + ")");
+    if (signum() >= 0) builder.append(_big == null ? Long.toString(_k) : _big.toString());
+    else builder.append("(- " + queryBigValue().negate() + ")");
   }
 
   public int compareTo(IntegerExpression other) {
     return switch (other) {
-      case IValue v -> _k - v.queryValue();
+      case IValue v -> {
+        if (_big == null && v._big == null) yield Long.compare(_k, v._k);
+        yield queryBigValue().compareTo(v.queryBigValue());
+      }
       default -> -1;
     };
   }
 }
-
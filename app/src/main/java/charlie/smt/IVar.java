@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import charlie.exceptions.SmtEvaluationException;
 
 public final class IVar extends IntegerExpression {
@@ -43,9 +44,14 @@ public final class IVar extends IntegerExpression {
     return _name;
   }
 
-  public int evaluate(Valuation val) {
+  public long evaluate(Valuation val) {
     if (val == null) throw new SmtEvaluationException("i" + _index + " (" + _name + ")");
-    else return val.queryIntAssignment(_index);
+    else return val.queryLongAssignment(_index);
+  }
+
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    if (val == null) throw new SmtEvaluationException("i" + _index + " (" + _name + ")");
+    else return val.queryBigAssignment(_index);
   }
 
   public IntegerExpression simplify() {
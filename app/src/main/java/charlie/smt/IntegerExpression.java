@@ -16,6 +16,7 @@
 package charlie.smt;
 
 import java.lang.Comparable;
+import java.math.BigInteger;
 
 /**
  * An IntegerExpression is an expression built from integer values, addition, multiplication, etc.:
@@ -43,9 +44,27 @@ public sealed abstract class IntegerExpression implements Comparable<IntegerExpr
 
   /**
    * This evaluates the current expression, taking the values for all variables from the given
-   * valuation.
+   * valuation.  The computation is done on longs; if the result (or any intermediate result) does
+   * not fit in a long, an ArithmeticException is thrown.  Use evaluateBig to get the result
+   * regardless of its size.
    */
-  public abstract int evaluate(Valuation val);
+  public abstract long evaluate(Valuation val);
+
+  /**
+   * This evaluates the current expression using arbitrary-precision arithmetic.  This is used as
+   * the fallback of evaluateBig when evaluate overflows, so does not need to be fast.
+   */
+  protected abstract BigInteger evaluateUnbounded(Valuation val);
+
+  /**
+   * This evaluates the current expression, taking the values for all variables from the given
+   * valuation.  The computation is done on longs for as long as possible, and only falls back to
+   * BigIntegers if the result would overflow.
+   */
+  public final BigInteger evaluateBig(Valuation val) {
+    try { return BigInteger.valueOf(evaluate(val)); }
+    catch (ArithmeticException e) { return evaluateUnbounded(val); }
+  }
 
   /** Adds the SMT description of the current expression to the given string builder. */
   public abstract void addToSmtString(StringBuilder builder);
@@ -104,7 +123,14 @@ public sealed abstract class IntegerExpression implements Comparable<IntegerExpr
    * Assuming the current expression has no variables, this function evaluates it to its integer
    * value.  If there is a variable in it, an SmtEvaluationException will be thrown instead.
    */
-  public final int evaluate() { return evaluate(null); }
+  public final long evaluate() { return evaluate(null); }
+
+  /**
+   * Assuming the current expression has no variables, this function evaluates it to its integer
+   * value, regardless of its size.  If there is a variable in it, an SmtEvaluationException will
+   * be thrown instead.
+   */
+  public final BigInteger evaluateBig() { return evaluateBig(null); }
 
   /**
    * This returns an integer expression obtained from multiplying the current one by -1.  If the
@@ -15,6 +15,8 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
+
 public final class Modulo extends IntegerExpression {
   private IntegerExpression _numerator;
   private IntegerExpression _denominator;
@@ -40,19 +42,38 @@ public final class Modulo extends IntegerExpression {
    * (this is *not* the same as what _numerator % _denominator returns in Java when negative
    * values are concerned).
    */
-  public int evaluate(Valuation val) {
+  public long evaluate(Valuation val) {
     return evaluateFor(_numerator.evaluate(val), _denominator.evaluate(val));
   }
 
-  private static int evaluateFor(int n, int d) {
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    return evaluateFor(_numerator.evaluateUnbounded(val), _denominator.evaluateUnbounded(val));
+  }
+
+  private static long evaluateFor(long n, long d) {
     if (d == 0) return 0; // let's just make dividing by 0 return 0
-    int abs_n = n >= 0 ? n : - n;
-    int abs_d = d >= 0 ? d : - d;
-    int ret = abs_n % abs_d;
+    long abs_n = n >= 0 ? n : Math.negateExact(n);
+    long abs_d = d >= 0 ? d : Math.negateExact(d);
+    long ret = abs_n % abs_d;
     if (n >= 0 || ret == 0) return ret;
     return abs_d - ret;
   }
 
+  /** The same as evaluateFor on longs, but for arbitrarily large numbers. */
+  private static BigInteger evaluateFor(BigInteger n, BigInteger d) {
+    if (d.signum() == 0) return BigInteger.ZERO;
+    return n.mod(d.abs());
+  }
+
+  /** Helper function for simplify: takes the modulo of two constants, on longs if possible. */
+  private static IValue evaluateFor(IValue n, IValue d) {
+    if (n.fitsLong() && d.fitsLong()) {
+      try { return new IValue(evaluateFor(n.queryLongValue(), d.queryLongValue())); }
+      catch (ArithmeticException e) { }
+    }
+    return new IValue(evaluateFor(n.queryBigValue(), d.queryBigValue()));
+  }
+
   /**
    * Helper function for the constructor: this sets _simplified to true if the division is
    * currently presented in simplified form.
@@ -61,7 +82,7 @@ public final class Modulo extends IntegerExpression {
     if (_numerator instanceof IValue && _denominator instanceof IValue) return;
     if (!_numerator.isSimplified() || !_denominator.isSimplified()) return;
     if (_denominator instanceof IValue k) {
-      _simplified = k.queryValue() != 1 && k.queryValue() >= 0;
+      _simplified = !k.hasValue(1) && k.signum() >= 0;
     }
     else if (_denominator instanceof CMult cm) {
       _simplified = cm.queryConstant() >= 2;
@@ -75,9 +96,9 @@ public final class Modulo extends IntegerExpression {
     IntegerExpression d = _denominator.simplify();
     switch (_denominator) {
       case IValue k:
-        if (n instanceof IValue i) return new IValue(evaluateFor(i.queryValue(), k.queryValue()));
-        if (k.queryValue() == 1 || k.queryValue() == -1) return new IValue(0);
-        if (k.queryValue() < 0) { // a mod -b = a mod b
+        if (n instanceof IValue i) return evaluateFor(i, k);
+        if (k.hasValue(1) || k.hasValue(-1)) return new IValue(0);
+        if (k.signum() < 0) { // a mod -b = a mod b
           return new Modulo(n, k.multiply(-1));
         }
         return new Modulo(n, d);
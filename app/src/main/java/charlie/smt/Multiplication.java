@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -63,9 +64,19 @@ public final class Multiplication extends IntegerExpression {
     return _children.get(index-1);
   }
 
-  public int evaluate(Valuation val) {
-    int ret = 1;
-    for (int i = 0; i < _children.size() && ret != 0; i++) ret *= _children.get(i).evaluate(val);
+  public long evaluate(Valuation val) {
+    long ret = 1;
+    for (int i = 0; i < _children.size() && ret != 0; i++) {
+      ret = Math.multiplyExact(ret, _children.get(i).evaluate(val));
+    }
+    return ret;
+  }
+
+  protected BigInteger evaluateUnbounded(Valuation val) {
+    BigInteger ret = BigInteger.ONE;
+    for (int i = 0; i < _children.size() && ret.signum() != 0; i++) {
+      ret = ret.multiply(_children.get(i).evaluateUnbounded(val));
+    }
     return ret;
   }
 
@@ -90,31 +101,42 @@ public final class Multiplication extends IntegerExpression {
    * these are multiplied together and returned.  Multiplications in the simplifications of from
    * are expanded.
    */
-  private int addSimplifiedChildren(ArrayList<IntegerExpression> from,
-                                    ArrayList<IntegerExpression> to) {
-    int constant = 1;
+  private IValue addSimplifiedChildren(ArrayList<IntegerExpression> from,
+                                       ArrayList<IntegerExpression> to) {
+    IValue constant = new IValue(1);
     for (IntegerExpression child : from) {
       IntegerExpression c = child.simplify();
-      if (c instanceof IValue k) constant *= k.queryValue();
+      if (c instanceof IValue k) constant = constant.times(k);
       else if (c instanceof CMult cm) {
-        constant *= cm.queryConstant();
+        constant = constant.times(new IValue(cm.queryConstant()));
         to.add(cm.queryChild());
       }
       else if (c instanceof Multiplication m) {
-        constant *= addSimplifiedChildren(m._children, to);
+        constant = constant.times(addSimplifiedChildren(m._children, to));
       }
       else to.add(c);
     }
     return constant;
   }
 
+  /**
+   * Helper function for simplify: multiplies the given (simplified) expression by the constant.
+   * Normally, this yields a CMult, but if the constant does not fit in an int, we have no choice
+   * but to keep it as part of a Multiplication.
+   */
+  private static IntegerExpression multiplyBy(IntegerExpression expr, IValue constant) {
+    if (constant.fitsInt()) return expr.multiply(constant.queryValue());
+    if (expr instanceof IValue k) return k.times(constant);
+    return new Multiplication(constant, expr);
+  }
+
   public IntegerExpression simplify() {
     if (_simplified) return this;
     ArrayList<IntegerExpression> todo = new ArrayList<IntegerExpression>();
-    int constant = addSimplifiedChildren(_children, todo);
+    IValue constant = addSimplifiedChildren(_children, todo);
     Collections.sort(todo);
-    if (todo.size() == 0) return new IValue(constant);
-    if (todo.size() == 1) return todo.get(0).multiply(constant);
+    if (todo.size() == 0) return constant;
+    if (todo.size() == 1) return multiplyBy(todo.get(0), constant);
 
     for (int i = 0; i < todo.size(); i++) {
       if (todo.get(i) instanceof Addition a) {
@@ -123,12 +145,12 @@ public final class Multiplication extends IntegerExpression {
           todo.set(i, a.queryChild(j));
           parts.add(new Multiplication(todo));
         }
-        return (new Addition(parts)).simplify();
+        return multiplyBy((new Addition(parts)).simplify(), constant);
       }
     }
 
     // no additions => we're good!
-    return (new Multiplication(todo)).multiply(constant);
+    return multiplyBy(new Multiplication(todo), constant);
   }
 
   public void addToSmtString(StringBuilder builder) {
@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import java.util.List;
 import charlie.exceptions.NullStorageException;
 
@@ -29,7 +30,11 @@ public class SmtFactory {
     return problem.createIntegerVariable();
   }
 
-  public static IntegerExpression createValue(int v) {
+  public static IntegerExpression createValue(long v) {
+    return new IValue(v);
+  }
+
+  public static IntegerExpression createValue(BigInteger v) {
     return new IValue(v);
   }
   
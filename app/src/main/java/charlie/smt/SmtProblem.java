@@ -18,6 +18,9 @@ package charlie.smt;
 import java.lang.Iterable;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * An SmtProblem keeps track of a list of integer and boolean variables, as well as a list of
@@ -34,6 +37,13 @@ public class SmtProblem implements Iterable<Constraint> {
     _constraints = new ArrayList<Constraint>();
   }
 
+  /** Private constructor for the components, which share the variables of their parent. */
+  private SmtProblem(int lastBool, int lastInt, ArrayList<Constraint> constraints) {
+    _lastBooleanIndex = lastBool;
+    _lastIntegerIndex = lastInt;
+    _constraints = constraints;
+  }
+
   /** Creates an integer variable with an index that has not yet been used. */
   public IVar createIntegerVariable() {
     _lastIntegerIndex++;
@@ -123,6 +133,210 @@ public class SmtProblem implements Iterable<Constraint> {
     return new Conjunction(_constraints);
   }
 
+  /**
+   * This splits the problem into components that do not share any variables, by doing a
+   * union-find over the boolean and integer variables of the constraints.  Each component is
+   * returned as a separate SmtProblem, using the same variable indexes as the current problem,
+   * so the components can be solved independently and their valuations combined.  (Constraints
+   * without any variables each form a component of their own.)
+   *
+   * The components are returned in the order of their first constraint.  If the problem does not
+   * split, a list containing only the current problem is returned.
+   */
+  public List<SmtProblem> splitIntoComponents() {
+    int numvars = _lastBooleanIndex + _lastIntegerIndex;
+    int[] parent = new int[numvars + 1];
+    for (int i = 0; i <= numvars; i++) parent[i] = i;
+    // the representative variable of each constraint, or 0 if it has no variables
+    int[] representative = new int[_constraints.size()];
+    ArrayList<Integer> bools = new ArrayList<Integer>();
+    ArrayList<Integer> ints = new ArrayList<Integer>();
+    for (int i = 0; i < _constraints.size(); i++) {
+      bools.clear();
+      ints.clear();
+      collectVariables(_constraints.get(i), bools, ints);
+      int rep = 0;
+      for (int b : bools) rep = union(parent, rep, b);
+      for (int x : ints) rep = union(parent, rep, _lastBooleanIndex + x);
+      representative[i] = rep;
+    }
+
+    TreeMap<Integer,ArrayList<Constraint>> groups = new TreeMap<Integer,ArrayList<Constraint>>();
+    ArrayList<ArrayList<Constraint>> components = new ArrayList<ArrayList<Constraint>>();
+    for (int i = 0; i < _constraints.size(); i++) {
+      ArrayList<Constraint> group = null;
+      if (representative[i] != 0) group = groups.get(find(parent, representative[i]));
+      if (group == null) {
+        group = new ArrayList<Constraint>();
+        components.add(group);
+        if (representative[i] != 0) groups.put(find(parent, representative[i]), group);
+      }
+      group.add(_constraints.get(i));
+    }
+
+    ArrayList<SmtProblem> ret = new ArrayList<SmtProblem>();
+    if (components.size() <= 1) { ret.add(this); return ret; }
+    for (ArrayList<Constraint> component : components) {
+      ret.add(new SmtProblem(_lastBooleanIndex, _lastIntegerIndex, component));
+    }
+    return ret;
+  }
+
+  /** Helper function for splitIntoComponents: finds the root of x, compressing the path. */
+  private static int find(int[] parent, int x) {
+    while (parent[x] != x) {
+      parent[x] = parent[parent[x]];
+      x = parent[x];
+    }
+    return x;
+  }
+
+  /**
+   * Helper function for splitIntoComponents: merges the sets of x and y, and returns the new root.
+   * Here, x may be 0, which indicates that there is nothing to merge with yet.
+   */
+  private static int union(int[] parent, int x, int y) {
+    int ry = find(parent, y);
+    if (x == 0) return ry;
+    int rx = find(parent, x);
+    if (rx != ry) parent[ry] = rx;
+    return rx;
+  }
+
+  /** Returns the indexes of all boolean variables that occur in the constraints of this problem. */
+  public TreeSet<Integer> queryOccurringBooleanVariables() {
+    ArrayList<Integer> bools = new ArrayList<Integer>();
+    for (Constraint c : _constraints) collectVariables(c, bools, new ArrayList<Integer>());
+    return new TreeSet<Integer>(bools);
+  }
+
+  /** Returns the indexes of all integer variables that occur in the constraints of this problem. */
+  public TreeSet<Integer> queryOccurringIntegerVariables() {
+    ArrayList<Integer> ints = new ArrayList<Integer>();
+    for (Constraint c : _constraints) collectVariables(c, new ArrayList<Integer>(), ints);
+    return new TreeSet<Integer>(ints);
+  }
+
+  /**
+   * Helper function: stores the indexes of all boolean variables in c into bools, and all integer
+   * variables into ints (possibly with duplicates).
+   */
+  private static void collectVariables(Constraint c, List<Integer> bools, List<Integer> ints) {
+    switch (c) {
+      case BVar x: bools.add(x.queryIndex()); break;
+      case NBVar x: bools.add(x.queryIndex()); break;
+      case Truth _, Falsehood _: break;
+      case Comparison comp: collectVariables(comp.queryExpression(), ints); break;
+      case Junction j: for (Constraint d : j._children) collectVariables(d, bools, ints); break;
+      case Not n: collectVariables(n.queryChild(), bools, ints); break;
+      case Iff i:
+        collectVariables(i.queryLeft(), bools, ints);
+        collectVariables(i.queryRight(), bools, ints);
+        break;
+    }
+  }
+
+  /** Helper function: stores the indexes of all integer variables in e into ints. */
+  private static void collectVariables(IntegerExpression e, List<Integer> ints) {
+    switch (e) {
+      case IValue _: break;
+      case IVar x: ints.add(x.queryIndex()); break;
+      case CMult cm: collectVariables(cm.queryChild(), ints); break;
+      case Addition a:
+        for (int i = 1; i <= a.numChildren(); i++) collectVariables(a.queryChild(i), ints);
+        break;
+      case Multiplication m:
+        for (int i = 1; i <= m.numChildren(); i++) collectVariables(m.queryChild(i), ints);
+        break;
+      case Division d:
+        collectVariables(d.queryNumerator(), ints);
+        collectVariables(d.queryDenominator(), ints);
+        break;
+      case Modulo m:
+        collectVariables(m.queryNumerator(), ints);
+        collectVariables(m.queryDenominator(), ints);
+        break;
+    }
+  }
+
+  /**
+   * The fragments of integer arithmetic that a constraint may fall into, ordered from the most
+   * restrictive to the most general.  Division and modulo by a constant are linear, but are kept
+   * apart from the other linear constraints because solvers may handle them differently.
+   */
+  public enum Fragment { PROPOSITIONAL, LINEAR, LINEAR_DIVMOD, NONLINEAR }
+
+  /** Returns the most restrictive fragment that all constraints in this problem fall into. */
+  public Fragment queryFragment() {
+    Fragment ret = Fragment.PROPOSITIONAL;
+    for (Constraint c : _constraints) ret = combine(ret, queryFragment(c));
+    return ret;
+  }
+
+  /** Returns the most restrictive fragment that the given constraint falls into. */
+  public static Fragment queryFragment(Constraint c) {
+    return switch (c) {
+      case BVar x -> Fragment.PROPOSITIONAL;
+      case NBVar x -> Fragment.PROPOSITIONAL;
+      case Truth t -> Fragment.PROPOSITIONAL;
+      case Falsehood f -> Fragment.PROPOSITIONAL;
+      case Comparison comp -> combine(Fragment.LINEAR, queryFragment(comp.queryExpression()));
+      case Junction j -> {
+        Fragment ret = Fragment.PROPOSITIONAL;
+        for (Constraint d : j._children) ret = combine(ret, queryFragment(d));
+        yield ret;
+      }
+      case Not n -> queryFragment(n.queryChild());
+      case Iff i -> combine(queryFragment(i.queryLeft()), queryFragment(i.queryRight()));
+    };
+  }
+
+  /** Helper function for queryFragment: returns the fragment that e falls into. */
+  private static Fragment queryFragment(IntegerExpression e) {
+    return switch (e) {
+      case IValue v -> Fragment.LINEAR;
+      case IVar x -> Fragment.LINEAR;
+      case CMult cm -> queryFragment(cm.queryChild());
+      case Addition a -> {
+        Fragment ret = Fragment.LINEAR;
+        for (int i = 1; i <= a.numChildren(); i++) {
+          ret = combine(ret, queryFragment(a.queryChild(i)));
+        }
+        yield ret;
+      }
+      case Multiplication m -> {
+        Fragment ret = Fragment.LINEAR;
+        int nonconstant = 0;
+        for (int i = 1; i <= m.numChildren(); i++) {
+          if (!isConstant(m.queryChild(i))) nonconstant++;
+          ret = combine(ret, queryFragment(m.queryChild(i)));
+        }
+        yield nonconstant > 1 ? Fragment.NONLINEAR : ret;
+      }
+      case Division d -> queryDivisionFragment(d.queryNumerator(), d.queryDenominator());
+      case Modulo m -> queryDivisionFragment(m.queryNumerator(), m.queryDenominator());
+    };
+  }
+
+  /** Helper function for queryFragment: handles both division and modulo. */
+  private static Fragment queryDivisionFragment(IntegerExpression numerator,
+                                                IntegerExpression denominator) {
+    if (!isConstant(denominator)) return Fragment.NONLINEAR;
+    return combine(Fragment.LINEAR_DIVMOD, queryFragment(numerator));
+  }
+
+  /** Helper function for queryFragment: returns whether e does not contain any variables. */
+  private static boolean isConstant(IntegerExpression e) {
+    ArrayList<Integer> ints = new ArrayList<Integer>();
+    collectVariables(e, ints);
+    return ints.isEmpty();
+  }
+
+  /** Helper function for queryFragment: returns the most restrictive fragment containing both. */
+  private static Fragment combine(Fragment a, Fragment b) {
+    return a.compareTo(b) >= 0 ? a : b;
+  }
+
   /** Returns a string representation of all constraints in the problem, for debugging purposes */
   public String toString() {
     StringBuilder ret = new StringBuilder();
@@ -15,33 +15,76 @@
 
 package charlie.smt;
 
-import java.util.TreeSet;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.TreeMap;
 
 /**
  * A valuation is an assignment of booleans to BVars, and integers to IVars.
  * A Valuation is in principle mutable, so be careful how you use it! (It needs to be mutual to
  * support gradual creation.)
+ *
+ * Since variables are indexed by consecutive integers (see SmtProblem), the assignments are stored
+ * in primitive arrays indexed by the variable index, which grow as needed.  This avoids boxing
+ * when constraints are evaluated, which is done for the full problem after every solver answer.
+ * Integer values are stored as longs; the (rare) values that do not fit in a long are kept
+ * separately as BigIntegers.
  */
 public class Valuation {
-  private TreeSet<Integer> _trueBVars;
-  private TreeMap<Integer,Integer> _iVarValues;
+  private static final int DEFAULT = 4242;
+
+  private BitSet _trueBVars;
+  private BitSet _setIVars;
+  private long[] _iVarValues;
+  private TreeMap<Integer,BigInteger> _bigValues = new TreeMap<Integer,BigInteger>();
 
   /** Creates a new valuation with all booleans set to false, and no integer values set. */
   public Valuation() {
-    _trueBVars = new TreeSet<Integer>();
-    _iVarValues = new TreeMap<Integer,Integer>();
+    this(0, 0);
+  }
+
+  /**
+   * Creates a new valuation with all booleans set to false, and no integer values set, with
+   * space reserved for boolean variables b1..b{numBools} and integer variables i1..i{numInts}.
+   * (Other variables may still be set; the space is just extended.)
+   */
+  public Valuation(int numBools, int numInts) {
+    _trueBVars = new BitSet(numBools + 1);
+    _setIVars = new BitSet(numInts + 1);
+    _iVarValues = new long[numInts + 1];
   }
 
   /** Returns the valuation for the boolean variable with the given index */
   public boolean queryBoolAssignment(int index) {
-    return _trueBVars.contains(index);
+    return index >= 0 && _trueBVars.get(index);
   }
 
-  /** Returns the valuation for the integer variable with the given index */
+  /**
+   * Returns the valuation for the integer variable with the given index.  If the value does not
+   * fit in an int, an ArithmeticException is thrown.
+   */
   public int queryIntAssignment(int index) {
-    if (_iVarValues.containsKey(index)) return _iVarValues.get(index);
-    else return 4242;
+    return Math.toIntExact(queryLongAssignment(index));
+  }
+
+  /**
+   * Returns the valuation for the integer variable with the given index.  If the value does not
+   * fit in a long, an ArithmeticException is thrown; use queryBigAssignment for such values.
+   */
+  public long queryLongAssignment(int index) {
+    if (index < 0 || index >= _iVarValues.length || !_setIVars.get(index)) return DEFAULT;
+    if (!_bigValues.isEmpty() && _bigValues.containsKey(index)) {
+      throw new ArithmeticException("Value of i" + index + " does not fit in a long.");
+    }
+    return _iVarValues[index];
+  }
+
+  /** Returns the valuation for the integer variable with the given index, whatever its size. */
+  public BigInteger queryBigAssignment(int index) {
+    BigInteger big = _bigValues.get(index);
+    if (big != null) return big;
+    return BigInteger.valueOf(queryLongAssignment(index));
   }
 
   /** Returns the valuation for the given boolean variable */
@@ -49,32 +92,64 @@ public class Valuation {
     return queryBoolAssignment(x.queryIndex());
   }
 
-  /** Returns the valuation for the given integer variable */
+  /**
+   * Returns the valuation for the given integer variable.  If the value does not fit in an int,
+   * an ArithmeticException is thrown; use isAssignmentBetween first if the SMT problem does not
+   * bound the variable.
+   */
   public int queryAssignment(IVar x) {
     return queryIntAssignment(x.queryIndex());
   }
 
+  /** Returns whether the given integer variable is assigned a value in {min,...,max}. */
+  public boolean isAssignmentBetween(IVar x, long min, long max) {
+    BigInteger value = queryBigAssignment(x.queryIndex());
+    return value.compareTo(BigInteger.valueOf(min)) >= 0 &&
+           value.compareTo(BigInteger.valueOf(max)) <= 0;
+  }
+
   /** Set a boolean variable to the given value. */
   public void setBool(int index, boolean value) {
-    if (value) _trueBVars.add(index);
-    else _trueBVars.remove(index);
+    _trueBVars.set(index, value);
   }
 
   /** Set an integer variable to the given value. */
-  public void setInt(int index, int value) {
-    _iVarValues.put(index, value);
+  public void setInt(int index, long value) {
+    if (index >= _iVarValues.length) {
+      _iVarValues = Arrays.copyOf(_iVarValues, Math.max(index + 1, 2 * _iVarValues.length));
+    }
+    _iVarValues[index] = value;
+    _setIVars.set(index);
+    if (!_bigValues.isEmpty()) _bigValues.remove(index);
+  }
+
+  /** Set an integer variable to the given value, which may be arbitrarily large. */
+  public void setInt(int index, BigInteger value) {
+    if (value.bitLength() < Long.SIZE) { setInt(index, value.longValue()); return; }
+    setInt(index, 0);
+    _bigValues.put(index, value);
+  }
+
+  /**
+   * Copies the values of the given boolean and integer variables from other into this valuation.
+   * This is used to combine the valuations for independent components of an SmtProblem.
+   */
+  public void copyFrom(Valuation other, Iterable<Integer> bools, Iterable<Integer> ints) {
+    for (int index : bools) setBool(index, other.queryBoolAssignment(index));
+    for (int index : ints) setInt(index, other.queryBigAssignment(index));
   }
 
   /** Give a human-readable representation of the valuation, for use in debugging. */
   public String toString() {
     StringBuilder ret = new StringBuilder();
     ret.append("True boolean variables:\n");
-    for (Integer i : _trueBVars) ret.append("  b" + i.toString() + "\n");
+    for (int i = _trueBVars.nextSetBit(0); i >= 0; i = _trueBVars.nextSetBit(i + 1)) {
+      ret.append("  b" + i + "\n");
+    }
     ret.append("Integer variables:\n");
-    for (Integer i : _iVarValues.keySet()) {
-      ret.append("  i" + i.toString() + " : " + _iVarValues.get(i).toString() + "\n");
+    for (int i = _setIVars.nextSetBit(0); i >= 0; i = _setIVars.nextSetBit(i + 1)) {
+      ret.append("  i" + i + " : " + queryBigAssignment(i) + "\n");
     }
     return ret.toString();
   }
 }
-
@@ -16,48 +16,102 @@
 package charlie.solvesmt;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
-import charlie.exceptions.ParseException;
 import charlie.util.ExceptionLogger;
+import charlie.util.ProcessCaller;
+import charlie.util.Statistics;
 import charlie.smt.*;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * An ExternalSmtSolver is a solver that operates by writing a file and calling a fixed external
- * SMT solver.
+ * SMT solver, as: command problem.smt2 result.
  * The output file of the solver is read to find the valuation.
+ * Every query gets its own scratch directory (inside the given directory, or the system's
+ * temporary directory by default), which is removed afterwards; hence, queries from different
+ * threads can safely be executed concurrently.  If the command does not finish within the
+ * timeout, it is killed and the query is answered with MAYBE.
  */
 public class ExternalSmtSolver implements SmtSolver {
-  private String _cmd;
+  /** The number of seconds the command may run, unless another timeout is set. */
+  private static final int DEFAULT_TIMEOUT = 10;
 
+  private final String _cmd;
+  private final Path _scratch;
+  private int _timeout = DEFAULT_TIMEOUT;
+
+  /** Creates a solver that invokes the given command, with files in the temporary directory. */
   public ExternalSmtSolver(String command) {
+    this(command, null);
+  }
+
+  /**
+   * Creates a solver that invokes the given command, with files in (subdirectories of) the given
+   * scratch directory.  If this is null, the system's temporary directory is used instead.
+   */
+  public ExternalSmtSolver(String command, Path scratchDirectory) {
     _cmd = command;
+    _scratch = scratchDirectory;
+  }
+
+  /**
+   * Sets the number of seconds that the command may take for a single query.  This should be
+   * positive; otherwise an IllegalArgumentException is thrown.
+   */
+  public void setTimeout(int seconds) {
+    if (seconds <= 0) throw new IllegalArgumentException("Non-positive SMT timeout: " + seconds);
+    _timeout = seconds;
+  }
+
+  /** Returns the number of seconds that the command may take for a single query. */
+  public int queryTimeout() {
+    return _timeout;
+  }
+
+  /** Creates a fresh directory for the files of a single query. */
+  private Path createQueryDirectory() throws IOException {
+    if (_scratch == null) return Files.createTempDirectory("cora-smt");
+    Files.createDirectories(_scratch);
+    return Files.createTempDirectory(_scratch, "cora-smt");
+  }
+
+  /** Removes the directory created by createQueryDirectory, along with the files in it. */
+  private void removeQueryDirectory(Path dir) {
+    try {
+      Files.deleteIfExists(dir.resolve("problem.smt2"));
+      Files.deleteIfExists(dir.resolve("result"));
+      Files.deleteIfExists(dir);
+    }
+    catch (IOException e) { ExceptionLogger.log("Could not clean up " + dir, e); }
   }
 
  /**
-  * This creates a file for the SMT solver.
+  * This creates a file for the SMT solver in the given directory.
   * If creating the file fails for some reason, an IOException is thrown instead.
   */
-  private void createSmtFile(int numbool, int numint, Constraint constraint) throws IOException {
-    BufferedWriter writer = new BufferedWriter(new FileWriter("problem.smt2"));
-    SMTLibString file = new SMTLibString(SMTLibString.Version.V26, SMTLibString.Logic.QFNIA);
+  private void createSmtFile(Path dir, int numbool, int numint, Constraint constraint)
+                                                                            throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(dir.resolve("problem.smt2"));
+    SMTLibString file = SMTLibString.forConstraint(constraint, numint > 0, null);
     String stringOfFile = file.buildSmtlibString(numbool, numint, constraint);
+    SMTLibResponseHandler.recordQuery(stringOfFile.length());
     writer.write(stringOfFile);
     writer.close();
   }
 
   /**
-   * This function runs the SMT solver on problem.smt2.  If this fails for whatever reason, an
-   * Exception is thrown instead.
+   * This function runs the SMT solver on problem.smt2 in the given directory, and returns whether
+   * it finished within the timeout (if not, it has been killed).  If running the solver fails for
+   * whatever reason, an Exception is thrown instead.
    */
-  private void runSmtSolver() throws IOException, InterruptedException {
-    Runtime rt = Runtime.getRuntime();
-    // clean up old result, if any
-    try { Process p = rt.exec(new String[] {"rm", "result"}); p.waitFor(); } catch (Exception e) {}
-    // start new smtsolver process
-    Process p = rt.exec(new String[] {"./smtsolver", "problem.smt2", "result" });
-    p.waitFor();
+  private boolean runSmtSolver(Path dir) throws IOException, InterruptedException {
+    String problem = dir.resolve("problem.smt2").toString();
+    String result = dir.resolve("result").toString();
+    ProcessCaller pc = new ProcessCaller(List.of(_cmd, problem, result), _timeout);
+    return pc.getResultAsInputStream().isPresent();
   }
 
   /**
@@ -65,10 +119,10 @@ public class ExternalSmtSolver implements SmtSolver {
    * unsat, or a different string which should be expected to correspond to "maybe".  If the file
    * cannot be read ,then null is returned or an IOException thrown, as appropriate.
    */
-  private String readAnswer() throws IOException {
-    File file = new File("result");
-    Scanner reader = new Scanner(file);
-    return SMTLibResponseHandler.readAnswer(reader);
+  private String readAnswer(Path dir) throws IOException {
+    try (Scanner reader = new Scanner(dir.resolve("result").toFile())) {
+      return SMTLibResponseHandler.readAnswer(reader);
+    }
   }
 
   /**
@@ -78,78 +132,131 @@ public class ExternalSmtSolver implements SmtSolver {
    * returned (with an appropriate failure meesage).  The same holds if satisfiability could not
    * be determined.  If the result is not satisfiable, then NO is returned.
    */
-  private Answer readSmtFile() throws IOException {
-    List<SExpression> exprs = SmtParser.readExpressionsFromFile("result");
-    return SMTLibResponseHandler.expressionsToAnswer(exprs);
+  private Answer readSmtFile(Path dir, int numBools, int numInts) throws IOException {
+    try (Reader reader = Files.newBufferedReader(dir.resolve("result"))) {
+      return SmtModelReader.readAnswer(reader, numBools, numInts);
+    }
   }
 
   /**
-   * Primary access function.  This generates an SMT file from the given SMT problem, executes the
+   * Primary access function.  This generates an SMT file from the given SMT problem (after
+   * simplification, so queries that can be decided locally never reach the solver), executes the
    * SMT solver on it, and reads the result file to obtain a suitable Valuation -- or concludes
-   * that no proof can be found.
+   * that no proof can be found.  The problem is split into independent components, which are
+   * each solved separately.
    */
   public Answer checkSatisfiability(@NotNull SmtProblem problem) {
+    return SmtQueryEvent.satisfiability(_cmd, problem, () ->
+      SMTLibResponseHandler.solveByComponents(problem, this::checkComponentSatisfiability));
+  }
+
+  /** Checks satisfiability of a single component of a problem (see checkSatisfiability). */
+  private Answer checkComponentSatisfiability(SmtProblem problem) {
     Constraint combinedConstraints = problem.queryCombinedConstraint();
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(combinedConstraints);
+    Answer local = simplifier.queryLocalAnswer();
+    if (local != null) return local;
+    Path dir;
+    try { dir = createQueryDirectory(); }
+    catch (IOException e) {
+      ExceptionLogger.log("Could not create SMT directory: " + e.getMessage(), e);
+      return new Answer.MAYBE("Could not create SMT directory: " + e.getMessage());
+    }
+    Answer ret;
+    try { ret = runQuery(dir, problem, simplifier.queryResidual()); }
+    finally { removeQueryDirectory(dir); }
+    SMTLibResponseHandler.recordOutcome(ret);
+
+    switch (ret) {
+      case Answer.YES(Valuation val):
+        simplifier.completeValuation(val);
+        if (!combinedConstraints.evaluate(val)) {
+          return new Answer.MAYBE("Valuation read from external solver does not satisfy " +
+                                  "the constraint!");
+        }
+      default:
+        return ret;
+    }
+  }
+
+  /**
+   * Helper function for checkComponentSatisfiability: writes the given residual constraint to a
+   * file in dir, runs the solver on it and reads the result.
+   */
+  private Answer runQuery(Path dir, SmtProblem problem, Constraint residual) {
     try {
-      createSmtFile(problem.numberBooleanVariables(), problem.numberIntegerVariables(),
-                    combinedConstraints);
+      createSmtFile(dir, problem.numberBooleanVariables(), problem.numberIntegerVariables(),
+                    residual);
     }
     catch (IOException e) {
       ExceptionLogger.log("Could not create SMT file: " + e.getMessage(), e);
       return new Answer.MAYBE("Could not create SMT file: " + e.getMessage());
     }
 
-    try { runSmtSolver(); }
+    try {
+      if (!runSmtSolver(dir)) {
+        Statistics.count("smt timeout");
+        return new Answer.MAYBE("External SMT solver did not return an answer within the " +
+                                "time limit.");
+      }
+    }
     catch (IOException e) {
       ExceptionLogger.log("Could not execute SMT solver: " + e.getMessage(), e);
       return new Answer.MAYBE("Could not execute SMT solver: " + e.getMessage());
     }
     catch (InterruptedException e) {
-      String msg = "Waiting for external SMT solver was interrupted: " + e.getMessage() + "\n" +
-        "(Warning: the SMT solver may still be running in the background.  If so, you may need " +
-        "to kill it.";
-      ExceptionLogger.log(msg, e);
-      return new Answer.MAYBE(msg);
+      Thread.currentThread().interrupt();
+      return new Answer.MAYBE("External SMT solver was interrupted.");
     }
 
-    Answer ret;
-    try { ret = readSmtFile(); }
+    try {
+      return readSmtFile(dir, problem.numberBooleanVariables(), problem.numberIntegerVariables());
+    }
     catch (IOException e) {
       ExceptionLogger.log("Error reading SMT solver result file: " + e.getMessage(), e);
       return new Answer.MAYBE("Error reading result file: " + e.getMessage());
     }
-    catch (ParseException e) {
-      ExceptionLogger.log("Parsing error reading result file: " + e.getMessage(), e);
-      return new Answer.MAYBE("Parsing error reading result file: " + e.getMessage());
-    }
-
-    switch (ret) {
-      case Answer.YES(Valuation val):
-        if (!combinedConstraints.evaluate(val)) {
-          return new Answer.MAYBE("Valuation read from external solver does not satisfy " +
-                                  "the constraint!");
-        }
-      default:
-        return ret;
-    }
   }
 
   /**
    * This checks the satisfiability of the negation of the constraint obtained from the given
    * SmtProblem, since unsatisfiability implies that the original constraint is valid.  No
-   * valuation is read; we trust the answer of the SMT solver.
+   * valuation is read; we trust the answer of the SMT solver.  The problem is split into
+   * independent components, which are each checked separately.
    */
   public boolean checkValidity(SmtProblem problem) {
+    return SmtQueryEvent.validity(_cmd, problem, () ->
+      SMTLibResponseHandler.validByComponents(problem, this::checkComponentValidity));
+  }
+
+  /** Checks validity of a single component of a problem (see checkValidity). */
+  private boolean checkComponentValidity(SmtProblem problem) {
     Constraint negated = SmtFactory.createNegation(problem.queryCombinedConstraint());
+    Constraint residual = new ConstraintSimplifier(negated).queryResidual();
+    if (residual instanceof Falsehood) return true;
+    if (residual instanceof Truth) return false;
+    Path dir = null;
     try {
-      createSmtFile(problem.numberBooleanVariables(), problem.numberIntegerVariables(), negated);
-      runSmtSolver();
-      return readAnswer().equals("unsat");
+      dir = createQueryDirectory();
+      createSmtFile(dir, problem.numberBooleanVariables(), problem.numberIntegerVariables(),
+                    residual);
+      if (!runSmtSolver(dir)) {
+        Statistics.count("smt timeout");
+        return false;
+      }
+      boolean valid = readAnswer(dir).equals("unsat");
+      SMTLibResponseHandler.recordOutcome(valid);
+      return valid;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
     }
     catch (Exception e) {
       ExceptionLogger.log(e);
       return false; // we could not conclude validity
     }
+    finally { if (dir != null) removeQueryDirectory(dir); }
   }
 }
 
@@ -0,0 +1,255 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import charlie.exceptions.NullStorageException;
+import charlie.smt.*;
+import charlie.util.ExceptionLogger;
+import charlie.util.Statistics;
+
+/**
+ * A PortfolioSmtSolver passes every query to several other SmtSolvers at the same time, takes the
+ * first definitive answer, and cancels the rest.  (For the ProcessSmtSolver, cancelling a query
+ * kills the solver process.)  Since different solvers are good at different kinds of problems,
+ * this typically reduces the time spent on hard queries, at the cost of using more processors.
+ *
+ * Optionally, the portfolio can learn which solver to prefer.  In that case, it remembers which
+ * solver answered the most recent queries for each call site (the first caller outside the SMT
+ * packages).  If one solver has won most of those, then it is started first, and the others only
+ * join in if it has not come up with an answer after a short head start.
+ *
+ * The statistics of the solvers are recorded as part of the analysis that uses the portfolio, even
+ * though they run in other threads.  Every solver call counts as an occurrence of "smt solver",
+ * while the wall-clock time of a portfolio query is recorded as "smt portfolio".
+ */
+public class PortfolioSmtSolver implements SmtSolver {
+  /** The number of recent winners that is remembered for each call site. */
+  static final int HISTORY = 16;
+  /** The number of queries a call site must have had answered before we prefer a solver. */
+  static final int MINIMUM_HISTORY = 4;
+  /** How long the preferred solver may work on its own before the others are started. */
+  private static final int HEAD_START_MILLIS = 200;
+
+  /** The phase in the Statistics that portfolio queries are recorded as. */
+  private static final String PHASE = "smt portfolio";
+
+  /** Packages whose classes are not considered call sites, since they only pass queries on. */
+  private static final List<String> SMT_PACKAGES =
+    List.of("charlie.smt.", "charlie.solvesmt.", "charlie.theorytranslation.", "charlie.util.");
+
+  private static final ExecutorService WORKERS = Executors.newCachedThreadPool(task -> {
+    // a solver that is being cancelled should never keep the program alive
+    Thread thread = new Thread(task);
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private record Outcome<T>(int solver, T result) {}
+
+  private final List<SmtSolver> _solvers;
+  private final boolean _learning;
+  private final HashMap<String,ArrayDeque<Integer>> _winners;
+
+  /**
+   * Sets up a portfolio of the given solvers.  If learning is true, then for every call site the
+   * solver that most often gave the answer recently is given a head start.
+   */
+  public PortfolioSmtSolver(List<SmtSolver> solvers, boolean learning) {
+    if (solvers == null) {
+      throw new NullStorageException("PortfolioSmtSolver", "Cannot create a null portfolio");
+    }
+    if (solvers.isEmpty()) throw new IllegalArgumentException("Empty SMT solver portfolio.");
+    _solvers = List.copyOf(solvers);
+    _learning = learning;
+    _winners = new HashMap<String,ArrayDeque<Integer>>();
+  }
+
+  /** Sets up a portfolio of all the physical solvers that the ProcessSmtSolver supports. */
+  public PortfolioSmtSolver(boolean learning) {
+    this(allPhysicalSolvers(), learning);
+  }
+
+  private static List<SmtSolver> allPhysicalSolvers() {
+    ArrayList<SmtSolver> ret = new ArrayList<SmtSolver>();
+    for (ProcessSmtSolver.PhysicalSolver ps : ProcessSmtSolver.PhysicalSolver.values()) {
+      ret.add(new ProcessSmtSolver(ps));
+    }
+    return ret;
+  }
+
+  /** Returns the solvers in the portfolio. */
+  public List<SmtSolver> querySolvers() {
+    return _solvers;
+  }
+
+  /** Returns whether this portfolio learns which solver to prefer for each call site. */
+  public boolean queryLearning() {
+    return _learning;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder ret = new StringBuilder("portfolio(");
+    for (int i = 0; i < _solvers.size(); i++) {
+      if (i > 0) ret.append(", ");
+      ret.append(_solvers.get(i).toString());
+    }
+    return ret.append(")").toString();
+  }
+
+  /**
+   * Asks all solvers in the portfolio for the satisfiability of the given problem, and returns
+   * the first YES or NO.  If no solver gives one, then MAYBE is returned.
+   */
+  @Override
+  public Answer checkSatisfiability(SmtProblem problem) {
+    return SmtQueryEvent.satisfiability(PHASE, toString(), problem, () -> {
+      Answer ret = race(solver -> solver.checkSatisfiability(problem),
+                        answer -> answer instanceof Answer.YES || answer instanceof Answer.NO);
+      if (ret != null) return ret;
+      return new Answer.MAYBE("None of the solvers in the portfolio found an answer.");
+    });
+  }
+
+  /**
+   * Asks all solvers in the portfolio to prove validity of the given problem, and returns true
+   * as soon as one of them succeeds.  If none of them does, false is returned.
+   */
+  @Override
+  public boolean checkValidity(SmtProblem problem) {
+    return SmtQueryEvent.validity(PHASE, toString(), problem, () ->
+      race(solver -> solver.checkValidity(problem), valid -> valid) != null);
+  }
+
+  /**
+   * Runs the given query on all solvers in parallel, and returns the first result that satisfies
+   * definitive, or null if none does.  Once a definitive result is found, or the current thread
+   * is interrupted, all queries that are still running are cancelled.
+   */
+  private <T> T race(Function<SmtSolver,T> query, Predicate<T> definitive) {
+    String site = _learning ? queryCallSite() : null;
+    int preferred = site == null ? -1 : queryPreferredSolver(site);
+    Statistics stats = Statistics.queryRecording();
+    CompletionService<Outcome<T>> service = new ExecutorCompletionService<Outcome<T>>(WORKERS);
+    ArrayList<Future<Outcome<T>>> running = new ArrayList<Future<Outcome<T>>>();
+    try {
+      int pending = 0;
+      if (preferred >= 0) {
+        running.add(submit(service, preferred, query, stats));
+        pending++;
+        Future<Outcome<T>> done = service.poll(HEAD_START_MILLIS, TimeUnit.MILLISECONDS);
+        if (done != null) {
+          pending--;
+          T result = done.get().result();
+          if (result != null && definitive.test(result)) return win(site, preferred, result);
+        }
+      }
+      for (int i = 0; i < _solvers.size(); i++) {
+        if (i == preferred) continue;
+        running.add(submit(service, i, query, stats));
+        pending++;
+      }
+      for (; pending > 0; pending--) {
+        Outcome<T> outcome = service.take().get();
+        T result = outcome.result();
+        if (result != null && definitive.test(result)) return win(site, outcome.solver(), result);
+      }
+      return null;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    catch (ExecutionException e) {
+      // cannot happen, since the submitted tasks catch their own exceptions
+      return null;
+    }
+    finally {
+      for (Future<Outcome<T>> future : running) future.cancel(true);
+    }
+  }
+
+  /**
+   * Helper function for race: starts the given query on the solver with the given index,
+   * recording its statistics in the given recording of the calling thread (if any).
+   */
+  private <T> Future<Outcome<T>> submit(CompletionService<Outcome<T>> service, int index,
+                                        Function<SmtSolver,T> query, Statistics stats) {
+    return service.submit(() -> Statistics.recordWith(stats, () -> {
+      try { return new Outcome<T>(index, query.apply(_solvers.get(index))); }
+      catch (RuntimeException e) {
+        ExceptionLogger.log("Solver " + _solvers.get(index) + " in portfolio failed.", e);
+        return new Outcome<T>(index, null);
+      }
+    }));
+  }
+
+  /** Helper function for race: records that the given solver won, and returns its result. */
+  private <T> T win(String site, int solver, T result) {
+    if (Statistics.isRecording()) Statistics.count("portfolio wins " + _solvers.get(solver));
+    if (site != null) recordWinner(site, solver);
+    return result;
+  }
+
+  /**
+   * Returns a description of the method that (indirectly) called the portfolio: the first method
+   * on the stack that is not in one of the SMT (or utility) packages.
+   */
+  static String queryCallSite() {
+    Optional<String> site = StackWalker.getInstance().walk(frames -> frames
+      .filter(frame -> SMT_PACKAGES.stream().noneMatch(frame.getClassName()::startsWith))
+      .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+      .findFirst());
+    return site.orElse("unknown");
+  }
+
+  /** Stores that the given solver gave the answer to the latest query from the given site. */
+  synchronized void recordWinner(String site, int solver) {
+    ArrayDeque<Integer> history = _winners.computeIfAbsent(site, k -> new ArrayDeque<Integer>());
+    if (history.size() == HISTORY) history.removeFirst();
+    history.addLast(solver);
+  }
+
+  /**
+   * Returns the index of the solver that won more than half of the recent queries from the given
+   * call site, or -1 if there is no such solver or too few queries have been recorded to say.
+   */
+  synchronized int queryPreferredSolver(String site) {
+    ArrayDeque<Integer> history = _winners.get(site);
+    if (history == null || history.size() < MINIMUM_HISTORY) return -1;
+    int[] wins = new int[_solvers.size()];
+    for (int solver : history) wins[solver]++;
+    for (int i = 0; i < wins.length; i++) {
+      if (2 * wins[i] > history.size()) return i;
+    }
+    return -1;
+  }
+}
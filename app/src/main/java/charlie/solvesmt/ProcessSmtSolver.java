@@ -19,22 +19,26 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
 import charlie.exceptions.NullStorageException;
 import charlie.util.ExceptionLogger;
+import charlie.util.Statistics;
 import charlie.smt.*;
+import charlie.smt.SmtProblem.Fragment;
 import charlie.util.ProcessCaller;
-import static charlie.solvesmt.SMTLibString.Logic.QFNIA;
-import static charlie.solvesmt.SMTLibString.Version.V26;
 import static charlie.solvesmt.ProcessSmtSolver.PhysicalSolver.Z3;
 
 public class ProcessSmtSolver implements SmtSolver {
-  public static int TIMEOUT = 10;
+  /** The number of seconds a solver process may run, unless another timeout is set. */
+  private static final int DEFAULT_TIMEOUT = 10;
 
   public enum PhysicalSolver {
     // Possible solvers supported by the process caller.
@@ -73,6 +77,8 @@ public class ProcessSmtSolver implements SmtSolver {
   }
 
   private PhysicalSolver _physicalSolver;
+  private EnumMap<Fragment,String> _tactics = new EnumMap<Fragment,String>(Fragment.class);
+  private int _timeout = DEFAULT_TIMEOUT;
 
   /** Sets up an SmtSolver that uses the default solver (this is currently set to Z3). */
   public ProcessSmtSolver() {
@@ -88,6 +94,67 @@ public class ProcessSmtSolver implements SmtSolver {
     _physicalSolver = physicalSolver;
   }
 
+  /** Returns the solver that this SmtSolver invokes. */
+  public PhysicalSolver queryPhysicalSolver() {
+    return _physicalSolver;
+  }
+
+  /**
+   * Sets the tactic the solver should use for problems in the given fragment (or use the default
+   * again, if tactic is null).  Tactics are specific to Z3, so they are ignored by other solvers.
+   * Since the query is passed to the solver through the shell, the tactic may only consist of
+   * letters, digits, brackets, spaces and the characters - _ . and : (this is enough to write any
+   * Z3 tactic expression); otherwise an IllegalArgumentException is thrown.
+   */
+  public void setTactic(Fragment fragment, String tactic) {
+    if (tactic == null) { _tactics.remove(fragment); return; }
+    if (!isSafeTactic(tactic)) {
+      throw new IllegalArgumentException("Illegal characters in SMT tactic: " + tactic);
+    }
+    _tactics.put(fragment, tactic);
+  }
+
+  /** Returns whether the given tactic can be safely passed on to the solver (see setTactic). */
+  public static boolean isSafeTactic(String tactic) {
+    return tactic.matches("[A-Za-z0-9()_.: -]+");
+  }
+
+  /** Returns the tactic set for the given fragment, or null if the default is used. */
+  public String queryTactic(Fragment fragment) {
+    return _tactics.get(fragment);
+  }
+
+  /**
+   * Sets the number of seconds that the solver may take for a single query, after which the
+   * query is answered with MAYBE.  This should be positive; otherwise an IllegalArgumentException
+   * is thrown.
+   */
+  public void setTimeout(int seconds) {
+    if (seconds <= 0) throw new IllegalArgumentException("Non-positive SMT timeout: " + seconds);
+    _timeout = seconds;
+  }
+
+  /** Returns the number of seconds that the solver may take for a single query. */
+  public int queryTimeout() {
+    return _timeout;
+  }
+
+  @Override
+  public String toString() {
+    return _physicalSolver.toString();
+  }
+
+  /**
+   * Returns the SMT-LIB text for a query on the given constraint, declaring the most restrictive
+   * logic that it falls into.
+   */
+  private String buildSmtlibString(SmtProblem problem, Constraint constraint) {
+    SMTLibString file = SMTLibString.forConstraint(constraint,
+      problem.numberIntegerVariables() > 0, _physicalSolver == Z3 ? _tactics : null);
+    return file.buildSmtlibString(problem.numberBooleanVariables(),
+                                  problem.numberIntegerVariables(), constraint);
+  }
+
   /** Create a process caller for the given input string, with the given timeout (in seconds). */
   private ProcessCaller createSmtSolverProcess(String smtLibString, int timeout) {
     List<String> commands = new ArrayList<>();
@@ -111,33 +178,32 @@ public class ProcessSmtSolver implements SmtSolver {
    * "SMT solver failed to find a solution", or "Internal SMT solver cannot handle non-linear
    * arithmetic".
    *
+   * The problem is split into independent components, which are each solved separately.
+   *
    * @param problem
    */
   @Override
   public Answer checkSatisfiability(SmtProblem problem) {
-    SMTLibString file = new SMTLibString(V26, QFNIA);
-    String stringOfSmtProblem = file.buildSmtlibString(problem);
-    ProcessCaller pc = createSmtSolverProcess(stringOfSmtProblem, TIMEOUT);
-    String smtResultString = null;
-    try {
-      Optional<String> optionalSmtResultString = pc.getResultAsString();
-      if (!optionalSmtResultString.isPresent()) {
-        return new Answer.MAYBE("SMT solver process did not return an answer within the " +
-                                "time limit.");
-      }
-      smtResultString = optionalSmtResultString.get();
-    }
-    catch (Exception e) {
-      ExceptionLogger.log(e);
-      return new Answer.MAYBE("External SMT process failed: " + e.getMessage());
-    }
-    List<SExpression> parsedResults = SmtParser.readExpressionsFromString(smtResultString);
-    Answer ret = SMTLibResponseHandler.expressionsToAnswer(parsedResults);
+    return SmtQueryEvent.satisfiability(_physicalSolver.toString(), problem, () ->
+      SMTLibResponseHandler.solveByComponents(problem, this::checkComponentSatisfiability));
+  }
+
+  /** Checks satisfiability of a single component of a problem (see checkSatisfiability). */
+  private Answer checkComponentSatisfiability(SmtProblem problem) {
+    Constraint combined = problem.queryCombinedConstraint();
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(combined);
+    Answer local = simplifier.queryLocalAnswer();
+    if (local != null) return local;
+
+    String stringOfSmtProblem = buildSmtlibString(problem, simplifier.queryResidual());
+    Answer ret = querySatisfiability(stringOfSmtProblem, problem);
+    SMTLibResponseHandler.recordOutcome(ret);
 
     // Check if the valuation constructed really makes sense.
     switch (ret) {
       case Answer.YES(Valuation val):
-        if (!problem.queryCombinedConstraint().evaluate(val)) {
+        simplifier.completeValuation(val);
+        if (!combined.evaluate(val)) {
           return new Answer.MAYBE("Valuation read from external solver " +
             "does not satisfy the constraints posed on the smt problem!");
         }
@@ -146,6 +212,35 @@ public class ProcessSmtSolver implements SmtSolver {
     }
   }
 
+  /**
+   * Helper function for checkComponentSatisfiability: sends the given SMT-LIB text to the solver,
+   * and reads its answer.
+   */
+  private Answer querySatisfiability(String stringOfSmtProblem, SmtProblem problem) {
+    SMTLibResponseHandler.recordQuery(stringOfSmtProblem.length());
+    ProcessCaller pc = createSmtSolverProcess(stringOfSmtProblem, _timeout);
+    try {
+      Optional<InputStream> is = pc.getResultAsInputStream();
+      if (!is.isPresent()) {
+        Statistics.count("smt timeout");
+        return new Answer.MAYBE("SMT solver process did not return an answer within the " +
+                                "time limit.");
+      }
+      try (Reader reader = new InputStreamReader(is.get())) {
+        return SmtModelReader.readAnswer(reader, problem.numberBooleanVariables(),
+                                         problem.numberIntegerVariables());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new Answer.MAYBE("SMT solver process was interrupted.");
+    }
+    catch (Exception e) {
+      ExceptionLogger.log(e);
+      return new Answer.MAYBE("External SMT process failed: " + e.getMessage());
+    }
+  }
+
   /**
    * Given an SmtProblem, this function tries to prove that it is valid.  This either succeeds, in
    * which case true is returned, or fails, in which case false is returned.
@@ -153,28 +248,48 @@ public class ProcessSmtSolver implements SmtSolver {
    * Note that failure could either be because the problem is NOT valid, or because the SMT solver
    * simply could not determine whether a solution exists.
    *
+   * The problem is split into independent components, which are each checked separately.
+   *
    * @param problem
    */
   @Override
   public boolean checkValidity(SmtProblem problem) {
+    return SmtQueryEvent.validity(_physicalSolver.toString(), problem, () ->
+      SMTLibResponseHandler.validByComponents(problem, this::checkComponentValidity));
+  }
 
-    SMTLibString file = new SMTLibString(V26, QFNIA);
+  /** Checks validity of a single component of a problem (see checkValidity). */
+  private boolean checkComponentValidity(SmtProblem problem) {
     Constraint negated = SmtFactory.createNegation(problem.queryCombinedConstraint());
+    Constraint residual = new ConstraintSimplifier(negated).queryResidual();
+    if (residual instanceof Falsehood) return true;
+    if (residual instanceof Truth) return false;
+
+    String stringOfSmtProblem = buildSmtlibString(problem, residual);
 
-    String stringOfSmtProblem =
-      file.buildSmtlibString(
-        problem.numberBooleanVariables(),
-        problem.numberIntegerVariables(),
-        negated
-      );
+    boolean ret = queryValidity(stringOfSmtProblem);
+    SMTLibResponseHandler.recordOutcome(ret);
+    return ret;
+  }
 
-    ProcessCaller pc = createSmtSolverProcess(stringOfSmtProblem, TIMEOUT);
+  /**
+   * Helper function for checkComponentValidity: sends the given SMT-LIB text to the solver, and
+   * returns whether it reported unsatisfiability.
+   */
+  private boolean queryValidity(String stringOfSmtProblem) {
+    SMTLibResponseHandler.recordQuery(stringOfSmtProblem.length());
+    ProcessCaller pc = createSmtSolverProcess(stringOfSmtProblem, _timeout);
     try {
       Optional<InputStream> is = pc.getResultAsInputStream();
       if (is.isPresent()) {
         Scanner scanner = new Scanner(is.get());
         return SMTLibResponseHandler.readAnswer(scanner).equals("unsat");
       }
+      Statistics.count("smt timeout");
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
     }
     catch (Exception e) {
       ExceptionLogger.log(e);
@@ -183,4 +298,3 @@ public class ProcessSmtSolver implements SmtSolver {
     return false; // could not read a result, so no validity could be proven
   }
 }
-
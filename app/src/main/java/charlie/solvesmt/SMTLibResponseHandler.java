@@ -16,111 +16,86 @@
 package charlie.solvesmt;
 
 import charlie.smt.*;
+import charlie.util.Statistics;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * This class collects a number of static functions used both by the ExternalSmtSolver and the
  * ProcessSmtSolver.  The functions are used to read the response from an SMT solver, and yield an
- * SmtSolver.Answer.
+ * SmtSolver.Answer, or to combine the answers for independent parts of a problem.
  */
 class SMTLibResponseHandler {
   /**
-   * This reads the answer the SMT solver printed to the result file.  It will be either sat,
-   * unsat, or a different string which should be expected to correspond to "maybe".  If the file
-   * cannot be read ,then null is returned or an IOException thrown, as appropriate.
+   * This splits the given problem into independent components, and uses solveComponent to check
+   * satisfiability of each of them in turn.  If all components are satisfiable, the valuations are
+   * merged into a single valuation for the full problem.  If any component is unsatisfiable, then
+   * so is the whole problem; and if any component yields MAYBE, then the answer is MAYBE.
    */
-  static String readAnswer(Scanner reader) {
-    if (!reader.hasNextLine()) return null;
-    String answer = reader.nextLine();
-    reader.close();
-    if (answer.toLowerCase().equals("unsat")) return "unsat";
-    if (!answer.toLowerCase().equals("sat")) return "sat";
-    return answer;
+  static SmtSolver.Answer solveByComponents(SmtProblem problem,
+                                            Function<SmtProblem,SmtSolver.Answer> solveComponent) {
+    List<SmtProblem> components = problem.splitIntoComponents();
+    if (components.size() == 1) return solveComponent.apply(components.get(0));
+    Valuation combined =
+      new Valuation(problem.numberBooleanVariables(), problem.numberIntegerVariables());
+    for (SmtProblem component : components) {
+      switch (solveComponent.apply(component)) {
+        case SmtSolver.Answer.YES(Valuation val):
+          combined.copyFrom(val, component.queryOccurringBooleanVariables(),
+                            component.queryOccurringIntegerVariables());
+          break;
+        case SmtSolver.Answer.NO no: return no;
+        case SmtSolver.Answer.MAYBE maybe: return maybe;
+      }
+    }
+    return new SmtSolver.Answer.YES(combined);
   }
 
   /**
-   * This reads an answer from an SExpression (which typically originates from parsing an SMT
-   * result file/string).
+   * This splits the given problem into independent components, and uses validComponent to check
+   * validity of each of them in turn.  Since the problem is the conjunction of its components, it
+   * is valid exactly if all components are.
    */
-  static SmtSolver.Answer expressionsToAnswer(List<SExpression> exprs) {
-    if (exprs.size() == 0) {
-      return new SmtSolver.Answer.MAYBE("SMT solver returned empty expression list");
-    }
-    switch (exprs.get(0)) {
-      case SExpression.Symbol(String answer):
-        if (answer.toLowerCase().equals("unsat")) return new SmtSolver.Answer.NO();
-        if (!answer.toLowerCase().equals("sat")) {
-          return new SmtSolver.Answer.MAYBE("SMT solver returned: " + answer);
-        }
-        break;
-      default:
-        return new SmtSolver.Answer.MAYBE(
-          "SMT solver returned expression rather than sat/unsat: " + exprs.get(0).toString());
+  static boolean validByComponents(SmtProblem problem, Predicate<SmtProblem> validComponent) {
+    for (SmtProblem component : problem.splitIntoComponents()) {
+      if (!validComponent.test(component)) return false;
     }
-    Valuation val = new Valuation();
-    for (SExpression e : exprs.subList(1, exprs.size())) addAssignments(e, val);
-    return new SmtSolver.Answer.YES(val);
+    return true;
   }
 
-  /** Helper function: finds all assignments in a list of SExpressions. */
-  private static void addAssignments(SExpression expr, Valuation val) {
-    SExpression value = null;
+  /** Records, in the Statistics, that a query of the given length is sent to an external solver. */
+  static void recordQuery(int length) {
+    Statistics.count("smt queries");
+    Statistics.count("smt bytes sent", length);
+  }
 
-    switch (expr) {
-      case SExpression.Symbol _:
-      case SExpression.Numeral _:
-        return; // nothing to do
-      case SExpression.SExpList(List<SExpression> lst):
-        if (lst.size() == 3 && lst.get(0) instanceof SExpression.Symbol(String symb) &&
-          symb.equals("=")) {
-          if (lst.get(1) instanceof SExpression.Symbol(String name)) {
-            addAssignment(name, lst.get(2), val); return;
-          }
-          if (lst.get(2) instanceof SExpression.Symbol(String name)) {
-            addAssignment(name, lst.get(1), val); return;
-          }
-        }
-        else if (lst.size() == 5 && lst.get(0) instanceof SExpression.Symbol(String symb) &&
-          symb.equals("define-fun") && lst.get(1) instanceof SExpression.Symbol(String n)) {
-          addAssignment(n, lst.get(4), val); return;
-        }
-        else {
-          for (SExpression e : lst) addAssignments(e, val);
-        }
-    }
+  /** Records, in the Statistics, the answer an external solver gave to a satisfiability query. */
+  static void recordOutcome(SmtSolver.Answer answer) {
+    Statistics.count(switch (answer) {
+      case SmtSolver.Answer.YES yes -> "smt sat";
+      case SmtSolver.Answer.NO no -> "smt unsat";
+      case SmtSolver.Answer.MAYBE maybe -> "smt unknown";
+    });
+  }
+
+  /** Records, in the Statistics, the answer an external solver gave to a validity query. */
+  static void recordOutcome(boolean valid) {
+    Statistics.count(valid ? "smt valid" : "smt not valid");
   }
 
   /**
-   * Helper function: adds the given varname ⇒ value pair to the given Valuation,
-   * if it makes sense to do so.
+   * This reads the answer the SMT solver printed to the result file.  It will be either sat,
+   * unsat, or a different string which should be expected to correspond to "maybe".  If the file
+   * cannot be read ,then null is returned or an IOException thrown, as appropriate.
    */
-  private static void addAssignment(String varname, SExpression result, Valuation val) {
-    if (varname.isEmpty()) return;
-    int kind;
-    if (varname.charAt(0) == 'b') kind = 1;
-    else if (varname.charAt(0) == 'i') kind = 2;
-    else return;
-    int index;
-    try { index = Integer.parseInt(varname.substring(1)); }
-    catch (NumberFormatException e) { return; }
-
-    if (kind == 1) {
-      if (result instanceof SExpression.Symbol(String str) && str.equals("true")) {
-        val.setBool(index, true);
-      }
-      else if (result instanceof SExpression.Symbol(String str) && str.equals("false")) {
-        val.setBool(index, false);
-      }
-    }
-    else {
-      if (result instanceof SExpression.Numeral(int i)) val.setInt(index, i);
-      if (result instanceof SExpression.SExpList(List<SExpression> lst)) {
-        if (lst.size() == 2 && lst.get(0) instanceof SExpression.Symbol(String name) &&
-          name.equals("-") && lst.get(1) instanceof SExpression.Numeral(int k)) {
-          val.setInt(index, -k);
-        }
-      }
-    }
+  static String readAnswer(Scanner reader) {
+    if (!reader.hasNextLine()) return null;
+    String answer = reader.nextLine();
+    reader.close();
+    if (answer.toLowerCase().equals("unsat")) return "unsat";
+    if (!answer.toLowerCase().equals("sat")) return "sat";
+    return answer;
   }
 }
@@ -18,8 +18,10 @@ package charlie.solvesmt;
 import charlie.smt.Conjunction;
 import charlie.smt.Constraint;
 import charlie.smt.SmtProblem;
+import charlie.smt.SmtProblem.Fragment;
 
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * <p>This class helps with the construction of a smtlib2-compliant representation of an
@@ -28,18 +30,41 @@ import java.util.ArrayList;
  */
 class SMTLibString {
   public enum Version { V25   , V26   }
-  public enum Logic   { QFLIA , QFNIA }
+  public enum Logic   { QFUF  , QFLIA , QFNIA }
 
   private Version _version;
   private Logic _logic;
+  private String _tactic;
 
   public SMTLibString(Version version, Logic logic) {
+    this(version, logic, null);
+  }
+
+  /**
+   * Creates an SMTLibString that asks the solver to check satisfiability using the given tactic,
+   * or in the default way if tactic is null.  (Tactics are specific to Z3.)
+   */
+  public SMTLibString(Version version, Logic logic, String tactic) {
     _version = version;
     _logic = logic;
+    _tactic = tactic;
+  }
+
+  /**
+   * Returns an SMTLibString (for the latest version we support) that declares the most
+   * restrictive logic for the given constraint, and uses the tactic that is given for its
+   * fragment, if any.  Here, integers indicates whether any integer variables will be declared.
+   */
+  public static SMTLibString forConstraint(Constraint constraint, boolean integers,
+                                           Map<Fragment,String> tactics) {
+    Fragment fragment = SmtProblem.queryFragment(constraint);
+    return new SMTLibString(Version.V26, fragmentToLogic(fragment, integers),
+                            tactics == null ? null : tactics.get(fragment));
   }
 
   public Version getVersion() { return _version; }
   public Logic getLogic() {return _logic; }
+  public String getTactic() { return _tactic; }
 
   public static String versionToString(Version version) {
     return switch (version) {
@@ -48,8 +73,22 @@ class SMTLibString {
     };
   }
 
+  /**
+   * Returns the most restrictive logic that includes the given fragment.  Division and modulo by
+   * a constant are allowed in QF_LIA.  Purely propositional problems still need integers if any
+   * integer variables are declared.
+   */
+  public static Logic fragmentToLogic(Fragment fragment, boolean integers) {
+    return switch (fragment) {
+      case PROPOSITIONAL -> integers ? Logic.QFLIA : Logic.QFUF;
+      case LINEAR, LINEAR_DIVMOD -> Logic.QFLIA;
+      case NONLINEAR -> Logic.QFNIA;
+    };
+  }
+
   public static String logicToString(Logic logic) {
     return switch (logic) {
+      case QFUF -> "QF_UF";
       case QFLIA -> "QF_LIA";
       case QFNIA -> "QF_NIA";
     };
@@ -99,7 +138,8 @@ class SMTLibString {
     }
 
     // Check for satisfiability and asks for the file model
-    ret.append("(check-sat)").append(System.lineSeparator());
+    if (_tactic == null) ret.append("(check-sat)").append(System.lineSeparator());
+    else ret.append("(check-sat-using ").append(_tactic).append(")").append(System.lineSeparator());
     ret.append("(get-model)").append(System.lineSeparator());
     ret.append("(exit)").append(System.lineSeparator());
 
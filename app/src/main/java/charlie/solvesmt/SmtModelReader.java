@@ -0,0 +1,291 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.Arrays;
+import charlie.smt.SmtSolver;
+import charlie.smt.Valuation;
+
+/**
+ * The SmtModelReader reads the response of an SMT solver -- sat, unsat or something else,
+ * followed by a model in the case of sat -- directly into an SmtSolver.Answer.
+ *
+ * Unlike the SmtParser, this does not use the general lexer from charlie.parser.lib, and does not
+ * build SExpressions: the input is read character by character in a single pass, and only the
+ * assignments to variables b{index} and i{index} are stored, directly into a Valuation.  This
+ * matters because models for large problems may consist of tens of thousands of lines.
+ *
+ * Assignments are recognised in the forms (define-fun x () Sort value) and (= x value), at any
+ * depth; all other lists are searched for nested assignments.  Supported values are true, false,
+ * numerals and negated numerals (- n).
+ */
+class SmtModelReader {
+  private static final int OPEN = 0;
+  private static final int CLOSE = 1;
+  private static final int ATOM = 2;
+  private static final int EOF = 3;
+
+  // the kinds of value that readValue may find
+  private static final int NOVALUE = 0;
+  private static final int TRUE = 1;
+  private static final int FALSE = 2;
+  private static final int NUMBER = 3;
+  private static final int BIGNUMBER = 4;
+
+  private final Reader _reader;
+  private final char[] _buffer = new char[8192];
+  private int _bufferPos = 0;
+  private int _bufferLen = 0;
+
+  /** The kind of the current token; if it is ATOM, its text is stored in _atom[0.._atomLen-1]. */
+  private int _token;
+  private char[] _atom = new char[64];
+  private int _atomLen = 0;
+
+  /** The last value read by readValue. */
+  private int _valueKind;
+  private long _value;
+  private BigInteger _bigValue;
+
+  private Valuation _valuation;
+  private String _error = null;
+
+  private SmtModelReader(Reader reader) {
+    _reader = reader;
+  }
+
+  // ========================================== LEXING ============================================
+
+  /** Returns the next character from the input, or -1 at the end of the input. */
+  private int nextChar() throws IOException {
+    if (_bufferPos == _bufferLen) {
+      _bufferLen = _reader.read(_buffer, 0, _buffer.length);
+      _bufferPos = 0;
+      if (_bufferLen <= 0) { _bufferLen = 0; return -1; }
+    }
+    return _buffer[_bufferPos++];
+  }
+
+  /** Moves to the next token, skipping whitespace and comments. */
+  private void advance() throws IOException {
+    int c = nextChar();
+    while (c != -1) {
+      if (c == ';') { while (c != -1 && c != '\n') c = nextChar(); }
+      else if (Character.isWhitespace(c)) c = nextChar();
+      else break;
+    }
+    if (c == -1) { _token = EOF; return; }
+    if (c == '(') { _token = OPEN; return; }
+    if (c == ')') { _token = CLOSE; return; }
+    _token = ATOM;
+    _atomLen = 0;
+    while (c != -1 && c != '(' && c != ')' && c != ';' && !Character.isWhitespace(c)) {
+      if (_atomLen == _atom.length) _atom = Arrays.copyOf(_atom, 2 * _atom.length);
+      _atom[_atomLen++] = (char)c;
+      c = nextChar();
+    }
+    // the character that ended the atom belongs to the next token; this is safe since nextChar
+    // only refills the buffer before reading a character, never after
+    if (c != -1) _bufferPos--;
+  }
+
+  /** Returns whether the current token is an atom with the given text. */
+  private boolean atomIs(String text) {
+    if (_token != ATOM || _atomLen != text.length()) return false;
+    for (int i = 0; i < _atomLen; i++) {
+      if (_atom[i] != text.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  /** Returns whether _atom[start.._atomLen-1] is a numeral: 0 or a sequence [1-9][0-9]* */
+  private boolean isNumeral(int start) {
+    if (start >= _atomLen) return false;
+    if (_atom[start] == '0') return _atomLen == start + 1;
+    for (int i = start; i < _atomLen; i++) {
+      if (_atom[i] < '0' || _atom[i] > '9') return false;
+    }
+    return true;
+  }
+
+  /**
+   * If the current token is an atom of the form {kind}{index} with index a numeral in the int
+   * range, this returns index; otherwise it returns -1.
+   */
+  private int variableIndex(char kind) {
+    if (_token != ATOM || _atomLen < 2 || _atom[0] != kind || !isNumeral(1)) return -1;
+    if (_atomLen > 11) return -1;
+    long index = 0;
+    for (int i = 1; i < _atomLen; i++) index = index * 10 + (_atom[i] - '0');
+    return index <= Integer.MAX_VALUE ? (int)index : -1;
+  }
+
+  // ========================================== PARSING ===========================================
+
+  /** Reads the full response, and returns the corresponding answer. */
+  private SmtSolver.Answer readAnswer(int numBools, int numInts) throws IOException {
+    advance();
+    if (_token == EOF) return new SmtSolver.Answer.MAYBE("SMT solver returned empty response");
+    if (_token != ATOM) {
+      return new SmtSolver.Answer.MAYBE("SMT solver returned expression rather than sat/unsat");
+    }
+    String answer = new String(_atom, 0, _atomLen);
+    if (answer.toLowerCase().equals("unsat")) return new SmtSolver.Answer.NO();
+    if (!answer.toLowerCase().equals("sat")) {
+      return new SmtSolver.Answer.MAYBE("SMT solver returned: " + answer);
+    }
+    _valuation = new Valuation(numBools, numInts);
+    advance();
+    while (_token != EOF && _error == null) readExpression();
+    if (_error != null) {
+      return new SmtSolver.Answer.MAYBE("Could not read SMT solver response: " + _error);
+    }
+    return new SmtSolver.Answer.YES(_valuation);
+  }
+
+  /**
+   * Reads the expression starting at the current token, storing any assignments found in it.
+   * Afterwards, the current token is the one directly following the expression.
+   */
+  private void readExpression() throws IOException {
+    switch (_token) {
+      case ATOM: advance(); return;
+      case CLOSE: _error = "unexpected closing bracket"; return;
+      case EOF: _error = "unexpected end of input"; return;
+      default:
+        advance();
+        if (atomIs("define-fun")) readDefinition();
+        else if (atomIs("=")) readEquality();
+        else readListRemainder();
+    }
+  }
+
+  /**
+   * Reads the remaining elements of a list, storing any assignments found in them, up to and
+   * including the closing bracket.
+   */
+  private void readListRemainder() throws IOException {
+    while (_token != CLOSE && _error == null) {
+      if (_token == EOF) { _error = "missing closing bracket"; return; }
+      readExpression();
+    }
+    if (_error == null) advance();
+  }
+
+  /** Reads the remainder of a list (define-fun name args sort value), starting at define-fun. */
+  private void readDefinition() throws IOException {
+    advance();
+    if (_token != ATOM) { readListRemainder(); return; }
+    int bindex = variableIndex('b'), iindex = variableIndex('i');
+    advance();
+    for (int i = 0; i < 2 && _token != CLOSE; i++) readExpression(); // the arguments and sort
+    if (_error != null || _token == CLOSE) { readListRemainder(); return; }
+    readValue();
+    if (_error == null) store(bindex, iindex);
+    readListRemainder();
+  }
+
+  /** Reads the remainder of a list (= name value) or (= value name), starting at =. */
+  private void readEquality() throws IOException {
+    advance();
+    int bindex = variableIndex('b'), iindex = variableIndex('i');
+    if (_token == ATOM && !atomIs("true") && !atomIs("false") && !isNumeral(0)) {
+      // (= name value)
+      advance();
+      if (_token == CLOSE) { advance(); return; }
+      readValue();
+    }
+    else {
+      // (= value name)
+      readValue();
+      bindex = variableIndex('b');
+      iindex = variableIndex('i');
+    }
+    if (_error == null) store(bindex, iindex);
+    readListRemainder();
+  }
+
+  /**
+   * Reads the expression starting at the current token, and stores its value in _valueKind,
+   * _value and _bigValue, if it is a value we recognise.  Afterwards, the current token is the
+   * one directly following the expression.
+   */
+  private void readValue() throws IOException {
+    _valueKind = NOVALUE;
+    if (_token == ATOM) {
+      if (atomIs("true")) _valueKind = TRUE;
+      else if (atomIs("false")) _valueKind = FALSE;
+      else if (isNumeral(0)) storeNumeral(false);
+      advance();
+    }
+    else if (_token == OPEN) {
+      advance();
+      if (!atomIs("-")) { readListRemainder(); return; }
+      advance();
+      if (_token == ATOM && isNumeral(0)) { storeNumeral(true); advance(); }
+      if (_token != CLOSE) _valueKind = NOVALUE;
+      readListRemainder();
+    }
+    else readExpression();
+  }
+
+  /** Stores the numeral in the current atom token (negated if requested) as the current value. */
+  private void storeNumeral(boolean negate) {
+    if (_atomLen <= 18) {
+      long value = 0;
+      for (int i = 0; i < _atomLen; i++) value = value * 10 + (_atom[i] - '0');
+      _value = negate ? -value : value;
+      _valueKind = NUMBER;
+    }
+    else {
+      BigInteger value = new BigInteger(new String(_atom, 0, _atomLen));
+      _bigValue = negate ? value.negate() : value;
+      _valueKind = BIGNUMBER;
+    }
+  }
+
+  /** Assigns the current value to b{bindex} or i{iindex}, if the kinds match. */
+  private void store(int bindex, int iindex) {
+    switch (_valueKind) {
+      case TRUE: if (bindex >= 0) _valuation.setBool(bindex, true); break;
+      case FALSE: if (bindex >= 0) _valuation.setBool(bindex, false); break;
+      case NUMBER: if (iindex >= 0) _valuation.setInt(iindex, _value); break;
+      case BIGNUMBER: if (iindex >= 0) _valuation.setInt(iindex, _bigValue); break;
+      default:
+    }
+  }
+
+  // ====================================== PUBLIC FUNCTIONS ======================================
+
+  /**
+   * Reads the response of an SMT solver from the given reader.  The numbers of boolean and
+   * integer variables are used to size the resulting valuation.  If the response cannot be read
+   * as an answer, then MAYBE is returned.
+   */
+  static SmtSolver.Answer readAnswer(Reader reader, int numBools, int numInts) throws IOException {
+    return (new SmtModelReader(reader)).readAnswer(numBools, numInts);
+  }
+
+  /** Reads the response of an SMT solver from the given string (see readAnswer on a Reader). */
+  static SmtSolver.Answer readAnswer(String response, int numBools, int numInts) {
+    try { return readAnswer(new StringReader(response), numBools, numInts); }
+    catch (IOException e) { throw new RuntimeException(e); } // cannot happen on a StringReader
+  }
+}
@@ -0,0 +1,111 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import charlie.smt.SmtProblem;
+import charlie.smt.SmtSolver;
+import charlie.util.Statistics;
+
+/**
+ * A JDK Flight Recorder event for a single call to an SMT solver (satisfiability or validity),
+ * so that solver latency can be correlated with, e.g., garbage collection on one timeline.  When
+ * no flight recording is active, this costs next to nothing.
+ *
+ * The static functions both emit the event, and record the time of the call in the Statistics
+ * (as the phase "smt solver", unless another phase is given).
+ */
+@Name("cora.SmtQuery")
+@Label("SMT Query")
+@Category({"Cora", "SMT"})
+@Description("A satisfiability or validity check by an SMT solver")
+class SmtQueryEvent extends Event {
+  @Label("Solver")
+  String solver;
+
+  @Label("Kind")
+  @Description("satisfiability or validity")
+  String kind;
+
+  @Label("Boolean Variables")
+  int booleanVariables;
+
+  @Label("Integer Variables")
+  int integerVariables;
+
+  @Label("Constraints")
+  int constraints;
+
+  @Label("Outcome")
+  String outcome;
+
+  private SmtQueryEvent(String solver, String kind, SmtProblem problem) {
+    this.solver = solver;
+    this.kind = kind;
+    booleanVariables = problem.numberBooleanVariables();
+    integerVariables = problem.numberIntegerVariables();
+    constraints = problem.numberConstraints();
+  }
+
+  /** Checks satisfiability of the given problem using the given check, recording the call. */
+  static SmtSolver.Answer satisfiability(String solver, SmtProblem problem,
+                                         Supplier<SmtSolver.Answer> check) {
+    return satisfiability("smt solver", solver, problem, check);
+  }
+
+  /** Like satisfiability above, but recording the time as the given phase. */
+  static SmtSolver.Answer satisfiability(String phase, String solver, SmtProblem problem,
+                                         Supplier<SmtSolver.Answer> check) {
+    SmtQueryEvent event = new SmtQueryEvent(solver, "satisfiability", problem);
+    event.begin();
+    SmtSolver.Answer answer = Statistics.time(phase, check);
+    event.end();
+    if (event.shouldCommit()) {
+      event.outcome = switch (answer) {
+        case SmtSolver.Answer.YES yes -> "sat";
+        case SmtSolver.Answer.NO no -> "unsat";
+        case SmtSolver.Answer.MAYBE maybe -> "unknown";
+      };
+      event.commit();
+    }
+    return answer;
+  }
+
+  /** Checks validity of the given problem using the given check, recording the call. */
+  static boolean validity(String solver, SmtProblem problem, BooleanSupplier check) {
+    return validity("smt solver", solver, problem, check);
+  }
+
+  /** Like validity above, but recording the time as the given phase. */
+  static boolean validity(String phase, String solver, SmtProblem problem,
+                          BooleanSupplier check) {
+    SmtQueryEvent event = new SmtQueryEvent(solver, "validity", problem);
+    event.begin();
+    boolean valid = Statistics.time(phase, check::getAsBoolean);
+    event.end();
+    if (event.shouldCommit()) {
+      event.outcome = valid ? "valid" : "not valid";
+      event.commit();
+    }
+    return valid;
+  }
+}
@@ -149,18 +149,27 @@ class Abstraction extends TermInherit {
     }
   }
 
-  /** (λx.s).substitute(γ) returns λz.(s.substitute(γ)), where z is fully fresh */
+  /**
+   * (λx.s).substitute(γ) returns λz.(s.substitute(γ)), where z is fully fresh -- unless γ does not
+   * affect any of the free replaceables of the abstraction, in which case it is returned as it is.
+   */
   public Term substitute(Substitution gamma) {
+    return substitute(gamma, false);
+  }
+
+  /** Helper function for substitute and refreshBinders (see TermInherit). */
+  Term substitute(Substitution gamma, boolean refresh) {
+    if (!refresh && unaffectedBy(gamma)) return this;
     Variable freshvar = new Binder(_binder.queryName(), _binder.queryType());
     Term subtermSubstitute;
     if (gamma.extend(_binder, freshvar)) {
-      subtermSubstitute = _subterm.substitute(gamma);
+      subtermSubstitute = substituteSubterm(_subterm, gamma, refresh);
       gamma.delete(_binder);
     }
     else {
       Term previous = gamma.get(_binder);
       gamma.replace(_binder, freshvar);
-      subtermSubstitute = _subterm.substitute(gamma);
+      subtermSubstitute = substituteSubterm(_subterm, gamma, refresh);
       gamma.replace(_binder, previous);
     }
     return new Abstraction(freshvar, subtermSubstitute);
@@ -177,11 +186,12 @@ class Abstraction extends TermInherit {
    * - y ∉ FV( γ(a) ) for any a ∈ FV(s) \ {x}
    * - s ([x:=y] ∪ (γ \ {x})) =α t'
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("other term in Var::match");
     if (gamma == null) throw new NullPointerException("Substitution in Var::match");
 
     if (!other.isAbstraction()) {
+      if (!explain) return NO_MATCH;
       return "Abstraction " + toString() + " is not instantiated by " + other + ".";
     }
 
@@ -191,7 +201,7 @@ class Abstraction extends TermInherit {
     Term backup = gamma.get(x);
     if (backup == null) gamma.extend(x, y);
     else gamma.replace(x, y);
-    String ret = _subterm.match(other.queryAbstractionSubterm(), gamma);
+    String ret = matchSubterm(_subterm, other.queryAbstractionSubterm(), gamma, explain);
     if (backup == null) gamma.delete(x);
     else gamma.replace(x, backup);
 
@@ -200,6 +210,7 @@ class Abstraction extends TermInherit {
     for (Replaceable z : freeReplaceables()) {
       Term gammaz = gamma.get(z);
       if (gammaz != null && gammaz.freeReplaceables().contains(y)) {
+        if (!explain) return NO_MATCH;
         return "Abstraction " + toString() + " is not instantiated by " + other.toString() +
           " because the induced mapping [" + z.toString() + " := " + gammaz.toString() +
           "] contains the binder variable of " + other.toString() + ".";
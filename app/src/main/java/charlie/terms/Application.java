@@ -45,7 +45,7 @@ class Application extends TermInherit {
   private void setupReplaceables(List<Term> args) {
     ReplaceableList frees = calculateFreeReplaceablesForSubterms(args, _head.freeReplaceables());
     ReplaceableList bounds = _head.boundVars();
-    if (bounds.size() > 0 && !bounds.getOverlap(frees).isEmpty()) {
+    if (bounds.overlaps(frees)) {
       _head = _head.refreshBinders();
       bounds = _head.boundVars();
     }
@@ -349,21 +349,34 @@ class Application extends TermInherit {
 
   /**
    * This method replaces each variable x in the term by gamma(x) (or leaves x alone if x is not
-   * in the domain of gamma); the result is returned.
+   * in the domain of gamma); the result is returned.  Subterms that are not changed by this are
+   * shared with the original term.
    */
   public Term substitute(Substitution gamma) {
-    Term h = _head.substitute(gamma);
+    return substitute(gamma, false);
+  }
+
+  /** Helper function for substitute and refreshBinders (see TermInherit). */
+  Term substitute(Substitution gamma, boolean refresh) {
+    if (!refresh && isGround()) return this;
+    Term h = substituteSubterm(_head, gamma, refresh);
     if (h == null) throw new NullStorageException("Application",
       "Substituting " + _head.toString() + " results in null!");
 
-    List<Term> args = new ArrayList<Term>(_args);
-    for (int i = 0; i < args.size(); i++) {
-      Term t = args.get(i).substitute(gamma);
+    // we only copy the arguments once we encounter one that has changed
+    List<Term> args = null;
+    for (int i = 0; i < _args.size(); i++) {
+      Term t = substituteSubterm(_args.get(i), gamma, refresh);
       if (t == null) throw new NullStorageException("Application",
-        "Substituting " + args.get(i).toString() + " results in null!");
-      args.set(i, t);
+        "Substituting " + _args.get(i).toString() + " results in null!");
+      if (args == null && t != _args.get(i)) args = new ArrayList<Term>(_args);
+      if (args != null) args.set(i, t);
     }
 
+    if (args == null) {
+      if (h == _head) return this;
+      return new Application(h, _args);
+    }
     return new Application(h, args);
   }
 
@@ -373,12 +386,14 @@ class Application extends TermInherit {
    * Whether null is returned, gamma is likely to be extended (although without overriding)
    * by this function.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Argument term in Application::match");
     if (!other.isApplication()) {
+      if (!explain) return NO_MATCH;
       return other.toString() + " does not instantiate " + toString() + " (not an application).";
     }   
     if (other.numberArguments() < _args.size()) {
+      if (!explain) return NO_MATCH;
       return other.toString() + " does not instantiate " + toString() + " (too few arguments).";
     }   
     int i = other.numberArguments();
@@ -386,10 +401,10 @@ class Application extends TermInherit {
     for (; j > 0; i--, j--) {
       Term mysub = queryArgument(j);
       Term hissub = other.queryArgument(i);
-      String warning = mysub.match(hissub, gamma);
+      String warning = matchSubterm(mysub, hissub, gamma, explain);
       if (warning != null) return warning;
     }   
-    return _head.match(other.queryImmediateHeadSubterm(i), gamma);
+    return matchSubterm(_head, other.queryImmediateHeadSubterm(i), gamma, explain);
   }
 
   /** This method verifies equality to another Term. */
@@ -16,6 +16,7 @@
 package charlie.terms;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import charlie.exceptions.InappropriatePatternDataException;
 import charlie.exceptions.NullStorageException;
 import charlie.types.Type;
@@ -31,7 +32,7 @@ import charlie.types.Type;
  * in the program.
  */
 class Binder extends LeafTermInherit implements Variable {
-  private static int COUNTER = 0;
+  private static final AtomicInteger COUNTER = new AtomicInteger(0);
   private final String _name;
   private final int _index;
 
@@ -39,8 +40,7 @@ class Binder extends LeafTermInherit implements Variable {
   Binder(String name, Type type) {
     super(type);
     _name = name;
-    _index = COUNTER;
-    COUNTER++;
+    _index = COUNTER.getAndIncrement();
     if (name == null) throw new NullStorageException("Binder", "name");
     setVariables(new ReplaceableList(this));
   }
@@ -48,9 +48,8 @@ class Binder extends LeafTermInherit implements Variable {
   /** Create a binder variable without a name; a name will be automatically generated. */
   Binder(Type type) {
     super(type);
-    _name = "x{" + COUNTER + "}";
-    _index = COUNTER;
-    COUNTER++;
+    _index = COUNTER.getAndIncrement();
+    _name = "x{" + _index + "}";
   }
 
   /** @return true */
@@ -119,7 +118,7 @@ class Binder extends LeafTermInherit implements Variable {
    * If x is mapped to a different term, then an explanation of the match failure is returned.
    * If other or gamma is null, then a NullPointerException is thrown instead.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Other term in Binder::match");
     if (gamma == null) throw new NullPointerException("Substitution in Binder::match");
 
@@ -127,12 +126,14 @@ class Binder extends LeafTermInherit implements Variable {
     
     if (previous == null) {
       if (!other.queryType().equals(queryType())) {
+        if (!explain) return NO_MATCH;
         return "Binder " + _name + " has a different type from " + other.toString() + ".";
       }
       gamma.extend(this, other);
       return null;
     }   
     else if (previous.equals(other)) return null;
+    else if (!explain) return NO_MATCH;
     else return "Binder " + _name + " mapped both to " + previous.toString() + " and to " +
       other.toString() + ".";
   }
@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.math.BigInteger;
 import charlie.exceptions.InappropriatePatternDataException;
 import charlie.types.TypeFactory;
 
@@ -52,4 +53,8 @@ class BooleanValue extends ValueInherit {
   public int getInt() {
     throw new InappropriatePatternDataException("BooleanValue", "getInt", "integer values");
   }
+
+  public BigInteger getBigInt() {
+    throw new InappropriatePatternDataException("BooleanValue", "getBigInt", "integer values");
+  }
 }
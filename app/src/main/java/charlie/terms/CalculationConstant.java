@@ -105,9 +105,10 @@ public class CalculationConstant extends LeafTermInherit implements CalculationS
    * This method checks that other is the same calculation symbol. If so, null is returned,
    * otherwise a description of the instantiation failure.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Other term in CalculationConstant::match");
     if (equals(other)) return null;
+    if (!explain) return NO_MATCH;
     return "calculation symbol " + _name + " is not instantiated by " + other.toString() + ".";
   }
 
@@ -125,9 +125,10 @@ class Constant extends LeafTermInherit implements FunctionSymbol {
    * This method checks that other is the same constant. If so, null is returned, otherwise a
    * description of the instantiation failure.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Other term in Constant::match");
     if (equals(other)) return null;
+    if (!explain) return NO_MATCH;
     return "constant " + _name + " is not instantiated by " + other.toString() + ".";
   }
 
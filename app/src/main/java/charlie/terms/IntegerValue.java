@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.math.BigInteger;
 import java.util.Map;
 import charlie.exceptions.InappropriatePatternDataException;
 import charlie.types.TypeFactory;
@@ -22,35 +23,53 @@ import charlie.types.TypeFactory;
 /**
  * IntegerValues are the function symbols 0, 1, 2, ..., -1, -2, ...
  * They are theory symbols, and specifically correspond to the elements of the mathematical set
- * Z of integer numbers.
+ * Z of integer numbers.  Values that fit in a long are stored as such; only values outside that
+ * range are stored as a BigInteger.
  */
 class IntegerValue extends ValueInherit {
-  private final int _value;
+  private final long _value;
+  private final BigInteger _big;  // null if the value fits in a long
 
-  IntegerValue(int i) {
+  IntegerValue(long i) {
     super(TypeFactory.intSort);
     _value = i;
+    _big = null;
+  }
+
+  IntegerValue(BigInteger i) {
+    super(TypeFactory.intSort);
+    if (i.bitLength() < Long.SIZE) { _value = i.longValue(); _big = null; }
+    else { _value = 0; _big = i; }
   }
 
   /** Returns the string representation of this integer. */
   public String queryName() {
-    return "" + _value;
+    return _big == null ? "" + _value : _big.toString();
   }
 
   /** Returns the standard string representation of the symbol. */
   public String toUniqueString() {
-    return "" + _value;
+    return queryName();
   }
 
   public boolean equals(FunctionSymbol symbol) {
     if (symbol == null) return false;
     if (!symbol.isValue()) return false;
     if (!symbol.queryType().equals(TypeFactory.intSort)) return false;
-    return symbol.toValue().getInt() == _value;
+    if (symbol instanceof IntegerValue other) {
+      if (_big == null) return other._big == null && other._value == _value;
+      return _big.equals(other._big);
+    }
+    return symbol.toValue().getBigInt().equals(getBigInt());
   }
 
   public int getInt() {
-    return _value;
+    if (_big == null && _value == (int)_value) return (int)_value;
+    throw new ArithmeticException("Integer value " + queryName() + " does not fit in an int.");
+  }
+
+  public BigInteger getBigInt() {
+    return _big == null ? BigInteger.valueOf(_value) : _big;
   }
 
   public boolean getBool() {
@@ -201,14 +201,25 @@ class MetaApplication extends TermInherit {
   /**
    * This method replaces each variable x in the term by gamma(x) (or leaves x alone if x is not
    * in the domain of gamma), and each meta-application Z[s1,...,sk] with γ(Z) = λx1...xk.t by
-   * t[x1:=s1γ,...,xk:=skγ]; the result is returned.
+   * t[x1:=s1γ,...,xk:=skγ]; the result is returned.  If this does not change anything, the
+   * meta-application itself is returned.
    */
   public Term substitute(Substitution gamma) {
+    return substitute(gamma, false);
+  }
+
+  /** Helper function for substitute and refreshBinders (see TermInherit). */
+  Term substitute(Substitution gamma, boolean refresh) {
     if (gamma == null) throw new NullPointerException("Substitution in Application::substitute");
     ArrayList<Term> newArgs = new ArrayList<Term>();
-    for (int i = 0; i < _args.size(); i++) newArgs.add(_args.get(i).substitute(gamma));
+    boolean changed = false;
+    for (int i = 0; i < _args.size(); i++) {
+      Term t = substituteSubterm(_args.get(i), gamma, refresh);
+      if (t != _args.get(i)) changed = true;
+      newArgs.add(t);
+    }
     Term value = gamma.get(_metavar);
-    if (value == null) return new MetaApplication(_metavar, newArgs);
+    if (value == null) return changed ? new MetaApplication(_metavar, newArgs) : this;
     Substitution delta = new Subst();
     Term v = value;
     for (int i = 0; i < newArgs.size(); i++) {
@@ -232,7 +243,7 @@ class MetaApplication extends TermInherit {
    * binder variables.  If any of the arguments violates this restriction, a
    * PatternRequiredException is thrown.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("argument term for MetaApplication::match");
     if (gamma == null) throw new NullPointerException("substitution for MetaApplication::match");
     // get all the substituted arguments, and make sure they are distinct bound variables
@@ -269,6 +280,7 @@ class MetaApplication extends TermInherit {
     Term previous = gamma.get(_metavar);
     if (previous == null) {
       if (!other.queryType().equals(queryType())) {
+        if (!explain) return NO_MATCH;
         return "Cannot match " + toString() + " against " + other.toString() + " as types do not " +
           "match.";
       }
@@ -276,6 +288,7 @@ class MetaApplication extends TermInherit {
       return null;
     }
     else if (previous.equals(ret)) return null;
+    else if (!explain) return NO_MATCH;
     else return "Meta-variable " + _metavar.toString() + " is mapped to both " +
       previous.toString() + " and to " + ret.toString() + ".";
   }
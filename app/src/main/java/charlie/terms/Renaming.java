@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.util.IdentityHashMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.Set;
@@ -29,17 +30,46 @@ public class Renaming {
   private TreeMap<Replaceable,String> _varToName;
   /** Maps the names to their corresponding (meta-)variable. */
   private TreeMap<String,Replaceable> _nameToVar;
-  /** Names that may not be used in an assignment. */
+  /** Names that may not be used in an assignment, and that are shared with others (read-only). */
+  private Set<String> _blocked;
+  /** Names that may not be used in an assignment, that were added to this Renaming in particular. */
   private TreeSet<String> _avoid;
+  /** Increased on every change, so a TermPrinter can see if the Renaming is still the same. */
+  private long _version;
+
+  /**
+   * While a TermPrinter is printing a term with this Renaming, these store the builder it prints
+   * to, and for (some of) the subterms that have already been printed, where in the builder their
+   * rendering is, and which version of the Renaming it was printed with.  This allows us to copy
+   * the rendering of a shared subterm rather than printing it again.
+   */
+  private StringBuilder _printBuilder;
+  private IdentityHashMap<Term,long[]> _printed;
   
   /**
    * Creates a renaming that avoids the given set of names.
    * The given set of blocked names is guaranteed to not be altered or saved.
    */
   public Renaming(Set<String> blockedNames) {
+    this(Set.copyOf(blockedNames), new TreeSet<String>());
+  }
+
+  /**
+   * Creates a renaming that avoids the given set of names, without copying it.  This is meant for
+   * TermPrinters, which never change a set after passing it to a Renaming.
+   */
+  static Renaming createWithSharedBlockedNames(Set<String> blockedNames) {
+    return new Renaming(blockedNames, new TreeSet<String>());
+  }
+
+  private Renaming(Set<String> blocked, TreeSet<String> avoid) {
     _varToName = new TreeMap<Replaceable,String>();
     _nameToVar = new TreeMap<String,Replaceable>();
-    _avoid = new TreeSet<String>(blockedNames);
+    _blocked = blocked;
+    _avoid = avoid;
+    _version = 0;
+    _printBuilder = null;
+    _printed = null;
   }
 
   /**
@@ -50,7 +80,7 @@ public class Renaming {
    * a replaceable with that name.
    */
   public void avoid(String name) {
-    _avoid.add(name);
+    if (_avoid.add(name)) _version++;
   }
 
   /**
@@ -65,10 +95,11 @@ public class Renaming {
     if (x == null || name == null) {
       throw new NullStorageException("Renaming", "replaceable or name");
     }
-    if (_avoid.contains(name)) return false;
+    if (_blocked.contains(name) || _avoid.contains(name)) return false;
     Replaceable y = _nameToVar.get(name);
     if (y != null && y != x) return false;
     // we can store it!
+    _version++;
     String origName = _varToName.get(x);
     if (origName != null) _nameToVar.remove(origName);
     _varToName.put(x, name);
@@ -83,6 +114,7 @@ public class Renaming {
   public void unsetName(Replaceable x) {
     String name = _varToName.get(x);
     if (name == null) return;
+    _version++;
     _varToName.remove(x);
     _nameToVar.remove(name);
   }
@@ -125,7 +157,53 @@ public class Renaming {
    * names).
    */
   public boolean isAvailable(String name) {
-    return !_avoid.contains(name) && _nameToVar.get(name) == null;
+    return !_blocked.contains(name) && !_avoid.contains(name) && _nameToVar.get(name) == null;
+  }
+
+  /**
+   * Used by TermPrinter: if no print is in progress, this starts one (printing to the given
+   * builder) and returns true; otherwise it returns false.
+   */
+  boolean startPrint(StringBuilder builder) {
+    if (_printBuilder != null) return false;
+    _printBuilder = builder;
+    return true;
+  }
+
+  /** Used by TermPrinter to end the print started by startPrint. */
+  void endPrint() {
+    _printBuilder = null;
+    _printed = null;
+  }
+
+  /**
+   * Used by TermPrinter: if the given term was already printed to the given builder during the
+   * current print, with the Renaming in the same state as it is now, then its rendering is copied
+   * to the end of the builder, and true is returned.  Otherwise, false is returned.
+   */
+  boolean copyPrinted(Term term, StringBuilder builder) {
+    if (_printed == null || builder != _printBuilder) return false;
+    long[] info = _printed.get(term);
+    if (info == null || info[2] != _version) return false;
+    builder.append(builder, (int)info[0], (int)info[1]);
+    return true;
+  }
+
+  /**
+   * Used by TermPrinter to store that builder[start..end-1] is the rendering of the given term,
+   * printed with the given version of the Renaming.  This is ignored if the version has since
+   * changed (which happens if the term contains abstractions), or no print is in progress on the
+   * given builder.
+   */
+  void storePrinted(Term term, StringBuilder builder, int start, long version) {
+    if (builder != _printBuilder || version != _version) return;
+    if (_printed == null) _printed = new IdentityHashMap<Term,long[]>();
+    _printed.put(term, new long[] { start, builder.length(), version });
+  }
+
+  /** Used by TermPrinter: returns a number that changes whenever the Renaming changes. */
+  long queryVersion() {
+    return _version;
   }
 }
 
@@ -15,83 +15,145 @@
 
 package charlie.terms;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
 
 /**
  * A ReplaceableList is an immutable set of Replaceables (both variables and metavariables are
  * allowed to be included) with not-necessarily-unique names.
+ *
+ * Internally, the elements are stored in an array sorted by compareTo.  Most lists are very small
+ * (a term typically has only a handful of variables), so this is both more compact than a tree,
+ * and allows the set operations to be done by a single linear merge.  Since lists are immutable,
+ * operations that do not change anything return the original list, so the same list is shared
+ * between the many terms that have the same variables.
  */
 public class ReplaceableList implements Iterable<Replaceable> {
-  private final TreeSet<Replaceable> _elements;
+  private static final Replaceable[] NOTHING = new Replaceable[0];
+  private final Replaceable[] _elements;
   public static final ReplaceableList EMPTY = new ReplaceableList();
 
   /** Constructs the empty list */
   ReplaceableList() {
-    _elements = new TreeSet<Replaceable>();
+    _elements = NOTHING;
   }
 
   /** Constructs the list with just the given (meta-)variable */
   ReplaceableList(Replaceable x) {
-    _elements = new TreeSet<Replaceable>();
-    _elements.add(x);
+    _elements = new Replaceable[] { x };
   }
 
   /** Constructs the list with a copy of the given replaceables. */
   ReplaceableList(Collection<Replaceable> elems) {
-    _elements = new TreeSet<Replaceable>(elems);
+    Replaceable[] arr = elems.toArray(NOTHING);
+    Arrays.sort(arr);
+    int k = 0;
+    for (int i = 0; i < arr.length; i++) {
+      if (k == 0 || arr[k-1].compareTo(arr[i]) != 0) arr[k++] = arr[i];
+    }
+    _elements = k == arr.length ? arr : Arrays.copyOf(arr, k);
+  }
+
+  /** Constructs the list with the given array, which should be sorted and duplicate-free. */
+  private ReplaceableList(Replaceable[] elems) {
+    _elements = elems;
+  }
+
+  /** Returns the position of x in _elements if it occurs, or (-(insertion point) - 1) if not. */
+  private int find(Replaceable x) {
+    return Arrays.binarySearch(_elements, x);
   }
 
   /** Returns whether the given replaceable is an element of this list. */
   public boolean contains(Replaceable x) {
-    return _elements.contains(x);
+    return find(x) >= 0;
   }
 
   /** Returns the number of replaceables in this environment. */
   public int size() {
-    return _elements.size();
+    return _elements.length;
   }
 
-  /** Returns an iterator over all replaceables in the environment. */
+  /** Returns an iterator over all replaceables in the environment, in increasing order. */
   public Iterator<Replaceable> iterator() {
-    return _elements.iterator();
+    return new Iterator<Replaceable>() {
+      private int _pos = 0;
+      public boolean hasNext() { return _pos < _elements.length; }
+      public Replaceable next() {
+        if (_pos >= _elements.length) throw new NoSuchElementException();
+        return _elements[_pos++];
+      }
+    };
   }
 
   /** Returns a copy of this list with the given element added. */
   public ReplaceableList add(Replaceable x) {
-    if (_elements.contains(x)) return this;
-    ReplaceableList ret = new ReplaceableList(_elements);
-    ret._elements.add(x);
-    return ret;
+    int pos = find(x);
+    if (pos >= 0) return this;
+    pos = -pos - 1;
+    Replaceable[] arr = new Replaceable[_elements.length + 1];
+    System.arraycopy(_elements, 0, arr, 0, pos);
+    arr[pos] = x;
+    System.arraycopy(_elements, pos, arr, pos + 1, _elements.length - pos);
+    return new ReplaceableList(arr);
   }
 
   /** Returns a copy of this list with the given replaceable removed. */
   public ReplaceableList remove(Replaceable x) {
-    if (!_elements.contains(x)) return this;
-    ReplaceableList ret = new ReplaceableList(_elements);
-    ret._elements.remove(x);
-    return ret;
+    int pos = find(x);
+    if (pos < 0) return this;
+    if (_elements.length == 1) return EMPTY;
+    Replaceable[] arr = new Replaceable[_elements.length - 1];
+    System.arraycopy(_elements, 0, arr, 0, pos);
+    System.arraycopy(_elements, pos + 1, arr, pos, arr.length - pos);
+    return new ReplaceableList(arr);
   }
 
-  /** Returns a combination of the current list with the given list. */
+  /**
+   * Returns a combination of the current list with the given list.  If one of the lists contains
+   * all elements of the other, then that list is returned, rather than a copy.
+   */
   public ReplaceableList combine(ReplaceableList other) {
-    if (size() < other.size()) return other.combine(this);
-    ReplaceableList ret = null;
-    for (Replaceable x : other) {
-      if (_elements.contains(x)) continue;
-      if (ret == null) ret = new ReplaceableList(_elements);
-      ret._elements.add(x);
+    if (other._elements.length == 0 || other == this) return this;
+    if (_elements.length == 0) return other;
+    Replaceable[] a = _elements, b = other._elements;
+    Replaceable[] merged = new Replaceable[a.length + b.length];
+    int i = 0, j = 0, k = 0;
+    while (i < a.length && j < b.length) {
+      int c = a[i].compareTo(b[j]);
+      if (c < 0) merged[k++] = a[i++];
+      else if (c > 0) merged[k++] = b[j++];
+      else { merged[k++] = a[i++]; j++; }
     }
-    if (ret == null) return this;
-    return ret;
+    while (i < a.length) merged[k++] = a[i++];
+    while (j < b.length) merged[k++] = b[j++];
+    if (k == a.length) return this;
+    if (k == b.length) return other;
+    return new ReplaceableList(k == merged.length ? merged : Arrays.copyOf(merged, k));
+  }
+
+  /**
+   * Returns whether this list and the given list have any element in common.  This does not
+   * allocate anything, and is linear in the size of the smaller list (times a logarithmic factor
+   * for the larger one).
+   */
+  public boolean overlaps(ReplaceableList other) {
+    if (_elements.length > other._elements.length) return other.overlaps(this);
+    if (_elements.length == 0) return false;
+    for (Replaceable x : _elements) {
+      if (other.contains(x)) return true;
+    }
+    return false;
   }
 
   /** Returns the set of Replaceables that occur both in this list and the given iterable. */
   public TreeSet<Replaceable> getOverlap(Iterable<Replaceable> other) {
     TreeSet<Replaceable> ret = new TreeSet<Replaceable>();
     for (Replaceable x : other) {
-      if (_elements.contains(x)) ret.add(x);
+      if (contains(x)) ret.add(x);
     }
     return ret;
   }
@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.math.BigInteger;
 import java.util.Map;
 import charlie.exceptions.InappropriatePatternDataException;
 import charlie.exceptions.IncorrectStringException;
@@ -99,6 +100,10 @@ class StringValue extends ValueInherit {
     throw new InappropriatePatternDataException("StringValue", "getInt", "integer values");
   }
 
+  public BigInteger getBigInt() {
+    throw new InappropriatePatternDataException("StringValue", "getBigInt", "integer values");
+  }
+
   public boolean getBool() {
     throw new InappropriatePatternDataException("StringValue", "getBool", "boolean values");
   }
@@ -302,8 +302,9 @@ public interface Term {
    * t[x1:=s1 gamma,...,xk:=sk gamma]; the result is returned.
    * The original term remains unaltered.  Gamma may be *temporarily* altered to apply the
    * substitution, but is the same at the end of the function as at the start.
-   * Note that the result of substituting is a term where all binders in lambdas are freshly
-   * generated.
+   * Subterms that are not changed by gamma are shared with the original term (so the term itself
+   * is returned if gamma does not affect it at all); binders in lambdas that do change are
+   * freshly generated.  Use refreshBinders to obtain a copy where all binders are fresh.
    */
   Term substitute(Substitution gamma);
 
@@ -315,9 +316,18 @@ public interface Term {
    */
   String match(Term other, Substitution gamma);
 
+  /**
+   * This method either extends gamma so that <this term> gamma = other and returns true, or
+   * returns false.  This is the same as match(other, gamma) == null, but no description of the
+   * failure is built, which makes it much cheaper when matching fails; use match(other, gamma) to
+   * find out why other is not an instance.
+   */
+  boolean matches(Term other, Substitution gamma);
+
   /**
    * This method returns the substitution gamma such that <this term> gamma = other, if such a
-   * substitution exists; if it does not, then null is returned instead.
+   * substitution exists; if it does not, then null is returned instead.  Like matches, this does
+   * not spend any time on describing why matching fails.
    */
   Substitution match(Term other);
 
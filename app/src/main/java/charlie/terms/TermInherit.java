@@ -41,6 +41,9 @@ import charlie.terms.position.FinalPos;
  * be used for this purpose.
  */
 abstract class TermInherit implements Term {
+  /** The printer used by toString(); since it is never changed, it can be shared by all terms. */
+  private static final TermPrinter DEFAULT_PRINTER = new TermPrinter(Set.of());
+
   private ReplaceableList _freeReplaceables;
   private ReplaceableList _boundVariables;
 
@@ -102,7 +105,7 @@ abstract class TermInherit implements Term {
       Term sub = subs.get(i);
       ReplaceableList vs = sub.boundVars();
       if (vs.size() > 0) {
-        if (!vs.getOverlap(avoid).isEmpty()) {
+        if (vs.overlaps(avoid)) {
           sub = sub.refreshBinders();
           vs = sub.boundVars();
         }
@@ -177,10 +180,46 @@ abstract class TermInherit implements Term {
     return true;
   }
 
+  /** Returned by match(other, gamma, false) to indicate that matching failed. */
+  static final String NO_MATCH = "no match";
+
+  /**
+   * This method either extends gamma so that <this term> gamma = other and returns null, or
+   * returns a non-null string to indicate that other is not an instance of this term.  If explain
+   * is true, this string describes why; if not, it is always NO_MATCH.  Since describing the
+   * failure requires printing terms, which is far more expensive than the matching itself, the
+   * description should only be built if it is asked for: the public matching functions that do
+   * not return a description call this with explain false.
+   */
+  abstract String match(Term other, Substitution gamma, boolean explain);
+
+  /**
+   * Helper function for implementations of match(other, gamma, explain): this matches the given
+   * pattern -- typically a subterm of the current term -- against other in the same way.
+   */
+  static String matchSubterm(Term pattern, Term other, Substitution gamma, boolean explain) {
+    if (pattern instanceof TermInherit p) return p.match(other, gamma, explain);
+    if (explain) return pattern.match(other, gamma);
+    return pattern.matches(other, gamma) ? null : NO_MATCH;
+  }
+
+  /**
+   * Extends gamma so that <this term> gamma = other and returns null, or returns a string
+   * describing why other is not an instance of this term.
+   */
+  public String match(Term other, Substitution gamma) {
+    return match(other, gamma, true);
+  }
+
+  /** Extends gamma so that <this term> gamma = other and returns true, or returns false. */
+  public boolean matches(Term other, Substitution gamma) {
+    return match(other, gamma, false) == null;
+  }
+
   /** Same as match(other, subst), but it creates a fresh substitution and returns the result. */
   public Substitution match(Term other) {
     Substitution gamma = new Subst();
-    if (match(other, gamma) == null) return gamma;
+    if (matches(other, gamma)) return gamma;
     return null;
   }
 
@@ -276,9 +315,38 @@ abstract class TermInherit implements Term {
     return null;
   }
 
+  /**
+   * Helper function for substitute and refreshBinders: this substitutes gamma in the current term.
+   * If refresh is false, then subterms that are not changed by gamma are shared with the current
+   * term, so we only allocate for the part that changes; if refresh is true, then every binder in
+   * the term is replaced by a fresh one (so only subterms without binders can be shared).
+   * Terms without binders or meta-variable applications simply use substitute(gamma).
+   */
+  Term substitute(Substitution gamma, boolean refresh) {
+    return substitute(gamma);
+  }
+
+  /** Helper function for implementations of substitute(gamma, refresh), applied on a subterm. */
+  static Term substituteSubterm(Term term, Substitution gamma, boolean refresh) {
+    if (term instanceof TermInherit t) return t.substitute(gamma, refresh);
+    return term.substitute(gamma);
+  }
+
+  /**
+   * Returns whether none of the free replaceables of the present term is in the domain of gamma,
+   * so that substituting gamma would leave the term unaltered (modulo renaming of binders).
+   */
+  protected boolean unaffectedBy(Substitution gamma) {
+    for (Replaceable x : _freeReplaceables) {
+      if (gamma.get(x) != null) return false;
+    }
+    return true;
+  }
+
   /** Returns the present term with all binder-variables replaced by fresh ones. */
   public Term refreshBinders() {
-    return substitute(new Subst());
+    if (_boundVariables.size() == 0) return this;
+    return substitute(new Subst(), true);
   }
 
   /** Applies the current term (with functional type) to other. */
@@ -313,7 +381,7 @@ abstract class TermInherit implements Term {
 
   /** This method returns a string representation of the current term. */
   public String toString() {
-    return (new TermPrinter(Set.of())).print(this);
+    return DEFAULT_PRINTER.print(this);
   }
 
   // the following functions are all default implementations of interface functions, to be
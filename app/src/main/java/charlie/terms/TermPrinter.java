@@ -29,7 +29,12 @@ import charlie.exceptions.UnexpectedPatternException;
  * to use unicode symbols, ascii-art, html, print smt-style or whatever is needed.
  */
 public class TermPrinter {
-  private TreeSet<String> _blockedNames;  // the names that may not be used as variable names
+  /**
+   * The names that may not be used as variable names.  This set is never modified, but replaced
+   * when names are added, so it can be shared with all the Renamings we create without copying.
+   * Hence, a single TermPrinter can be reused to print any number of terms.
+   */
+  private Set<String> _blockedNames;
 
   /**
    * Generates a TermPrinter.
@@ -37,7 +42,7 @@ public class TermPrinter {
    *   functionality (this is intended to be used for instance by the symbols in the alphabet)
    */
   public TermPrinter(Set<String> avoid) {
-    _blockedNames = new TreeSet<String>(avoid);
+    _blockedNames = Set.copyOf(avoid);
   }
 
   /**
@@ -45,7 +50,7 @@ public class TermPrinter {
    * this does not affect existing renamings, only new ones!
    */
   public final void avoidAdditional(String name) {
-    _blockedNames.add(name);
+    avoidAdditional(Set.of(name));
   }
 
   /**
@@ -54,7 +59,9 @@ public class TermPrinter {
    * with them yet), only ones that will be created after this function was called!
    */
   public final void avoidAdditional(Set<String> names) {
-    _blockedNames.addAll(names);
+    TreeSet<String> blocked = new TreeSet<String>(_blockedNames);
+    blocked.addAll(names);
+    _blockedNames = Set.copyOf(blocked);
   }
   
   /**
@@ -82,10 +89,33 @@ public class TermPrinter {
    * To influence the chosen names, override the generateNames function.
    */
   public final Renaming generateUniqueNaming(List<Term> terms) {
+    Renaming ret = Renaming.createWithSharedBlockedNames(_blockedNames);
+    extendUniqueNaming(ret, terms);
+    return ret;
+  }
+
+  /**
+   * This access function to extendUniqueNaming can be called with an arbitrary number of term
+   * arguments.
+   */
+  public final void extendUniqueNaming(Renaming naming, Term ...terms) {
+    extendUniqueNaming(naming, Arrays.asList(terms));
+  }
+
+  /**
+   * This extends the given naming with names for all the free variables and meta-variables in the
+   * given set of terms that do not have a name yet, in the same way as generateUniqueNaming does.
+   * Names that are already in the naming are left unchanged.
+   *
+   * This allows a naming to be built up incrementally, for instance when printing a sequence of
+   * terms that share variables, without recomputing the names of variables that were seen before.
+   */
+  public final void extendUniqueNaming(Renaming naming, List<Term> terms) {
     TreeMap<String,TreeSet<Replaceable>> existingNames = new TreeMap<String,TreeSet<Replaceable>>();
     // group (meta-)variables by name, so we can see how often each name occurs
     for (Term t : terms) {
       for (Replaceable x : t.freeReplaceables()) {
+        if (naming.getName(x) != null) continue;
         String name = x.queryName();
         if (!existingNames.containsKey(name)) {
           TreeSet<Replaceable> tmp = new TreeSet<Replaceable>();
@@ -98,7 +128,6 @@ public class TermPrinter {
     // to generate a new renaming that assigns them all distinct names, we first assign names for
     // the replaceables whose name is already unique (since they can likely be unchanged), and then
     // for the rest
-    Renaming ret = new Renaming(_blockedNames);
     for (int i = 0; i < 2; i++) {
       for (TreeSet<Replaceable> set : existingNames.values()) {
         if (i == 0 && set.size() != 1) continue;
@@ -106,13 +135,12 @@ public class TermPrinter {
         int counter = 0;
         for (Replaceable x : set) {
           counter++;
-          String name = generateName(x, n -> ret.isAvailable(n), counter, set.size());
-          ret.setName(x, name);
-          if (!name.equals(x.queryName())) ret.avoid(x.queryName());
+          String name = generateName(x, n -> naming.isAvailable(n), counter, set.size());
+          naming.setName(x, name);
+          if (!name.equals(x.queryName())) naming.avoid(x.queryName());
         }
       }
     }
-    return ret;
   }
 
   /**
@@ -195,8 +223,39 @@ public class TermPrinter {
    * there is no need to override any of the other methods in the class except perhaps
    * generateName if you also wish to override the default variable name generation -- or directly
    * override (some of) the functions it calls: these are the functions print<Something>.
+   *
+   * Terms may be shared: the same term object may occur multiple times as a subterm.  Within a
+   * single call to print, such a subterm is only printed once, and its rendering copied for the
+   * other occurrences (provided that the variable names have not changed in between, which may
+   * happen if an abstraction is printed in between).
    */
   public void print(Term term, Renaming naming, StringBuilder builder) {
+    if (!naming.startPrint(builder)) { printShared(term, naming, builder); return; }
+    try { printShared(term, naming, builder); }
+    finally { naming.endPrint(); }
+  }
+
+  /**
+   * Helper function for print: if the given term has already been printed to builder in the
+   * current call to print (and the Renaming is the same as it was then), its rendering is copied;
+   * otherwise, it is printed by printTerm.  Variables and constants are always printed directly,
+   * since there is nothing to gain, and abstractions as well, since printing them always changes
+   * the Renaming.
+   */
+  private void printShared(Term term, Renaming naming, StringBuilder builder) {
+    if (term.isVariable() || term.isConstant() || term.isAbstraction()) {
+      printTerm(term, naming, builder);
+      return;
+    }
+    if (naming.copyPrinted(term, builder)) return;
+    int start = builder.length();
+    long version = naming.queryVersion();
+    printTerm(term, naming, builder);
+    naming.storePrinted(term, builder, start, version);
+  }
+
+  /** Helper function for print: prints the given term to the builder by its shape. */
+  private void printTerm(Term term, Renaming naming, StringBuilder builder) {
     if (term.isVariable()) printVariable(term.queryVariable(), naming, builder);
     else if (term.isVarTerm()) printVarTerm(term, naming, builder);
     else if (term.isValue()) printValue(term.toValue(), builder);
@@ -359,7 +418,7 @@ public class TermPrinter {
     boolean brackets = arg.isFunctionalTerm() && arg.queryRoot().toCalculationSymbol() != null;
     if (!brackets && arg.isValue()) {
       Value v = arg.toValue();
-      if (v.isIntegerValue() && v.getInt() < 0) brackets = true;
+      if (v.isIntegerValue() && v.getBigInt().signum() < 0) brackets = true;
     }
     builder.append(queryCalculationName(rootsymb.queryKind(), rootsymb.queryName()));
     if (brackets) builder.append("(");
@@ -398,10 +457,10 @@ public class TermPrinter {
         rootname = "-";
         right = right.queryArgument(1);
       }
-      else if (right.isValue() && right.toValue().getInt() < 0) {
+      else if (right.isValue() && right.toValue().getBigInt().signum() < 0) {
         rootkind = CalculationSymbol.Kind.MINUS;
         rootname = "-";
-        right = new IntegerValue(-right.toValue().getInt());
+        right = new IntegerValue(right.toValue().getBigInt().negate());
       }
     }
 
@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.math.BigInteger;
 import charlie.exceptions.IncorrectStringException;
 import charlie.types.*;
 import charlie.terms.CalculationSymbol.Kind;
@@ -45,7 +46,12 @@ public class TheoryFactory {
   }
 
   /** Create an Integer Value */
-  public static Value createValue(int n) {
+  public static Value createValue(long n) {
+    return new IntegerValue(n);
+  }
+
+  /** Create an Integer Value that may not fit in a long */
+  public static Value createValue(BigInteger n) {
     return new IntegerValue(n);
   }
 
@@ -240,11 +240,26 @@ public class Tuple extends TermInherit {
 
   /**
    * Substitutes the tuple by substituting all its components and wrapping the results in a
-   * tuple again.
+   * tuple again.  If none of the components is changed, the tuple itself is returned.
    */
   @Override
   public Term substitute(Substitution gamma) {
-    return new Tuple(_components.stream().map(t -> t.substitute(gamma)).toList());
+    return substitute(gamma, false);
+  }
+
+  /** Helper function for substitute and refreshBinders (see TermInherit). */
+  Term substitute(Substitution gamma, boolean refresh) {
+    if (!refresh && isGround()) return this;
+    List<Term> components = null;
+    for (int i = 0; i < _components.size(); i++) {
+      Term t = substituteSubterm(_components.get(i), gamma, refresh);
+      if (components == null && t != _components.get(i)) {
+        components = new ArrayList<Term>(_components);
+      }
+      if (components != null) components.set(i, t);
+    }
+    if (components == null) return this;
+    return new Tuple(components);
   }
 
   /**
@@ -253,18 +268,20 @@ public class Tuple extends TermInherit {
    * Whether null is returned, gamma is likely to be extended (although without overriding)
    * by this function.
    */
-  @Override
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Argument term in Application::match");
     if (!other.isTuple()) {
+      if (!explain) return NO_MATCH;
       return other.toString() + " does not instantiate " + toString() + " (not a tuple term).";
     }
     if (_components.size() != other.numberTupleArguments()) {
+      if (!explain) return NO_MATCH;
       return other.toString() + " does not instantiate " + this.toString() + " (mismatch on the " +
         "tuple sizes).";
     }
     for (int i = 0; i < _components.size(); i++) {
-      String warning = _components.get(i).match(other.queryTupleArgument(i+1), gamma);
+      String warning =
+        matchSubterm(_components.get(i), other.queryTupleArgument(i+1), gamma, explain);
       if (warning != null) return warning;
     }
     return null;
@@ -15,6 +15,7 @@
 
 package charlie.terms;
 
+import java.math.BigInteger;
 import charlie.types.Base;
 
 /**
@@ -36,10 +37,17 @@ public interface Value extends FunctionSymbol {
 
   /**
    * For integer values, this returns the underlying integer; for other values, it causes an
-   * InappropriatePatternDataException to be thrown.
+   * InappropriatePatternDataException to be thrown.  If the integer does not fit in an int, an
+   * ArithmeticException is thrown instead; use getBigInt() if the value may be large.
    */
   public int getInt();
 
+  /**
+   * For integer values, this returns the underlying integer, whatever its size; for other values,
+   * it causes an InappropriatePatternDataException to be thrown.
+   */
+  public BigInteger getBigInt();
+
   /**
    * For boolean values, this returns the underlying boolean; for other values, it causes an
    * InappropriatePatternDataException to be thrown.
@@ -93,8 +93,9 @@ public abstract class ValueInherit extends LeafTermInherit implements Value {
    * This method checks that other is the same value. If so, null is returned, otherwise a
    * description of the instantiation failure.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (equals(other)) return null;
+    if (!explain) return NO_MATCH;
     return "value " + toString() + " is not instantiated by " + other.toString() + ".";
   }
 
@@ -16,6 +16,7 @@
 package charlie.terms;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import charlie.exceptions.IndexingException;
 import charlie.exceptions.NullStorageException;
 import charlie.types.Type;
@@ -33,7 +34,7 @@ import charlie.types.Type;
  * A non-binder variable is also a meta-variable with arity 0.
  */
 class Var extends LeafTermInherit implements Variable, MetaVariable {
-  private static int COUNTER = 0;
+  private static final AtomicInteger COUNTER = new AtomicInteger(0);
   private final String _name;
   private final int _index;
 
@@ -41,8 +42,7 @@ class Var extends LeafTermInherit implements Variable, MetaVariable {
   Var(String name, Type type) {
     super(type);
     _name = name;
-    _index = COUNTER;
-    COUNTER++;
+    _index = COUNTER.getAndIncrement();
     if (name == null) throw new NullStorageException("Var", "name");
     setVariables(new ReplaceableList(this));
   }
@@ -50,9 +50,8 @@ class Var extends LeafTermInherit implements Variable, MetaVariable {
   /** Create a non-binder variable without a name; a name will be automatically generated. */
   Var(Type type) {
     super(type);
-    _name = "X{" + COUNTER + "}";
-    _index = COUNTER;
-    COUNTER++;
+    _index = COUNTER.getAndIncrement();
+    _name = "X{" + _index + "}";
     setVariables(new ReplaceableList(this));
   }
 
@@ -130,7 +129,7 @@ class Var extends LeafTermInherit implements Variable, MetaVariable {
    * If x is mapped to a different term, then an explanation of the match failure is returned.
    * If other or gamma is null, then a NullPointerException is thrown instead.
    */
-  public String match(Term other, Substitution gamma) {
+  String match(Term other, Substitution gamma, boolean explain) {
     if (other == null) throw new NullPointerException("Matched term in Var::match");
     if (gamma == null) throw new NullPointerException("Substitution in Var::match");
 
@@ -138,12 +137,14 @@ class Var extends LeafTermInherit implements Variable, MetaVariable {
     
     if (previous == null) {
       if (!other.queryType().equals(queryType())) {
+        if (!explain) return NO_MATCH;
         return "Variable " + _name + " has a different type from " + other.toString() + ".";
       }
       gamma.extend(this, other);
       return null;
     }   
     else if (previous.equals(other)) return null;
+    else if (!explain) return NO_MATCH;
     else return "Variable " + _name + " mapped both to " + previous.toString() + " and to " +
       other.toString() + ".";
   }
@@ -16,6 +16,7 @@
 package charlie.theorytranslation;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import charlie.exceptions.UnsupportedTheoryException;
 import charlie.types.Type;
@@ -28,8 +29,6 @@ import charlie.smt.SmtSolver.Answer;
  * This class provides analysis functions on theory terms, by using a translation to SMT.
  */
 public class TermAnalyser {
-  private static Random _rnd = new Random();
-
   public sealed interface Result {
     public record YES(Substitution subts) implements Result {}
     public record NO() implements Result {}
@@ -38,7 +37,12 @@ public class TermAnalyser {
 
   /** Returns a randomly selected value of the given type */
   public static Value chooseRandomValue(Type type) {
-    int r = _rnd.nextInt();
+    return chooseRandomValue(type, ThreadLocalRandom.current());
+  }
+
+  /** Returns a value of the given type, selected using the given source of random numbers */
+  public static Value chooseRandomValue(Type type, Random rnd) {
+    int r = rnd.nextInt();
     if (type.equals(TypeFactory.intSort)) return TheoryFactory.createValue(r);
     if (type.equals(TypeFactory.boolSort)) return TheoryFactory.createValue((r % 2) == 0);
     if (type.equals(TypeFactory.stringSort)) return TheoryFactory.createValue("{" + r + "}");
@@ -51,7 +55,8 @@ public class TermAnalyser {
     TermSmtTranslator translator = new TermSmtTranslator();
     if (t.queryType().equals(TypeFactory.intSort)) {
       IntegerExpression e = translator.translateIntegerExpression(t);
-      return TheoryFactory.createValue(e.evaluate());
+      try { return TheoryFactory.createValue(e.evaluate()); }
+      catch (ArithmeticException ex) { return TheoryFactory.createValue(e.evaluateBig()); }
     }
     if (t.queryType().equals(TypeFactory.boolSort)) {
       Constraint c = translator.translateConstraint(t);
@@ -92,7 +97,7 @@ public class TermAnalyser {
               ret.extend(x, TheoryFactory.createValue(val.queryBoolAssignment(x.queryIndex())));
             }
             else if (x.queryType().equals(TypeFactory.intSort)) {
-              ret.extend(x, TheoryFactory.createValue(val.queryIntAssignment(x.queryIndex())));
+              ret.extend(x, TheoryFactory.createValue(val.queryBigAssignment(x.queryIndex())));
             }
           }
           yield new Result.YES(ret);
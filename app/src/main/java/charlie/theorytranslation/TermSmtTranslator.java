@@ -132,7 +132,7 @@ public class TermSmtTranslator {
     }
     if (t.isValue()) {
       Value v = t.toValue();
-      if (v.isIntegerValue()) return new Exp.I(SmtFactory.createValue(v.getInt()));
+      if (v.isIntegerValue()) return new Exp.I(SmtFactory.createValue(v.getBigInt()));
       if (v.isBooleanValue()) return new Exp.B(SmtFactory.createValue(v.getBool()));
       throw new UnsupportedTheoryException(t.toString(), "unsupported value " + t.isValue() +
         " (only integer values and boolean values are supported in the SMT solver");
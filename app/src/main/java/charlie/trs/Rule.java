@@ -34,6 +34,9 @@ import charlie.trs.TrsProperties.*;
  * l → r : φ, although this is viewed as just l → r if there is no constraint.
  */
 public class Rule {
+  /** The printer used by toString(); since it is never changed, it can be shared by all rules. */
+  private static final TermPrinter DEFAULT_PRINTER = new TermPrinter(Set.of());
+
   private final Term _left;
   private final Term _right;
   private final Term _constraint;
@@ -157,14 +160,13 @@ public class Rule {
   /** Gives a string representation of the current rule (debug functionality). */
   public String toString() {
     StringBuilder builder = new StringBuilder();
-    TermPrinter printer = new TermPrinter(Set.of());
-    Renaming renaming = printer.generateUniqueNaming(_left, _right, _constraint);
-    printer.print(_left, renaming, builder);
+    Renaming renaming = DEFAULT_PRINTER.generateUniqueNaming(_left, _right, _constraint);
+    DEFAULT_PRINTER.print(_left, renaming, builder);
     builder.append(" → ");
-    printer.print(_right, renaming, builder);
+    DEFAULT_PRINTER.print(_right, renaming, builder);
     if (isConstrained()) {
       builder.append(" | ");
-      printer.print(_constraint, renaming, builder);
+      DEFAULT_PRINTER.print(_constraint, renaming, builder);
     }
     return builder.toString();
   }
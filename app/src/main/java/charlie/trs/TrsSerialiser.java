@@ -0,0 +1,514 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.trs;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import charlie.exceptions.IncorrectStringException;
+import charlie.exceptions.UnexpectedPatternException;
+import charlie.types.*;
+import charlie.terms.*;
+import charlie.trs.TrsProperties.TermLevel;
+
+/**
+ * The TrsSerialiser stores a TRS in a compact binary format, and reads it back.  This allows a
+ * TRS that has been read from an input file once to be loaded again without lexing, parsing and
+ * typing the input.
+ *
+ * The format consists of a header followed by a number of tables: strings, types, variables and
+ * meta-variables, function symbols, terms, and finally the TRS itself (its kind and properties,
+ * rule schemes, private symbols, alphabet and rules).  Each entry only refers to entries of
+ * earlier tables, or earlier entries of the same table, by their index.  Every distinct type and
+ * subterm -- that is, every combination of a constructor and the indexes of its components -- is
+ * stored only once, so subterms that occur in several places are shared both in the file and in
+ * the TRS that is read back.  Numbers are stored in big-endian order, as by DataOutputStream.
+ */
+public class TrsSerialiser {
+  private static final int MAGIC = 0x43545253;     // "CTRS"
+  private static final int VERSION = 1;
+
+  private static final byte TYPE_SORT = 0;
+  private static final byte TYPE_THEORYSORT = 1;
+  private static final byte TYPE_ARROW = 2;
+  private static final byte TYPE_PRODUCT = 3;
+
+  private static final byte TERM_SYMBOL = 0;
+  private static final byte TERM_CALCULATION = 1;
+  private static final byte TERM_INTEGER = 2;
+  private static final byte TERM_BIGINTEGER = 3;
+  private static final byte TERM_BOOLEAN = 4;
+  private static final byte TERM_STRING = 5;
+  private static final byte TERM_VARIABLE = 6;
+  private static final byte TERM_APPLICATION = 7;
+  private static final byte TERM_ABSTRACTION = 8;
+  private static final byte TERM_META = 9;
+  private static final byte TERM_TUPLE = 10;
+
+  /** The calculation symbols are identified by their index in this list. */
+  private static final ImmutableList<CalculationSymbol> CALCULATION_SYMBOLS = ImmutableList.of(
+    TheoryFactory.plusSymbol, TheoryFactory.timesSymbol, TheoryFactory.minusSymbol,
+    TheoryFactory.divSymbol, TheoryFactory.modSymbol, TheoryFactory.andSymbol,
+    TheoryFactory.orSymbol, TheoryFactory.notSymbol, TheoryFactory.greaterSymbol,
+    TheoryFactory.smallerSymbol, TheoryFactory.geqSymbol, TheoryFactory.leqSymbol,
+    TheoryFactory.equalSymbol, TheoryFactory.distinctSymbol);
+
+  // ========================================== WRITING ===========================================
+
+  /** The key by which entries in a table are shared: a tag followed by the entry's components. */
+  private record Key(long[] parts) {
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key k && Arrays.equals(parts, k.parts);
+    }
+    @Override
+    public int hashCode() { return Arrays.hashCode(parts); }
+  }
+
+  /**
+   * A table that is built up while writing: entries are assigned consecutive indexes, and their
+   * data is written to out directly after registering them.
+   */
+  private static class Table {
+    private final HashMap<Object,Integer> _indexes = new HashMap<Object,Integer>();
+    private final ByteArrayOutputStream _bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(_bytes);
+
+    /** Returns the index of the entry with the given key, or -1 if it was not registered. */
+    int lookup(Object key) {
+      Integer index = _indexes.get(key);
+      return index == null ? -1 : index;
+    }
+
+    /** Registers a new entry with the given key, and returns its index. */
+    int register(Object key) {
+      int index = _indexes.size();
+      _indexes.put(key, index);
+      return index;
+    }
+
+    void writeTo(DataOutputStream stream) throws IOException {
+      stream.writeInt(_indexes.size());
+      _bytes.writeTo(stream);
+    }
+  }
+
+  private static class Writer {
+    private final Table _strings = new Table();
+    private final Table _types = new Table();
+    private final Table _replaceables = new Table();
+    private final Table _symbols = new Table();
+    private final Table _terms = new Table();
+
+    private int writeString(String str) throws IOException {
+      int index = _strings.lookup(str);
+      if (index >= 0) return index;
+      index = _strings.register(str);
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      _strings.out.writeInt(bytes.length);
+      _strings.out.write(bytes);
+      return index;
+    }
+
+    private int writeType(Type type) throws IOException {
+      long[] parts = switch (type) {
+        case Base(String name) ->
+          new long[] { type.isTheoryType() ? TYPE_THEORYSORT : TYPE_SORT, writeString(name) };
+        case Arrow(Type left, Type right) ->
+          new long[] { TYPE_ARROW, writeType(left), writeType(right) };
+        case Product(ImmutableList<Type> types) -> {
+          long[] ret = new long[types.size() + 2];
+          ret[0] = TYPE_PRODUCT;
+          ret[1] = types.size();
+          for (int i = 0; i < types.size(); i++) ret[i+2] = writeType(types.get(i));
+          yield ret;
+        }
+      };
+      Key key = new Key(parts);
+      int index = _types.lookup(key);
+      if (index >= 0) return index;
+      index = _types.register(key);
+      _types.out.writeByte((int)parts[0]);
+      for (int i = 1; i < parts.length; i++) _types.out.writeInt((int)parts[i]);
+      return index;
+    }
+
+    private int writeReplaceable(Replaceable x) throws IOException {
+      int index = _replaceables.lookup(x);
+      if (index >= 0) return index;
+      int name = writeString(x.queryName());
+      int kind = x.queryReplaceableKind();
+      if (kind == Replaceable.KIND_METAVAR) {
+        MetaVariable mvar = (MetaVariable)x;
+        int[] inputs = new int[mvar.queryArity()];
+        for (int i = 0; i < inputs.length; i++) inputs[i] = writeType(mvar.queryInputType(i+1));
+        int output = writeType(mvar.queryOutputType());
+        index = _replaceables.register(x);
+        _replaceables.out.writeByte(kind);
+        _replaceables.out.writeInt(name);
+        _replaceables.out.writeInt(inputs.length);
+        for (int i : inputs) _replaceables.out.writeInt(i);
+        _replaceables.out.writeInt(output);
+      }
+      else {
+        int type = writeType(x.queryType());
+        index = _replaceables.register(x);
+        _replaceables.out.writeByte(kind);
+        _replaceables.out.writeInt(name);
+        _replaceables.out.writeInt(type);
+      }
+      return index;
+    }
+
+    private int writeSymbol(FunctionSymbol f) throws IOException {
+      Key key = new Key(new long[] { writeString(f.queryName()), writeType(f.queryType()) });
+      int index = _symbols.lookup(key);
+      if (index >= 0) return index;
+      index = _symbols.register(key);
+      _symbols.out.writeInt((int)key.parts()[0]);
+      _symbols.out.writeInt((int)key.parts()[1]);
+      return index;
+    }
+
+    /** Returns the given parts, followed by the length of args and the indexes of its terms. */
+    private long[] listParts(long[] prefix, ImmutableList<Term> args) throws IOException {
+      long[] ret = Arrays.copyOf(prefix, prefix.length + args.size() + 1);
+      ret[prefix.length] = args.size();
+      for (int i = 0; i < args.size(); i++) ret[prefix.length + i + 1] = writeTerm(args.get(i));
+      return ret;
+    }
+
+    private int writeTerm(Term term) throws IOException {
+      long[] parts;
+      if (term.isVariable()) {
+        parts = new long[] { TERM_VARIABLE, writeReplaceable(term.queryVariable()) };
+      }
+      else if (term.isValue()) {
+        Value value = term.toValue();
+        if (value.isBooleanValue()) parts = new long[] { TERM_BOOLEAN, value.getBool() ? 1 : 0 };
+        else if (value.isStringValue()) {
+          parts = new long[] { TERM_STRING, writeString(value.queryName()) };
+        }
+        else if (value.getBigInt().bitLength() < 64) {
+          parts = new long[] { TERM_INTEGER, value.getBigInt().longValue() };
+        }
+        else parts = new long[] { TERM_BIGINTEGER, writeString(value.getBigInt().toString()) };
+      }
+      else if (term.isConstant()) {
+        FunctionSymbol f = term.queryRoot();
+        int calc = -1;
+        for (int i = 0; i < CALCULATION_SYMBOLS.size() && calc < 0; i++) {
+          if (CALCULATION_SYMBOLS.get(i) == f) calc = i;
+        }
+        if (calc >= 0) parts = new long[] { TERM_CALCULATION, calc };
+        else if (f.isTheorySymbol()) {
+          throw new UnexpectedPatternException("TrsSerialiser", "writeTerm",
+            "theory symbol " + f.toString(), "a value or pre-defined calculation symbol");
+        }
+        else parts = new long[] { TERM_SYMBOL, writeSymbol(f) };
+      }
+      else if (term.isAbstraction()) {
+        parts = new long[] { TERM_ABSTRACTION, writeReplaceable(term.queryVariable()),
+                             writeTerm(term.queryAbstractionSubterm()) };
+      }
+      else if (term.isMetaApplication()) {
+        parts = listParts(new long[] { TERM_META, writeReplaceable(term.queryMetaVariable()) },
+                          term.queryMetaArguments());
+      }
+      else if (term.isTuple()) {
+        parts = listParts(new long[] { TERM_TUPLE }, term.queryTupleArguments());
+      }
+      else if (term.isApplication()) {
+        parts = listParts(new long[] { TERM_APPLICATION, writeTerm(term.queryHead()) },
+                          term.queryArguments());
+      }
+      else {
+        throw new UnexpectedPatternException("TrsSerialiser", "writeTerm", "term " +
+          term.toString(), "a variable, constant, abstraction, meta-application, tuple or " +
+          "application");
+      }
+
+      Key key = new Key(parts);
+      int index = _terms.lookup(key);
+      if (index >= 0) return index;
+      index = _terms.register(key);
+      _terms.out.writeByte((int)parts[0]);
+      if (parts[0] == TERM_INTEGER) _terms.out.writeLong(parts[1]);
+      else if (parts[0] == TERM_BOOLEAN) _terms.out.writeByte((int)parts[1]);
+      else for (int i = 1; i < parts.length; i++) _terms.out.writeInt((int)parts[i]);
+      return index;
+    }
+
+    void write(TRS trs, OutputStream stream) throws IOException {
+      ByteArrayOutputStream trsBytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(trsBytes);
+      out.writeInt(writeString(trs.queryTrsKind()));
+      out.writeByte(trs.isFirstOrder() ? TermLevel.FIRSTORDER.ordinal() :
+                    trs.isApplicative() ? TermLevel.APPLICATIVE.ordinal() :
+                                          TermLevel.LAMBDA.ordinal());
+      out.writeBoolean(trs.theoriesIncluded());
+      out.writeBoolean(trs.productsIncluded());
+      out.writeInt(trs.querySchemeCount());
+      for (int i = 0; i < trs.querySchemeCount(); i++) out.writeByte(trs.queryScheme(i).ordinal());
+      out.writeInt(trs.queryPrivateSymbols().size());
+      for (String name : trs.queryPrivateSymbols()) out.writeInt(writeString(name));
+      out.writeInt(trs.queryAlphabet().getSymbols().size());
+      for (FunctionSymbol f : trs.queryAlphabet().getSymbols()) out.writeInt(writeSymbol(f));
+      out.writeInt(trs.queryRuleCount());
+      for (int i = 0; i < trs.queryRuleCount(); i++) {
+        Rule rule = trs.queryRule(i);
+        out.writeInt(writeTerm(rule.queryLeftSide()));
+        out.writeInt(writeTerm(rule.queryRightSide()));
+        out.writeInt(writeTerm(rule.queryConstraint()));
+      }
+
+      DataOutputStream target = new DataOutputStream(stream);
+      target.writeInt(MAGIC);
+      target.writeInt(VERSION);
+      _strings.writeTo(target);
+      _types.writeTo(target);
+      _replaceables.writeTo(target);
+      _symbols.writeTo(target);
+      _terms.writeTo(target);
+      trsBytes.writeTo(target);
+      target.flush();
+    }
+  }
+
+  // ========================================== READING ===========================================
+
+  private static class Reader {
+    private final ByteBuffer _buffer;
+    private String[] _strings;
+    private Type[] _types;
+    private Replaceable[] _replaceables;
+    private FunctionSymbol[] _symbols;
+    private Term[] _terms;
+
+    Reader(ByteBuffer buffer) {
+      _buffer = buffer;
+    }
+
+    /** Reads a table size. */
+    private int readCount() throws IOException {
+      int count = _buffer.getInt();
+      if (count < 0 || count > _buffer.remaining()) throw new IOException("Corrupt TRS file.");
+      return count;
+    }
+
+    /** Reads an index into the given table (of which the first filled entries are given). */
+    private <T> T readIndex(T[] table, int filled) throws IOException {
+      int index = _buffer.getInt();
+      if (index < 0 || index >= filled) throw new IOException("Corrupt TRS file.");
+      return table[index];
+    }
+
+    private void readStrings() throws IOException {
+      _strings = new String[readCount()];
+      for (int i = 0; i < _strings.length; i++) {
+        byte[] bytes = new byte[readCount()];
+        _buffer.get(bytes);
+        _strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+    }
+
+    private Type readTheorySort(String name) throws IOException {
+      if (name.equals(TypeFactory.intSort.name())) return TypeFactory.intSort;
+      if (name.equals(TypeFactory.boolSort.name())) return TypeFactory.boolSort;
+      if (name.equals(TypeFactory.stringSort.name())) return TypeFactory.stringSort;
+      throw new IOException("Unknown theory sort in TRS file: " + name + ".");
+    }
+
+    private void readTypes() throws IOException {
+      _types = new Type[readCount()];
+      for (int i = 0; i < _types.length; i++) {
+        byte tag = _buffer.get();
+        _types[i] = switch (tag) {
+          case TYPE_SORT -> TypeFactory.createSort(readIndex(_strings, _strings.length));
+          case TYPE_THEORYSORT -> readTheorySort(readIndex(_strings, _strings.length));
+          case TYPE_ARROW -> TypeFactory.createArrow(readIndex(_types, i), readIndex(_types, i));
+          case TYPE_PRODUCT -> {
+            ArrayList<Type> components = new ArrayList<Type>();
+            for (int n = readCount(); n > 0; n--) components.add(readIndex(_types, i));
+            yield TypeFactory.createProduct(components);
+          }
+          default -> throw new IOException("Corrupt TRS file: unknown type tag " + tag + ".");
+        };
+      }
+    }
+
+    private void readReplaceables() throws IOException {
+      _replaceables = new Replaceable[readCount()];
+      for (int i = 0; i < _replaceables.length; i++) {
+        int kind = _buffer.get();
+        String name = readIndex(_strings, _strings.length);
+        if (kind == Replaceable.KIND_METAVAR) {
+          ArrayList<Type> inputs = new ArrayList<Type>();
+          for (int n = readCount(); n > 0; n--) inputs.add(readIndex(_types, _types.length));
+          Type output = readIndex(_types, _types.length);
+          _replaceables[i] = TermFactory.createMetaVar(name, inputs, output);
+        }
+        else if (kind == Replaceable.KIND_BINDER) {
+          _replaceables[i] = TermFactory.createBinder(name, readIndex(_types, _types.length));
+        }
+        else if (kind == Replaceable.KIND_BASEVAR) {
+          _replaceables[i] = TermFactory.createVar(name, readIndex(_types, _types.length));
+        }
+        else throw new IOException("Corrupt TRS file: unknown variable kind " + kind + ".");
+      }
+    }
+
+    private void readSymbols() throws IOException {
+      _symbols = new FunctionSymbol[readCount()];
+      for (int i = 0; i < _symbols.length; i++) {
+        String name = readIndex(_strings, _strings.length);
+        _symbols[i] = TermFactory.createConstant(name, readIndex(_types, _types.length));
+      }
+    }
+
+    /** Reads a list of terms, each of which should be before position i in the terms table. */
+    private ArrayList<Term> readTermList(int i) throws IOException {
+      ArrayList<Term> ret = new ArrayList<Term>();
+      for (int n = readCount(); n > 0; n--) ret.add(readIndex(_terms, i));
+      return ret;
+    }
+
+    /** Reads a variable or meta-variable, and checks that it has the expected kind. */
+    private Replaceable readReplaceable(boolean meta) throws IOException {
+      Replaceable x = readIndex(_replaceables, _replaceables.length);
+      if (meta != (x.queryReplaceableKind() == Replaceable.KIND_METAVAR)) {
+        throw new IOException("Corrupt TRS file: unexpected " +
+          (meta ? "variable " : "meta-variable ") + x.queryName() + ".");
+      }
+      return x;
+    }
+
+    private Term readTerm(int i) throws IOException {
+      byte tag = _buffer.get();
+      switch (tag) {
+        case TERM_SYMBOL: return readIndex(_symbols, _symbols.length);
+        case TERM_CALCULATION:
+          int calc = _buffer.getInt();
+          if (calc < 0 || calc >= CALCULATION_SYMBOLS.size()) {
+            throw new IOException("Corrupt TRS file: unknown calculation symbol " + calc + ".");
+          }
+          return CALCULATION_SYMBOLS.get(calc);
+        case TERM_INTEGER: return TheoryFactory.createValue(_buffer.getLong());
+        case TERM_BIGINTEGER:
+          return TheoryFactory.createValue(new BigInteger(readIndex(_strings, _strings.length)));
+        case TERM_BOOLEAN: return TheoryFactory.createValue(_buffer.get() != 0);
+        case TERM_STRING:
+          try { return TheoryFactory.createEscapedStringValue(readIndex(_strings,_strings.length)); }
+          catch (IncorrectStringException e) { throw new IOException(e.getMessage()); }
+        case TERM_VARIABLE: return (Variable)readReplaceable(false);
+        case TERM_APPLICATION:
+          Term head = readIndex(_terms, i);
+          return TermFactory.createApp(head, readTermList(i));
+        case TERM_ABSTRACTION:
+          Variable binder = (Variable)readReplaceable(false);
+          return TermFactory.createAbstraction(binder, readIndex(_terms, i));
+        case TERM_META:
+          MetaVariable mvar = (MetaVariable)readReplaceable(true);
+          return TermFactory.createMeta(mvar, readTermList(i));
+        case TERM_TUPLE:
+          return TermFactory.createTuple(readTermList(i));
+        default:
+          throw new IOException("Corrupt TRS file: unknown term tag " + tag + ".");
+      }
+    }
+
+    private void readTerms() throws IOException {
+      _terms = new Term[readCount()];
+      for (int i = 0; i < _terms.length; i++) _terms[i] = readTerm(i);
+    }
+
+    private TRS readTrs() throws IOException {
+      String kind = readIndex(_strings, _strings.length);
+      TermLevel level = TermLevel.values()[_buffer.get()];
+      boolean theories = _buffer.get() != 0;
+      boolean products = _buffer.get() != 0;
+      ImmutableList.Builder<TRS.RuleScheme> schemes = ImmutableList.<TRS.RuleScheme>builder();
+      for (int n = readCount(); n > 0; n--) schemes.add(TRS.RuleScheme.values()[_buffer.get()]);
+      ArrayList<String> privateSymbols = new ArrayList<String>();
+      for (int n = readCount(); n > 0; n--) {
+        privateSymbols.add(readIndex(_strings, _strings.length));
+      }
+      ArrayList<FunctionSymbol> alphabet = new ArrayList<FunctionSymbol>();
+      for (int n = readCount(); n > 0; n--) alphabet.add(readIndex(_symbols, _symbols.length));
+      ArrayList<Rule> rules = new ArrayList<Rule>();
+      for (int n = readCount(); n > 0; n--) {
+        Term left = readIndex(_terms, _terms.length);
+        Term right = readIndex(_terms, _terms.length);
+        Term constraint = readIndex(_terms, _terms.length);
+        rules.add(new Rule(left, right, constraint));
+      }
+      return new TRS(new Alphabet(alphabet), rules, schemes.build(), privateSymbols, kind, level,
+                     theories, products, null);
+    }
+
+    TRS read() throws IOException {
+      if (_buffer.getInt() != MAGIC) throw new IOException("Not a binary TRS file.");
+      int version = _buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported binary TRS format version " + version + ".");
+      }
+      readStrings();
+      readTypes();
+      readReplaceables();
+      readSymbols();
+      readTerms();
+      return readTrs();
+    }
+  }
+
+  // ====================================== PUBLIC FUNCTIONS ======================================
+
+  /** Writes the given TRS to the given stream, in the binary format. */
+  public static void writeTrs(TRS trs, OutputStream stream) throws IOException {
+    (new Writer()).write(trs, stream);
+  }
+
+  /**
+   * Reads a TRS in the binary format from the given buffer, starting at its current position.
+   * If the buffer does not contain a TRS in the current version of the format, an IOException is
+   * thrown.
+   */
+  public static TRS readTrs(ByteBuffer buffer) throws IOException {
+    try { return (new Reader(buffer)).read(); }
+    catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupt TRS file: unexpected end of data.");
+    }
+  }
+
+  /** Memory-maps the given file, and reads the TRS stored in it in the binary format. */
+  public static TRS readTrsFromFile(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return readTrs(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+}
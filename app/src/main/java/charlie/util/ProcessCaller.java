@@ -16,17 +16,33 @@
 package charlie.util;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-/** A utility that is used to call an external process (without writing a file). */
+/**
+ * A utility that is used to call an external process (without writing a file).  The output of the
+ * process is read while it runs, so a process that prints more than fits in the pipe between us is
+ * not blocked until the timeout.
+ */
 public class ProcessCaller {
+  private static final ExecutorService READERS = Executors.newCachedThreadPool(task -> {
+    // a reader whose process is being killed should never keep the program alive
+    Thread thread = new Thread(task);
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private List<String> _command;
   private int _timeout;
   private ProcessBuilder _processBuilder;
@@ -45,23 +61,53 @@ public class ProcessCaller {
   }
 
   /**
-   * This sets a timeout handler and runs the process.  If the process times out, then this is
-   * immediately handled, and null is returned.  Otherwise, the process is returned, so its input
-   * stream can be read.
+   * This runs the process, collecting its output in the background, and returns that output once
+   * the process has finished.  If the process does not finish (and close its output) within the
+   * timeout, then it is killed, and null is returned.  If the current thread is interrupted while
+   * waiting, the process is also killed, before the InterruptedException is passed on.
    */
-  private Process callProcess() throws IOException, InterruptedException {
-    Process process = null;
-    process = _processBuilder.start();
-
-    final boolean exited = process.waitFor(_timeout, TimeUnit.SECONDS);
-    if (!exited) {
-      // we did not finish within the timeout
-      process.destroy();
-      Runtime.getRuntime().exit(1);
-      return null;
+  private byte[] callProcess() throws IOException, InterruptedException {
+    long start = Statistics.startTimer();
+    Process process = _processBuilder.start();
+    Statistics.stopTimer("process start", start);
+    Future<byte[]> output = READERS.submit(() -> process.getInputStream().readAllBytes());
+
+    start = Statistics.startTimer();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(_timeout);
+    try {
+      if (process.waitFor(_timeout, TimeUnit.SECONDS)) {
+        return output.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      }
+    }
+    catch (InterruptedException e) {
+      kill(process);
+      throw e;
+    }
+    catch (TimeoutException e) {
+      // the process is done, but something it started still holds on to the output
+    }
+    catch (ExecutionException e) {
+      kill(process);
+      if (e.getCause() instanceof IOException ioe) throw ioe;
+      throw new IOException("Could not read process output: " + e.getCause().getMessage(), e);
     }
+    finally { Statistics.stopTimer("process wait", start); }
 
-    return process;
+    // we did not finish within the timeout; this only affects the current caller, who simply
+    // gets no result, so other work going on in the program can continue
+    kill(process);
+    output.cancel(true);
+    return null;
+  }
+
+  /**
+   * Helper function for callProcess: stops the given process, along with anything it started
+   * (such as the solver behind a shell pipe).  The descendants are collected first, since they
+   * can no longer be found once their parent is gone.
+   */
+  private static void kill(Process process) {
+    process.descendants().forEach(ProcessHandle::destroyForcibly);
+    process.destroyForcibly();
   }
 
   /**
@@ -69,23 +115,19 @@ public class ProcessCaller {
    * as an InputStream.
    */
   public Optional<InputStream> getResultAsInputStream() throws IOException, InterruptedException {
-    Process process = callProcess();
-    if (process == null) return Optional.empty();
-//    process.onExit().get();
-    return Optional.of(process.getInputStream());
+    byte[] output = callProcess();
+    if (output == null) return Optional.empty();
+    return Optional.of(new ByteArrayInputStream(output));
   }
 
   /**
    * This function calls the process, waits for it to complete or time out, reads the result into a
    * string and returns it.
    */
-  public Optional<String> getResultAsString() throws IOException, InterruptedException,
-                                                     ExecutionException {
-    Process process = callProcess();
-    if (process == null) return Optional.empty();
-    process.onExit().get();
-    String processResult = bufferToString(process.getInputStream());
-    return Optional.of(processResult);
+  public Optional<String> getResultAsString() throws IOException, InterruptedException {
+    byte[] output = callProcess();
+    if (output == null) return Optional.empty();
+    return Optional.of(bufferToString(new ByteArrayInputStream(output)));
   }
 
   /** Helper function for getResultAsString: this reads the given input stream into a String. */
@@ -94,4 +136,3 @@ public class ProcessCaller {
     return reader.lines().collect(Collectors.joining(System.lineSeparator()));
   }
 }
-
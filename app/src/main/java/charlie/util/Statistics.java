@@ -0,0 +1,190 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.util;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The Statistics class records how much time is spent in the various phases of an analysis (such
+ * as parsing, generating dependency pairs, each processor and the SMT solver), along with counters
+ * for events of interest (such as successful processor applications, or SMT answers).
+ *
+ * Recording is done per thread: an analysis is measured by calling startRecording() before it
+ * and stopRecording() after it, in the same thread.  When no recording is active in the current
+ * thread (which is the usual case), the static timing and counting functions do nothing, so the
+ * parts of Cora that report to it can call them without further checks, and at almost no cost.
+ * (If the name of a counter is expensive to compute, isRecording() can be checked first.)
+ *
+ * Phases may be nested (for instance, SMT solver calls happen inside processors), so the times of
+ * different phases should not be expected to add up to the total.
+ *
+ * Work that an analysis hands off to other threads can be recorded as part of the analysis by
+ * passing its recording (obtained with queryRecording) to recordWith.  For this reason, a
+ * Statistics object may be updated from several threads at once.
+ */
+public class Statistics {
+  private static final ThreadLocal<Statistics> _current = new ThreadLocal<Statistics>();
+  private final LinkedHashMap<String,long[]> _timers;   // name -> { count, total nanoseconds }
+  private final LinkedHashMap<String,long[]> _counters; // name -> { value }
+
+  private Statistics() {
+    _timers = new LinkedHashMap<String,long[]>();
+    _counters = new LinkedHashMap<String,long[]>();
+  }
+
+  /** Starts a fresh recording for the current thread, and returns it. */
+  public static Statistics startRecording() {
+    Statistics ret = new Statistics();
+    _current.set(ret);
+    return ret;
+  }
+
+  /** Stops the recording for the current thread, and returns it (or null if there was none). */
+  public static Statistics stopRecording() {
+    Statistics ret = _current.get();
+    _current.remove();
+    return ret;
+  }
+
+  /** Returns the recording for the current thread, or null if there is none. */
+  public static Statistics queryRecording() {
+    return _current.get();
+  }
+
+  /**
+   * Executes the given task in the current thread, recording its statistics into the given
+   * recording (or not recording them at all, if it is null), and returns its result.  Afterwards,
+   * the current thread's own recording is restored.
+   */
+  public static <T> T recordWith(Statistics stats, Supplier<T> task) {
+    Statistics previous = _current.get();
+    _current.set(stats);
+    try { return task.get(); }
+    finally {
+      if (previous == null) _current.remove();
+      else _current.set(previous);
+    }
+  }
+
+  /** Returns whether statistics are being recorded in the current thread. */
+  public static boolean isRecording() {
+    return _current.get() != null;
+  }
+
+  /**
+   * Returns the moment to be passed to stopTimer once the phase that starts now is done.  If
+   * nothing is being recorded in the current thread, this is simply 0.
+   */
+  public static long startTimer() {
+    return _current.get() == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records that the phase with the given name, which started at the given moment (as returned
+   * by startTimer), has now ended.  If nothing is being recorded in the current thread, this does
+   * nothing.
+   */
+  public static void stopTimer(String phase, long start) {
+    Statistics stats = _current.get();
+    if (stats != null) stats.addTime(phase, System.nanoTime() - start);
+  }
+
+  /**
+   * Executes the given task and returns its result, recording the time it takes as an occurrence
+   * of the given phase.
+   */
+  public static <T> T time(String phase, Supplier<T> task) {
+    long start = startTimer();
+    try { return task.get(); }
+    finally { stopTimer(phase, start); }
+  }
+
+  /** Increases the counter with the given name by one, if statistics are being recorded. */
+  public static void count(String counter) {
+    count(counter, 1);
+  }
+
+  /** Increases the counter with the given name by the given amount, if recording. */
+  public static void count(String counter, long amount) {
+    Statistics stats = _current.get();
+    if (stats != null) stats.addCount(counter, amount);
+  }
+
+  /** Records one more occurrence of the given phase, which took the given number of nanoseconds. */
+  public synchronized void addTime(String phase, long nanos) {
+    long[] timer = _timers.computeIfAbsent(phase, k -> new long[2]);
+    timer[0]++;
+    timer[1] += nanos;
+  }
+
+  /** Increases the counter with the given name by the given amount. */
+  public synchronized void addCount(String counter, long amount) {
+    _counters.computeIfAbsent(counter, k -> new long[1])[0] += amount;
+  }
+
+  /** Returns the names of all phases that have been recorded, in the order they first occurred. */
+  public synchronized Set<String> queryPhases() {
+    return new LinkedHashSet<String>(_timers.keySet());
+  }
+
+  /** Returns how often the given phase occurred. */
+  public synchronized long queryCount(String phase) {
+    long[] timer = _timers.get(phase);
+    return timer == null ? 0 : timer[0];
+  }
+
+  /** Returns the total time spent in the given phase, in nanoseconds. */
+  public synchronized long queryTime(String phase) {
+    long[] timer = _timers.get(phase);
+    return timer == null ? 0 : timer[1];
+  }
+
+  /** Returns the names of all counters that have been used, in the order they first occurred. */
+  public synchronized Set<String> queryCounters() {
+    return new LinkedHashSet<String>(_counters.keySet());
+  }
+
+  /** Returns the value of the given counter. */
+  public synchronized long queryCounter(String counter) {
+    long[] value = _counters.get(counter);
+    return value == null ? 0 : value[0];
+  }
+
+  /** Returns a table listing all phases with their counts and times, and all counters. */
+  public synchronized String toString() {
+    StringBuilder ret = new StringBuilder();
+    int width = 5;
+    for (String name : _timers.keySet()) width = Math.max(width, name.length());
+    for (String name : _counters.keySet()) width = Math.max(width, name.length());
+    String format = "%-" + width + "s %10s %14s%n";
+    ret.append(String.format(Locale.ROOT, format, "phase", "count", "time (ms)"));
+    for (String name : _timers.keySet()) {
+      ret.append(String.format(Locale.ROOT, format, name, queryCount(name),
+                               String.format(Locale.ROOT, "%.3f", queryTime(name) / 1e6)));
+    }
+    if (!_counters.isEmpty()) {
+      ret.append(String.format(Locale.ROOT, format, "counter", "value", ""));
+      for (String name : _counters.keySet()) {
+        ret.append(String.format(Locale.ROOT, format, name, queryCounter(name), ""));
+      }
+    }
+    return ret.toString();
+  }
+}
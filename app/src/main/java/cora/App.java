@@ -19,14 +19,24 @@ import charlie.exceptions.ParseException;
 import charlie.terms.Term;
 import charlie.trs.TRS;
 import charlie.reader.*;
+import charlie.util.Statistics;
+import cora.config.Settings;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.io.ProofObject;
 import cora.reduction.Reducer;
 import cora.termination.TerminationHandler;
 import cora.Parameters.Request;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.List;
 import java.util.TreeSet;
@@ -38,19 +48,31 @@ public class App {
     try {
       Parameters parameters = new Parameters(args);
       parameters.setupSettings();
+      if (parameters.queryServerThreads() > 0) {
+        // the protocol is JSON, so we always use UTF-8 regardless of the platform
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        Reader in = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        (new Server(in, out, parameters.queryServerThreads())).serve();
+        return;
+      }
+      if (parameters.queryStatistics()) Statistics.startRecording();
       Request req = parameters.queryRequest();
-      TRS trs = readTRS(parameters.querySingleFile());
+      TRS trs = readTRS(parameters.querySingleFile(), parameters.queryCacheDirectory());
       ProofObject pobject = executeRequest(req, trs, parameters.queryModuleInput());
-      if (pobject == null) System.exit(1);
-      System.out.println(pobject.printAnswer());
-      OutputModule om = parameters.queryOutputModule(trs);
-      pobject.justify(om);
-      om.printToStdout();
+      long start = Statistics.startTimer();
+      printProof(pobject, trs, parameters);
+      Statistics.stopTimer("output", start);
+      Statistics stats = Statistics.stopRecording();
+      if (stats != null) System.err.print(stats);
     }
     catch (Parameters.WrongParametersException e) {
       System.out.println(e.getMessage());
       System.exit(0);
     }
+    catch (ParseException e) {
+      System.out.println(e.getMessage());
+      System.exit(1);
+    }
     catch (Exception e) {
       System.out.println("Encountered an error:\n" + e.getMessage());
       e.printStackTrace();
@@ -63,9 +85,15 @@ public class App {
     }
   }
 
-  /** Reads the given file as a TRS, and handles errors if they should arise. */
-  private static TRS readTRS(String file) {
-    try { return readInput(file); }
+  /**
+   * Reads the given file as a TRS (using the given cache directory, if it is not null), and
+   * handles errors if they should arise.
+   */
+  private static TRS readTRS(String file, String cacheDirectory) {
+    try {
+      if (cacheDirectory == null) return readInput(file);
+      return (new TrsCache(cacheDirectory)).readTrsFromFile(file, App::readInput);
+    }
     catch (IOException e) {
       System.out.println(e.getMessage());
       System.exit(1);
@@ -77,12 +105,39 @@ public class App {
     return null;
   }
 
-  /** Reads the given file as a TRS */
+  /** Reads the given file as a TRS (building its rules in parallel if the Settings say so). */
   public static TRS readInput(String file) throws IOException {
     String extension = getExtension(file);
-    if (extension.equals("trs")) return OCocoInputReader.readTrsFromFile(file);
-    else if (extension.equals("itrs")) return ITrsInputReader.readTrsFromFile(file);
-    else return CoraInputReader.readTrsFromFile(file);
+    long start = Statistics.startTimer();
+    TRS ret = ParallelRuleBuilder.withEnabled(Settings.queryParallelRead(), () -> {
+      if (extension.equals("trs")) return OCocoInputReader.readTrsFromFile(file);
+      if (extension.equals("itrs")) return ITrsInputReader.readTrsFromFile(file);
+      return CoraInputReader.readTrsFromFile(file);
+    });
+    Statistics.stopTimer("parse", start);
+    Statistics.count("rules read", ret.queryRuleCount());
+    return ret;
+  }
+
+  /**
+   * Reads the given text as a TRS, in the input format that belongs to the given file extension
+   * (so "trs" and "itrs" for the corresponding formats, and anything else for Cora's own).
+   */
+  static TRS readInputFromString(String text, String extension) {
+    String ext = extension.toLowerCase();
+    long start = Statistics.startTimer();
+    TRS ret;
+    try {
+      ret = ParallelRuleBuilder.withEnabled(Settings.queryParallelRead(), () -> {
+        if (ext.equals("trs")) return OCocoInputReader.readTrsFromString(text);
+        if (ext.equals("itrs")) return ITrsInputReader.readTrsFromString(text);
+        return CoraInputReader.readTrsFromString(text);
+      });
+    }
+    catch (IOException e) { throw new UncheckedIOException(e); } // cannot happen on a string
+    Statistics.stopTimer("parse", start);
+    Statistics.count("rules read", ret.queryRuleCount());
+    return ret;
   }
 
   /** Determines the extension of a given filename ("" if it has no extension) */
@@ -92,12 +147,36 @@ public class App {
     return "";
   }
 
+  /**
+   * Prints the answer and proof in the given proof object to standard output, in the format that
+   * the parameters ask for.  The proof is only generated here, so if only the answer is asked
+   * for, we do not spend any time on it.
+   */
+  private static void printProof(ProofObject pobject, TRS trs, Parameters parameters) {
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()));
+    switch (parameters.queryProofFormat()) {
+      case Text -> {
+        System.out.println(pobject.printAnswer());
+        OutputModule om = parameters.queryStreamingOutputModule(trs, out);
+        pobject.justify(om);
+        om.printToStdout();
+      }
+      case Json -> {
+        JsonWriter json = new JsonWriter(out, trs);
+        pobject.export(json);
+        json.finish();
+      }
+      case Answer -> System.out.println(pobject.printAnswer());
+    }
+  }
+
   /**
    * This function executes the given request on the given TRS, and returns the resulting proof
    * object.
    * (This only considers the requests that take a TRS as argument and return a Proof Object.)
+   * If the input term of a Reduce request cannot be read, a ParseException is thrown.
    */
-  private static ProofObject executeRequest(Request request, TRS trs, List<String> moduleInput) {
+  static ProofObject executeRequest(Request request, TRS trs, List<String> moduleInput) {
     return switch (request) {
       case Computability -> TerminationHandler.proveComputability(trs);
       case Print -> new ProofObject() {
@@ -119,8 +198,7 @@ public class App {
     Term start;
     try { start = CoraInputReader.readTerm(txt, trs); }
     catch (ParseException e) {
-      System.out.println("Exception reading input term " + txt + ":\n" + e.getMessage());
-      return null;
+      throw new ParseException("Exception reading input term " + txt + ":\n" + e.getMessage());
     }
     Reducer reducer = new Reducer(trs);
     return reducer.normalise(start);
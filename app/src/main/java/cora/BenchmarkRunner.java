@@ -0,0 +1,357 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import charlie.trs.TRS;
+import charlie.util.Statistics;
+import cora.config.Settings;
+import cora.io.JsonReader;
+import cora.io.JsonWriter;
+import cora.io.OutputModule;
+import cora.io.ProofObject;
+
+/**
+ * The BenchmarkRunner runs Cora on all the files in a number of directories (by default the
+ * benchmark collections in benchmarks/), in a single JVM, and records for each file the answer,
+ * the total time and the time spent in each phase of the analysis (as recorded by Statistics).
+ * The results are written both as CSV and as JSON, and updated after every file, so an aborted run
+ * still leaves the results so far.  The JSON file can be given as a baseline to a later run, which
+ * then reports the files whose answer became worse, or which became notably slower.
+ *
+ * Usage: BenchmarkRunner [runner options] [cora options], where the runner options are:
+ *   --dir directory      a directory to take the files from (may be given multiple times)
+ *   --out prefix         the results are written to prefix.csv and prefix.json
+ *   --baseline file      a JSON file with the results of an earlier run, to compare against
+ *   --tolerance percent  how much slower than the baseline a file may become (default 25)
+ *   --timeout seconds    the time limit for each file (default 60)
+ * All other arguments are passed to Cora as runtime arguments for every file (for instance, to
+ * disable techniques or choose the SMT solver).
+ */
+public class BenchmarkRunner {
+  private static final List<String> DEFAULT_DIRECTORIES =
+    List.of("benchmarks/esop2024", "benchmarks/mfcs2024", "benchmarks/tpdb_itrs",
+            "benchmarks/tpdb_strs", "benchmarks/extra");
+  private static final List<String> RUNNER_OPTIONS =
+    List.of("--dir", "--out", "--baseline", "--tolerance", "--timeout");
+  /** Slowdowns below this many milliseconds are considered noise rather than regressions. */
+  private static final long MIN_REGRESSION_MILLIS = 100;
+  /** How long an analysis that ran out of time is given to stop, before we move on anyway. */
+  private static final long STOP_GRACE_MILLIS = 10000;
+  private static final String CSV_HEADER = "file,answer,phase,count,milliseconds\n";
+
+  /**
+   * The outcome of analysing a single file.  The statistics are null if the analysis did not
+   * complete (in which case the answer is TIMEOUT or ERROR).
+   */
+  record Result(String file, String answer, long nanos, Statistics stats) {}
+
+  private final ArrayList<String> _directories = new ArrayList<String>();
+  private final ArrayList<String> _coraArguments = new ArrayList<String>();
+  private String _output = "build/benchmarks/results";
+  private String _baseline = null;
+  private int _tolerance = 25;
+  private int _timeout = 60;
+  private final ExecutorService _workers = Executors.newCachedThreadPool(task -> {
+    // an analysis that does not stop when asked must not keep us alive
+    Thread thread = new Thread(task);
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public static void main(String[] args) {
+    try {
+      BenchmarkRunner runner = new BenchmarkRunner(args);
+      System.exit(runner.run() ? 0 : 1);
+    }
+    catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.exit(1);
+    }
+    catch (IOException e) {
+      System.out.println("Encountered an error:\n" + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  BenchmarkRunner(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (!RUNNER_OPTIONS.contains(arg)) {
+        _coraArguments.add(arg);
+        continue;
+      }
+      if (i + 1 == args.length) throw new IllegalArgumentException(arg + " needs an argument.");
+      String value = args[++i];
+      switch (arg) {
+        case "--dir" -> _directories.add(value);
+        case "--out" -> _output = value;
+        case "--baseline" -> _baseline = value;
+        case "--tolerance" -> _tolerance = readNumber(arg, value);
+        case "--timeout" -> _timeout = readNumber(arg, value);
+      }
+    }
+    if (_directories.isEmpty()) _directories.addAll(DEFAULT_DIRECTORIES);
+  }
+
+  private static int readNumber(String arg, String value) {
+    try { return Integer.parseInt(value); }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException(arg + " should be given a number, not " + value + ".");
+    }
+  }
+
+  /**
+   * Analyses all files, writes the results, and compares them to the baseline (if any).  This
+   * returns false if regressions were found.
+   */
+  boolean run() throws IOException {
+    Map<String,Map<?,?>> baseline = _baseline == null ? Map.of() : readBaseline(_baseline);
+    ArrayList<Result> results = new ArrayList<Result>();
+    Path csv = Path.of(_output + ".csv"), json = Path.of(_output + ".json");
+    if (csv.getParent() != null) Files.createDirectories(csv.getParent());
+    Files.writeString(csv, CSV_HEADER, StandardCharsets.UTF_8);
+    for (String file : collectFiles()) {
+      Result result = runFile(file);
+      System.out.printf(Locale.ROOT, "%-60s %-8s %10.1f ms%n", result.file(), result.answer(),
+                        result.nanos() / 1e6);
+      results.add(result);
+      // the results so far are saved right away, so they are not lost if the run is aborted
+      Files.writeString(csv, toCsv(result), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+      saveJson(results, json);
+    }
+    System.out.println("Results written to " + csv + " and " + json + ".");
+    List<String> regressions = compare(results, baseline, _tolerance);
+    for (String regression : regressions) System.out.println("REGRESSION: " + regression);
+    return regressions.isEmpty();
+  }
+
+  /**
+   * Helper function for run: replaces the given JSON file by one holding the given results.  The
+   * file is first written next to it and then moved into place, so an abort halfway through
+   * writing leaves the results of the previous file intact.
+   */
+  private void saveJson(List<Result> results, Path json) throws IOException {
+    Path partial = json.resolveSibling(json.getFileName() + ".part");
+    try (Writer writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+      writeJson(results, writer);
+    }
+    Files.move(partial, json, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** Returns all the (non-hidden) files in the given directories, sorted by name. */
+  private List<String> collectFiles() throws IOException {
+    ArrayList<String> ret = new ArrayList<String>();
+    for (String dir : _directories) {
+      try (Stream<Path> files = Files.list(Path.of(dir))) {
+        files.filter(Files::isRegularFile)
+             .filter(f -> !f.getFileName().toString().startsWith("."))
+             .map(Path::toString)
+             .sorted()
+             .forEach(ret::add);
+      }
+    }
+    return ret;
+  }
+
+  /** Analyses the given file in a separate thread, so we can give up after the time limit. */
+  private Result runFile(String file) {
+    long start = System.nanoTime();
+    CountDownLatch finished = new CountDownLatch(1);
+    Future<Result> future = _workers.submit(() -> {
+      try { return analyse(file); }
+      finally { finished.countDown(); }
+    });
+    try { return future.get(_timeout, TimeUnit.SECONDS); }
+    catch (TimeoutException e) {
+      long nanos = System.nanoTime() - start;
+      stop(file, future, finished);
+      return new Result(file, "TIMEOUT", nanos, null);
+    }
+    catch (ExecutionException | InterruptedException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      System.out.println(file + ": " + cause.getMessage());
+      return new Result(file, "ERROR", System.nanoTime() - start, null);
+    }
+  }
+
+  /**
+   * Helper function for runFile: interrupts an analysis that ran out of time, and kills the
+   * processes it started (such as SMT solvers), until it has stopped or the grace period is over.
+   * Since files are analysed one at a time, all child processes of the JVM belong to it.  This
+   * way, an analysis that timed out does not compete with the next ones and distort their timings.
+   */
+  private static void stop(String file, Future<Result> future, CountDownLatch finished) {
+    future.cancel(true);
+    long deadline = System.nanoTime() + STOP_GRACE_MILLIS * 1000000;
+    try {
+      do { ProcessHandle.current().descendants().forEach(ProcessHandle::destroyForcibly); }
+      while (!finished.await(100, TimeUnit.MILLISECONDS) && System.nanoTime() < deadline);
+    }
+    catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    if (finished.getCount() > 0) {
+      System.out.println("WARNING: the analysis of " + file + " could not be stopped; the " +
+                         "timings of the remaining files may be affected.");
+    }
+  }
+
+  /** Reads and analyses the given file, recording the time spent in all phases. */
+  Result analyse(String file) {
+    String[] args = Stream.concat(_coraArguments.stream(), Stream.of(file)).toArray(String[]::new);
+    Parameters parameters = new Parameters(args);
+    Statistics stats = Statistics.startRecording();
+    try {
+      long start = System.nanoTime();
+      String answer = Settings.runWith(parameters.querySolver(),
+          parameters.queryDisabledTechniques(), parameters.queryParallelRead(), () -> {
+        TRS trs;
+        try { trs = App.readInput(file); }
+        catch (IOException e) { throw new UncheckedIOException(e.getMessage(), e); }
+        ProofObject pobject = App.executeRequest(parameters.queryRequest(), trs,
+                                                 parameters.queryModuleInput());
+        // the proof is only generated when it is printed, so this is part of the analysis
+        Statistics.time("output", () -> {
+          OutputModule om = parameters.queryStreamingOutputModule(trs, Writer.nullWriter());
+          pobject.justify(om);
+          om.printToStdout();
+          return null;
+        });
+        return pobject.queryAnswer().toString();
+      });
+      return new Result(file, answer, System.nanoTime() - start, stats);
+    }
+    finally { Statistics.stopRecording(); }
+  }
+
+  /**
+   * Returns the results in CSV format, with a line for every phase and counter of every file (for
+   * counters, the count column holds the value, and the milliseconds column is empty).
+   */
+  static String toCsv(List<Result> results) {
+    StringBuilder ret = new StringBuilder(CSV_HEADER);
+    for (Result result : results) ret.append(toCsv(result));
+    return ret.toString();
+  }
+
+  /** Returns the lines of the CSV file (without header) that describe the given result. */
+  static String toCsv(Result result) {
+    StringBuilder ret = new StringBuilder();
+    String prefix = "\"" + result.file().replace("\"", "\"\"") + "\"," + result.answer() + ",";
+    ret.append(prefix).append("total,1,").append(millis(result.nanos())).append('\n');
+    if (result.stats() == null) return ret.toString();
+    for (String phase : result.stats().queryPhases()) {
+      ret.append(prefix).append(phase).append(',').append(result.stats().queryCount(phase))
+         .append(',').append(millis(result.stats().queryTime(phase))).append('\n');
+    }
+    for (String counter : result.stats().queryCounters()) {
+      ret.append(prefix).append(counter).append(',').append(result.stats().queryCounter(counter))
+         .append(",\n");
+    }
+    return ret.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  /**
+   * Writes the results in JSON format: an object with a list "results", with for each file its
+   * name, answer, total time (in microseconds) and statistics (see JsonWriter.value(Statistics)).
+   */
+  void writeJson(List<Result> results, Writer writer) {
+    JsonWriter json = new JsonWriter(writer, null);
+    json.beginObject();
+    json.name("arguments").beginArray();
+    for (String arg : _coraArguments) json.value(arg);
+    json.endArray();
+    json.name("results").beginArray();
+    for (Result result : results) {
+      json.beginObject();
+      json.name("file").value(result.file());
+      json.name("answer").value(result.answer());
+      json.name("total").value(result.nanos() / 1000);
+      if (result.stats() != null) json.name("statistics").value(result.stats());
+      json.endObject();
+    }
+    json.endArray();
+    json.endObject();
+    json.finish();
+  }
+
+  /** Reads the results of an earlier run from the given JSON file, as a mapping from files. */
+  private static Map<String,Map<?,?>> readBaseline(String file) throws IOException {
+    Object contents = JsonReader.read(Files.readString(Path.of(file), StandardCharsets.UTF_8));
+    if (contents instanceof Map<?,?> map && map.get("results") instanceof List<?> lst) {
+      LinkedHashMap<String,Map<?,?>> ret = new LinkedHashMap<String,Map<?,?>>();
+      for (Object o : lst) {
+        if (o instanceof Map<?,?> result && result.get("file") instanceof String name) {
+          ret.put(name, result);
+        }
+      }
+      return ret;
+    }
+    throw new IllegalArgumentException("Baseline " + file + " does not contain benchmark results.");
+  }
+
+  /**
+   * Compares the given results against the baseline (as read by readBaseline), and returns a
+   * description of every regression: a file that the baseline could prove YES or NO but now
+   * cannot, or a file that took more than tolerance percent (and MIN_REGRESSION_MILLIS) longer
+   * than in the baseline.  Files that are not in the baseline are ignored.
+   */
+  static List<String> compare(List<Result> results, Map<String,Map<?,?>> baseline,
+                              int tolerance) {
+    ArrayList<String> ret = new ArrayList<String>();
+    for (Result result : results) {
+      Map<?,?> base = baseline.get(result.file());
+      if (base == null) continue;
+      Object oldAnswer = base.get("answer");
+      if (("YES".equals(oldAnswer) || "NO".equals(oldAnswer)) &&
+          !oldAnswer.equals(result.answer())) {
+        ret.add(result.file() + ": answer " + result.answer() + " instead of " + oldAnswer + ".");
+      }
+      else if (base.get("total") instanceof Long oldMicros) {
+        long newMicros = result.nanos() / 1000;
+        if (newMicros * 100 > oldMicros * (100 + tolerance) &&
+            newMicros - oldMicros > MIN_REGRESSION_MILLIS * 1000) {
+          ret.add(String.format(Locale.ROOT, "%s: took %.1f ms instead of %.1f ms.",
+                                result.file(), newMicros / 1e3, oldMicros / 1e3));
+        }
+      }
+    }
+    return ret;
+  }
+}
@@ -15,13 +15,17 @@
 
 package cora;
 
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Collections;
 import java.util.TreeSet;
 import charlie.trs.TRS;
+import charlie.smt.SmtProblem.Fragment;
 import charlie.smt.SmtSolver;
 import charlie.solvesmt.ExternalSmtSolver;
+import charlie.solvesmt.PortfolioSmtSolver;
 import charlie.solvesmt.ProcessSmtSolver;
 import charlie.solvesmt.ProcessSmtSolver.PhysicalSolver;
 import cora.io.OutputModule;
@@ -38,8 +42,16 @@ public class Parameters {
   private OutputModule.Style _style;
   private Request _request;
   private SmtSolver _solver;
+  private boolean _parallelRead;
+  private String _cacheDirectory;
+  private ProofFormat _format;
+  private int _serverThreads;
+  private boolean _statistics;
+  private EnumMap<Fragment,String> _tactics;
+  private int _smtTimeout;
 
   public enum Request { Print, Reduce, Termination, Computability };
+  public enum ProofFormat { Text, Json, Answer };
 
   public class WrongParametersException extends RuntimeException {
     public WrongParametersException(String reason) {
@@ -91,12 +103,22 @@ public class Parameters {
     _disable = new TreeSet<String>();
     _style = null;
     _request = null;
+    _parallelRead = false;
+    _cacheDirectory = null;
+    _format = null;
+    _serverThreads = 0;
+    _statistics = false;
+    _tactics = new EnumMap<Fragment,String>(Fragment.class);
+    _smtTimeout = 0;
 
     for (int i = 0; i < args.length; ) {
       i = handleArgument(args, i);
     }
+    if (!_tactics.isEmpty()) setupTactics();
+    if (_smtTimeout > 0) setupTimeout();
 
     if (_request == null) _request = Request.Termination;
+    if (_format == null) _format = ProofFormat.Text;
   }
 
   /**
@@ -108,6 +130,12 @@ public class Parameters {
     String arg = args[index];
 
     switch (arg) {
+      case "-C": case "--cache":
+        if (index + 1 == args.length) {
+          throw new WrongParametersException("Parameter " + arg + " without cache directory!");
+        }
+        _cacheDirectory = args[index+1];
+        return index+2;
       case "-c": case "--computability":
         setRequest(Request.Computability);
         return index+1;
@@ -117,6 +145,20 @@ public class Parameters {
         }
         for (String s : args[index+1].split(",")) _disable.add(s);
         return index+2;
+      case "-f": case "--format":
+        if (index + 1 == args.length) {
+          throw new WrongParametersException("Parameter " + arg + " without given format!");
+        }
+        if (_format != null) throw new WrongParametersException("Two format parameters are given.");
+        String fm = args[index+1].toLowerCase();
+        if (fm.equals("text")) _format = ProofFormat.Text;
+        else if (fm.equals("json")) _format = ProofFormat.Json;
+        else if (fm.equals("answer")) _format = ProofFormat.Answer;
+        else throw new WrongParametersException("Unknown format: " + args[index+1]);
+        return index + 2;
+      case "-j": case "--parallel-read":
+        _parallelRead = true;
+        return index+1;
       case "-p": case "--print":
         setRequest(Request.Print);
         return index+1;
@@ -126,19 +168,55 @@ public class Parameters {
         for (index++; index < args.length; index++) trm += args[index];
         if (!trm.equals("")) _input.add(trm);
         return args.length;
+      case "-S": case "--server":
+        _serverThreads = Runtime.getRuntime().availableProcessors();
+        if (index + 1 < args.length && args[index+1].matches("[0-9]+")) {
+          _serverThreads = Integer.parseInt(args[index+1]);
+          if (_serverThreads == 0) {
+            throw new WrongParametersException("Server mode needs at least one thread!");
+          }
+          return index+2;
+        }
+        return index+1;
+      case "--stats":
+        _statistics = true;
+        return index+1;
       case "-s": case "--solver":
         if (index + 1 == args.length) {
           throw new WrongParametersException("Parameter " + arg + " without given solver!");
         }
-        PhysicalSolver ps = ProcessSmtSolver.stringToSolver(args[index+1]);
-        if (ps != null) _solver = new ProcessSmtSolver(ps);
-        else if (args[index+1].length() > 10 && args[index+1].substring(0,9).equals("external:")) {
-          _solver = new ExternalSmtSolver(args[index+1].substring(9));
-        }
+        _solver = readSolver(args[index+1]);
         if (_solver == null) {
           throw new WrongParametersException("Unknown SMT solver: " + args[index+1] + "!");
         }
         return index + 2;
+      case "--tactic":
+        if (index + 1 == args.length || args[index+1].indexOf('=') < 0) {
+          throw new WrongParametersException("Parameter " + arg + " should be followed by " +
+            "<fragment>=<tactic>.");
+        }
+        String fragment = args[index+1].substring(0, args[index+1].indexOf('='));
+        Fragment frag = switch (fragment.toLowerCase()) {
+          case "propositional" -> Fragment.PROPOSITIONAL;
+          case "linear" -> Fragment.LINEAR;
+          case "divmod" -> Fragment.LINEAR_DIVMOD;
+          case "nonlinear" -> Fragment.NONLINEAR;
+          default -> throw new WrongParametersException("Unknown fragment: " + fragment + ".");
+        };
+        String tactic = args[index+1].substring(args[index+1].indexOf('=') + 1);
+        if (!ProcessSmtSolver.isSafeTactic(tactic)) {
+          throw new WrongParametersException("Illegal characters in tactic " + tactic + ".");
+        }
+        _tactics.put(frag, tactic);
+        return index + 2;
+      case "--smt-timeout":
+        if (index + 1 == args.length || !args[index+1].matches("[0-9]{1,9}") ||
+            Integer.parseInt(args[index+1]) == 0) {
+          throw new WrongParametersException("Parameter " + arg + " should be followed by a " +
+            "positive number of seconds.");
+        }
+        _smtTimeout = Integer.parseInt(args[index+1]);
+        return index + 2;
       case "-t": case "--termination":
         setRequest(Request.Termination);
         return index+1;
@@ -176,14 +254,110 @@ public class Parameters {
 
   /** Sets up config.Settings based on what the input arguments were. */
   public void setupSettings() {
+    Settings.setDisabled(queryDisabledTechniques());
+    if (_solver != null) Settings.setSolver(_solver);
+    Settings.setParallelRead(_parallelRead);
+  }
+
+  /** Returns whether the user asked for the rules of the input to be built in parallel. */
+  public boolean queryParallelRead() {
+    return _parallelRead;
+  }
+
+  /**
+   * Returns the codes of the techniques that the user disabled.  If any of them does not belong
+   * to a technique, a WrongParametersException is thrown.
+   */
+  public TreeSet<String> queryDisabledTechniques() {
     TreeSet<String> codes = disableableTechniques();
     for (String d : _disable) {
       if (!codes.contains(d)) {
         throw new WrongParametersException("Unknown code for technique to disable: " + d);
       }
     }
-    Settings.setDisabled(new TreeSet<String>(_disable));
-    if (_solver != null) Settings.setSolver(_solver);
+    return new TreeSet<String>(_disable);
+  }
+
+  /**
+   * Returns the SMT solver described by the given argument to -s, or null if it does not describe
+   * a solver.  Besides a single solver, this may be a comma-separated list of physical solvers,
+   * or "portfolio" for all of them, which are then run in parallel; with the prefix "learn:" the
+   * portfolio learns which solver to prefer.
+   */
+  private static SmtSolver readSolver(String description) {
+    if (description.length() > 10 && description.substring(0,9).equals("external:")) {
+      return new ExternalSmtSolver(description.substring(9));
+    }
+    boolean learning = description.startsWith("learn:");
+    if (learning) description = description.substring(6);
+    if (description.equals("portfolio")) return new PortfolioSmtSolver(learning);
+    String[] parts = description.split(",");
+    ArrayList<SmtSolver> solvers = new ArrayList<SmtSolver>();
+    for (String part : parts) {
+      PhysicalSolver ps = ProcessSmtSolver.stringToSolver(part.trim());
+      if (ps == null) return null;
+      solvers.add(new ProcessSmtSolver(ps));
+    }
+    if (solvers.size() == 1 && !learning) return solvers.get(0);
+    return new PortfolioSmtSolver(solvers, learning);
+  }
+
+  /**
+   * Helper function for the constructor: passes the tactics the user gave to the Z3 solvers that
+   * will be used (setting up the default solver if none was chosen).
+   */
+  private void setupTactics() {
+    boolean used = false;
+    for (SmtSolver solver : queryConfigurableSolvers()) {
+      if (solver instanceof ProcessSmtSolver ps && ps.queryPhysicalSolver() == PhysicalSolver.Z3) {
+        for (Fragment fragment : _tactics.keySet()) ps.setTactic(fragment, _tactics.get(fragment));
+        used = true;
+      }
+    }
+    if (!used) throw new WrongParametersException("Tactics can only be used with Z3.");
+  }
+
+  /**
+   * Helper function for the constructor: passes the timeout the user gave to the solvers that will
+   * be used (setting up the default solver if none was chosen).
+   */
+  private void setupTimeout() {
+    for (SmtSolver solver : queryConfigurableSolvers()) {
+      if (solver instanceof ProcessSmtSolver ps) ps.setTimeout(_smtTimeout);
+      if (solver instanceof ExternalSmtSolver es) es.setTimeout(_smtTimeout);
+    }
+  }
+
+  /**
+   * Helper function for setupTactics and setupTimeout: returns the solvers that will actually be
+   * invoked (so the members of a portfolio rather than the portfolio itself), setting up the
+   * default solver if none was chosen.
+   */
+  private List<SmtSolver> queryConfigurableSolvers() {
+    if (_solver == null) _solver = new ProcessSmtSolver();
+    if (_solver instanceof PortfolioSmtSolver portfolio) return portfolio.querySolvers();
+    return List.of(_solver);
+  }
+
+  /** Returns the SMT solver the user asked for, or null if they did not choose one. */
+  public SmtSolver querySolver() {
+    return _solver;
+  }
+
+  /**
+   * Returns the number of threads to use for handling requests in server mode, or 0 if Cora
+   * should not be run as a server.
+   */
+  public int queryServerThreads() {
+    return _serverThreads;
+  }
+
+  /**
+   * Returns whether statistics on the analysis (such as the time spent in every phase) should be
+   * recorded and printed.
+   */
+  public boolean queryStatistics() {
+    return _statistics;
   }
 
   /** Returns the task Cora is set to do. */
@@ -204,6 +378,22 @@ public class Parameters {
     return _files.get(0);
   }
 
+  /**
+   * Returns the directory in which the binary versions of input files should be cached, or null
+   * if no cache should be used.
+   */
+  public String queryCacheDirectory() {
+    return _cacheDirectory;
+  }
+
+  /**
+   * Returns the form in which the proof should be given: as text (the default), as JSON, or not
+   * at all (only the answer).
+   */
+  public ProofFormat queryProofFormat() {
+    return _format;
+  }
+
   /** For commands that allow multiple files as input, this returns all the files we read. */
   public List<String> queryFiles() {
     return Collections.unmodifiableList(_files);
@@ -226,6 +416,14 @@ public class Parameters {
     };
   }
 
+  /**
+   * This returns an OutputModule in the chosen style that writes its output to the given writer
+   * as it is printed, rather than keeping it in memory until the end.
+   */
+  public OutputModule queryStreamingOutputModule(TRS trs, Writer writer) {
+    return DefaultOutputModule.createStreamingModule(_style, trs, writer);
+  }
+
   /**
    * This returns the OutputModule to be used for printing, when there is no TRS.  Note that if a
    * TRS is loaded, this may not properly print terms (if there is an overlap between variable and
@@ -258,6 +456,13 @@ public class Parameters {
       .append(System.lineSeparator());
 
 
+    str.append("    -f | --format <format>" +
+      "      " +
+      "Give the proof in the given format; " +
+      "currently supported formats are \"text\" (the default), \"json\" and \"answer\" " +
+      "(no proof is given, only the answer).")
+      .append(System.lineSeparator());
+
     str.append("    -r | --reduce <term>" +
         "        " +
         "Parse the given term, " +
@@ -330,6 +535,33 @@ public class Parameters {
         "tharg      The theory arguments processor in the DP framework.")
       .append(System.lineSeparator());
 
+    str.append("    -C | --cache <dir>" +
+        "         " +
+        "Keep a binary version of the input file in the given directory, so that it can be " +
+        "loaded quickly the next time it is used (if it has not changed).")
+      .append(System.lineSeparator());
+
+    str.append("    -j | --parallel-read" +
+        "     " +
+        "Type and construct the rules of the input file in parallel; this is useful for very " +
+        "large input files.")
+      .append(System.lineSeparator());
+
+    str.append("    -S | --server [<threads>]" +
+        "   " +
+        "Run as a server: read requests from standard input, one JSON object per line, and " +
+        "answer each on a line of standard output; requests are handled concurrently by the " +
+        "given number of threads (default: one per processor).")
+      .append(System.lineSeparator());
+
+    str.append("    --stats" +
+        "        " +
+        "        " +
+        "     " +
+        "Print statistics on the analysis (time spent in each phase, processor successes, SMT " +
+        "queries and so on) to standard error when done.")
+      .append(System.lineSeparator());
+
     str.append("    -s | --solver  [<solver>]" +
       "   " +
       "Request the given SMT solver to be used." +
@@ -354,6 +586,25 @@ public class Parameters {
         "example, a bash script, that calls an SMT solver in exactly the way you want.")
       .append(System.lineSeparator());
 
+    str.append("    " +
+        "    " +
+        "    " +
+        "z3,cvc5,... | portfolio    Run several solvers (or all of them) in parallel, and use " +
+        "the first answer.  With the prefix learn: (e.g., learn:portfolio), the solver that " +
+        "usually answers first for a given technique is given a head start.")
+      .append(System.lineSeparator());
+
+    str.append("    --tactic <fragment>=<tactic>   " +
+      "Let Z3 use the given tactic for SMT problems in the given fragment, which is one of " +
+      "propositional, linear, divmod (linear with division or modulo by constants) and " +
+      "nonlinear; for example --tactic linear=qflia.  This option may be given more than once.")
+      .append(System.lineSeparator());
+
+    str.append("    --smt-timeout <seconds>   " +
+      "The number of seconds the SMT solver may spend on a single query before it is stopped " +
+      "(default: 10).")
+      .append(System.lineSeparator());
+
     return str.toString();
   }
 
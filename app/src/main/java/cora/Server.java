@@ -0,0 +1,228 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import charlie.exceptions.ParseException;
+import charlie.reader.TrsCache;
+import charlie.trs.TRS;
+import charlie.util.Statistics;
+import cora.config.Settings;
+import cora.io.JsonReader;
+import cora.io.JsonWriter;
+import cora.io.OutputModule;
+import cora.io.ProofObject;
+
+/**
+ * In server mode, Cora keeps running and handles a sequence of requests, so that the cost of
+ * starting the JVM (and warming it up) is only paid once.
+ *
+ * Requests are read from the input, one JSON object per line, of the form
+ *   {"id": 12, "args": ["-t", "-d", "graph", "input.trs"]}
+ * where args are the runtime arguments as they would be given on the command line.  Instead of a
+ * file, the TRS can also be given directly, as {"id": 12, "args": ["-t"], "trs": "...", "syntax":
+ * "trs"}, where the syntax is the file extension belonging to the input format (by default Cora's
+ * own format is used).  The id is optional, and may be a string or an integer.
+ *
+ * Requests are handled concurrently, each with its own settings (disabled techniques and SMT
+ * solver).  For every request, a single line is written to the output once it is done; since
+ * responses may come out of order, they repeat the id of the request.  A response has the form
+ *   {"id": 12, "answer": "YES", "proof": "..."}
+ * where the proof is omitted if the format "answer" is requested, and is given as a JSON object
+ * rather than text if the format "json" is requested.  If the arguments include --stats, the
+ * response also has a field "statistics" (see JsonWriter.value(Statistics)).  If a request cannot
+ * be handled, the response is instead {"id": 12, "error": "..."}.
+ */
+public class Server {
+  private final BufferedReader _input;
+  private final Writer _output;
+  private final ExecutorService _workers;
+
+  /** Sets up a server that reads requests from input, and handles them with the given threads. */
+  public Server(Reader input, Writer output, int threads) {
+    _input = new BufferedReader(input);
+    _output = output;
+    _workers = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Handles all requests on the input, until it ends.  This returns once all responses have been
+   * written.
+   */
+  public void serve() throws IOException, InterruptedException {
+    try {
+      String line;
+      while ((line = _input.readLine()) != null) {
+        if (line.isBlank()) continue;
+        String request = line;
+        _workers.execute(() -> respond(handle(request)));
+      }
+    }
+    finally {
+      _workers.shutdown();
+      _workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+  }
+
+  /** Writes the given response as a line of output; this is safe to call from any thread. */
+  private void respond(String response) {
+    synchronized (_output) {
+      try {
+        _output.write(response);
+        _output.write('\n');
+        _output.flush();
+      }
+      catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+  }
+
+  /** Handles the request on the given line, and returns the response (without final newline). */
+  String handle(String line) {
+    Object id = null;
+    try {
+      if (!(JsonReader.read(line) instanceof Map<?,?> request)) {
+        throw new ParseException("A request should be a JSON object.");
+      }
+      id = request.get("id");
+      if (id != null && !(id instanceof String) && !(id instanceof Long)) {
+        id = null;
+        throw new ParseException("The id of a request should be a string or an integer.");
+      }
+      Parameters parameters = new Parameters(readArguments(request.get("args")));
+      if (parameters.queryServerThreads() > 0) {
+        throw new ParseException("Server mode cannot be started from within a request.");
+      }
+      if (parameters.queryStatistics()) Statistics.startRecording();
+      Object requestId = id;
+      return Settings.runWith(parameters.querySolver(), parameters.queryDisabledTechniques(),
+                              parameters.queryParallelRead(), () -> {
+        TRS trs = readTRS(request, parameters);
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out, trs);
+        json.beginObject();
+        writeId(json, requestId);
+        ProofObject pobject = App.executeRequest(parameters.queryRequest(), trs,
+                                                 parameters.queryModuleInput());
+        long start = Statistics.startTimer();
+        writeProof(json, pobject, trs, parameters);
+        Statistics.stopTimer("output", start);
+        Statistics stats = Statistics.stopRecording();
+        if (stats != null) json.name("statistics").value(stats);
+        json.endObject();
+        return out.toString();
+      });
+    }
+    catch (Parameters.WrongParametersException e) {
+      Statistics.stopRecording();
+      // the message ends with the usage string, which is not useful here
+      String message = e.getMessage();
+      int end = message.indexOf('\n');
+      return errorResponse(id, end < 0 ? message : message.substring(0, end));
+    }
+    catch (Exception | Error e) {
+      Statistics.stopRecording();
+      return errorResponse(id, e.getMessage() == null ? e.toString() : e.getMessage());
+    }
+  }
+
+  /** Returns the response for a request with the given id that failed with the given message. */
+  private static String errorResponse(Object id, String message) {
+    StringWriter out = new StringWriter();
+    JsonWriter json = new JsonWriter(out, null);
+    json.beginObject();
+    writeId(json, id);
+    json.name("error").value(message);
+    json.endObject();
+    return out.toString();
+  }
+
+  /** Returns the given args field of a request as an array of runtime arguments. */
+  private static String[] readArguments(Object args) {
+    if (args == null) return new String[0];
+    if (!(args instanceof List<?> lst)) {
+      throw new ParseException("The args of a request should be a list of strings.");
+    }
+    String[] ret = new String[lst.size()];
+    for (int i = 0; i < ret.length; i++) {
+      if (!(lst.get(i) instanceof String s)) {
+        throw new ParseException("The args of a request should be a list of strings.");
+      }
+      ret[i] = s;
+    }
+    return ret;
+  }
+
+  /**
+   * Reads the TRS of the given request: either its trs field, or the file in its arguments.  If
+   * the file cannot be read, an UncheckedIOException is thrown (with the same message).
+   */
+  private static TRS readTRS(Map<?,?> request, Parameters parameters) {
+    Object text = request.get("trs");
+    if (text != null) {
+      Object syntax = request.get("syntax");
+      if (!(text instanceof String) || (syntax != null && !(syntax instanceof String))) {
+        throw new ParseException("The trs and syntax of a request should be strings.");
+      }
+      return App.readInputFromString((String)text, syntax == null ? "" : (String)syntax);
+    }
+    String file = parameters.querySingleFile();
+    try {
+      if (parameters.queryCacheDirectory() == null) return App.readInput(file);
+      TrsCache cache = new TrsCache(parameters.queryCacheDirectory());
+      return cache.readTrsFromFile(file, App::readInput);
+    }
+    catch (IOException e) { throw new UncheckedIOException(e.getMessage(), e); }
+  }
+
+  private static void writeId(JsonWriter json, Object id) {
+    switch (id) {
+      case null -> {}
+      case Long l -> json.name("id").value(l);
+      default -> json.name("id").value(id.toString());
+    }
+  }
+
+  /** Writes the answer and proof of the given proof object, in the format the parameters ask. */
+  private static void writeProof(JsonWriter json, ProofObject pobject, TRS trs,
+                                 Parameters parameters) {
+    switch (parameters.queryProofFormat()) {
+      case Text -> {
+        json.name("answer").value(pobject.printAnswer());
+        StringWriter proof = new StringWriter();
+        OutputModule om = parameters.queryStreamingOutputModule(trs, proof);
+        pobject.justify(om);
+        om.printToStdout();
+        json.name("proof").value(proof.toString());
+      }
+      case Json -> {
+        json.name("answer").value(pobject.queryAnswer().toString());
+        json.name("proof");
+        pobject.export(json);
+      }
+      case Answer -> json.name("answer").value(pobject.printAnswer());
+    }
+  }
+}
@@ -17,29 +17,85 @@ package cora.config;
 
 import charlie.smt.SmtSolver;
 import charlie.solvesmt.ProcessSmtSolver;
+import java.util.Random;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * This class collects a number of settings that are global to the execution of Cora or any of its
  * submodules.  The values are meant to be set by the main class (with defaults provided for
  * settings that are not set), and can be queried from any class outside of the cora library.
+ *
+ * When several analyses run in the same process (as in server mode), each can be given its own
+ * settings using runWith; these then apply only to the thread executing the analysis.  Each such
+ * analysis also gets its own source of random numbers, so they do not contend for a shared one.
  */
 public class Settings {
-  public static SmtSolver smtSolver = new ProcessSmtSolver(ProcessSmtSolver.PhysicalSolver.Z3);
-  public static Set<String> disabled = Set.of();
+  private record Values(SmtSolver solver, Set<String> disabled, boolean parallelRead,
+                        Random random) {}
+
+  private static volatile Values _global =
+    new Values(new ProcessSmtSolver(ProcessSmtSolver.PhysicalSolver.Z3), Set.of(), false,
+               new Random());
+  private static final ThreadLocal<Values> _local = new ThreadLocal<Values>();
+
+  /** Returns the settings that apply to the current thread. */
+  private static Values current() {
+    Values local = _local.get();
+    return local == null ? _global : local;
+  }
+
+  /** Returns the SMT solver to be used. */
+  public static SmtSolver querySolver() {
+    return current().solver();
+  }
 
   /** Use this to check if a technique is diabled (by name). */
   public static boolean isDisabled(String technique) {
-    return disabled.contains(technique);
+    return current().disabled().contains(technique);
+  }
+
+  /** Returns whether the rules of an input file should be typed and built in parallel. */
+  public static boolean queryParallelRead() {
+    return current().parallelRead();
+  }
+
+  /** Returns the source of random numbers to be used (for instance when reducing terms). */
+  public static Random queryRandom() {
+    return current().random();
   }
 
   /** Used to set up the SMT solver. */
   public static void setSolver(SmtSolver solver) {
-    smtSolver = solver;
+    _global = new Values(solver, _global.disabled(), _global.parallelRead(), _global.random());
   }
 
   /** Used to set up which techniques are disabled. */
   public static void setDisabled(Set<String> disabledTechniques) {
-    disabled = disabledTechniques;
+    _global = new Values(_global.solver(), disabledTechniques, _global.parallelRead(),
+                         _global.random());
+  }
+
+  /** Used to set up whether input files are read in parallel. */
+  public static void setParallelRead(boolean parallelRead) {
+    _global = new Values(_global.solver(), _global.disabled(), parallelRead, _global.random());
+  }
+
+  /**
+   * Executes the given task in the current thread, with the given solver (or the global one, if
+   * solver is null), the given techniques disabled, input files read in parallel or not, and a
+   * fresh source of random numbers, and returns its result.  Other threads are not affected, and
+   * afterwards the settings of the current thread are restored.
+   */
+  public static <T> T runWith(SmtSolver solver, Set<String> disabled, boolean parallelRead,
+                              Supplier<T> task) {
+    Values previous = _local.get();
+    _local.set(new Values(solver == null ? _global.solver() : solver, Set.copyOf(disabled),
+                          parallelRead, new Random()));
+    try { return task.get(); }
+    finally {
+      if (previous == null) _local.remove();
+      else _local.set(previous);
+    }
   }
 }
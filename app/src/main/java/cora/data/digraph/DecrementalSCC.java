@@ -0,0 +1,211 @@
+package cora.data.digraph;
+
+import charlie.exceptions.IndexingException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class maintains the strongly connected components of a Digraph while vertices and edges
+ * are removed from it.
+ *
+ * Removing a vertex or edge can only split the component it belongs to; all other components are
+ * left untouched, since any edge between two different components cannot lie on a cycle.  Hence,
+ * after a removal we only recompute the decomposition of the affected component, using Tarjan's
+ * algorithm on the subgraph induced by its remaining vertices.  The cost of a removal is therefore
+ * linear in the size of the affected component (and the edges leaving it), not of the whole graph.
+ *
+ * Components are identified by integers.  When a component is split, the first of the resulting
+ * parts keeps the old identifier, and the others get fresh ones.  Components whose vertices have
+ * all been removed keep their (empty) identifier, so the identifiers range over
+ * 0..getNumberOfSCCs()-1 throughout.
+ *
+ * Note that the DecrementalSCC takes over the given graph: removing an edge here also removes it
+ * from the graph.  Removed vertices are merely marked as such; their edges remain in the graph.
+ */
+public class DecrementalSCC {
+  private final Digraph _graph;
+  private final boolean[] _removed;
+  private final int[] _sccId;
+  private final ArrayList<int[]> _members;  // the (sorted) remaining vertices of each component
+  private final int[] _localIndex;          // used while recomputing a component; otherwise -1
+
+  public DecrementalSCC(Digraph graph) {
+    int n = graph.getNumberOfVertices();
+    _graph = graph;
+    _removed = new boolean[n];
+    _sccId = new int[n];
+    _localIndex = new int[n];
+    Arrays.fill(_localIndex, -1);
+    SCC scc = new SCC(graph);
+    int[] sizes = new int[scc.getNumberOfSCCs()];
+    for (int v = 0; v < n; v++) {
+      _sccId[v] = scc.getSccId(v);
+      sizes[_sccId[v]]++;
+    }
+    _members = new ArrayList<int[]>(sizes.length);
+    for (int size : sizes) _members.add(new int[size]);
+    Arrays.fill(sizes, 0);
+    for (int v = 0; v < n; v++) _members.get(_sccId[v])[sizes[_sccId[v]]++] = v;
+  }
+
+  private void validateVertex(int vertex, String method) {
+    if (vertex < 0 || vertex >= _removed.length) {
+      throw new IndexingException("DecrementalSCC", method, vertex, 0, _removed.length - 1);
+    }
+  }
+
+  private void validateComponent(int id, String method) {
+    if (id < 0 || id >= _members.size()) {
+      throw new IndexingException("DecrementalSCC", method, id, 0, _members.size() - 1);
+    }
+  }
+
+  /** Returns the graph whose components we maintain. */
+  public Digraph getGraph() { return _graph; }
+
+  /** Returns the number of component identifiers in use (including components now empty). */
+  public int getNumberOfSCCs() { return _members.size(); }
+
+  /** Returns whether the given vertex has been removed. */
+  public boolean isRemoved(int vertex) {
+    validateVertex(vertex, "isRemoved");
+    return _removed[vertex];
+  }
+
+  /** Returns the identifier of the component the given vertex belongs to, or -1 if removed. */
+  public int getSccId(int vertex) {
+    validateVertex(vertex, "getSccId");
+    return _removed[vertex] ? -1 : _sccId[vertex];
+  }
+
+  /** Returns the remaining vertices in the given component, in increasing order. */
+  public List<Integer> getComponent(int id) {
+    validateComponent(id, "getComponent");
+    int[] members = _members.get(id);
+    List<Integer> ret = new ArrayList<Integer>(members.length);
+    for (int v : members) ret.add(v);
+    return ret;
+  }
+
+  /** Returns the number of remaining vertices in the given component. */
+  public int getComponentSize(int id) {
+    validateComponent(id, "getComponentSize");
+    return _members.get(id).length;
+  }
+
+  /**
+   * Returns whether the given component is nontrivial: it has more than one vertex, or it
+   * consists of a single vertex with an edge to itself.
+   */
+  public boolean isNontrivial(int id) {
+    validateComponent(id, "isNontrivial");
+    int[] members = _members.get(id);
+    return members.length > 1 || (members.length == 1 && _graph.isAdjacent(members[0], members[0]));
+  }
+
+  /**
+   * Returns the subgraph induced by the remaining vertices of the given component, where the
+   * vertices are renamed 0..k-1 in the order of getComponent(id).  This takes time linear in the
+   * size of the component and the edges leaving it.
+   */
+  public Digraph getComponentGraph(int id) {
+    validateComponent(id, "getComponentGraph");
+    int[] members = _members.get(id);
+    for (int i = 0; i < members.length; i++) _localIndex[members[i]] = i;
+    Digraph ret = new Digraph(members.length);
+    for (int i = 0; i < members.length; i++) {
+      int v = members[i];
+      for (int k = 0; k < _graph.getOutDegree(v); k++) {
+        int w = _localIndex[_graph.getNeighbour(v, k)];
+        if (w >= 0) ret.addEdge(i, w);
+      }
+    }
+    for (int v : members) _localIndex[v] = -1;
+    return ret;
+  }
+
+  /**
+   * Removes the given vertex, and returns the identifiers of the components that have changed as
+   * a result: the component the vertex used to be in, followed by the components split off from
+   * it, if any.  If the vertex was already removed, the empty list is returned.
+   */
+  public List<Integer> removeVertex(int vertex) {
+    return removeVertices(List.of(vertex));
+  }
+
+  /**
+   * Removes all the given vertices, and returns the identifiers of the components that have
+   * changed as a result.  For every component that contained one of the vertices, its identifier
+   * is included in the result, directly followed by the identifiers of all components split off
+   * from it.
+   */
+  public List<Integer> removeVertices(Collection<Integer> vertices) {
+    ArrayList<Integer> affected = new ArrayList<Integer>();
+    for (int v : vertices) {
+      validateVertex(v, "removeVertices");
+      if (_removed[v]) continue;
+      _removed[v] = true;
+      if (!affected.contains(_sccId[v])) affected.add(_sccId[v]);
+    }
+    ArrayList<Integer> ret = new ArrayList<Integer>();
+    for (int id : affected) {
+      int[] members = _members.get(id);
+      int count = 0;
+      for (int v : members) { if (!_removed[v]) members[count++] = v; }
+      _members.set(id, Arrays.copyOf(members, count));
+      ret.add(id);
+      recompute(id, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Removes the edge from origin to destination (if it exists), and returns the identifiers of the
+   * components that have changed as a result.  This is empty if the edge was not on a cycle;
+   * otherwise it consists of the component that contained the edge, followed by the components
+   * split off from it (if any).
+   */
+  public List<Integer> removeEdge(int origin, int destination) {
+    validateVertex(origin, "removeEdge");
+    validateVertex(destination, "removeEdge");
+    boolean onCycle = _graph.isAdjacent(origin, destination) && !_removed[origin] &&
+                      !_removed[destination] && _sccId[origin] == _sccId[destination];
+    _graph.removeEdge(origin, destination);
+    if (!onCycle) return List.of();
+    ArrayList<Integer> ret = new ArrayList<Integer>();
+    ret.add(_sccId[origin]);
+    recompute(_sccId[origin], ret);
+    return ret;
+  }
+
+  /**
+   * Recomputes the decomposition of the given component (whose member list only contains
+   * remaining vertices), and adds the identifiers of any components split off to ret.
+   */
+  private void recompute(int id, List<Integer> ret) {
+    int[] members = _members.get(id);
+    if (members.length <= 1) return;
+    SCC scc = new SCC(getComponentGraph(id));
+    if (scc.getNumberOfSCCs() == 1) return;
+    // the first part keeps the identifier id; the others get fresh identifiers
+    int[] sizes = new int[scc.getNumberOfSCCs()];
+    for (int i = 0; i < members.length; i++) sizes[scc.getSccId(i)]++;
+    int[][] parts = new int[sizes.length][];
+    for (int k = 0; k < sizes.length; k++) parts[k] = new int[sizes[k]];
+    Arrays.fill(sizes, 0);
+    for (int i = 0; i < members.length; i++) {
+      int k = scc.getSccId(i);
+      parts[k][sizes[k]++] = members[i];
+    }
+    _members.set(id, parts[0]);
+    for (int k = 1; k < parts.length; k++) {
+      int newid = _members.size();
+      _members.add(parts[k]);
+      for (int v : parts[k]) _sccId[v] = newid;
+      ret.add(newid);
+    }
+  }
+}
@@ -17,12 +17,12 @@ package cora.data.digraph;
 
 import charlie.exceptions.IndexingException;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.TreeMap;
 
 /**
  * <p>This class implements a data structure for directed graphs, without parallel edges.
@@ -34,11 +34,20 @@ import java.util.TreeMap;
  * Users then are allowed to add edges via the method {@code addEdges(int sourceVertex, int
  * destinationVertex)}.
  * </p>
+ *
+ * <p>For every vertex, the neighbours are stored as a sorted array of primitive integers, so no
+ * boxing is needed to store or traverse the graph.  The algorithms on graphs (such as SCC and
+ * Reachability) use getOutDegree and getNeighbour to walk through the neighbours; getNeighbours
+ * gives a read-only Set view for convenience.</p>
  */
 public class Digraph {
+  private static final int[] NO_NEIGHBOURS = new int[0];
+
   private int _numberOfVertices;
   private int _numberOfEdges;
-  private final List< Set<Integer> > _adjacencyList;
+  /** For each vertex v, _successors[v][0.._degree[v]-1] are its neighbours, in increasing order. */
+  private int[][] _successors;
+  private int[] _degree;
 
   /**
    * <p>Initializes a digraph with {@code numberOfVertices} vertices.</p>
@@ -53,11 +62,9 @@ public class Digraph {
 
     _numberOfVertices = numberOfVertices;
     _numberOfEdges = 0;
-    _adjacencyList = new ArrayList< Set<Integer> >(_numberOfEdges);
-
-    for (int i = 0; i < _numberOfVertices; i++) {
-      _adjacencyList.add(new TreeSet<Integer>());
-    }
+    _successors = new int[Math.max(numberOfVertices, 4)][];
+    _degree = new int[_successors.length];
+    Arrays.fill(_successors, NO_NEIGHBOURS);
   }
 
   /** Returns the number of vertices in the digraph. */
@@ -82,10 +89,24 @@ public class Digraph {
     }
   }
 
+  /**
+   * Returns the position of destinationVertex in the neighbours of originVertex if it is there;
+   * otherwise returns -(insertion point) - 1, as Arrays.binarySearch does.
+   */
+  private int findNeighbour(int originVertex, int destinationVertex) {
+    return Arrays.binarySearch(_successors[originVertex], 0, _degree[originVertex],
+                               destinationVertex);
+  }
+
   /** Adds a vertex to the digraph. Its index is set as {@code getNumberOfVertices()}. */
   public void addVertex() {
+    if (_numberOfVertices == _successors.length) {
+      int len = 2 * _successors.length;
+      _successors = Arrays.copyOf(_successors, len);
+      _degree = Arrays.copyOf(_degree, len);
+      Arrays.fill(_successors, _numberOfVertices, len, NO_NEIGHBOURS);
+    }
     _numberOfVertices++;
-    _adjacencyList.add(new TreeSet<>());
   }
 
   /**
@@ -101,12 +122,25 @@ public class Digraph {
     // Some sanitization checking before adding the edge.
     validateVertex(originVertex, "addEdge");
     validateVertex(destinationVertex, "addEdge");
-    // We only add the edge originVertex -> destinationVertex if it is not there already.
-    Set<Integer> targets = _adjacencyList.get(originVertex);
-    if (!targets.contains(destinationVertex)) {
-      targets.add(destinationVertex);
-      _numberOfEdges++;
+    int degree = _degree[originVertex];
+    int[] targets = _successors[originVertex];
+    // Edges are typically added in increasing order, so we check the end first.
+    int pos;
+    if (degree == 0 || targets[degree-1] < destinationVertex) pos = degree;
+    else {
+      pos = findNeighbour(originVertex, destinationVertex);
+      // We only add the edge originVertex -> destinationVertex if it is not there already.
+      if (pos >= 0) return;
+      pos = -pos - 1;
     }
+    if (degree == targets.length) {
+      targets = Arrays.copyOf(targets, Math.max(4, 2 * degree));
+      _successors[originVertex] = targets;
+    }
+    System.arraycopy(targets, pos, targets, pos + 1, degree - pos);
+    targets[pos] = destinationVertex;
+    _degree[originVertex]++;
+    _numberOfEdges++;
   }
 
   /**
@@ -120,11 +154,12 @@ public class Digraph {
   public void removeEdge(int originVertex, int destinationVertex) {
     validateVertex(originVertex, "removeEdge");
     validateVertex(destinationVertex, "removeEdge");
-    Set<Integer> targets = _adjacencyList.get(originVertex);
-    if (targets.contains(destinationVertex)) {
-      targets.remove(destinationVertex);
-      _numberOfEdges--;
-    }
+    int pos = findNeighbour(originVertex, destinationVertex);
+    if (pos < 0) return;
+    int[] targets = _successors[originVertex];
+    System.arraycopy(targets, pos + 1, targets, pos, _degree[originVertex] - pos - 1);
+    _degree[originVertex]--;
+    _numberOfEdges--;
   }
 
   /**
@@ -137,7 +172,33 @@ public class Digraph {
   public boolean isAdjacent(int originVertex, int destinationVertex) {
     validateVertex(originVertex,"isAdjacent");
     validateVertex(destinationVertex, "isAdjacent");
-    return _adjacencyList.get(originVertex).contains(destinationVertex);
+    return findNeighbour(originVertex, destinationVertex) >= 0;
+  }
+
+  /**
+   * Returns the number of vertices {@code y} such that there is an edge from {@code originVertex}
+   * to {@code y}.
+   * @param originVertex the origin vertex
+   */
+  public int getOutDegree(int originVertex) {
+    validateVertex(originVertex, "getOutDegree");
+    return _degree[originVertex];
+  }
+
+  /**
+   * Returns the neighbour with the given index of {@code originVertex}, where the neighbours are
+   * ordered from small to large; so {@code index} should be between 0 and
+   * {@code getOutDegree(originVertex) - 1}.  Together with getOutDegree, this allows the
+   * neighbours to be traversed without boxing.
+   * @param originVertex the origin vertex
+   * @param index the index of the neighbour
+   */
+  public int getNeighbour(int originVertex, int index) {
+    validateVertex(originVertex, "getNeighbour");
+    if (index < 0 || index >= _degree[originVertex]) {
+      throw new IndexingException("Digraph", "getNeighbour", index, 0, _degree[originVertex]-1);
+    }
+    return _successors[originVertex][index];
   }
 
   /**
@@ -145,14 +206,38 @@ public class Digraph {
    * an edge from {@code originVertex} to {@code y}.
    * </p>
    *
-   * <p>The caller cannot modify tihs set.  To add a neighbour, instead use addEdge.</p>
+   * <p>The caller cannot modify tihs set.  To add a neighbour, instead use addEdge.  The set is a
+   * view on the graph, so it changes if edges are added or removed.</p>
    * @param originVertex the origin vertex
    */
   public Set<Integer> getNeighbours(int originVertex) {
     validateVertex(originVertex, "getNeighbours");
-    return Collections.unmodifiableSet(_adjacencyList.get(originVertex));
+    return new NeighbourSet(originVertex);
   }
 
+  /** A read-only view on the neighbours of a single vertex. */
+  private class NeighbourSet extends AbstractSet<Integer> {
+    private final int _origin;
+    NeighbourSet(int origin) { _origin = origin; }
+
+    public int size() { return _degree[_origin]; }
+
+    public boolean contains(Object o) {
+      return o instanceof Integer i && i >= 0 && i < _numberOfVertices &&
+             findNeighbour(_origin, i) >= 0;
+    }
+
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+        private int _index = 0;
+        public boolean hasNext() { return _index < _degree[_origin]; }
+        public Integer next() {
+          if (_index >= _degree[_origin]) throw new NoSuchElementException();
+          return _successors[_origin][_index++];
+        }
+      };
+    }
+  }
 
   /**
    * Given a list of vertices in this graph, this method returns the subgraph that has this list
@@ -163,31 +248,36 @@ public class Digraph {
    * @throws IndexingException if any of the integers in the {@code vertices} list is out of bounds
    */
   public Digraph getSubgraph(List<Integer> vertices) {
-    // Note: the comments below are a bit long, but they are included because it is easy to get
-    // confused with the indexes.
     // Recall that the argument list contains the indexes names from the original graph, say G.
     // We want to construct the subgraph H of G using the indexes in [vertices], but note that in
     // H, those vertices will be renamed 0..vertices.size()-1.
-    Digraph subGraph = new Digraph(vertices.size());
-    TreeMap<Integer,Integer> newindex = new TreeMap<Integer,Integer>();
+    int n = vertices.size();
+    Digraph subGraph = new Digraph(n);
+    int[] newindex = new int[_numberOfVertices];
+    Arrays.fill(newindex, -1);
 
     // Determine the new name for each of the given vertices, and store it in newindex.
-    for (int i = 0; i < vertices.size(); i++) {
+    for (int i = 0; i < n; i++) {
       int v = vertices.get(i);
       validateVertex(v, "getSubgraph");
-      newindex.put(v, i);
+      newindex[v] = i;
     }
 
-    // Now, we have to correctly add the edges back, even though the names changed in the subgraph.
-    // What we need to guarantee is that the {@code subGraph} is isomorphic to H.
-    for (int v : vertices) {
-      int id = newindex.get(v);
-      // Then we get all neighbours, in G, of this vertex v.
-      Set<Integer> neighbours = _adjacencyList.get(v);
-      // For each of the neigbhours that occurs in H, also add the edge in H
-      for (int n : neighbours) {
-        if (newindex.containsKey(n)) subGraph.addEdge(id, newindex.get(n));
+    // Now, we copy the edges between vertices in H, renaming them as we go; since the new names
+    // need not be in the same order as the old ones, each list of neighbours is sorted afterwards.
+    for (int i = 0; i < n; i++) {
+      int v = vertices.get(i);
+      int id = newindex[v];
+      int[] targets = new int[_degree[v]];
+      int count = 0;
+      for (int k = 0; k < _degree[v]; k++) {
+        int w = newindex[_successors[v][k]];
+        if (w >= 0) targets[count++] = w;
       }
+      Arrays.sort(targets, 0, count);
+      subGraph._numberOfEdges += count - subGraph._degree[id];
+      subGraph._successors[id] = targets;
+      subGraph._degree[id] = count;
     }
     return subGraph;
   }
@@ -196,7 +286,12 @@ public class Digraph {
   public String toString() {
     StringBuilder ret = new StringBuilder();
     for (int i = 0; i < _numberOfVertices; i++) {
-      ret.append(i).append(" |-> ").append(_adjacencyList.get(i)).append("\n");
+      ret.append(i).append(" |-> [");
+      for (int k = 0; k < _degree[i]; k++) {
+        if (k > 0) ret.append(", ");
+        ret.append(_successors[i][k]);
+      }
+      ret.append("]\n");
     }
     return ret.toString();
   }
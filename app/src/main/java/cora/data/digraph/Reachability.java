@@ -46,7 +46,7 @@ public class Reachability {
    */
   public Reachability(Digraph graph, int source){
     _isReachable = new boolean[graph.getNumberOfVertices()];
-    reachabilitySearch(graph, source);
+    reachabilitySearch(graph, source, new int[graph.getNumberOfVertices()]);
   }
 
   /**
@@ -56,17 +56,30 @@ public class Reachability {
    */
   public Reachability(Digraph graph, Iterable<Integer> sources) {
     _isReachable = new boolean[graph.getNumberOfVertices()];
+    int[] stack = new int[graph.getNumberOfVertices()];
     for(int s : sources)
-      if (!_isReachable[s]) reachabilitySearch(graph, s);
+      if (!_isReachable[s]) reachabilitySearch(graph, s, stack);
   }
 
   /**
-   * Implements a depth-first search for the reachable vertices starting from source.
+   * Implements a depth-first search for the reachable vertices starting from source.  This is
+   * done iteratively, with the given array (of size at least the number of vertices) as stack,
+   * so long paths do not cause a stack overflow.
    */
-  private void reachabilitySearch(Digraph graph, int source) {
+  private void reachabilitySearch(Digraph graph, int source, int[] stack) {
+    int size = 0;
     _isReachable[source] = true;
-    for(int v : graph.getNeighbours(source))
-      if (!_isReachable[v]) reachabilitySearch(graph,v);
+    stack[size++] = source;
+    while (size > 0) {
+      int vertex = stack[--size];
+      for (int i = 0; i < graph.getOutDegree(vertex); i++) {
+        int v = graph.getNeighbour(vertex, i);
+        if (!_isReachable[v]) {
+          _isReachable[v] = true;
+          stack[size++] = v;
+        }
+      }
+    }
   }
 
   /**
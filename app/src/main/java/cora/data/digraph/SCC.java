@@ -4,54 +4,86 @@ import charlie.exceptions.IndexingException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
+/**
+ * This class computes the strongly connected components of a Digraph, using Tarjan's algorithm.
+ * The depth-first search is done iteratively, with explicit stacks of primitive integers, so even
+ * very long chains in the graph do not cause a stack overflow.
+ */
 public class SCC {
 
   private final boolean[] _visided;
   private final int[] _sccId;
   private final int[] _low;
-  private final Stack<Integer> stack;
   private int _pre;
   private int _numberOfSCCs;
 
+  // the stacks used during the search: the vertices on the Tarjan stack, and the vertices whose
+  // search is in progress (where _nextNeighbour and _minValue store their state)
+  private final int[] _stack;
+  private int _stackSize;
+  private final int[] _callStack;
+  private final int[] _nextNeighbour;
+  private final int[] _minValue;
+
   public SCC(Digraph graph) {
-    _visided = new boolean[graph.getNumberOfVertices()];
-    stack = new Stack<>();
-    _sccId = new int[graph.getNumberOfVertices()];
-    _low = new int[graph.getNumberOfVertices()];
-    for (int i = 0; i < graph.getNumberOfVertices(); i++) {
+    int n = graph.getNumberOfVertices();
+    _visided = new boolean[n];
+    _sccId = new int[n];
+    _low = new int[n];
+    _stack = new int[n];
+    _stackSize = 0;
+    _callStack = new int[n];
+    _nextNeighbour = new int[n];
+    _minValue = new int[n];
+    for (int i = 0; i < n; i++) {
       if (!_visided[i]) sccSearch(graph, i);
     }
   }
 
-  private void sccSearch(Digraph graph, int source) {
-    _visided[source] = true;
-    _low[source] = _pre++;
-    int minValue = _low[source];
-    stack.push(source);
+  /** Starts the search on the given (unvisited) vertex, at the given depth of the call stack. */
+  private void visit(int vertex, int depth) {
+    _visided[vertex] = true;
+    _low[vertex] = _pre++;
+    _minValue[vertex] = _low[vertex];
+    _nextNeighbour[vertex] = 0;
+    _stack[_stackSize++] = vertex;
+    _callStack[depth] = vertex;
+  }
 
-    for (int neighbor : graph.getNeighbours(source)) {
-      if (!_visided[neighbor]) {
-        sccSearch(graph, neighbor);
+  /**
+   * This does a depth-first search from source, which assigns an SCC to every vertex reachable
+   * from it that was not handled before.
+   */
+  private void sccSearch(Digraph graph, int source) {
+    int depth = 0;
+    visit(source, depth++);
+    while (depth > 0) {
+      int vertex = _callStack[depth-1];
+      if (_nextNeighbour[vertex] < graph.getOutDegree(vertex)) {
+        int neighbor = graph.getNeighbour(vertex, _nextNeighbour[vertex]++);
+        if (!_visided[neighbor]) visit(neighbor, depth++);
+        else if (_low[neighbor] < _minValue[vertex]) _minValue[vertex] = _low[neighbor];
+        continue;
       }
-      if (_low[neighbor] < minValue) {
-        minValue = _low[neighbor];
+      // all neighbours have been handled, so the search for vertex is done
+      depth--;
+      if (_minValue[vertex] < _low[vertex]) _low[vertex] = _minValue[vertex];
+      else {
+        int temp;
+        do {
+          temp = _stack[--_stackSize];
+          _sccId[temp] = _numberOfSCCs;
+          _low[temp] = graph.getNumberOfVertices();
+        } while (temp != vertex);
+        _numberOfSCCs++;
+      }
+      // pass the result on to the vertex whose search led us here
+      if (depth > 0) {
+        int parent = _callStack[depth-1];
+        if (_low[vertex] < _minValue[parent]) _minValue[parent] = _low[vertex];
       }
     }
-
-    if (minValue < _low[source]) {
-      _low[source] = minValue;
-      return;
-    }
-
-    int temp;
-    do {
-      temp = stack.pop();
-      _sccId[temp] = _numberOfSCCs;
-      _low[temp] = graph.getNumberOfVertices();
-    } while (temp != source);
-    _numberOfSCCs++;
   }
 
   private void validateVertex(int vertex, String method) {
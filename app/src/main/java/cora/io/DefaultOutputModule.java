@@ -15,8 +15,17 @@
 
 package cora.io;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import charlie.util.Pair;
 import charlie.types.Type;
 import charlie.types.TypePrinter;
@@ -27,72 +36,157 @@ import charlie.terms.TermPrinter;
 import charlie.trs.Rule;
 import charlie.trs.TRS;
 
+/**
+ * The DefaultOutputModule prints to text, either in Plain style or in Unicode style.  The output
+ * is either stored in memory until the end (and then obtained through toString() or printed by
+ * printToStdout()), or -- for modules created through createStreamingModule -- written to a
+ * Writer as soon as it is complete.  In the latter case, only tables are held in memory, since
+ * the width of their columns is only known when the table ends.
+ */
 public class DefaultOutputModule implements OutputModule {
+  /** The codes %{name} for the Plain style, mapping each name to its replacement. */
+  private static final Map<String,String> PLAIN_CODES = makePlainCodes();
+  /** The codes %{name} for the Unicode style, mapping each name to its replacement. */
+  private static final Map<String,String> UNICODE_CODES = makeUnicodeCodes();
+
   private TypePrinter _typePrinter;
   private TermPrinter _termPrinter;
   private Style _style;
-  private StringBuilder _builder;
+  private Map<String,String> _codes;
+  private StringBuilder _builder;   // the output that has not (yet) been written to _writer
+  private Writer _writer;           // null if all output is kept in _builder
   private boolean _inParagraph;
-  private ArrayList< ArrayList<String> > _currentTable;
-  private ArrayList< Pair<String,String> > _codes;
+  private ArrayList< ArrayList<StringBuilder> > _currentTable;
+
+  private static Map<String,String> makePlainCodes() {
+    HashMap<String,String> codes = new HashMap<String,String>();
+    codes.put("ruleArrow", "->");
+    codes.put("typeArrow", "->");
+    codes.put("mapsto", "|->");
+    codes.put("thickArrow", "=>");
+    codes.put("longArrow", "-->");
+    codes.put("downArrow", "!down");
+    codes.put("revRuleArrow", "<-");
+    codes.put("vdash", "|-");
+    codes.put("Vdash", "|=");
+    codes.put("forall", "FORALL");
+    codes.put("exists", "EXISTS");
+    codes.put("emptyset", "{}");
+    codes.put("sqsupset", "[>]");
+    codes.put("sqsupseteq", "[>=]");
+    codes.put("succ", "(>)");
+    codes.put("succeq", "(>=)");
+    codes.put("subterm", "|<|");
+    codes.put("subtermeq", "|<=|");
+    codes.put("supterm", "|>|");
+    codes.put("suptermeq", "|>=|");
+    codes.put("greater", ">");
+    codes.put("smaller", "<");
+    codes.put("geq", ">=");
+    codes.put("leq", "<=");
+    codes.put("and", "/\\");
+    codes.put("or", "\\/");
+    codes.put("not", "not ");
+    codes.put("implies", "=>");
+    codes.put("distinct", "!=");
+    codes.put("alpha", "alpha");
+    codes.put("beta", "beta");
+    codes.put("gamma", "gamma");
+    codes.put("delta", "delta");
+    codes.put("epsilon", "eps");
+    codes.put("zeta", "zeta");
+    codes.put("eta", "eta");
+    codes.put("theta", "th");
+    codes.put("iota", "iota");
+    codes.put("kappa", "kappa");
+    codes.put("lambda", "\\");
+    codes.put("mu", "mu");
+    codes.put("nu", "nu");
+    codes.put("xi", "xi");
+    codes.put("pi", "pi");
+    codes.put("rho", "rho");
+    codes.put("sigma", "sigma");
+    codes.put("tau", "tau");
+    codes.put("phi", "phi");
+    codes.put("chi", "chi");
+    codes.put("psi", "psi");
+    codes.put("omega", "omega");
+    return Collections.unmodifiableMap(codes);
+  }
+
+  private static Map<String,String> makeUnicodeCodes() {
+    HashMap<String,String> codes = new HashMap<String,String>();
+    codes.put("ruleArrow", "→");
+    codes.put("typeArrow", "→");
+    codes.put("mapsto", "↦");
+    codes.put("thickArrow", "➡");
+    codes.put("longArrow", "⟶");
+    codes.put("downArrow", "↓");
+    codes.put("revRuleArrow", "←");
+    codes.put("vdash", "⊢");
+    codes.put("Vdash", "⊨");
+    codes.put("forall", "∀");
+    codes.put("exists", "∃");
+    codes.put("emptyset", "ø");
+    codes.put("sqsupset", "⊐");
+    codes.put("sqsupseteq", "⊒");
+    codes.put("succ", "≻");
+    codes.put("succeq", "≽");
+    codes.put("subterm", "⊲");
+    codes.put("subtermeq", "⊴");
+    codes.put("supterm", "⊳");
+    codes.put("suptermeq", "⊵");
+    codes.put("greater", ">");
+    codes.put("smaller", "<");
+    codes.put("geq", "≥");
+    codes.put("leq", "≤");
+    codes.put("and", "∧");
+    codes.put("or", "∨");
+    codes.put("not", "¬");
+    codes.put("implies", "⇒");
+    codes.put("distinct", "≠");
+    codes.put("alpha", "α");
+    codes.put("beta", "β");
+    codes.put("gamma", "γ");
+    codes.put("delta", "δ");
+    codes.put("epsilon", "ε");
+    codes.put("zeta", "ζ");
+    codes.put("eta", "η");
+    codes.put("theta", "θ");
+    codes.put("iota", "ι");
+    codes.put("kappa", "κ");
+    codes.put("lambda", "λ");
+    codes.put("mu", "μ");
+    codes.put("nu", "ν");
+    codes.put("xi", "ξ");
+    codes.put("pi", "π");
+    codes.put("rho", "ρ");
+    codes.put("sigma", "σ");
+    codes.put("tau", "τ");
+    codes.put("phi", "φ");
+    codes.put("chi", "χ");
+    codes.put("psi", "ψ");
+    codes.put("omega", "ω");
+    return Collections.unmodifiableMap(codes);
+  }
+
+  /**
+   * Helper function for the factory methods: creates a module in the given style (or the default
+   * style if style is null), which writes to the given writer if this is not null.
+   */
+  private static DefaultOutputModule createModule(Style style, TRS trs, Writer writer) {
+    Set<String> avoid = trs == null ? Set.of() : trs.queryFunctionSymbolNames();
+    if (style == Style.Plain) {
+      return new DefaultOutputModule(new PlainTypePrinter(), new PlainTermPrinter(avoid),
+                                     Style.Plain, PLAIN_CODES, writer);
+    }
+    return new DefaultOutputModule(new TypePrinter(), new TermPrinter(avoid), Style.Unicode,
+                                   UNICODE_CODES, writer);
+  }
 
   /** This creates a module with Plain style (pure text, no unicode). */
   public static OutputModule createPlainModule(TRS trs) {
-    TypePrinter typr = new PlainTypePrinter();
-    Set<String> avoid = trs == null ? Set.of() : trs.queryFunctionSymbolNames();
-    ArrayList<Pair<String,String>> codes = new ArrayList<Pair<String,String>>();
-    codes.add(new Pair<String,String>("%{ruleArrow}", "->"));
-    codes.add(new Pair<String,String>("%{typeArrow}", "->"));
-    codes.add(new Pair<String,String>("%{mapsto}", "|->"));
-    codes.add(new Pair<String,String>("%{thickArrow}", "=>"));
-    codes.add(new Pair<String,String>("%{longArrow}", "-->"));
-    codes.add(new Pair<String,String>("%{downArrow}", "!down"));
-    codes.add(new Pair<String,String>("%{revRuleArrow}", "<-"));
-    codes.add(new Pair<String,String>("%{vdash}", "|-"));
-    codes.add(new Pair<String,String>("%{Vdash}", "|="));
-    codes.add(new Pair<String,String>("%{forall}", "FORALL"));
-    codes.add(new Pair<String,String>("%{exists}", "EXISTS"));
-    codes.add(new Pair<String,String>("%{emptyset}", "{}"));
-    codes.add(new Pair<String,String>("%{sqsupset}", "[>]"));
-    codes.add(new Pair<String,String>("%{sqsupseteq}", "[>=]"));
-    codes.add(new Pair<String,String>("%{succ}", "(>)"));
-    codes.add(new Pair<String,String>("%{succeq}", "(>=)"));
-    codes.add(new Pair<String,String>("%{subterm}", "|<|"));
-    codes.add(new Pair<String,String>("%{subtermeq}", "|<=|"));
-    codes.add(new Pair<String,String>("%{supterm}", "|>|"));
-    codes.add(new Pair<String,String>("%{suptermeq}", "|>=|"));
-    codes.add(new Pair<String,String>("%{greater}", ">"));
-    codes.add(new Pair<String,String>("%{smaller}", "<"));
-    codes.add(new Pair<String,String>("%{geq}", ">="));
-    codes.add(new Pair<String,String>("%{leq}", "<="));
-    codes.add(new Pair<String,String>("%{and}", "/\\"));
-    codes.add(new Pair<String,String>("%{or}", "\\/"));
-    codes.add(new Pair<String,String>("%{not}", "not "));
-    codes.add(new Pair<String,String>("%{implies}", "=>"));
-    codes.add(new Pair<String,String>("%{distinct}", "!="));
-    codes.add(new Pair<String,String>("%{alpha}", "alpha"));
-    codes.add(new Pair<String,String>("%{beta}", "beta"));
-    codes.add(new Pair<String,String>("%{gamma}", "gamma"));
-    codes.add(new Pair<String,String>("%{delta}", "delta"));
-    codes.add(new Pair<String,String>("%{epsilon}", "eps"));
-    codes.add(new Pair<String,String>("%{zeta}", "zeta"));
-    codes.add(new Pair<String,String>("%{eta}", "eta"));
-    codes.add(new Pair<String,String>("%{theta}", "th"));
-    codes.add(new Pair<String,String>("%{iota}", "iota"));
-    codes.add(new Pair<String,String>("%{kappa}", "kappa"));
-    codes.add(new Pair<String,String>("%{lambda}", "\\"));
-    codes.add(new Pair<String,String>("%{mu}", "mu"));
-    codes.add(new Pair<String,String>("%{nu}", "nu"));
-    codes.add(new Pair<String,String>("%{xi}", "xi"));
-    codes.add(new Pair<String,String>("%{pi}", "pi"));
-    codes.add(new Pair<String,String>("%{rho}", "rho"));
-    codes.add(new Pair<String,String>("%{sigma}", "sigma"));
-    codes.add(new Pair<String,String>("%{tau}", "tau"));
-    codes.add(new Pair<String,String>("%{phi}", "phi"));
-    codes.add(new Pair<String,String>("%{chi}", "chi"));
-    codes.add(new Pair<String,String>("%{psi}", "psi"));
-    codes.add(new Pair<String,String>("%{omega}", "omega"));
-    return new DefaultOutputModule(typr, new PlainTermPrinter(avoid), Style.Plain, codes);
+    return createModule(Style.Plain, trs, null);
   }
 
   /**
@@ -104,61 +198,7 @@ public class DefaultOutputModule implements OutputModule {
 
   /** This creates a module with Unicode style (pure text, but unicode symbols are allowed). */
   public static OutputModule createUnicodeModule(TRS trs) {
-    TypePrinter typr = new TypePrinter();
-    Set<String> avoid = trs == null ? Set.of() : trs.queryFunctionSymbolNames();
-    ArrayList<Pair<String,String>> codes = new ArrayList<Pair<String,String>>();
-    codes.add(new Pair<String,String>("%{ruleArrow}", "→"));
-    codes.add(new Pair<String,String>("%{typeArrow}", "→"));
-    codes.add(new Pair<String,String>("%{mapsto}", "↦"));
-    codes.add(new Pair<String,String>("%{thickArrow}", "➡"));
-    codes.add(new Pair<String,String>("%{longArrow}", "⟶"));
-    codes.add(new Pair<String,String>("%{downArrow}", "↓"));
-    codes.add(new Pair<String,String>("%{revRuleArrow}", "←"));
-    codes.add(new Pair<String,String>("%{vdash}", "⊢"));
-    codes.add(new Pair<String,String>("%{Vdash}", "⊨"));
-    codes.add(new Pair<String,String>("%{forall}", "∀"));
-    codes.add(new Pair<String,String>("%{exists}", "∃"));
-    codes.add(new Pair<String,String>("%{emptyset}", "ø"));
-    codes.add(new Pair<String,String>("%{sqsupset}", "⊐"));
-    codes.add(new Pair<String,String>("%{sqsupseteq}", "⊒"));
-    codes.add(new Pair<String,String>("%{succ}", "≻"));
-    codes.add(new Pair<String,String>("%{succeq}", "≽"));
-    codes.add(new Pair<String,String>("%{subterm}", "⊲"));
-    codes.add(new Pair<String,String>("%{subtermeq}", "⊴"));
-    codes.add(new Pair<String,String>("%{supterm}", "⊳"));
-    codes.add(new Pair<String,String>("%{suptermeq}", "⊵"));
-    codes.add(new Pair<String,String>("%{greater}", ">"));
-    codes.add(new Pair<String,String>("%{smaller}", "<"));
-    codes.add(new Pair<String,String>("%{geq}", "≥"));
-    codes.add(new Pair<String,String>("%{leq}", "≤"));
-    codes.add(new Pair<String,String>("%{and}", "∧"));
-    codes.add(new Pair<String,String>("%{or}", "∨"));
-    codes.add(new Pair<String,String>("%{not}", "¬"));
-    codes.add(new Pair<String,String>("%{implies}", "⇒"));
-    codes.add(new Pair<String,String>("%{distinct}", "≠"));
-    codes.add(new Pair<String,String>("%{alpha}", "α"));
-    codes.add(new Pair<String,String>("%{beta}", "β"));
-    codes.add(new Pair<String,String>("%{gamma}", "γ"));
-    codes.add(new Pair<String,String>("%{delta}", "δ"));
-    codes.add(new Pair<String,String>("%{epsilon}", "ε"));
-    codes.add(new Pair<String,String>("%{zeta}", "ζ"));
-    codes.add(new Pair<String,String>("%{eta}", "η"));
-    codes.add(new Pair<String,String>("%{theta}", "θ"));
-    codes.add(new Pair<String,String>("%{iota}", "ι"));
-    codes.add(new Pair<String,String>("%{kappa}", "κ"));
-    codes.add(new Pair<String,String>("%{lambda}", "λ"));
-    codes.add(new Pair<String,String>("%{mu}", "μ"));
-    codes.add(new Pair<String,String>("%{nu}", "ν"));
-    codes.add(new Pair<String,String>("%{xi}", "ξ"));
-    codes.add(new Pair<String,String>("%{pi}", "π"));
-    codes.add(new Pair<String,String>("%{rho}", "ρ"));
-    codes.add(new Pair<String,String>("%{sigma}", "σ"));
-    codes.add(new Pair<String,String>("%{tau}", "τ"));
-    codes.add(new Pair<String,String>("%{phi}", "φ"));
-    codes.add(new Pair<String,String>("%{chi}", "χ"));
-    codes.add(new Pair<String,String>("%{psi}", "ψ"));
-    codes.add(new Pair<String,String>("%{omega}", "ω"));
-    return new DefaultOutputModule(typr, new TermPrinter(avoid), Style.Unicode, codes);
+    return createModule(Style.Unicode, trs, null);
   }
 
   /**
@@ -170,7 +210,6 @@ public class DefaultOutputModule implements OutputModule {
 
   /** This creates a standard module for printing. */
   public static OutputModule createDefaultModule(TRS trs) {
-    TypePrinter typr = new PlainTypePrinter();
     return createUnicodeModule(trs);
   }
 
@@ -181,13 +220,31 @@ public class DefaultOutputModule implements OutputModule {
    */
   public static OutputModule createDefaultModule() { return createDefaultModule(null); }
 
+  /**
+   * This creates a module in the given style (or the default style if style is null) that writes
+   * its output to the given writer as soon as it is complete, rather than storing it in memory.
+   * For such a module, printToStdout() does not print to standard output, but ends the output
+   * and flushes the writer; toString() only returns output that has not been written yet.
+   * If writing fails, an UncheckedIOException is thrown.
+   */
+  public static OutputModule createStreamingModule(Style style, TRS trs, Writer writer) {
+    return createModule(style, trs, writer);
+  }
+
+  /** Like createStreamingModule on a Writer, but writes UTF-8 to the given channel. */
+  public static OutputModule createStreamingModule(Style style, TRS trs,
+                                                   WritableByteChannel channel) {
+    return createModule(style, trs, Channels.newWriter(channel, StandardCharsets.UTF_8));
+  }
+
   private DefaultOutputModule(TypePrinter types, TermPrinter terms, Style style,
-                              ArrayList<Pair<String,String>> codes) {
+                              Map<String,String> codes, Writer writer) {
     _typePrinter = types;
     _termPrinter = terms;
     _style = style;
     _codes = codes;
     _builder = new StringBuilder();
+    _writer = writer;
     _inParagraph = false;
     _currentTable = null;
   }
@@ -198,19 +255,30 @@ public class DefaultOutputModule implements OutputModule {
   public boolean queryInParagraph() { return _inParagraph; }
   public boolean inTable() { return _currentTable != null; }
 
+  /**
+   * If we are streaming, this writes everything in _builder to the writer, and empties _builder.
+   * Otherwise, it does nothing.
+   */
+  private void flushBuilder() {
+    if (_writer == null || _builder.length() == 0) return;
+    try { _writer.append(_builder); }
+    catch (IOException e) { throw new UncheckedIOException(e); }
+    _builder.setLength(0);
+  }
+
   /** Starts a table.  If we were already in a table, it is ended first, and a new one begun. */
   public void startTable() {
     if (_inParagraph) println();
     if (_currentTable != null) endTable();
-    _currentTable = new ArrayList< ArrayList<String> >();
-    _currentTable.add(new ArrayList<String>());
+    _currentTable = new ArrayList< ArrayList<StringBuilder> >();
+    _currentTable.add(new ArrayList<StringBuilder>());
   }
 
-  /** Adds the given concrete text to the current cell we're writing to in the table. */
-  private void addToCurrentCell(String txt) {
-    ArrayList<String> myrow = _currentTable.get(_currentTable.size()-1);
-    if (myrow.size() == 0) myrow.add(txt);
-    else myrow.set(myrow.size()-1, myrow.get(myrow.size()-1) + txt);
+  /** Returns the cell we are currently writing to in the table (creating it if necessary). */
+  private StringBuilder currentCell() {
+    ArrayList<StringBuilder> myrow = _currentTable.get(_currentTable.size()-1);
+    if (myrow.size() == 0) myrow.add(new StringBuilder());
+    return myrow.get(myrow.size()-1);
   }
 
   /** This ends the current cell, so subsequent prints write to the next. */
@@ -218,25 +286,24 @@ public class DefaultOutputModule implements OutputModule {
     if (_currentTable == null) {
       throw new IllegalPrintError("Called endTable when no table was started!");
     }
-    ArrayList<String> myrow = _currentTable.get(_currentTable.size()-1);
-    if (myrow.size() == 0) myrow.add("");
-    myrow.add("");
+    ArrayList<StringBuilder> myrow = _currentTable.get(_currentTable.size()-1);
+    if (myrow.size() == 0) myrow.add(new StringBuilder());
+    myrow.add(new StringBuilder());
   }
 
   /** Helper function for endTable: returns the length each column in _currentTable should have. */
-  private ArrayList<Integer> getColumnSizes() {
+  private int[] getColumnSizes() {
     // find the greatest number of columns in the current table
     int numCols = 1;
     for (int i = 0; i < _currentTable.size(); i++) {
       if (_currentTable.get(i).size() > numCols) numCols = _currentTable.get(i).size();
     }
     // find the length each column should have
-    ArrayList<Integer> ret = new ArrayList<Integer>();
-    for (int col = 0; col < numCols; col++) ret.add(0);
+    int[] ret = new int[numCols];
     for (int row = 0; row < _currentTable.size(); row++) {
-      ArrayList<String> cells = _currentTable.get(row);
+      ArrayList<StringBuilder> cells = _currentTable.get(row);
       for (int col = 0; col < cells.size(); col++) {
-        if (cells.get(col).length() > ret.get(col)) ret.set(col, cells.get(col).length());
+        if (cells.get(col).length() > ret[col]) ret[col] = cells.get(col).length();
       }
     }
     return ret;
@@ -245,7 +312,7 @@ public class DefaultOutputModule implements OutputModule {
   /**
    * This ends the current table: it ends the column and row if necessary, computes the respective
    * sizes of all the cells, uses this to determine the overall lay-out of the table, and then
-   * prints the whole table to the internal string builder.
+   * prints the whole table to the output.
    */
   public void endTable() {
     if (_currentTable == null) {
@@ -256,19 +323,22 @@ public class DefaultOutputModule implements OutputModule {
       _currentTable.remove(_currentTable.size()-1);
     }
     // print the table, taking the width of all columns into account
-    ArrayList<Integer> width = getColumnSizes();
+    int[] width = getColumnSizes();
     for (int row = 0; row < _currentTable.size(); row++) {
       _builder.append("  ");  // indent
-      ArrayList<String> cells = _currentTable.get(row);
-      while (cells.size() > 0 && cells.get(cells.size()-1).equals("")) cells.remove(cells.size()-1);
-      for (int col = 0; col < cells.size()-1; col++) {
-        _builder.append(String.format("%-" + (width.get(col)+1) + "s", cells.get(col)));
+      ArrayList<StringBuilder> cells = _currentTable.get(row);
+      int n = cells.size();
+      while (n > 0 && cells.get(n-1).length() == 0) n--;
+      for (int col = 0; col < n-1; col++) {
+        _builder.append(cells.get(col));
+        for (int k = cells.get(col).length(); k <= width[col]; k++) _builder.append(' ');
       }
-      if (cells.size() > 0) _builder.append(cells.get(cells.size()-1));
+      if (n > 0) _builder.append(cells.get(n-1));
       _builder.append("\n");
     }
     _builder.append("\n");
     _currentTable = null;
+    flushBuilder();
   }
 
   /**
@@ -282,11 +352,11 @@ public class DefaultOutputModule implements OutputModule {
     }
     else if (_currentTable == null) _builder.append("\n");
     else {
-      if (_currentTable.size() == 0 || _currentTable.get(_currentTable.size()-1).size() == 0) {
-        addToCurrentCell("");
-      }
-      _currentTable.add(new ArrayList<String>());
+      currentCell();
+      _currentTable.add(new ArrayList<StringBuilder>());
+      return;
     }
+    flushBuilder();
   }
 
   /**
@@ -294,56 +364,79 @@ public class DefaultOutputModule implements OutputModule {
    * table.
    */
   public void print(String text, Object ...objects) {
-    String txt = makeString(text, objects);
     if (!_inParagraph && _currentTable == null) _inParagraph = true;
-    if (_inParagraph) _builder.append(txt);
-    else addToCurrentCell(txt);
+    if (_inParagraph) {
+      makeString(text, objects, _builder);
+      flushBuilder();
+    }
+    else makeString(text, objects, currentCell());
   }
 
-  /** This prints the results so far to standard out. */
+  /**
+   * This prints the results so far to standard out.  For a streaming module, it instead ends the
+   * output to the writer, and flushes it.
+   */
   public void printToStdout() {
-    System.out.println(toString());
+    if (_writer == null) { System.out.println(toString()); return; }
+    _builder.append("\n");
+    flushBuilder();
+    try { _writer.flush(); }
+    catch (IOException e) { throw new UncheckedIOException(e); }
   }
 
-  /** This returns a string representation of the results so far. */
+  /**
+   * This returns a string representation of the results so far (for a streaming module, only
+   * the results that have not been written yet).
+   */
   public String toString() {
     return _builder.toString();
   }
 
   /**
-   * This function handles the primary functionality of print: printing the given text to a string,
-   * taking into account the codes and arguments.
+   * This function handles the primary functionality of print: printing the given text to the
+   * given builder, taking into account the codes and arguments.
    */
-  private String makeString(String text, Object[] objects) {
-    text = replaceCodes(text);
-    if (objects.length == 0) return text;
+  private void makeString(String text, Object[] objects, StringBuilder ret) {
     while (objects.length == 1 && objects[0] instanceof Object[]) objects = (Object[])objects[0];
-    makeRenaming(objects);
-    StringBuilder ret = new StringBuilder();
+    if (objects.length > 0) makeRenaming(objects);
     int searchfrom = 0;
     for (int i = 0; i < objects.length; i++) {
       int pos = text.indexOf("%a", searchfrom);
       if (pos < 0) {
-        throw new IllegalPrintError("Illegal print; arguments " + text + " with " + objects.length +
+        StringBuilder txt = new StringBuilder();
+        appendWithCodes(text, 0, text.length(), txt);
+        throw new IllegalPrintError("Illegal print; arguments " + txt + " with " + objects.length +
                                     " arguments");
       }
-      ret.append(text.substring(searchfrom, pos));
-      ret.append(printObject(objects[i]));
+      appendWithCodes(text, searchfrom, pos, ret);
+      printObject(objects[i], ret);
       searchfrom = pos + 2;
     }
-    if (searchfrom < text.length()) ret.append(text.substring(searchfrom));
-    return ret.toString();
+    appendWithCodes(text, searchfrom, text.length(), ret);
   }
 
   /**
-   * This helper function for makeString uses _codes to replace all the known codes in the given
-   * text.
+   * This helper function for makeString appends text[start..end-1] to the given builder, in a
+   * single pass replacing all the known codes %{name} by their value in _codes.  Unknown codes
+   * are left unchanged.
    */
-  private String replaceCodes(String text) {
-    for (int i = 0; i < _codes.size(); i++) {
-      text = text.replace(_codes.get(i).fst(), _codes.get(i).snd());
+  private void appendWithCodes(String text, int start, int end, StringBuilder ret) {
+    while (start < end) {
+      int pos = text.indexOf("%{", start);
+      if (pos < 0 || pos >= end) break;
+      int close = text.indexOf('}', pos + 2);
+      String replacement = null;
+      if (close >= 0 && close < end) replacement = _codes.get(text.substring(pos + 2, close));
+      if (replacement == null) {
+        ret.append(text, start, pos + 2);
+        start = pos + 2;
+      }
+      else {
+        ret.append(text, start, pos).append(replacement);
+        start = close + 1;
+      }
     }
-    return text;
+    ret.append(text, start, end);
   }
 
   /**
@@ -362,24 +455,27 @@ public class DefaultOutputModule implements OutputModule {
   }
 
   /**
-   * This helper function for makeString parses the given code (e.g., %s, %t) and prints the
-   * corresponding object as such.  If the object does not have the right type, then an
-   * IllegalPrintError is thrown instead.
+   * This helper function for makeString prints the given object to the given builder, in the
+   * way that is appropriate for its kind.
    */
-  private String printObject(Object ob) {
+  private void printObject(Object ob, StringBuilder ret) {
     if (ob instanceof Type y) {
-      return _typePrinter.print(y);
+      _typePrinter.print(y, ret);
+      return;
     }
     // no need to special-case Terms, as these have all been transformed into Pairs
     if (ob instanceof Pair p) {
       if (p.fst() instanceof Term t && p.snd() instanceof Renaming r) {
-        return _termPrinter.print(t, r);
+        _termPrinter.print(t, r, ret);
+        return;
       }
       if (p.fst() instanceof String s && p.snd() instanceof Object[] obs) {
-        return makeString(s, obs);
+        makeString(s, obs, ret);
+        return;
       }
       if (p.fst() instanceof String s) {
-        return makeString(s, new Object[] { p.snd() });
+        makeString(s, new Object[] { p.snd() }, ret);
+        return;
       }
     }
     if (ob instanceof Rule r) {
@@ -387,17 +483,16 @@ public class DefaultOutputModule implements OutputModule {
       Term right = r.queryRightSide();
       Term constraint = r.queryConstraint();
       Renaming renaming = _termPrinter.generateUniqueNaming(left, right, constraint);
-      StringBuilder ret = new StringBuilder();
       _termPrinter.print(left, renaming, ret);
-      ret.append(replaceCodes(" %{ruleArrow} "));
+      ret.append(' ').append(_codes.get("ruleArrow")).append(' ');
       _termPrinter.print(right, renaming, ret);
       if (r.isConstrained()) {
         ret.append(" | ");
         _termPrinter.print(constraint, renaming, ret);
       }
-      return ret.toString();
+      return;
     }
-    return ob.toString();
+    ret.append(ob.toString());
   }
 
   public void printTrs(TRS trs) {
@@ -0,0 +1,162 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.io;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import charlie.exceptions.ParseException;
+
+/**
+ * The JsonReader reads a single JSON value from a string, as used for the requests in server mode.
+ * Values are returned as plain Java objects: objects become a Map<String,Object> (which preserves
+ * the order of the keys), arrays a List<Object>, strings a String, numbers a Long if they are
+ * integers in the long range and a Double otherwise, booleans a Boolean, and null becomes null.
+ *
+ * This is deliberately small: requests are short, so there is no need for streaming, and any
+ * error is reported as a ParseException.
+ */
+public class JsonReader {
+  private final String _text;
+  private int _pos;
+
+  private JsonReader(String text) {
+    _text = text;
+    _pos = 0;
+  }
+
+  /** Reads the given text, which should consist of a single JSON value. */
+  public static Object read(String text) {
+    JsonReader reader = new JsonReader(text);
+    Object ret = reader.readValue();
+    reader.skipWhitespace();
+    if (reader._pos < text.length()) reader.error("unexpected text after the JSON value");
+    return ret;
+  }
+
+  private void error(String message) {
+    throw new ParseException("Error reading JSON at position " + (_pos + 1) + ": " + message + ".");
+  }
+
+  private void skipWhitespace() {
+    while (_pos < _text.length() && " \t\n\r".indexOf(_text.charAt(_pos)) >= 0) _pos++;
+  }
+
+  /** Skips whitespace, and returns the next character (or 0 at the end of the text). */
+  private char peek() {
+    skipWhitespace();
+    return _pos < _text.length() ? _text.charAt(_pos) : 0;
+  }
+
+  private void expect(char c) {
+    if (peek() != c) error("expected " + c);
+    _pos++;
+  }
+
+  private Object readValue() {
+    char c = peek();
+    switch (c) {
+      case '{': return readObject();
+      case '[': return readArray();
+      case '"': return readString();
+      case 't': readWord("true"); return true;
+      case 'f': readWord("false"); return false;
+      case 'n': readWord("null"); return null;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) return readNumber();
+        error(c == 0 ? "unexpected end of input" : "unexpected character " + c);
+        return null;
+    }
+  }
+
+  private void readWord(String word) {
+    if (!_text.startsWith(word, _pos)) error("expected " + word);
+    _pos += word.length();
+  }
+
+  private Map<String,Object> readObject() {
+    expect('{');
+    LinkedHashMap<String,Object> ret = new LinkedHashMap<String,Object>();
+    if (peek() == '}') { _pos++; return ret; }
+    while (true) {
+      if (peek() != '"') error("expected a key");
+      String key = readString();
+      expect(':');
+      ret.put(key, readValue());
+      if (peek() == '}') { _pos++; return ret; }
+      expect(',');
+    }
+  }
+
+  private List<Object> readArray() {
+    expect('[');
+    ArrayList<Object> ret = new ArrayList<Object>();
+    if (peek() == ']') { _pos++; return ret; }
+    while (true) {
+      ret.add(readValue());
+      if (peek() == ']') { _pos++; return ret; }
+      expect(',');
+    }
+  }
+
+  private String readString() {
+    expect('"');
+    StringBuilder ret = new StringBuilder();
+    while (true) {
+      if (_pos >= _text.length()) error("unterminated string");
+      char c = _text.charAt(_pos++);
+      if (c == '"') return ret.toString();
+      if (c != '\\') { ret.append(c); continue; }
+      if (_pos >= _text.length()) error("unterminated string");
+      c = _text.charAt(_pos++);
+      switch (c) {
+        case '"': case '\\': case '/': ret.append(c); break;
+        case 'b': ret.append('\b'); break;
+        case 'f': ret.append('\f'); break;
+        case 'n': ret.append('\n'); break;
+        case 'r': ret.append('\r'); break;
+        case 't': ret.append('\t'); break;
+        case 'u':
+          if (_pos + 4 > _text.length()) error("incomplete unicode escape");
+          try { ret.append((char)Integer.parseInt(_text.substring(_pos, _pos + 4), 16)); }
+          catch (NumberFormatException e) { error("illegal unicode escape"); }
+          _pos += 4;
+          break;
+        default: error("illegal escape \\" + c);
+      }
+    }
+  }
+
+  private Object readNumber() {
+    int start = _pos;
+    if (_text.charAt(_pos) == '-') _pos++;
+    boolean integer = true;
+    while (_pos < _text.length()) {
+      char c = _text.charAt(_pos);
+      if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') integer = false;
+      else if (c < '0' || c > '9') break;
+      _pos++;
+    }
+    String txt = _text.substring(start, _pos);
+    try {
+      if (integer) return Long.parseLong(txt);
+    }
+    catch (NumberFormatException e) { /* too large for a long: read it as a double */ }
+    try { return Double.parseDouble(txt); }
+    catch (NumberFormatException e) { error("illegal number " + txt); return null; }
+  }
+}
@@ -0,0 +1,223 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Set;
+import charlie.types.Type;
+import charlie.types.TypePrinter;
+import charlie.terms.Renaming;
+import charlie.terms.Term;
+import charlie.terms.TermPrinter;
+import charlie.trs.TRS;
+import charlie.util.Statistics;
+
+/**
+ * A JsonWriter is used to export proofs in a machine-readable format.  It writes JSON to a Writer
+ * as it goes, so nothing except the current nesting of objects and arrays is kept in memory.
+ * Terms and types are written as strings, in the Plain style (so without unicode symbols).
+ *
+ * Calls can be chained, e.g., out.beginObject().name("answer").value("YES").endObject().  If the
+ * calls do not form a valid JSON document (for example a name outside an object), then an
+ * IllegalPrintError is thrown; if writing fails, an UncheckedIOException is thrown.
+ */
+public class JsonWriter {
+  private final Writer _writer;
+  private final TermPrinter _termPrinter;
+  private final TypePrinter _typePrinter;
+  private final StringBuilder _scratch;   // reused for printing terms and types
+  private boolean[] _inObject;            // for every level of nesting, whether it is an object
+  private boolean[] _hasElements;         // for every level, whether it already has elements
+  private int _depth;
+  private boolean _afterName;
+
+  /**
+   * Creates a writer that writes JSON to the given output.  Function symbols of the given TRS (if
+   * not null) are taken into account when choosing names for variables.
+   */
+  public JsonWriter(Writer writer, TRS trs) {
+    Set<String> avoid = trs == null ? Set.of() : trs.queryFunctionSymbolNames();
+    _writer = writer;
+    _termPrinter = new PlainTermPrinter(avoid);
+    _typePrinter = new PlainTypePrinter();
+    _scratch = new StringBuilder();
+    _inObject = new boolean[8];
+    _hasElements = new boolean[8];
+    _depth = 0;
+    _afterName = false;
+  }
+
+  /** Returns the printer used for terms, which can be used to generate Renamings. */
+  public TermPrinter queryTermPrinter() { return _termPrinter; }
+
+  private void write(char c) {
+    try { _writer.write(c); }
+    catch (IOException e) { throw new UncheckedIOException(e); }
+  }
+
+  private void write(String txt) {
+    try { _writer.write(txt); }
+    catch (IOException e) { throw new UncheckedIOException(e); }
+  }
+
+  /** Writes the given text as a JSON string, with quotes and escapes. */
+  private void writeString(CharSequence txt) {
+    write('"');
+    for (int i = 0; i < txt.length(); i++) {
+      char c = txt.charAt(i);
+      switch (c) {
+        case '"': write("\\\""); break;
+        case '\\': write("\\\\"); break;
+        case '\n': write("\\n"); break;
+        case '\r': write("\\r"); break;
+        case '\t': write("\\t"); break;
+        default:
+          if (c < 0x20) write(String.format("\\u%04x", (int)c));
+          else write(c);
+      }
+    }
+    write('"');
+  }
+
+  /** Called before writing any value: checks that a value is allowed here, and adds a comma. */
+  private void beforeValue() {
+    if (_afterName) { _afterName = false; return; }
+    if (_depth > 0 && _inObject[_depth-1]) {
+      throw new IllegalPrintError("JSON value in an object without a name.");
+    }
+    if (_depth == 0) return;
+    if (_hasElements[_depth-1]) write(',');
+    _hasElements[_depth-1] = true;
+  }
+
+  private JsonWriter begin(boolean object) {
+    beforeValue();
+    if (_depth == _inObject.length) {
+      _inObject = Arrays.copyOf(_inObject, 2 * _depth);
+      _hasElements = Arrays.copyOf(_hasElements, 2 * _depth);
+    }
+    _inObject[_depth] = object;
+    _hasElements[_depth] = false;
+    _depth++;
+    write(object ? '{' : '[');
+    return this;
+  }
+
+  private JsonWriter end(boolean object) {
+    if (_depth == 0 || _inObject[_depth-1] != object || _afterName) {
+      throw new IllegalPrintError("JSON " + (object ? "object" : "array") + " ended when it is " +
+        "not the innermost open structure.");
+    }
+    _depth--;
+    write(object ? '}' : ']');
+    return this;
+  }
+
+  public JsonWriter beginObject() { return begin(true); }
+  public JsonWriter endObject() { return end(true); }
+  public JsonWriter beginArray() { return begin(false); }
+  public JsonWriter endArray() { return end(false); }
+
+  /** Writes the name of the next field in the current object. */
+  public JsonWriter name(String name) {
+    if (_depth == 0 || !_inObject[_depth-1] || _afterName) {
+      throw new IllegalPrintError("JSON name " + name + " given outside an object.");
+    }
+    if (_hasElements[_depth-1]) write(',');
+    _hasElements[_depth-1] = true;
+    writeString(name);
+    write(':');
+    _afterName = true;
+    return this;
+  }
+
+  public JsonWriter value(String value) {
+    beforeValue();
+    if (value == null) write("null");
+    else writeString(value);
+    return this;
+  }
+
+  public JsonWriter value(long value) {
+    beforeValue();
+    write(Long.toString(value));
+    return this;
+  }
+
+  public JsonWriter value(boolean value) {
+    beforeValue();
+    write(value ? "true" : "false");
+    return this;
+  }
+
+  /** Writes the given term as a string, using the given Renaming for its variables. */
+  public JsonWriter value(Term term, Renaming naming) {
+    beforeValue();
+    _scratch.setLength(0);
+    _termPrinter.print(term, naming, _scratch);
+    writeString(_scratch);
+    return this;
+  }
+
+  /** Writes the given term as a string, with its own choice of variable names. */
+  public JsonWriter value(Term term) {
+    return value(term, _termPrinter.generateUniqueNaming(term));
+  }
+
+  /** Writes the given type as a string. */
+  public JsonWriter value(Type type) {
+    beforeValue();
+    _scratch.setLength(0);
+    _typePrinter.print(type, _scratch);
+    writeString(_scratch);
+    return this;
+  }
+
+  /**
+   * Writes the given statistics as an object with a field "phases", mapping every phase to an
+   * object with its count and time (in microseconds), and a field "counters", mapping every counter
+   * to its value.
+   */
+  public JsonWriter value(Statistics stats) {
+    beginObject();
+    name("phases").beginObject();
+    for (String phase : stats.queryPhases()) {
+      name(phase).beginObject();
+      name("count").value(stats.queryCount(phase));
+      name("time").value(stats.queryTime(phase) / 1000);
+      endObject();
+    }
+    endObject();
+    name("counters").beginObject();
+    for (String counter : stats.queryCounters()) name(counter).value(stats.queryCounter(counter));
+    endObject();
+    return endObject();
+  }
+
+  /**
+   * Ends the document with a newline, and flushes the underlying writer.  This should only be
+   * called when all objects and arrays have been closed.
+   */
+  public void finish() {
+    if (_depth != 0) throw new IllegalPrintError("JSON document finished with open structures.");
+    write('\n');
+    try { _writer.flush(); }
+    catch (IOException e) { throw new UncheckedIOException(e); }
+  }
+}
@@ -17,8 +17,9 @@ package cora.io;
 
 /**
  * A ProofObject is the way that some method within Cora passes its result to the calling function.
- * A ProofObject provides an answer, and can prints the justification for this answer.  In the
- * future, it may also be able to print a formal proof for automatic certification.
+ * A ProofObject provides an answer, and can print the justification for this answer, either as
+ * text to an OutputModule or in a structured form to a JsonWriter.  Neither is done until it is
+ * requested, so a caller that only needs the answer does not pay for printing the proof.
  * (The justification is allowed to be empty, for example if the answer is MAYBE.)
  */
 public interface ProofObject {
@@ -50,5 +51,18 @@ public interface ProofObject {
    * to Plain.
    */
   void justify(OutputModule out);
-}
 
+  /**
+   * This writes the proof in machine-readable form to the given JsonWriter, as a single JSON
+   * object that has at least a field "answer" (holding queryAnswer()).  By default, only the
+   * answer is written, along with a field "result" if printAnswer() gives more information;
+   * proof objects that can describe their reasoning in a structured way should override this.
+   */
+  default void export(JsonWriter out) {
+    out.beginObject();
+    out.name("answer").value(queryAnswer().toString());
+    String result = printAnswer();
+    if (!result.equals(queryAnswer().toString())) out.name("result").value(result);
+    out.endObject();
+  }
+}
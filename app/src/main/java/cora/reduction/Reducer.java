@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 
 import charlie.util.Pair;
+import charlie.util.Statistics;
 import charlie.terms.Term;
 import charlie.terms.position.Position;
 import charlie.trs.TRS;
@@ -76,7 +77,10 @@ public class Reducer {
       for (int j = 0; j < _components.size() && result == null; j++) {
         result = _components.get(j).apply(sub);
       }
-      if (result != null) return s.replaceSubterm(pos, result);
+      if (result != null) {
+        Statistics.count("reduction steps");
+        return s.replaceSubterm(pos, result);
+      }
     }
     return null;
   }
@@ -21,6 +21,7 @@ import charlie.types.Type;
 import charlie.terms.*;
 import charlie.trs.Rule;
 import charlie.theorytranslation.TermAnalyser;
+import charlie.util.Statistics;
 import cora.config.Settings;
 
 /**
@@ -31,9 +32,18 @@ import cora.config.Settings;
  */
 class RuleReducer implements ReduceObject {
   private Rule _rule;
+  private String _attemptsCounter;   // the name of the statistics counter, once it is needed
 
   public RuleReducer(Rule rule) {
     _rule = rule;
+    _attemptsCounter = null;
+  }
+
+  /** Records an attempt to match the left-hand side of our rule, if statistics are recorded. */
+  private void countAttempt() {
+    if (!Statistics.isRecording()) return;
+    if (_attemptsCounter == null) _attemptsCounter = "match attempts for " + _rule.toString();
+    Statistics.count(_attemptsCounter);
   }
 
   /**
@@ -54,6 +64,7 @@ class RuleReducer implements ReduceObject {
     int k = findHeadAdditions(t);
     if (k == -1 || n < k) return false;
     Term head = t.queryImmediateHeadSubterm(n-k);
+    countAttempt();
     Substitution subst = _rule.queryLeftSide().match(head);
     if (subst == null) return false;
     for (Variable x : _rule.queryConstraint().vars()) {
@@ -61,7 +72,7 @@ class RuleReducer implements ReduceObject {
     }
     Term csub = _rule.queryConstraint().substitute(subst);
     if (csub.isGround()) return TermAnalyser.evaluate(csub).getBool();
-    else return TermAnalyser.satisfy(csub, Settings.smtSolver) instanceof TermAnalyser.Result.YES;
+    else return TermAnalyser.satisfy(csub, Settings.querySolver()) instanceof TermAnalyser.Result.YES;
   }
 
   /**
@@ -73,6 +84,7 @@ class RuleReducer implements ReduceObject {
     int k = findHeadAdditions(t);
     if (k == -1 || n < k) return null;
     Term head = t.queryImmediateHeadSubterm(n-k);
+    countAttempt();
     Substitution subst = _rule.queryLeftSide().match(head);
     if (subst == null) return null;
 
@@ -86,7 +98,7 @@ class RuleReducer implements ReduceObject {
     }
     else {
       Substitution result = null;
-      switch (TermAnalyser.satisfy(csub, Settings.smtSolver)) {
+      switch (TermAnalyser.satisfy(csub, Settings.querySolver())) {
         case TermAnalyser.Result.NO(): return null;
         case TermAnalyser.Result.MAYBE(String reason): return null;
         case TermAnalyser.Result.YES(Substitution gamma): result = gamma;
@@ -96,7 +108,8 @@ class RuleReducer implements ReduceObject {
       }
     }
     for (Variable x : _rule.queryRightSide().vars()) {
-      if (subst.get(x) == null) subst.extend(x, TermAnalyser.chooseRandomValue(x.queryType()));
+      if (subst.get(x) != null) continue;
+      subst.extend(x, TermAnalyser.chooseRandomValue(x.queryType(), Settings.queryRandom()));
     }
 
     ArrayList<Term> args = new ArrayList<Term>();
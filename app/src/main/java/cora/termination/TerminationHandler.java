@@ -16,6 +16,7 @@
 package cora.termination;
 
 import charlie.trs.TRS;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.io.ProofObject;
 import cora.config.Settings;
@@ -53,6 +54,7 @@ public class TerminationHandler {
         module.printTrs(trs);
         ob.justify(module);
       }
+      public void export(JsonWriter out) { ob.export(out); }
     };
   }
 }
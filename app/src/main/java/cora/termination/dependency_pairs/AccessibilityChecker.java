@@ -138,7 +138,7 @@ public class AccessibilityChecker {
       });
       Collections.sort(_sorts, new Comparator<Pair<String,Integer>>() {
         public int compare(Pair<String,Integer> p1, Pair<String,Integer> p2) {
-          return p2.snd() - p1.snd();
+          return Integer.compare(p2.snd(), p1.snd());
         }
       });
     }
@@ -197,13 +197,24 @@ public class AccessibilityChecker {
 
   public ProofObject checkAccessibility() {
     generateTrsConstraints();
-    return switch (Settings.smtSolver.checkSatisfiability(_problem)) {
-      case SmtSolver.Answer.YES(Valuation solution) -> new AccessibilityProofObject(solution);
+    return switch (Settings.querySolver().checkSatisfiability(_problem)) {
+      case SmtSolver.Answer.YES(Valuation solution) -> fitsInts(solution)
+        ? new AccessibilityProofObject(solution)
+        : new AccessibilityProofObject("The SMT solver chose a sort ordering with values that " +
+                                       "are too large to use.");
       case SmtSolver.Answer.MAYBE(String reason) -> new AccessibilityProofObject(reason);
       case SmtSolver.Answer.NO() -> new AccessibilityProofObject();
     };
   }
 
+  /** Returns whether the values of all sort variables in the given solution fit in an int. */
+  private boolean fitsInts(Valuation solution) {
+    for (IVar x : _sortVariables.values()) {
+      if (!solution.isAssignmentBetween(x, Integer.MIN_VALUE, Integer.MAX_VALUE)) return false;
+    }
+    return true;
+  }
+
   public String querySortOrdering() {
     return _result;
   }
@@ -2,6 +2,7 @@ package cora.termination.dependency_pairs;
 
 import charlie.trs.TRS;
 import charlie.trs.TrsProperties.*;
+import charlie.util.Statistics;
 import cora.config.Settings;
 import cora.io.OutputModule;
 import cora.io.ProofObject;
@@ -10,6 +11,7 @@ import cora.termination.dependency_pairs.processors.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
+import java.util.function.Supplier;
 
 public class DPFramework {
   public static String queryDisabledCode() {
@@ -41,7 +43,7 @@ public class DPFramework {
   }
 
   public DPProofObject proveTermination(TRS trs, boolean ruleExtensionPresent) {
-    ProofObject appl = isTRSApplicable(trs);
+    ProofObject appl = Statistics.time("accessibility", () -> isTRSApplicable(trs));
     if (appl.queryAnswer() != ProofObject.Answer.YES) return new DPProofObject(appl);
 
     ReachabilityProcessor reachProcessor = new ReachabilityProcessor();
@@ -58,22 +60,26 @@ public class DPFramework {
     }
     else proclist = List.of(graphProcessor, subtermProcessor, imapProcessor, targProcessor);
 
-    Problem initialProblem = DPFramework.computeInitialProblem(trs);
+    Problem initialProblem =
+      Statistics.time("dp generation", () -> DPFramework.computeInitialProblem(trs));
     DPProofObject ret = new DPProofObject(appl, initialProblem);
 
     // we start with the processors that preserve the "public" nature of a chain
     if (!Settings.isDisabled(queryPrivateDisabledCode())) {
       ProcessorProofObject tmp;
       if (splitProcessor.isApplicable(initialProblem)) {
-        tmp = splitProcessor.transform(initialProblem);
+        Problem p = initialProblem;
+        tmp = applyProcessor(splitProcessor, p, () -> splitProcessor.transform(p));
         if (tmp.applicable()) { ret.addProcessorProof(tmp); initialProblem = tmp.queryOutput(); }
       }
       if (targProcessor.isApplicable(initialProblem)) {
-        tmp = targProcessor.transform(initialProblem);
+        Problem p = initialProblem;
+        tmp = applyProcessor(targProcessor, p, () -> targProcessor.transform(p));
         if (tmp.applicable()) { ret.addProcessorProof(tmp); initialProblem = tmp.queryOutput(); }
       }
       if (reachProcessor.isApplicable(initialProblem)) {
-        tmp = reachProcessor.transform(initialProblem);
+        Problem p = initialProblem;
+        tmp = applyProcessor(reachProcessor, p, () -> reachProcessor.transform(p));
         if (tmp.applicable()) { ret.addProcessorProof(tmp); initialProblem = tmp.queryOutput(); }
       }
     }
@@ -90,7 +96,7 @@ public class DPFramework {
       boolean success = false;
       for (Processor proc : proclist) {
         if (!proc.isApplicable(p)) continue;
-        ProcessorProofObject ppo = proc.processDPP(p);
+        ProcessorProofObject ppo = applyProcessor(proc, p, () -> proc.processDPP(p));
         if (ppo.applicable()) {
           toBeSolved.addAll(ppo.queryResults());
           ret.addProcessorProof(ppo);
@@ -108,6 +114,32 @@ public class DPFramework {
     return ret;
   }
 
+  /**
+   * Applies the given processor to p (by executing the given task), and records statistics on the
+   * application: its time, whether it succeeded, and how many DPs it removed.  The application is
+   * also reported as a flight recorder event.
+   */
+  private static ProcessorProofObject applyProcessor(Processor proc, Problem p,
+                                                     Supplier<ProcessorProofObject> task) {
+    String name = proc.getClass().getSimpleName();
+    ProcessorEvent event = new ProcessorEvent(name, p.getDPList().size());
+    event.begin();
+    ProcessorProofObject ret = Statistics.time("processor " + name, task);
+    event.end();
+    if (ret.applicable() && (Statistics.isRecording() || event.shouldCommit())) {
+      int remaining = 0;
+      for (Problem q : ret.queryResults()) remaining += q.getDPList().size();
+      Statistics.count("processor " + name + " successes");
+      Statistics.count("processor " + name + " removed DPs",
+                       Math.max(0, p.getDPList().size() - remaining));
+      event.success = true;
+      event.resultingProblems = ret.queryResults().size();
+      event.outputDPs = remaining;
+    }
+    event.commit();
+    return ret;
+  }
+
   public DPProofObject proveTermination(TRS trs) {
     return proveTermination(trs, false);
   }
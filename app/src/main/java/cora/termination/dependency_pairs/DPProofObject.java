@@ -21,6 +21,7 @@ import charlie.util.Pair;
 import charlie.terms.Term;
 import charlie.terms.Variable;
 import charlie.terms.Renaming;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.io.OutputModuleAdapter;
 import cora.io.ProofObject;
@@ -141,6 +142,73 @@ class DPProofObject implements ProofObject {
     }
   }
 
+  /**
+   * This writes the full proof to the given JsonWriter.  Besides the answer and the accessibility
+   * check, this has the initial problem, and a list of steps: for every processor application,
+   * its name, the input problem, the processor-specific details, and the resulting problems.
+   * Problems are given a name ("P1", "P2", ...) when first written, and later referred to by it.
+   */
+  public void export(JsonWriter out) {
+    out.beginObject();
+    out.name("answer").value(_answer.toString());
+    out.name("accessibility");
+    _accessibilityCheck.export(out);
+    if (_initialProblem != null) {
+      HashMap<Problem,String> names = new HashMap<Problem,String>();
+      names.put(_initialProblem, "P1");
+      out.name("initial");
+      exportDPP(out, _initialProblem, "P1");
+      out.name("steps").beginArray();
+      int count = 1;
+      for (ProcessorProofObject po : _processorProofs) {
+        out.beginObject().name("processor").value(po.queryProcessorName());
+        out.name("input");
+        if (names.containsKey(po.queryInput())) out.value(names.get(po.queryInput()));
+        else exportDPP(out, po.queryInput(), null);
+        po.exportDetails(out);
+        out.name("results").beginArray();
+        for (Problem result : po.queryResults()) {
+          count++;
+          String name = "P" + count;
+          names.put(result, name);
+          exportDPP(out, result, name);
+        }
+        out.endArray().endObject();
+      }
+      out.endArray();
+      if (_failure != null) {
+        out.name("failure");
+        if (names.containsKey(_failure)) out.value(names.get(_failure));
+        else exportDPP(out, _failure, null);
+      }
+    }
+    out.endObject();
+  }
+
+  /** This writes a DP Problem to the JsonWriter, including a name if this is not null. */
+  private void exportDPP(JsonWriter out, Problem prob, String name) {
+    out.beginObject();
+    if (name != null) out.name("name").value(name);
+    out.name("dps").beginArray();
+    for (DP dp : prob.getDPList()) {
+      Renaming naming =
+        out.queryTermPrinter().generateUniqueNaming(dp.lhs(), dp.rhs(), dp.constraint());
+      out.beginObject();
+      out.name("lhs").value(dp.lhs(), naming);
+      out.name("rhs").value(dp.rhs(), naming);
+      out.name("constraint").value(dp.constraint(), naming);
+      out.name("variables").beginArray();
+      for (Variable x : dp.vars()) {
+        if (naming.getName(x) != null) out.value(x, naming);
+      }
+      out.endArray();
+      out.name("private").value(dp.isPrivate());
+      out.endObject();
+    }
+    out.endArray();
+    out.endObject();
+  }
+
   /** This prints a DP Problem to the output module, including a name. */
   private void printDPP(OutputModule module, Problem prob, String name) {
     module.startTable();
@@ -0,0 +1,39 @@
+package cora.termination.dependency_pairs;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a single application of a processor in the DP framework.  When
+ * no flight recording is active, this costs next to nothing.
+ */
+@Name("cora.ProcessorApplication")
+@Label("DP Processor Application")
+@Category({"Cora", "Dependency Pairs"})
+@Description("An attempt to apply a processor to a DP problem")
+class ProcessorEvent extends Event {
+  @Label("Processor")
+  String processor;
+
+  @Label("Input DPs")
+  int inputDPs;
+
+  @Label("Resulting Problems")
+  @Description("the number of DP problems the input was replaced by (if successful)")
+  int resultingProblems;
+
+  @Label("Output DPs")
+  @Description("the total number of DPs in the resulting problems (if successful)")
+  int outputDPs;
+
+  @Label("Success")
+  boolean success;
+
+  ProcessorEvent(String processor, int inputDPs) {
+    this.processor = processor;
+    this.inputDPs = inputDPs;
+  }
+}
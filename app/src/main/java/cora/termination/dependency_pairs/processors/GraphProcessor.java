@@ -2,15 +2,16 @@ package cora.termination.dependency_pairs.processors;
 
 import cora.io.OutputModule;
 import cora.config.Settings;
+import charlie.trs.TRS;
+import cora.data.digraph.DecrementalSCC;
 import cora.data.digraph.Digraph;
-import cora.data.digraph.SCC;
 import cora.termination.dependency_pairs.DP;
 import cora.termination.dependency_pairs.Problem;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
 
 public class GraphProcessor implements Processor {
   /** This technique can be disabled by runtime arguments. */
@@ -19,49 +20,81 @@ public class GraphProcessor implements Processor {
   @Override
   public boolean isApplicable(Problem dp) { return !Settings.isDisabled(queryDisabledCode()); }
 
-  private List<Problem> computeAllSubproblems(@NotNull Problem dpp) {
-    Digraph graphOfDPP = Approximator.problemToGraph(dpp);
-
-    SCC scc = new SCC(graphOfDPP);
-    // We need to filter out the nontrivial SCCs from the SCC data in the scc object.
-    List< List<Integer> > nonTrivalSCCs = scc.getSccData()
-      .stream()
-      .filter ( component ->
-        component.size() > 1
-          ||
-          (component.size() == 1 && graphOfDPP.getNeighbours(component.getFirst()).contains(component.getFirst()))
-      ).toList();
-
-    int numberOfNontrivialSCCs = nonTrivalSCCs.size();
-
-    List< List<DP> > retDP            = new ArrayList<>(numberOfNontrivialSCCs);
-    List< Digraph  > retGraph         = new ArrayList<>(numberOfNontrivialSCCs);
-    List< Problem >  subproblems      = new ArrayList<>(numberOfNontrivialSCCs);
-
-    // Here we process each nontrivial SCC component and generate a new DP Problem out of them.
-    for(int i = 0; i < numberOfNontrivialSCCs; i++) {
-      retDP.add(new ArrayList<>());
-
-      List<Integer> sccVertices = nonTrivalSCCs.get(i);
-
-      // For each vertex v in the SCC i, we collect the DPs that are in position v
-      // from the dpp list of DPs (dpp.getDPList()).
-      // Recall that in the associated graph of a DP problem,
-      // each vertex v in the graph directly points to the element of this list at position v.
-      // This observation is important, so the bijection between the nodes of the DP graph and
-      // the DP problem's list of DPs is always maintained.
-      // Warning: doing crazy shit with this association will only bring caos and despair.
-      // We don't want that, do we? Coq will know if you did crazy shit... So beware of it.
-      for(int vertex : sccVertices) {
-        retDP.get(i).add(dpp.getDPList().get(vertex));
-      }
-
-      retGraph.add(graphOfDPP.getSubgraph(sccVertices));
+  /** A dependency graph computed for some problem, whose SCCs we maintain as DPs are removed. */
+  private record KnownGraph(List<DP> dps, TRS trs, DecrementalSCC components) {}
+  /** The position of a DP in a known graph. */
+  private record Vertex(KnownGraph graph, int index) {}
+
+  // For every DP that occurred in a problem whose graph we computed, this stores where it occurs.
+  // Processors that remove DPs keep the remaining DP objects, so when we are later given a subset
+  // of an SCC, we can split it by updating the known decomposition rather than by recomputing the
+  // graph -- which requires an expensive approximation for every pair of DPs -- and its SCCs.
+  private final IdentityHashMap<DP,Vertex> _known = new IdentityHashMap<DP,Vertex>();
+
+  /**
+   * Returns the problems for the nontrivial components among the given component identifiers of
+   * the given known graph.
+   */
+  private List<Problem> createSubproblems(KnownGraph known, List<Integer> ids) {
+    DecrementalSCC components = known.components();
+    List<Problem> subproblems = new ArrayList<>();
+    for (int id : ids) {
+      if (!components.isNontrivial(id)) continue;
+      // Recall that in the associated graph of a DP problem, each vertex v in the graph directly
+      // points to the element of the list of DPs at position v.  This bijection must be
+      // maintained, so the DPs of the subproblem are listed in the order of its vertices.
+      List<DP> dps = new ArrayList<>(components.getComponentSize(id));
+      for (int vertex : components.getComponent(id)) dps.add(known.dps().get(vertex));
+      subproblems.add(new Problem(dps, known.trs(), components.getComponentGraph(id)));
+    }
+    return subproblems;
+  }
 
-      subproblems.add(new Problem(retDP.get(i), dpp.getTRS(), retGraph.get(i)));
+  /**
+   * If the DPs of the given problem are all in the same SCC of a graph we computed before (and
+   * occur in the same order), then this removes the other DPs of that SCC from the known
+   * decomposition, and returns the resulting subproblems.  Otherwise, it returns null.
+   */
+  private List<Problem> splitKnownComponent(Problem dpp) {
+    List<DP> dps = dpp.getDPList();
+    if (dps.isEmpty()) return null;
+    Vertex first = _known.get(dps.getFirst());
+    if (first == null || first.graph().trs() != dpp.getTRS()) return null;
+    KnownGraph known = first.graph();
+    DecrementalSCC components = known.components();
+    int id = components.getSccId(first.index());
+    if (id < 0) return null;
+    int previous = -1;
+    for (DP dp : dps) {
+      Vertex v = _known.get(dp);
+      if (v == null || v.graph() != known || v.index() <= previous ||
+          components.getSccId(v.index()) != id) return null;
+      previous = v.index();
+    }
+    // the DPs of dpp are the remaining vertices in the SCC id in order, minus the removed ones
+    List<Integer> removed = new ArrayList<>();
+    int k = 0;
+    for (int vertex : components.getComponent(id)) {
+      if (k < dps.size() && _known.get(dps.get(k)).index() == vertex) k++;
+      else removed.add(vertex);
     }
+    if (removed.isEmpty()) return createSubproblems(known, List.of(id));
+    return createSubproblems(known, components.removeVertices(removed));
+  }
 
-    return subproblems;
+  private List<Problem> computeAllSubproblems(@NotNull Problem dpp) {
+    List<Problem> ret = splitKnownComponent(dpp);
+    if (ret != null) return ret;
+
+    Digraph graphOfDPP = dpp.getGraph().orElseGet(() -> Approximator.problemToGraph(dpp));
+    KnownGraph known =
+      new KnownGraph(dpp.getDPList(), dpp.getTRS(), new DecrementalSCC(graphOfDPP));
+    for (int i = 0; i < dpp.getDPList().size(); i++) {
+      _known.put(dpp.getDPList().get(i), new Vertex(known, i));
+    }
+    List<Integer> ids = new ArrayList<>(known.components().getNumberOfSCCs());
+    for (int id = 0; id < known.components().getNumberOfSCCs(); id++) ids.add(id);
+    return createSubproblems(known, ids);
   }
 
   private class GraphProofObject extends ProcessorProofObject {
@@ -2,6 +2,7 @@ package cora.termination.dependency_pairs.processors;
 
 import java.util.List;
 import java.util.ArrayList;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.io.ProofObject;
 import cora.termination.reduction_pairs.*;
@@ -36,6 +37,11 @@ public class HorpoProcessor implements Processor {
 
     public String queryProcessorName() { return "horpo"; }
 
+    public void exportDetails(JsonWriter out) {
+      out.name("reductionPair");
+      _result.export(out);
+    }
+
     public void justify(OutputModule module) {
       _result.justify(module);
       if (_output.size() == 0) module.println("All dependency pairs were removed.");
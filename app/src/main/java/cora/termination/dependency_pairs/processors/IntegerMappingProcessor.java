@@ -278,7 +278,7 @@ public class IntegerMappingProcessor implements Processor {
           // candidates
           validityProblem
             .requireImplication(constraintTranslation, SmtFactory.createGeq(candLiExpr, candRjExpr));
-          if (!Settings.smtSolver.checkValidity(validityProblem)) {
+          if (!Settings.querySolver().checkValidity(validityProblem)) {
             _smt.require(fSharpDisjunction);
             continue;
           }
@@ -293,7 +293,7 @@ public class IntegerMappingProcessor implements Processor {
               SmtFactory.createGreater(candLiExpr, candRjExpr)
             ));
 
-          if (Settings.smtSolver.checkValidity(validityProblem)) {
+          if (Settings.querySolver().checkValidity(validityProblem)) {
             _smt.require(
               SmtFactory.createDisjunction(
                 fSharpDisjunction,
@@ -329,13 +329,21 @@ public class IntegerMappingProcessor implements Processor {
     requireAtLeastOneStrict(boolMap);
     putDpRequirements(intMap, boolMap, dpp);
 
-    Valuation result = switch (Settings.smtSolver.checkSatisfiability(_smt)) {
+    Valuation result = switch (Settings.querySolver().checkSatisfiability(_smt)) {
       case SmtSolver.Answer.YES(Valuation val) -> val;
       default -> null;
     };
 
     if (result == null) return new IntegerMappingProof(dpp);
 
+    // the solver should respect the bounds from requiresCtrs, but we do not rely on it
+    for (Map.Entry<FunctionSymbol,IVar> entry : intMap.entrySet()) {
+      int upperBound = _candidates.get(entry.getKey()).size() - 1;
+      if (!result.isAssignmentBetween(entry.getValue(), 0, upperBound)) {
+        return new IntegerMappingProof(dpp);
+      }
+    }
+
     // we found a solution! Store the information from the valuation
     TreeSet<Integer> indexOfOrientedDPs = new TreeSet<>();
     TreeMap<FunctionSymbol,Term> candFun = new TreeMap<FunctionSymbol,Term>();
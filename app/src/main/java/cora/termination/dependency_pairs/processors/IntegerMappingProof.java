@@ -22,6 +22,7 @@ import java.util.Map;
 
 import charlie.util.Pair;
 import charlie.terms.*;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.termination.dependency_pairs.DP;
 import cora.termination.dependency_pairs.Problem;
@@ -80,6 +81,33 @@ class IntegerMappingProof extends ProcessorProofObject {
     else module.println("We may remove the strictly oriented DPs, which yields:");
   }
 
+  /**
+   * This writes the integer mapping as a list "mapping" of symbols with their interpretation, and
+   * the (0-based) indexes of the strictly oriented DPs in the input as "oriented".
+   */
+  public void exportDetails(JsonWriter out) {
+    if (_intp == null) return;
+    out.name("mapping").beginArray();
+    _intp.forEach(
+      (f, t) -> {
+        ArrayList<Term> terms = new ArrayList<Term>(_argvars.get(f));
+        terms.add(t);
+        Renaming naming = out.queryTermPrinter().generateUniqueNaming(terms);
+        out.beginObject().name("symbol").value(f.toString());
+        out.name("arguments").beginArray();
+        for (Variable x : _argvars.get(f)) out.value(x, naming);
+        out.endArray();
+        out.name("value").value(t, naming).endObject();
+      }
+    );
+    out.endArray();
+    out.name("oriented").beginArray();
+    for (int index = 0; index < _input.getDPList().size(); index++) {
+      if (_oriented.contains(index)) out.value(index);
+    }
+    out.endArray();
+  }
+
   /** Helper function for justify: prints the interpretation function we found. */
   private void printFunction(OutputModule module) {
     module.println("We use the following integer mapping:");
@@ -171,7 +171,7 @@ class OverApproximation {
         todo.push(new Pair<Term,Term>(a, b));
       }
     }
-    return !(TermAnalyser.satisfy(requirements, Settings.smtSolver)
+    return !(TermAnalyser.satisfy(requirements, Settings.querySolver())
              instanceof TermAnalyser.Result.NO);
   }
 }
@@ -16,6 +16,7 @@
 package cora.termination.dependency_pairs.processors;
 
 import java.util.List;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.termination.dependency_pairs.Problem;
 
@@ -73,6 +74,13 @@ public abstract class ProcessorProofObject {
   /** This prints the reasoning for the processor to the given output module. */
   public abstract void justify(OutputModule module);
 
+  /**
+   * This writes the processor-specific parts of the proof (if any) as fields of the JSON object
+   * that is currently being written.  By default, there are none; the input and output problems
+   * are written by the DP framework.
+   */
+  public void exportDetails(JsonWriter out) {}
+
   /** This returns the name of the processor (e.g., Reachability, Subterm Criteiron). */
   public abstract String queryProcessorName();
 }
@@ -122,10 +122,17 @@ public class SubtermProcessor implements Processor {
 
     // Ask the SMT-solver to find the projection function for us.
     Valuation valuation = null;
-    switch (Settings.smtSolver.checkSatisfiability(_smt)) {
+    switch (Settings.querySolver().checkSatisfiability(_smt)) {
       case SmtSolver.Answer.YES(Valuation val): valuation = val; break;
       default: return new SubcritProofObject(dpp); // this processor cannot do anything
     };
+    // the solver should respect the bounds from addFnConstraintsToSMT, but we do not rely on it
+    for (Map.Entry<FunctionSymbol,IVar> entry : fSharpMap.entrySet()) {
+      int arity = entry.getKey().queryArity();
+      if (!valuation.isAssignmentBetween(entry.getValue(), 1, arity)) {
+        return new SubcritProofObject(dpp);
+      }
+    }
 
     // we found a solution! Store the information from the valuation
     TreeSet<Integer> indexOfOrientedDPs = new TreeSet<>();
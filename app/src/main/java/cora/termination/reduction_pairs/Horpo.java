@@ -76,6 +76,21 @@ public class Horpo {
    * returns a proof object to represent the result of this attempt.
    */
   public HorpoResult orient(OrderingProblem problem) {
+    HorpoEvent event = new HorpoEvent();
+    event.begin();
+    HorpoResult ret = orientProblem(problem);
+    event.end();
+    if (event.shouldCommit()) {
+      event.requirements = problem.reqs().size();
+      event.strict = _strict;
+      event.answer = ret.queryAnswer().toString();
+      event.commit();
+    }
+    return ret;
+  }
+
+  /** Helper function for orient: does the actual work, without reporting events. */
+  private HorpoResult orientProblem(OrderingProblem problem) {
     int bound = computeIntegerVariableBound(problem);
     HorpoParameters param = new HorpoParameters(bound, _strict);
     TreeSet<String> avoid = getFunctionSymbols(problem);
@@ -171,11 +186,15 @@ public class Horpo {
   private HorpoResult solve(OrderingProblem orderingProblem, TreeMap<Integer,BVar> choices,
                             HorpoParameters param, HorpoConstraintList lst) {
     Valuation valuation = null;
-    switch (Settings.smtSolver.checkSatisfiability(param.queryProblem())) {
+    switch (Settings.querySolver().checkSatisfiability(param.queryProblem())) {
       case SmtSolver.Answer.YES(Valuation val): valuation = val; break;
       default:  // no solution => let's return a MAYBE
         return new HorpoResult(orderingProblem, "Could not find a HORPO proof.");
     };
+    if (!param.fitsSymbolData(valuation)) {
+      return new HorpoResult(orderingProblem, "The SMT solver chose a precedence that is too " +
+                                              "large to use.");
+    }
     TreeSet<Integer> strict = new TreeSet<Integer>();
     for (Map.Entry<Integer,BVar> entry : choices.entrySet()) {
       BVar x = entry.getValue();
@@ -461,10 +461,10 @@ class HorpoConstraintList {
     }
 
     validityProblem.requireImplication(c, downProblem);
-    boolean downValid = Settings.smtSolver.checkValidity(validityProblem);
+    boolean downValid = Settings.querySolver().checkValidity(validityProblem);
     validityProblem.clear();
     validityProblem.requireImplication(c, upProblem);
-    boolean upValid = Settings.smtSolver.checkValidity(validityProblem);
+    boolean upValid = Settings.querySolver().checkValidity(validityProblem);
 
     if (downValid && upValid) _problem.require(x);
     else if (downValid) {
@@ -497,7 +497,7 @@ class HorpoConstraintList {
     else constr = SmtFactory.createDisjunction(cl, negr);
     validityProblem.requireImplication(cp, constr);
 
-    if (Settings.smtSolver.checkValidity(validityProblem)) _problem.require(x);
+    if (Settings.querySolver().checkValidity(validityProblem)) _problem.require(x);
     else _problem.require(x.negate());
   }
 
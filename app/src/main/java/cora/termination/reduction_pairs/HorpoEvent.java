@@ -0,0 +1,38 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.termination.reduction_pairs;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JDK Flight Recorder event for a single attempt to orient an OrderingProblem using Horpo. */
+@Name("cora.HorpoOrientation")
+@Label("Horpo Orientation")
+@Category({"Cora", "Reduction Pairs"})
+@Description("An attempt to orient an ordering problem with Horpo")
+class HorpoEvent extends Event {
+  @Label("Requirements")
+  int requirements;
+
+  @Label("Strongly Monotonic")
+  boolean strict;
+
+  @Label("Answer")
+  String answer;
+}
@@ -165,6 +165,21 @@ class HorpoParameters {
 
   public record SymbolData(String symbol, int prec, int stat) {}
   
+  /**
+   * Returns whether the precedence and status that the given valuation assigns to all function
+   * symbols fit in an int, so getSymbolData can be used.  (The precedence is only bounded on one
+   * side, so an SMT solver may choose arbitrarily large values.)
+   */
+  public boolean fitsSymbolData(Valuation valuation) {
+    for (IVar x : _precedence.values()) {
+      if (!valuation.isAssignmentBetween(x, Integer.MIN_VALUE, Integer.MAX_VALUE)) return false;
+    }
+    for (IVar x : _status.values()) {
+      if (!valuation.isAssignmentBetween(x, Integer.MIN_VALUE, Integer.MAX_VALUE)) return false;
+    }
+    return true;
+  }
+
   /**
    * For the given valuation, returns the precedence and status of all the function symbols where
    * the precedence was queried, ordered from large to small.
@@ -179,8 +194,8 @@ class HorpoParameters {
     }
     Collections.sort(info, new Comparator<SymbolData>() {
       public int compare(SymbolData inf1, SymbolData inf2) {
-        if (inf1.prec != inf2.prec) return inf2.prec - inf1.prec;
-        if (inf1.stat != inf2.stat) return inf2.stat - inf1.stat;
+        if (inf1.prec != inf2.prec) return Integer.compare(inf2.prec, inf1.prec);
+        if (inf1.stat != inf2.stat) return Integer.compare(inf2.stat, inf1.stat);
         return inf1.symbol.compareTo(inf2.symbol);
       }
     });
@@ -21,6 +21,7 @@ import java.util.Set;
 import charlie.util.Pair;
 import charlie.terms.FunctionSymbol;
 import charlie.smt.Valuation;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 
 /**
@@ -70,17 +71,17 @@ class HorpoResult extends ReductionPairProofObject {
   public int precedence(FunctionSymbol f, FunctionSymbol g) {
     int fi, gi;
     if (_valuation == null) return 0;
-    int k = _parameters.getPrecedenceFor(f).evaluate(_valuation) -
-            _parameters.getPrecedenceFor(g).evaluate(_valuation);
-    if (k != 0) return k;
-    return _parameters.getStatusFor(f).evaluate(_valuation) -
-           _parameters.getStatusFor(g).evaluate(_valuation);
+    long k = _parameters.getPrecedenceFor(f).evaluate(_valuation) -
+             _parameters.getPrecedenceFor(g).evaluate(_valuation);
+    if (k != 0) return Math.toIntExact(k);
+    return Math.toIntExact(_parameters.getStatusFor(f).evaluate(_valuation) -
+                           _parameters.getStatusFor(g).evaluate(_valuation));
   }
 
   /** Returns the status (Lex or Mul_i for some i ≥ 2) of the given symbol */
   public String status(FunctionSymbol f) {
     if (_valuation == null) return null;
-    int k = _parameters.getStatusFor(f).evaluate(_valuation);
+    long k = _parameters.getStatusFor(f).evaluate(_valuation);
     if (k <= 1) return "Lex";
     else return "Mul_" + k;
   }
@@ -180,6 +181,34 @@ class HorpoResult extends ReductionPairProofObject {
     o.endTable();
   }
 
+  /**
+   * This writes the precedence and status of all relevant symbols as "precedence", the integer
+   * ordering as "integerOrdering" and the disregarded arguments as "filter" (or, for a failed
+   * proof, the reason as "reason").
+   */
+  protected void exportDetails(JsonWriter out) {
+    if (_parameters == null) {
+      if (_failReason != null) out.name("reason").value(_failReason);
+      return;
+    }
+    out.name("precedence").beginArray();
+    for (HorpoParameters.SymbolData data : _parameters.getSymbolData(_valuation)) {
+      out.beginObject().name("symbol").value(data.symbol()).name("precedence").value(data.prec())
+         .name("status").value(data.stat() == 1 ? "Lex" : "Mul_" + data.stat()).endObject();
+    }
+    out.endArray();
+    boolean down = _parameters.getDirectionIsDownVariable().evaluate(_valuation);
+    out.name("integerOrdering").beginObject()
+       .name("direction").value(down ? "down" : "up")
+       .name("bound").value(_parameters.queryIntegerBound()).endObject();
+    out.name("filter").beginArray();
+    for (Pair<String,Integer> arg : _parameters.getDisregardedArguments(_valuation)) {
+      out.beginObject().name("symbol").value(arg.fst()).name("argument").value(arg.snd())
+         .endObject();
+    }
+    out.endArray();
+  }
+
   public void justify(OutputModule o) {
     if (_parameters == null) {
       if (_failReason != null) o.println(_failReason);
@@ -16,6 +16,8 @@
 package cora.termination.reduction_pairs;
 
 import java.util.Set;
+import charlie.terms.Renaming;
+import cora.io.JsonWriter;
 import cora.io.OutputModule;
 import cora.io.ProofObject;
 import cora.termination.reduction_pairs.OrderingRequirement.Relation;
@@ -103,6 +105,39 @@ public abstract class ReductionPairProofObject implements ProofObject {
     module.endTable();
   }
 
+  /**
+   * This writes the answer, and -- for a successful proof -- the ordering problem as a list
+   * "requirements", where each requirement is marked as strictly oriented or not.  The specifics
+   * of the reduction pair are added by exportDetails.
+   */
+  public void export(JsonWriter out) {
+    out.beginObject();
+    out.name("answer").value(queryAnswer().toString());
+    if (_strictlyOriented != null) {
+      out.name("requirements").beginArray();
+      for (int i = 0; i < _problem.reqs().size(); i++) {
+        OrderingRequirement req = _problem.reqs().get(i);
+        Renaming naming =
+          out.queryTermPrinter().generateUniqueNaming(req.left(), req.right(), req.constraint());
+        out.beginObject();
+        out.name("left").value(req.left(), naming);
+        out.name("right").value(req.right(), naming);
+        out.name("constraint").value(req.constraint(), naming);
+        out.name("strict").value(_strictlyOriented.contains(i));
+        out.endObject();
+      }
+      out.endArray();
+    }
+    exportDetails(out);
+    out.endObject();
+  }
+
+  /**
+   * This writes the specifics of the reduction pair (or the reason for failure) as fields of the
+   * JSON object that is currently being written by export.  By default, nothing is added.
+   */
+  protected void exportDetails(JsonWriter out) {}
+
   /**
    * This function is used to either explain the failure (if queryAnswer() == MAYBE), or justify
    * the success and which requirements were strictly oriented (if queryAnswer() == YES).
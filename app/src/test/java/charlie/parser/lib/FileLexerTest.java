@@ -0,0 +1,82 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+package charlie.parser.lib;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileLexerTest {
+  private TokenFinder createTokenFinder() {
+    return new TokenFinder(new String[] {
+                             "[a-zA-Z_][a-z0-9A-Z_]*", "IDENTIFIER",
+                             "0|[1-9][0-9]*", "INTEGER",
+                             "\\s+", "WHITESPACE" });
+  }
+
+  private Lexer createLexer(String contents) throws IOException {
+    Path file = Files.createTempFile("cora", ".trs");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, contents, StandardCharsets.UTF_8);
+    return new FileLexer(createTokenFinder(), file.toString());
+  }
+
+  @Test
+  public void testLexAsciiFile() throws IOException, LexerException {
+    Lexer lexer = createLexer("BING \n  12\r\n31 *_a10?\n\n0\n");
+    assertTrue(lexer.nextToken().toString().endsWith("1:1: BING (IDENTIFIER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("1:5:   (WHITESPACE)"));
+    assertTrue(lexer.nextToken().toString().endsWith("2:1:    (WHITESPACE)"));
+    assertTrue(lexer.nextToken().toString().endsWith("2:3: 12 (INTEGER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("3:1: 31 (INTEGER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("3:3:   (WHITESPACE)"));
+    assertTrue(lexer.nextToken().toString().endsWith("3:4: * (CATCHALL)"));
+    Token token = lexer.nextToken();
+    assertTrue(token.getText().equals("_a10"));
+    assertTrue(token.getPosition().endsWith("3:5"));
+    assertTrue(lexer.nextToken().toString().endsWith("3:9: ? (CATCHALL)"));
+    assertTrue(lexer.nextToken().toString().endsWith("5:1: 0 (INTEGER)"));
+    token = lexer.nextToken();
+    assertTrue(token.isEof());
+    assertTrue(token.toString().endsWith("5:2:  (EOF)"));
+    token = lexer.nextToken();
+    assertTrue(token.isEof());
+    assertTrue(token.toString().endsWith("6:1:  (EOF)"));
+  }
+
+  @Test
+  public void testLexNonAsciiFile() throws IOException, LexerException {
+    Lexer lexer = createLexer("f → g\nhé");
+    assertTrue(lexer.nextToken().toString().endsWith("1:1: f (IDENTIFIER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("1:2:   (WHITESPACE)"));
+    assertTrue(lexer.nextToken().toString().endsWith("1:3: → (CATCHALL)"));
+    assertTrue(lexer.nextToken().toString().endsWith("1:4:   (WHITESPACE)"));
+    assertTrue(lexer.nextToken().toString().endsWith("1:5: g (IDENTIFIER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("2:1: h (IDENTIFIER)"));
+    assertTrue(lexer.nextToken().toString().endsWith("2:2: é (CATCHALL)"));
+    assertTrue(lexer.nextToken().isEof());
+  }
+
+  @Test
+  public void testLexEmptyFile() throws IOException, LexerException {
+    Lexer lexer = createLexer("");
+    Token token = lexer.nextToken();
+    assertTrue(token.isEof());
+    assertTrue(token.getPosition().endsWith("1:1"));
+  }
+}
@@ -179,5 +179,56 @@ public class TokenFinderTest {
     assertTrue(a.getName().equals("A"));
     assertTrue(a.getText().equals("aaa"));
   }
-}
 
+  @Test
+  public void testNegativeLookahead() {
+    TokenFinder tf = new TokenFinder(new String[] {
+                                       "([^\\s\\-]|(-(?!>)))+", "IDENTIFIER",
+                                       "->", "ARROW" });
+    assertTrue(tf.isCompiled());
+    Token a = tf.matchStart("a-b->c", 0, null);
+    Token b = tf.matchStart("a-b->c", 3, null);
+    Token c = tf.matchStart("a-b-", 0, null);
+    assertTrue(a.getName().equals("IDENTIFIER"));
+    assertTrue(a.getText().equals("a-b"));
+    assertTrue(b.getName().equals("ARROW"));
+    assertTrue(c.getText().equals("a-b-"));
+  }
+
+  @Test
+  public void testEndOfLineBeforeTerminator() {
+    TokenFinder tf = new TokenFinder(new String[] {
+                                       ";.*$", "COMMENT",
+                                       "\"[^\"\\n\\r]*$", "PARTIAL" });
+    assertTrue(tf.isCompiled());
+    Token a = tf.matchStart("x ; comment\n", 2, null);
+    Token b = tf.matchStart("\"abc\r\n", 0, null);
+    Token c = tf.matchStart("\"abc\n\n", 0, null);
+    assertTrue(a.getName().equals("COMMENT"));
+    assertTrue(a.getText().equals("; comment"));
+    assertTrue(b.getName().equals("PARTIAL"));
+    assertTrue(b.getText().equals("\"abc"));
+    assertTrue(c.getName().equals("CATCHALL"));
+  }
+
+  @Test
+  public void testSurrogatePairInCatchAll() {
+    TokenFinder tf = new TokenFinder(new String[] { "[a-z]+", "WORD" });
+    Token a = tf.matchStart("😀x", 0, null);
+    assertTrue(a.getName().equals("CATCHALL"));
+    assertTrue(a.getText().equals("😀"));
+  }
+
+  @Test
+  public void testUnsupportedSyntaxFallsBack() {
+    TokenFinder tf = new TokenFinder(new String[] {
+                                       "a{2}", "TWOA",
+                                       "a", "A" });
+    assertFalse(tf.isCompiled());
+    Token a = tf.matchStart("aaa", 0, null);
+    Token b = tf.matchStart("aaa", 2, null);
+    assertTrue(a.getName().equals("TWOA"));
+    assertTrue(a.getText().equals("aa"));
+    assertTrue(b.getName().equals("A"));
+  }
+}
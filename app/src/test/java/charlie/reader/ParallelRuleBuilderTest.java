@@ -0,0 +1,74 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.reader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import charlie.exceptions.ParseException;
+import charlie.trs.TRS;
+import charlie.trs.TrsFactory;
+
+public class ParallelRuleBuilderTest {
+  /** Creates a program with n rules, every seventh of which is ill-typed if withErrors is set. */
+  private String createProgram(int n, boolean withErrors) {
+    StringBuilder ret = new StringBuilder("0 :: N s :: N -> N f :: N -> N -> N b :: B\n");
+    for (int i = 0; i < n; i++) {
+      ret.append("f(s(x), ");
+      for (int j = 0; j < i; j++) ret.append("s(");
+      ret.append(withErrors && i % 7 == 3 ? "b" : "y");
+      for (int j = 0; j < i; j++) ret.append(")");
+      ret.append(") -> f(x, y)\n");
+    }
+    return ret.toString();
+  }
+
+  /** Reads the given program with or without parallel rule building, and returns the result. */
+  private String read(String program, boolean parallel) throws IOException {
+    return ParallelRuleBuilder.withEnabled(parallel, () -> {
+      try { return CoraInputReader.readTrsFromString(program, TrsFactory.MSTRS).toString(); }
+      catch (ParseException e) { return e.getMessage(); }
+    });
+  }
+
+  @Test
+  public void testParallelReadingGivesSameTrs() throws IOException {
+    String program = createProgram(150, false);
+    String sequential = read(program, false);
+    String parallel = read(program, true);
+    assertTrue(sequential.equals(parallel));
+    assertTrue(sequential.contains("f(s(x), s(s(s(y)))) → f(x, y)"));
+  }
+
+  @Test
+  public void testParallelReadingKeepsErrorOrder() throws IOException {
+    String program = createProgram(150, true);
+    String sequential = read(program, false);
+    String parallel = read(program, true);
+    assertTrue(sequential.equals(parallel));
+    assertTrue(sequential.startsWith("5:"));
+    assertTrue(sequential.split("\n").length == 10);
+  }
+
+  @Test
+  public void testEnabledOnlyInScope() throws IOException {
+    assertFalse(ParallelRuleBuilder.queryEnabled());
+    assertTrue(ParallelRuleBuilder.withEnabled(true, ParallelRuleBuilder::queryEnabled));
+    assertFalse(ParallelRuleBuilder.queryEnabled());
+  }
+}
@@ -0,0 +1,61 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.reader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import charlie.trs.TRS;
+
+public class TrsCacheTest {
+  @Test
+  public void testUnchangedFileIsLoadedFromCache() throws IOException {
+    Path dir = Files.createTempDirectory("coracache");
+    Path input = dir.resolve("input.mstrs");
+    Files.writeString(input, "a :: N f :: N -> N f(a) -> a");
+    TrsCache cache = new TrsCache(dir.resolve("cache").toString());
+    int[] reads = new int[1];
+    TrsCache.TrsReader reader = filename -> {
+      reads[0]++;
+      return CoraInputReader.readTrsFromFile(filename);
+    };
+
+    TRS first = cache.readTrsFromFile(input.toString(), reader);
+    TRS second = cache.readTrsFromFile(input.toString(), reader);
+    assertTrue(reads[0] == 1);
+    assertTrue(first.toString().equals(second.toString()));
+    assertTrue(second.queryTrsKind().equals("MSTRS"));
+
+    Files.writeString(input, "a :: N f :: N -> N f(f(a)) -> a");
+    TRS third = cache.readTrsFromFile(input.toString(), reader);
+    assertTrue(reads[0] == 2);
+    assertTrue(third.queryRule(0).toString().equals("f(f(a)) → a"));
+
+    // a corrupted cache entry is simply replaced
+    File[] entries = dir.resolve("cache").toFile().listFiles();
+    assertTrue(entries.length == 2);
+    for (File entry : entries) Files.writeString(entry.toPath(), "garbage");
+    TRS fourth = cache.readTrsFromFile(input.toString(), reader);
+    assertTrue(reads[0] == 3);
+    assertTrue(fourth.toString().equals(third.toString()));
+    cache.readTrsFromFile(input.toString(), reader);
+    assertTrue(reads[0] == 3);
+  }
+}
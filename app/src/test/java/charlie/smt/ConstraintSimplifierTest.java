@@ -0,0 +1,156 @@
+/**************************************************************************************************
+ Copyright 2023--2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.smt;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import charlie.smt.SmtSolver.Answer;
+
+public class ConstraintSimplifierTest {
+  @Test
+  public void testConstantFolding() {
+    IVar x = new IVar(1);
+    // x >= x
+    Constraint c = SmtFactory.createGeq(x, x);
+    assertTrue(ConstraintSimplifier.simplify(c) instanceof Truth);
+    // 3 > 4 or b1
+    c = SmtFactory.createDisjunction(SmtFactory.createGreater(new IValue(3), new IValue(4)),
+                                     new BVar(1));
+    assertTrue(ConstraintSimplifier.simplify(c).equals(new BVar(1)));
+    // not (true and 1 = 1)
+    c = SmtFactory.createNegation(SmtFactory.createConjunction(new Truth(),
+      SmtFactory.createEqual(new IValue(1), new IValue(1))));
+    assertTrue(ConstraintSimplifier.simplify(c) instanceof Falsehood);
+    // (b1 == true) and (false == b2)
+    c = SmtFactory.createConjunction(SmtFactory.createIff(new BVar(1), new Truth()),
+      SmtFactory.createIff(new Falsehood(), new BVar(2)));
+    assertTrue(ConstraintSimplifier.simplify(c).toString().equals("b1 and !b2"));
+  }
+
+  @Test
+  public void testSubsumption() {
+    IVar x = new IVar(1);
+    IVar y = new IVar(2);
+    ArrayList<Constraint> args = new ArrayList<Constraint>();
+    args.add(new BVar(1));
+    args.add(SmtFactory.createGeq(x, new IValue(3)));
+    args.add(new BVar(1));
+    args.add(SmtFactory.createGeq(x, new IValue(5)));
+    args.add(SmtFactory.createDisjunction(new BVar(2), new BVar(1)));
+    args.add(SmtFactory.createDisjunction(new BVar(2), SmtFactory.createGreater(x, y)));
+    Constraint c = ConstraintSimplifier.simplify(new Conjunction(args));
+    assertTrue(c.toString().equals("b1 and (i1 >= 5) and (b2 or (i1 >= 1 + i2))"));
+    // complementary literals
+    c = new Disjunction(new BVar(3), new Disjunction(new NBVar(new BVar(2)), new BVar(2)));
+    assertTrue(ConstraintSimplifier.simplify(c) instanceof Truth);
+    // x > 3 and x < 2
+    c = new Conjunction(SmtFactory.createGreater(x, new IValue(3)),
+                        SmtFactory.createSmaller(x, new IValue(2)));
+    assertTrue(ConstraintSimplifier.simplify(c) instanceof Falsehood);
+    // x > 3 or x < 5
+    c = new Disjunction(SmtFactory.createGreater(x, new IValue(3)),
+                        SmtFactory.createSmaller(x, new IValue(5)));
+    assertTrue(ConstraintSimplifier.simplify(c) instanceof Truth);
+  }
+
+  @Test
+  public void testUnitPropagation() {
+    SmtProblem problem = new SmtProblem();
+    BVar a = problem.createBooleanVariable();
+    BVar b = problem.createBooleanVariable();
+    BVar c = problem.createBooleanVariable();
+    // a ∧ (¬a ∨ b) ∧ (¬b ∨ ¬c)
+    problem.require(a);
+    problem.requireImplication(a, b);
+    problem.requireImplication(b, c.negate());
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryResidual() instanceof Truth);
+    Answer answer = simplifier.queryLocalAnswer();
+    assertTrue(answer instanceof Answer.YES);
+    Valuation val = ((Answer.YES)answer).val();
+    assertTrue(val.queryAssignment(a));
+    assertTrue(val.queryAssignment(b));
+    assertFalse(val.queryAssignment(c));
+    // adding c makes it unsatisfiable
+    problem.require(c);
+    simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryLocalAnswer() instanceof Answer.NO);
+  }
+
+  @Test
+  public void testBoundPropagation() {
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable();
+    IVar y = problem.createIntegerVariable();
+    BVar b = problem.createBooleanVariable();
+    // x ≥ 3 ∧ y = 2 ∧ (x + y > 4 ∨ b) ∧ (2 * x ≥ 7 ∨ y > 10)
+    problem.require(SmtFactory.createGeq(x, new IValue(3)));
+    problem.require(SmtFactory.createEqual(y, new IValue(2)));
+    problem.require(SmtFactory.createDisjunction(
+      SmtFactory.createGreater(SmtFactory.createAddition(x, y), new IValue(4)), b));
+    problem.require(SmtFactory.createDisjunction(
+      SmtFactory.createGeq(SmtFactory.createMultiplication(2, x), new IValue(7)),
+      SmtFactory.createGreater(y, new IValue(10))));
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    // the last disjunction becomes 2 * x ≥ 7, which gives x ≥ 4
+    assertTrue(simplifier.queryResidual() instanceof Truth);
+    Answer answer = simplifier.queryLocalAnswer();
+    assertTrue(answer instanceof Answer.YES);
+    assertTrue(problem.queryCombinedConstraint().evaluate(((Answer.YES)answer).val()));
+    // x ≤ 3 conflicts with that
+    problem.require(SmtFactory.createLeq(x, new IValue(3)));
+    simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryLocalAnswer() instanceof Answer.NO);
+  }
+
+  @Test
+  public void testResidualKeepsBounds() {
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable();
+    IVar y = problem.createIntegerVariable();
+    // x ≥ 3 ∧ x * y = 12 cannot be decided locally
+    problem.require(SmtFactory.createGeq(x, new IValue(3)));
+    problem.require(SmtFactory.createEqual(SmtFactory.createMultiplication(x, y),
+                                           new IValue(12)));
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryLocalAnswer() == null);
+    assertTrue(simplifier.queryResidual().toString().equals("(i1 * i2 = 12) and (i1 >= 3)"));
+  }
+
+  @Test
+  public void testFixedIntegerIsSubstituted() {
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable();
+    IVar y = problem.createIntegerVariable();
+    IVar z = problem.createIntegerVariable();
+    // 2 * x = 6 ∧ y * z > x
+    problem.require(SmtFactory.createEqual(SmtFactory.createMultiplication(2, x), new IValue(6)));
+    problem.require(SmtFactory.createGreater(SmtFactory.createMultiplication(y, z), x));
+    ConstraintSimplifier simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryResidual().toString().equals("i2 * i3 >= 4"));
+    Valuation val = new Valuation();
+    val.setInt(2, 2);
+    val.setInt(3, 2);
+    simplifier.completeValuation(val);
+    assertTrue(val.queryAssignment(x) == 3);
+    assertTrue(problem.queryCombinedConstraint().evaluate(val));
+    // 2 * x = 7 has no solutions
+    problem.require(SmtFactory.createEqual(SmtFactory.createMultiplication(2, x), new IValue(7)));
+    simplifier = new ConstraintSimplifier(problem.queryCombinedConstraint());
+    assertTrue(simplifier.queryResidual() instanceof Falsehood);
+  }
+}
@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,8 +44,8 @@ public class DivModTest {
     // tests whether divide and modulo follow the definitions by Boute
     for (int num = -5; num <= 5; num++) {
       for (int denom = -3; denom <= 3; denom++) {
-        int d = (new Division(new IValue(num), new IValue(denom))).evaluate();
-        int m = (new Modulo(new IValue(num), new IValue(denom))).evaluate();
+        long d = (new Division(new IValue(num), new IValue(denom))).evaluate();
+        long m = (new Modulo(new IValue(num), new IValue(denom))).evaluate();
         String situation = "" + num + " / " + denom + " = " + d + " and " +
                                 num + " % " + denom + " = " + m;
         if (denom == 0) {
@@ -235,4 +236,24 @@ public class DivModTest {
     assertTrue(f.isSimplified());
     assertTrue(f.equals(e));
   }
+
+  @Test
+  public void testLargeEvaluate() {
+    // the long computation and the BigInteger fallback should agree, also near the bounds
+    long[] nums = { Long.MIN_VALUE + 1, -7, -1, 0, 5, Long.MAX_VALUE };
+    long[] denoms = { Long.MIN_VALUE + 1, -3, -1, 2, Long.MAX_VALUE };
+    for (long num : nums) {
+      for (long denom : denoms) {
+        IntegerExpression d = new Division(new IValue(num), new IValue(denom));
+        IntegerExpression m = new Modulo(new IValue(num), new IValue(denom));
+        assertTrue(BigInteger.valueOf(d.evaluate()).equals(d.evaluateBig()));
+        assertTrue(BigInteger.valueOf(m.evaluate()).equals(m.evaluateBig()));
+      }
+    }
+    IntegerExpression big = new IValue(Long.MAX_VALUE).add(1);
+    IntegerExpression d = new Division(big, new IValue(-2));
+    assertTrue(d.simplify().equals(new IValue(Long.MIN_VALUE / 2)));
+    assertThrows(ArithmeticException.class, () -> new Division(new IValue(Long.MIN_VALUE),
+      new IValue(-1)).evaluate());
+  }
 }
@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,4 +43,17 @@ public class IValueTest {
     assertFalse(x.equals(new IValue(4)));
     assertTrue(x.compareTo(new CMult(1, new IValue(1))) < 0);
   }
+
+  @Test
+  public void testBigValue() {
+    IValue x = new IValue(Long.MAX_VALUE);
+    IntegerExpression y = x.add(1);
+    assertTrue(y.toString().equals("9223372036854775808"));
+    assertTrue(y.multiply(-1).toSmtString().equals("(- 9223372036854775808)"));
+    assertThrows(ArithmeticException.class, () -> y.evaluate());
+    assertTrue(y.evaluateBig().equals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)));
+    assertTrue(y.compareTo(x) > 0);
+    assertTrue(y.add(-1).equals(x));
+    assertThrows(ArithmeticException.class, () -> x.queryValue());
+  }
 }
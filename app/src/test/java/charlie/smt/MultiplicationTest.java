@@ -15,6 +15,7 @@
 
 package charlie.smt;
 
+import java.math.BigInteger;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
@@ -160,5 +161,25 @@ public class MultiplicationTest {
     assertTrue(m.simplify().equals(new Addition(List.of(x, y, new Multiplication(x,x),
       new CMult(-1, new Multiplication(y, y))))));
   }
-}
 
+  @Test
+  public void testOverflowingEvaluate() {
+    IntegerExpression prod =
+      new Multiplication(new IValue(Long.MAX_VALUE), new Multiplication(new IVar(1), new IVar(2)));
+    Valuation val = new Valuation();
+    val.setInt(1, 2);
+    val.setInt(2, -3);
+    assertThrows(ArithmeticException.class, () -> prod.evaluate(val));
+    assertTrue(prod.evaluateBig(val).equals(BigInteger.valueOf(Long.MAX_VALUE).multiply(
+      BigInteger.valueOf(-6))));
+  }
+
+  @Test
+  public void testDistributionKeepsConstant() {
+    IntegerExpression x = new IVar(1);
+    IntegerExpression y = new IVar(2);
+    IntegerExpression z = new IVar(3);
+    IntegerExpression m = new Multiplication(List.of(new IValue(2), x, new Addition(y, z)));
+    assertTrue(m.simplify().toString().equals("2 * i1 * i2 + 2 * i1 * i3"));
+  }
+}
@@ -83,5 +83,78 @@ public class SmtProblemTest {
     assertTrue(d.queryName().equals("[x]"));
     assertTrue(e.queryName().equals("[y]"));
   }
-}
 
+  @Test
+  public void testSplitIntoComponents() {
+    // x > 1 ∨ b1
+    // y = 3
+    // 1 > 0
+    // b1 ∨ z > y
+    // b2
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable("x");
+    IVar y = problem.createIntegerVariable("y");
+    IVar z = problem.createIntegerVariable("z");
+    BVar b1 = problem.createBooleanVariable("b1");
+    BVar b2 = problem.createBooleanVariable("b2");
+    problem.require(SmtFactory.createDisjunction(
+      SmtFactory.createGreater(x, SmtFactory.createValue(1)), b1));
+    problem.require(SmtFactory.createEqual(y, SmtFactory.createValue(3)));
+    problem.require(SmtFactory.createGreater(SmtFactory.createValue(1), SmtFactory.createValue(0)));
+    problem.require(SmtFactory.createDisjunction(b1, SmtFactory.createGreater(z, y)));
+    problem.require(b2);
+    java.util.List<SmtProblem> components = problem.splitIntoComponents();
+    assertTrue(components.size() == 3);
+    assertTrue(components.get(0).toString().equals(
+      "([x] >= 2) or [b1]\n" +
+      "[y] = 3\n" +
+      "[b1] or ([z] >= 1 + [y])\n"));
+    assertTrue(components.get(1).numberConstraints() == 1);
+    assertTrue(components.get(1).queryCombinedConstraint().evaluate());
+    assertTrue(components.get(2).toString().equals("[b2]\n"));
+    assertTrue(components.get(0).numberIntegerVariables() == 3);
+    assertTrue(components.get(2).numberBooleanVariables() == 2);
+    assertTrue(components.get(0).queryOccurringIntegerVariables().size() == 3);
+    assertTrue(components.get(0).queryOccurringBooleanVariables().toString().equals("[1]"));
+    assertTrue(components.get(2).queryOccurringBooleanVariables().toString().equals("[2]"));
+  }
+
+  @Test
+  public void testNoSplitReturnsSelf() {
+    SmtProblem problem = exampleProblem();
+    java.util.List<SmtProblem> components = problem.splitIntoComponents();
+    assertTrue(components.size() == 1);
+    assertSame(components.get(0), problem);
+  }
+
+  @Test
+  public void testFragments() {
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable();
+    IVar y = problem.createIntegerVariable();
+    BVar b = problem.createBooleanVariable();
+    assertTrue(problem.queryFragment() == SmtProblem.Fragment.PROPOSITIONAL);
+    problem.require(SmtFactory.createDisjunction(b, new Truth()));
+    assertTrue(problem.queryFragment() == SmtProblem.Fragment.PROPOSITIONAL);
+    // 3 * x + y > 2
+    problem.require(SmtFactory.createGreater(SmtFactory.createAddition(
+      SmtFactory.createMultiplication(3, x), y), SmtFactory.createValue(2)));
+    assertTrue(problem.queryFragment() == SmtProblem.Fragment.LINEAR);
+    // x div 2 = y
+    Constraint div = SmtFactory.createEqual(SmtFactory.createDivision(x,
+      SmtFactory.createValue(2)), y);
+    assertTrue(SmtProblem.queryFragment(div) == SmtProblem.Fragment.LINEAR_DIVMOD);
+    problem.require(div);
+    assertTrue(problem.queryFragment() == SmtProblem.Fragment.LINEAR_DIVMOD);
+    // ¬(x mod y = 0)
+    Constraint mod = SmtFactory.createNegation(SmtFactory.createEqual(
+      SmtFactory.createModulo(x, y), SmtFactory.createValue(0)));
+    assertTrue(SmtProblem.queryFragment(mod) == SmtProblem.Fragment.NONLINEAR);
+    // b ⇔ x * y ≥ 0
+    Constraint mul = SmtFactory.createIff(b, SmtFactory.createGeq(
+      SmtFactory.createMultiplication(x, y), SmtFactory.createValue(0)));
+    assertTrue(SmtProblem.queryFragment(mul) == SmtProblem.Fragment.NONLINEAR);
+    problem.require(mul);
+    assertTrue(problem.queryFragment() == SmtProblem.Fragment.NONLINEAR);
+  }
+}
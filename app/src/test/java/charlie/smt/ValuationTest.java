@@ -0,0 +1,100 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.smt;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigInteger;
+import java.util.List;
+
+public class ValuationTest {
+  @Test
+  public void testDefaults() {
+    Valuation val = new Valuation(3, 2);
+    assertFalse(val.queryBoolAssignment(2));
+    assertFalse(val.queryBoolAssignment(17));
+    assertTrue(val.queryIntAssignment(1) == 4242);
+    assertTrue(val.queryIntAssignment(100) == 4242);
+  }
+
+  @Test
+  public void testSetBeyondReservedSpace() {
+    Valuation val = new Valuation(1, 1);
+    val.setBool(1, true);
+    val.setBool(40, true);
+    val.setInt(1, -3);
+    val.setInt(12, 7);
+    val.setInt(1000, 0);
+    assertTrue(val.queryAssignment(new BVar(1)));
+    assertTrue(val.queryAssignment(new BVar(40)));
+    assertFalse(val.queryAssignment(new BVar(39)));
+    assertTrue(val.queryAssignment(new IVar(1)) == -3);
+    assertTrue(val.queryAssignment(new IVar(12)) == 7);
+    assertTrue(val.queryAssignment(new IVar(1000)) == 0);
+    assertTrue(val.queryAssignment(new IVar(999)) == 4242);
+    val.setBool(40, false);
+    assertFalse(val.queryAssignment(new BVar(40)));
+  }
+
+  @Test
+  public void testCopyFrom() {
+    Valuation a = new Valuation();
+    a.setBool(1, true);
+    a.setBool(2, true);
+    a.setInt(1, 5);
+    a.setInt(2, 6);
+    Valuation b = new Valuation();
+    b.setBool(3, true);
+    b.copyFrom(a, List.of(2), List.of(1));
+    assertTrue(b.toString().equals(
+      "True boolean variables:\n  b2\n  b3\nInteger variables:\n  i1 : 5\n"));
+  }
+
+  @Test
+  public void testLargeValues() {
+    Valuation val = new Valuation();
+    BigInteger big = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN);
+    val.setInt(1, big);
+    val.setInt(2, 1L << 40);
+    val.setInt(3, BigInteger.valueOf(-12));
+    assertTrue(val.queryBigAssignment(1).equals(big));
+    assertThrows(ArithmeticException.class, () -> val.queryLongAssignment(1));
+    assertThrows(ArithmeticException.class, () -> val.queryIntAssignment(2));
+    assertTrue(val.queryLongAssignment(2) == 1L << 40);
+    assertTrue(val.queryIntAssignment(3) == -12);
+    val.setInt(1, 4);
+    assertTrue(val.queryIntAssignment(1) == 4);
+    assertTrue(val.toString().equals("True boolean variables:\nInteger variables:\n" +
+      "  i1 : 4\n  i2 : 1099511627776\n  i3 : -12\n"));
+  }
+
+  @Test
+  public void testOutOfRangeThroughIntAccessor() {
+    Valuation val = new Valuation();
+    BigInteger big = BigInteger.valueOf(Long.MIN_VALUE).multiply(BigInteger.TWO);
+    val.setInt(1, 1L << 33);
+    val.setInt(2, big);
+    val.setInt(3, 17);
+    assertThrows(ArithmeticException.class, () -> val.queryAssignment(new IVar(1)));
+    assertThrows(ArithmeticException.class, () -> val.queryAssignment(new IVar(2)));
+    assertFalse(val.isAssignmentBetween(new IVar(1), Integer.MIN_VALUE, Integer.MAX_VALUE));
+    assertTrue(val.isAssignmentBetween(new IVar(1), 0, Long.MAX_VALUE));
+    assertFalse(val.isAssignmentBetween(new IVar(2), Long.MIN_VALUE, Long.MAX_VALUE));
+    assertTrue(val.isAssignmentBetween(new IVar(3), 17, 17));
+    assertFalse(val.isAssignmentBetween(new IVar(3), 0, 16));
+    assertTrue(val.queryAssignment(new IVar(3)) == 17);
+  }
+}
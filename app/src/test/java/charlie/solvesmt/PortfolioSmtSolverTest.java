@@ -0,0 +1,162 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import charlie.smt.*;
+import charlie.smt.SmtSolver.Answer;
+import charlie.util.Statistics;
+
+public class PortfolioSmtSolverTest {
+  /** A solver that gives a fixed answer after the given delay, and notes if it is interrupted. */
+  private class FakeSolver implements SmtSolver {
+    private final Answer _answer;
+    private final long _delay;
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    FakeSolver(Answer answer, long delay) { _answer = answer; _delay = delay; }
+
+    private boolean sleep() {
+      calls.incrementAndGet();
+      Statistics.count("fake calls");
+      try { Thread.sleep(_delay); return true; }
+      catch (InterruptedException e) { interrupted.countDown(); return false; }
+    }
+
+    public Answer checkSatisfiability(SmtProblem problem) {
+      return sleep() ? _answer : new Answer.MAYBE("interrupted");
+    }
+
+    public boolean checkValidity(SmtProblem problem) {
+      return sleep() && _answer instanceof Answer.NO;
+    }
+
+    public String toString() { return "fake " + _delay; }
+  }
+
+  @Test
+  public void testFirstDefinitiveAnswerWins() throws InterruptedException {
+    FakeSolver slow = new FakeSolver(new Answer.YES(new Valuation()), 10000);
+    FakeSolver unknown = new FakeSolver(new Answer.MAYBE("no idea"), 0);
+    FakeSolver fast = new FakeSolver(new Answer.NO(), 50);
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(slow, unknown, fast), false);
+    assertTrue(portfolio.checkSatisfiability(new SmtProblem()) instanceof Answer.NO);
+    // the slow solver should have been cancelled
+    assertTrue(slow.interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testNoDefinitiveAnswer() {
+    FakeSolver a = new FakeSolver(new Answer.MAYBE("a"), 10);
+    FakeSolver b = new FakeSolver(new Answer.MAYBE("b"), 20);
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(a, b), false);
+    assertTrue(portfolio.checkSatisfiability(new SmtProblem()) instanceof Answer.MAYBE);
+    assertFalse(portfolio.checkValidity(new SmtProblem()));
+  }
+
+  /** A solver whose queries always end in an exception. */
+  private class FailingSolver implements SmtSolver {
+    public Answer checkSatisfiability(SmtProblem problem) {
+      throw new IllegalStateException("solver crashed");
+    }
+
+    public boolean checkValidity(SmtProblem problem) {
+      throw new IllegalStateException("solver crashed");
+    }
+  }
+
+  @Test
+  public void testAllSolversTimeOutOrFail() throws Exception {
+    Path dir = Files.createTempDirectory("cora-portfolio-test");
+    Path script = dir.resolve("hang.sh");
+    try {
+      Files.writeString(script, "#!/bin/sh\nsleep 30\n");
+      script.toFile().setExecutable(true);
+      ExternalSmtSolver hanging = new ExternalSmtSolver(script.toString(), dir);
+      hanging.setTimeout(1);
+      PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(hanging, new FailingSolver(),
+        new FakeSolver(new Answer.MAYBE("no idea"), 0)), false);
+      SmtProblem problem = new SmtProblem();
+      IVar x = problem.createIntegerVariable();
+      IVar y = problem.createIntegerVariable();
+      problem.require(SmtFactory.createGreater(x, SmtFactory.createAddition(y,
+        SmtFactory.createValue(3))));
+      Statistics.startRecording();
+      Answer answer = portfolio.checkSatisfiability(problem);
+      Statistics stats = Statistics.stopRecording();
+      assertTrue(answer instanceof Answer.MAYBE);
+      assertEquals(1, stats.queryCounter("smt timeout"));
+      assertFalse(portfolio.checkValidity(problem));
+    }
+    finally {
+      Files.deleteIfExists(script);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testValidity() {
+    FakeSolver invalid = new FakeSolver(new Answer.YES(new Valuation()), 0);
+    FakeSolver valid = new FakeSolver(new Answer.NO(), 30);
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(invalid, valid), false);
+    assertTrue(portfolio.checkValidity(new SmtProblem()));
+  }
+
+  @Test
+  public void testPreference() {
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(
+      new FakeSolver(new Answer.NO(), 0), new FakeSolver(new Answer.NO(), 0)), true);
+    assertEquals(-1, portfolio.queryPreferredSolver("site"));
+    for (int i = 0; i < PortfolioSmtSolver.MINIMUM_HISTORY; i++) portfolio.recordWinner("site", 1);
+    assertEquals(1, portfolio.queryPreferredSolver("site"));
+    assertEquals(-1, portfolio.queryPreferredSolver("elsewhere"));
+    for (int i = 0; i < PortfolioSmtSolver.HISTORY; i++) portfolio.recordWinner("site", i % 2);
+    assertEquals(-1, portfolio.queryPreferredSolver("site"));
+  }
+
+  @Test
+  public void testPreferredSolverGetsHeadStart() {
+    FakeSolver first = new FakeSolver(new Answer.NO(), 0);
+    FakeSolver second = new FakeSolver(new Answer.NO(), 0);
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(first, second), true);
+    // this test is itself in an SMT package, so the call site lies further up the stack
+    String site = PortfolioSmtSolver.queryCallSite();
+    for (int i = 0; i < PortfolioSmtSolver.MINIMUM_HISTORY; i++) portfolio.recordWinner(site, 1);
+    assertTrue(portfolio.checkSatisfiability(new SmtProblem()) instanceof Answer.NO);
+    assertEquals(0, first.calls.get());
+    assertEquals(1, second.calls.get());
+  }
+
+  @Test
+  public void testStatisticsOfSolversAreRecorded() {
+    FakeSolver a = new FakeSolver(new Answer.MAYBE("a"), 0);
+    FakeSolver b = new FakeSolver(new Answer.MAYBE("b"), 10);
+    PortfolioSmtSolver portfolio = new PortfolioSmtSolver(List.of(a, b), false);
+    Statistics stats = Statistics.startRecording();
+    try { portfolio.checkSatisfiability(new SmtProblem()); }
+    finally { Statistics.stopRecording(); }
+    assertEquals(2, stats.queryCounter("fake calls"));
+    assertEquals(1, stats.queryCount("smt portfolio"));
+  }
+}
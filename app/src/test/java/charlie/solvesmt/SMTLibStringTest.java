@@ -21,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import charlie.smt.*;
 import charlie.util.ProcessCaller;
@@ -51,4 +52,32 @@ class SMTLibStringTest {
       "(get-model)\n" +
       "(exit)\n"));
   }
+
+  @Test
+  void chooseLogicPerConstraint() {
+    SmtProblem problem = new SmtProblem();
+    IVar x = problem.createIntegerVariable();
+    BVar b = problem.createBooleanVariable();
+    Constraint linear = SmtFactory.createGeq(x, SmtFactory.createValue(1));
+    Constraint nonlinear = SmtFactory.createGeq(SmtFactory.createMultiplication(x, x),
+                                                SmtFactory.createValue(1));
+    Map<SmtProblem.Fragment,String> tactics = Map.of(SmtProblem.Fragment.LINEAR, "qflia");
+    assertTrue(SMTLibString.forConstraint(b, false, tactics).getLogic() ==
+               SMTLibString.Logic.QFUF);
+    assertTrue(SMTLibString.forConstraint(b, true, tactics).getLogic() ==
+               SMTLibString.Logic.QFLIA);
+    SMTLibString sls = SMTLibString.forConstraint(linear, true, tactics);
+    assertTrue(sls.getLogic() == SMTLibString.Logic.QFLIA);
+    assertTrue(sls.buildSmtlibString(0, 1, linear).equals(
+      "(set-info :smt-lib-version 2.6)\n" +
+      "(set-logic QF_LIA)\n" +
+      "(declare-fun i1() Int)\n" +
+      "(assert (>= (+ i1 (- 1)) 0))\n" +
+      "(check-sat-using qflia)\n" +
+      "(get-model)\n" +
+      "(exit)\n"));
+    sls = SMTLibString.forConstraint(nonlinear, true, tactics);
+    assertTrue(sls.getLogic() == SMTLibString.Logic.QFNIA);
+    assertTrue(sls.getTactic() == null);
+  }
 }
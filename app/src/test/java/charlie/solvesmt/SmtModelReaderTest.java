@@ -0,0 +1,107 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigInteger;
+
+import charlie.smt.SmtSolver.Answer;
+import charlie.smt.Valuation;
+
+public class SmtModelReaderTest {
+  private Valuation readModel(String response) {
+    return switch (SmtModelReader.readAnswer(response, 3, 3)) {
+      case Answer.YES(Valuation val) -> val;
+      default -> null;
+    };
+  }
+
+  @Test
+  public void testReadUnsatOrUnknown() {
+    assertTrue(SmtModelReader.readAnswer("unsat", 0, 0) instanceof Answer.NO);
+    assertTrue(SmtModelReader.readAnswer("  UNSAT\n(error \"no model\")", 0, 0)
+      instanceof Answer.NO);
+    switch (SmtModelReader.readAnswer("unknown", 0, 0)) {
+      case Answer.MAYBE(String msg): assertTrue(msg.equals("SMT solver returned: unknown")); break;
+      default: assertTrue(false);
+    }
+    assertTrue(SmtModelReader.readAnswer("", 0, 0) instanceof Answer.MAYBE);
+    assertTrue(SmtModelReader.readAnswer("(sat)", 0, 0) instanceof Answer.MAYBE);
+  }
+
+  @Test
+  public void testReadDefineFunModel() {
+    Valuation val = readModel("sat\n(\n" +
+      "  (define-fun b1 () Bool true)\n" +
+      "  (define-fun i2 () Int (- 12)) ; a comment (with brackets\n" +
+      "  (define-fun i1 () Int 7)\n" +
+      "  (define-fun b2 () Bool false)\n" +
+      "  (define-fun f ((x Int)) Int 3)\n" +
+      "  (define-fun i3 () Int 123456789012345678901234567890)\n" +
+      ")\n");
+    assertTrue(val.queryBoolAssignment(1));
+    assertFalse(val.queryBoolAssignment(2));
+    assertTrue(val.queryIntAssignment(1) == 7);
+    assertTrue(val.queryIntAssignment(2) == -12);
+    assertTrue(val.queryBigAssignment(3).equals(new BigInteger("123456789012345678901234567890")));
+  }
+
+  @Test
+  public void testReadModelWithEqualities() {
+    Valuation val = readModel("sat (model (= i1 (- 3)) (= 8 i2) (= b3 true) (= x 5))");
+    assertTrue(val.queryIntAssignment(1) == -3);
+    assertTrue(val.queryIntAssignment(2) == 8);
+    assertTrue(val.queryBoolAssignment(3));
+  }
+
+  @Test
+  public void testIgnoreUnsupportedValues() {
+    Valuation val = readModel("sat ((define-fun i1 () Int (+ 1 2)) (define-fun i2 () Int 007)" +
+      "(define-fun b1 () Bool 1) (define-fun i3 () Int true))");
+    assertTrue(val.toString().equals("True boolean variables:\nInteger variables:\n"));
+  }
+
+  @Test
+  public void testReadLongModel() {
+    StringBuilder response = new StringBuilder("sat\n(\n");
+    for (int i = 1; i <= 5000; i++) {
+      response.append("  (define-fun i" + i + " () Int " + (i % 2 == 0 ? i : "(- " + i + ")") +
+                      ")\n");
+    }
+    response.append(")\n");
+    switch (SmtModelReader.readAnswer(response.toString(), 0, 5000)) {
+      case Answer.YES(Valuation val):
+        for (int i = 1; i <= 5000; i++) {
+          assertTrue(val.queryIntAssignment(i) == (i % 2 == 0 ? i : -i));
+        }
+        break;
+      default: assertTrue(false);
+    }
+  }
+
+  @Test
+  public void testMalformedModel() {
+    switch (SmtModelReader.readAnswer("sat ((define-fun i1 () Int 3)", 0, 1)) {
+      case Answer.MAYBE(String msg):
+        assertTrue(msg.equals("Could not read SMT solver response: missing closing bracket"));
+        break;
+      default: assertTrue(false);
+    }
+    assertTrue(SmtModelReader.readAnswer("sat (define-fun i1 () Int 3))", 0, 1)
+      instanceof Answer.MAYBE);
+  }
+}
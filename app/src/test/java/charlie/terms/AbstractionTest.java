@@ -444,9 +444,10 @@ class AbstractionTest extends TermTestFoundation {
       new Application(f, u, new Abstraction(z, z)), x))));
     assertEquals("λx1.f(x1, λz.z, x)", term.toString());
 
-    // check that all binders are fresh
+    // check that the changed binder is fresh, while the unaffected subterm λz.z is shared
     assertEquals(1, term.queryVariable().compareTo(u));
-    assertEquals(1, term.queryAbstractionSubterm().queryArgument(2).queryVariable().compareTo(u));
+    assertSame(abs.queryAbstractionSubterm().queryArgument(2),
+               term.queryAbstractionSubterm().queryArgument(2));
   }
 
   @Test
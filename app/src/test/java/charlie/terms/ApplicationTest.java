@@ -806,6 +806,37 @@ public class ApplicationTest extends TermTestFoundation {
     assertTrue(s.toString().equals("(λx.λy1.h(y1, z))(a, f(λy1.g(y1, g(a, y))), f(λy1.g(y1, y1)))"));
   }
 
+  @Test
+  public void testSubstitutionSharesUnchangedSubterms() {
+    Type o = baseType("o");
+    Variable x = new Var("x", o);
+    Variable y = new Var("y", o);
+    Variable z = new Binder("z", o);
+    FunctionSymbol f = new Constant("f", arrowType(o, arrowType(o, arrowType(arrowType(o, o), o))));
+    FunctionSymbol g = new Constant("g", arrowType(o, o));
+    Term ga = new Application(g, constantTerm("a", o));
+    Term gy = new Application(g, y);
+    Term abs = new Abstraction(z, new Application(g, z));
+    Term term = new Application(f, List.of(ga, new Application(g, x), abs));
+
+    Substitution gamma = new Subst();
+    gamma.extend(y, x);
+    assertSame(term, term.substitute(gamma));
+
+    gamma.extend(x, gy);
+    Term result = term.substitute(gamma);
+    assertEquals("f(g(a), g(g(y)), λz.g(z))", result.toString());
+    assertSame(ga, result.queryArgument(1));
+    assertSame(gy, result.queryArgument(2).queryArgument(1));
+    assertSame(abs, result.queryArgument(3));
+
+    // refreshing binders does not share the abstraction
+    Term refreshed = term.refreshBinders();
+    assertTrue(refreshed.equals(term));
+    assertNotSame(abs, refreshed.queryArgument(3));
+    assertSame(ga, ga.refreshBinders());
+  }
+
   @Test
   public void testRefreshBinders() {
     // (λxy.f(x,y))(g(λz.z), g(λz.z))
@@ -911,6 +942,31 @@ public class ApplicationTest extends TermTestFoundation {
     assertTrue(subst2.get(y).equals(y));
   }
 
+  @Test
+  public void testMatchesWithoutExplanation() {
+    Type ii = baseType("Int");
+    Variable x = new Var("x", ii);
+    FunctionSymbol f = new Constant("f", arrowType(ii, arrowType(ii, ii)));
+    FunctionSymbol g = new Constant("g", arrowType(ii, ii));
+    Term a = constantTerm("a", ii);
+    Term b = constantTerm("b", ii);
+    Term pattern = new Application(f, x, x);
+
+    Substitution gamma = new Subst();
+    assertTrue(pattern.matches(new Application(f, a, a), gamma));
+    assertTrue(gamma.get(x).equals(a));
+    assertFalse(pattern.matches(new Application(f, a, b), new Subst()));
+    assertFalse(pattern.matches(new Application(g, a), new Subst()));
+    assertFalse(pattern.matches(a, new Subst()));
+    assertThrows(NullPointerException.class, () -> pattern.matches(null, new Subst()));
+
+    // the explanation is still available when asked for
+    assertTrue(pattern.match(new Application(f, a, b), new Subst()).equals(
+      "Variable x mapped both to b and to a."));
+    assertTrue(pattern.match(a, new Subst()).equals(
+      "a does not instantiate f(x, x) (not an application)."));
+  }
+
   @Test
   public void testBasicVarTermMatching() {
     Variable x = new Binder("x", baseType("Int"));
@@ -142,5 +142,38 @@ public class ReplaceableListTest {
     assertTrue(overlap.contains(y));
     assertTrue(overlap.contains(u));
   }
-}
 
+  @Test
+  public void testCombineSharesSupersets() {
+    Replaceable x = new Var("x", TypeFactory.createSort("a"));
+    Replaceable y = makeMetaVar("y");
+    Replaceable z = new Binder("z", TypeFactory.createSort("a"));
+    ReplaceableList xy = new ReplaceableList(x).add(y);
+    ReplaceableList xyz = xy.add(z);
+    assertSame(xyz, xy.combine(xyz));
+    assertSame(xyz, xyz.combine(xy));
+    assertSame(xy, xy.combine(ReplaceableList.EMPTY));
+    assertSame(xy, ReplaceableList.EMPTY.combine(xy));
+    ReplaceableList yz = new ReplaceableList(z).add(y);
+    ReplaceableList comb = xy.combine(yz);
+    assertTrue(comb.size() == 3);
+    assertTrue(comb.contains(x) && comb.contains(y) && comb.contains(z));
+    assertSame(ReplaceableList.EMPTY, new ReplaceableList(x).remove(x));
+  }
+
+  @Test
+  public void testOverlaps() {
+    Replaceable x = new Var("x", TypeFactory.createSort("a"));
+    Replaceable y = makeMetaVar("y");
+    Replaceable u = new Binder("u", TypeFactory.createSort("b"));
+    Replaceable v = new Binder("v", TypeFactory.createSort("b"));
+    ReplaceableList l1 = new ReplaceableList(x).add(u);
+    ReplaceableList l2 = new ReplaceableList(y).add(v).add(x);
+    ReplaceableList l3 = new ReplaceableList(v);
+    assertTrue(l1.overlaps(l2));
+    assertTrue(l2.overlaps(l1));
+    assertFalse(l1.overlaps(l3));
+    assertFalse(l1.overlaps(ReplaceableList.EMPTY));
+    assertFalse(ReplaceableList.EMPTY.overlaps(l1));
+  }
+}
@@ -165,5 +165,61 @@ public class TermPrinterTest {
     Renaming c = printer.generateUniqueNaming(term);
     assertTrue(printer.print(term, c).equals("f(x__1, y__1)"));
   }
-}
 
+  @Test
+  public void testExtendNaming() {
+    Type o = TypeFactory.createSort("o");
+    Variable x1 = new Var("x", o);
+    Variable x2 = new Var("x", o);
+    Variable y = new Var("y", o);
+    Constant f = new Constant("f", TypeFactory.createArrow(o, TypeFactory.createArrow(o, o)));
+    TermPrinter printer = new TermPrinter(Set.of());
+    Renaming naming = printer.generateUniqueNaming(f.apply(x1).apply(y));
+    printer.extendUniqueNaming(naming, f.apply(x2).apply(x1), y);
+    assertTrue(naming.getName(x1).equals("x"));
+    assertTrue(naming.getName(y).equals("y"));
+    assertTrue(naming.getName(x2).equals("x__1"));
+    assertTrue(printer.print(f.apply(x1).apply(x2), naming).equals("f(x, x__1)"));
+  }
+
+  @Test
+  public void testPrintSharedSubterms() {
+    // build t_0 = g(x, y), t_{i+1} = f(t_i, t_i), so the term has a tree size exponential in n
+    Type o = TypeFactory.createSort("o");
+    Type ooo = TypeFactory.createArrow(o, TypeFactory.createArrow(o, o));
+    Constant f = new Constant("f", ooo);
+    Constant g = new Constant("g", ooo);
+    Variable x1 = new Var("x", o);
+    Variable x2 = new Var("x", o);
+    Term term = g.apply(x1).apply(x2);
+    String expected = "g(x__1, x__2)";
+    for (int i = 0; i < 16; i++) {
+      term = f.apply(term).apply(term);
+      expected = "f(" + expected + ", " + expected + ")";
+    }
+    TermPrinter printer = new TermPrinter(Set.of());
+    StringBuilder builder = new StringBuilder("prefix ");
+    printer.print(term, printer.generateUniqueNaming(term), builder);
+    assertEquals("prefix " + expected, builder.toString());
+  }
+
+  @Test
+  public void testPrintSharedSubtermsUnderBinders() {
+    // λx.f(h(x), λx.g(h(x), h(y))) where both h(x) occurrences are the same object
+    Type o = TypeFactory.createSort("o");
+    Type oo = TypeFactory.createArrow(o, o);
+    Constant f = new Constant("f", TypeFactory.createArrow(o, TypeFactory.createArrow(oo, o)));
+    Constant g = new Constant("g", TypeFactory.createArrow(o, oo));
+    Constant h = new Constant("h", oo);
+    Constant k = new Constant("k", TypeFactory.createArrow(oo, TypeFactory.createArrow(oo, o)));
+    Variable x = new Binder("x", o);
+    Variable y = new Var("y", o);
+    Term hx = h.apply(x);
+    Term inner = TermFactory.createAbstraction(x, g.apply(hx).apply(h.apply(y)));
+    Term outer = TermFactory.createAbstraction(x, f.apply(hx).apply(inner));
+    Term term = k.apply(outer).apply(outer);
+    TermPrinter printer = new TermPrinter(Set.of());
+    assertEquals("λx.f(h(x), λx1.g(h(x1), h(y)))", outer.toString());
+    assertEquals("k(" + outer.toString() + ", " + outer.toString() + ")", printer.print(term));
+  }
+}
@@ -0,0 +1,135 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.trs;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import charlie.types.TypeFactory;
+import charlie.terms.*;
+import charlie.reader.CoraInputReader;
+
+public class TrsSerialiserTest {
+  private TRS roundTrip(TRS trs) throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    TrsSerialiser.writeTrs(trs, stream);
+    return TrsSerialiser.readTrs(ByteBuffer.wrap(stream.toByteArray()));
+  }
+
+  @Test
+  public void testFirstOrderTrs() throws IOException {
+    TRS trs = CoraInputReader.readTrsFromString(
+      "0 :: N s :: N -> N add :: N -> N -> N add(0,y) -> y add(s(x),y) -> s(add(x,y))",
+      TrsFactory.MSTRS);
+    TRS copy = roundTrip(trs);
+    assertTrue(copy.toString().equals(trs.toString()));
+    assertTrue(copy.queryTrsKind().equals("MSTRS"));
+    assertTrue(copy.isFirstOrder());
+    assertFalse(copy.theoriesIncluded());
+    assertTrue(copy.queryRule(1).toString().equals(trs.queryRule(1).toString()));
+    // symbols in the rules are the ones in the alphabet
+    assertTrue(copy.isDefined(copy.lookupSymbol("add")));
+    assertTrue(copy.verifyProperties(TrsProperties.Level.FIRSTORDER, TrsProperties.Constrained.NO,
+      TrsProperties.Products.DISALLOWED, TrsProperties.Lhs.PATTERN, TrsProperties.Root.FUNCTION));
+  }
+
+  @Test
+  public void testHigherOrderTrs() throws IOException {
+    TRS trs = CoraInputReader.readTrsFromString(
+      "public nil :: list private cons :: nat -> list -> list pair :: ⦇ nat, list ⦈ -> nat\n" +
+      "map :: (nat -> nat) -> list -> list\n" +
+      "map(F, nil) -> nil\n" +
+      "map(λx.F[x], cons(H, T)) -> cons(F[H], map(λy.F[y], T))\n" +
+      "pair(⦇ H, T ⦈) -> H\n", TrsFactory.CORA);
+    TRS copy = roundTrip(trs);
+    assertTrue(copy.toString().equals(trs.toString()));
+    assertTrue(copy.isPrivate(copy.lookupSymbol("cons")));
+    assertFalse(copy.isPrivate(copy.lookupSymbol("nil")));
+    assertTrue(copy.querySchemeCount() == trs.querySchemeCount());
+    assertTrue(copy.queryScheme(0) == TRS.RuleScheme.Beta);
+    assertTrue(copy.productsIncluded());
+  }
+
+  @Test
+  public void testConstrainedTrs() throws IOException {
+    TRS trs = CoraInputReader.readTrsFromString(
+      "f :: Int -> String -> Bool -> Int\n" +
+      "f(x, \"a\\\"b\\n\", true) -> f(x * 123456789 - -3, \"\", false)" +
+      " | x > 0 ∧ ¬(x = 2)\n", TrsFactory.LCTRS);
+    TRS copy = roundTrip(trs);
+    assertTrue(copy.toString().equals(trs.toString()));
+    Term constraint = copy.queryRule(0).queryConstraint();
+    assertTrue(constraint.queryRoot().equals(TheoryFactory.andSymbol));
+    assertTrue(copy.queryRule(0).queryLeftSide().queryArgument(2).queryType() ==
+               TypeFactory.stringSort);
+  }
+
+  @Test
+  public void testLargeIntegers() throws IOException {
+    FunctionSymbol f = TermFactory.createConstant("f", TypeFactory.createArrow(
+      TypeFactory.intSort, TypeFactory.intSort));
+    Term big = TheoryFactory.createValue(new BigInteger("-123456789012345678901234567890"));
+    Term large = TheoryFactory.createValue(Long.MIN_VALUE);
+    Rule rule = TrsFactory.createRule(f.apply(big), f.apply(large), TrsFactory.LCTRS);
+    TRS trs = TrsFactory.createTrs(new Alphabet(List.of(f)), List.of(rule), TrsFactory.LCTRS);
+    TRS copy = roundTrip(trs);
+    assertTrue(copy.queryRule(0).queryLeftSide().queryArgument(1).toValue().getBigInt()
+                   .equals(big.toValue().getBigInt()));
+    assertTrue(copy.queryRule(0).queryRightSide().queryArgument(1).toValue().getBigInt()
+                   .equals(BigInteger.valueOf(Long.MIN_VALUE)));
+  }
+
+  /** Returns a TRS with n copies of the same rule, where each copy is parsed separately. */
+  private TRS createRepetitiveTrs(int n) {
+    StringBuilder rules = new StringBuilder("a :: N s :: N -> N f :: N -> N\n");
+    String big = "s(s(s(s(s(s(s(s(s(s(a))))))))))";
+    for (int i = 0; i < n; i++) rules.append("f(" + big + ") -> " + big + "\n");
+    return CoraInputReader.readTrsFromString(rules.toString(), TrsFactory.MSTRS);
+  }
+
+  @Test
+  public void testSharedSubtermsAreStoredOnce() throws IOException {
+    ByteArrayOutputStream single = new ByteArrayOutputStream();
+    TrsSerialiser.writeTrs(createRepetitiveTrs(1), single);
+    ByteArrayOutputStream multiple = new ByteArrayOutputStream();
+    TrsSerialiser.writeTrs(createRepetitiveTrs(20), multiple);
+    // every additional rule only costs the indexes of its left-hand side, right-hand side and
+    // constraint
+    assertTrue(multiple.size() - single.size() == 19 * 12);
+    TRS copy = TrsSerialiser.readTrs(ByteBuffer.wrap(multiple.toByteArray()));
+    assertTrue(copy.queryRuleCount() == 20);
+    assertTrue(copy.queryRule(3).queryRightSide() == copy.queryRule(7).queryRightSide());
+    assertTrue(copy.queryRule(3).queryRightSide() ==
+               copy.queryRule(3).queryLeftSide().queryArgument(1));
+  }
+
+  @Test
+  public void testCorruptData() throws IOException {
+    TRS trs = CoraInputReader.readTrsFromString("a :: N f :: N -> N f(a) -> a", TrsFactory.MSTRS);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    TrsSerialiser.writeTrs(trs, stream);
+    byte[] bytes = stream.toByteArray();
+    ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, bytes.length - 3);
+    assertThrows(IOException.class, () -> TrsSerialiser.readTrs(truncated));
+    bytes[0] = 'X';
+    assertThrows(IOException.class, () -> TrsSerialiser.readTrs(ByteBuffer.wrap(bytes)));
+  }
+}
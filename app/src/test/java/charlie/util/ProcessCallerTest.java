@@ -17,6 +17,7 @@ package charlie.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -25,10 +26,28 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * A helper class for manually testing the process caller.
- * (Do not automatically test it! Outside processes should not be called routinely during testing.)
+ * Tests for the process caller.  These only call the shell; the test that calls an SMT solver is
+ * for manual testing.  (Do not automatically test it! Outside solvers should not be called
+ * routinely during testing.)
  */
 class ProcessCallerTest {
+  @Test
+  public void testLargeOutputDoesNotBlock() throws Exception {
+    // much more than fits in a pipe, so the process cannot finish unless we read while it runs
+    List<String> commands = List.of("/bin/sh", "-c", "head -c 1000000 /dev/zero | tr '\\0' x");
+    long start = System.nanoTime();
+    Optional<InputStream> result = new ProcessCaller(commands, 5).getResultAsInputStream();
+    assertTrue(result.isPresent());
+    assertEquals(1000000, result.get().readAllBytes().length);
+    assertTrue(System.nanoTime() - start < 4_000_000_000L);
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    ProcessCaller pc = new ProcessCaller(List.of("/bin/sh", "-c", "sleep 30"), 1);
+    assertTrue(pc.getResultAsString().isEmpty());
+  }
+
   /** @Test deliberately disabled.  Enable if you want to run the test. */
   //@Test
   void callingTest() {
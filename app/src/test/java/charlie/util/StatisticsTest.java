@@ -0,0 +1,102 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+public class StatisticsTest {
+  @Test
+  public void testNothingRecordedOutsideRecording() {
+    Statistics.stopRecording();
+    assertTrue(Statistics.startTimer() == 0);
+    assertTrue(Statistics.time("phase", () -> 3) == 3);
+    assertNull(Statistics.stopRecording());
+  }
+
+  @Test
+  public void testRecordPhases() {
+    Statistics stats = Statistics.startRecording();
+    Statistics.time("b", () -> 1);
+    long start = Statistics.startTimer();
+    Statistics.stopTimer("a", start);
+    Statistics.time("b", () -> 2);
+    assertSame(stats, Statistics.stopRecording());
+    assertEquals(List.of("b", "a"), List.copyOf(stats.queryPhases()));
+    assertTrue(stats.queryCount("b") == 2);
+    assertTrue(stats.queryCount("a") == 1);
+    assertTrue(stats.queryCount("c") == 0);
+    assertTrue(stats.queryTime("a") >= 0);
+    // after stopping, nothing more is added
+    Statistics.time("c", () -> 0);
+    assertFalse(stats.queryPhases().contains("c"));
+  }
+
+  @Test
+  public void testRecordingIsPerThread() throws InterruptedException {
+    Statistics stats = Statistics.startRecording();
+    Thread other = new Thread(() -> Statistics.time("other", () -> 0));
+    other.start();
+    other.join();
+    Statistics.stopRecording();
+    assertFalse(stats.queryPhases().contains("other"));
+  }
+
+  @Test
+  public void testRecordWithOtherThread() throws InterruptedException {
+    Statistics stats = Statistics.startRecording();
+    Thread other = new Thread(() -> Statistics.recordWith(stats, () -> {
+      Statistics.count("other");
+      return Statistics.queryRecording();
+    }));
+    other.start();
+    other.join();
+    Statistics.stopRecording();
+    assertTrue(stats.queryCounter("other") == 1);
+    assertNull(Statistics.recordWith(null, Statistics::queryRecording));
+  }
+
+  @Test
+  public void testCounters() {
+    Statistics.count("ignored");
+    Statistics stats = Statistics.startRecording();
+    assertTrue(Statistics.isRecording());
+    Statistics.count("x");
+    Statistics.count("y", 5);
+    Statistics.count("x", 2);
+    Statistics.stopRecording();
+    assertFalse(Statistics.isRecording());
+    assertEquals(List.of("x", "y"), List.copyOf(stats.queryCounters()));
+    assertTrue(stats.queryCounter("x") == 3);
+    assertTrue(stats.queryCounter("y") == 5);
+    assertTrue(stats.queryCounter("ignored") == 0);
+    assertTrue(stats.queryPhases().isEmpty());
+  }
+
+  @Test
+  public void testPrint() {
+    Statistics stats = Statistics.startRecording();
+    Statistics.stopRecording();
+    stats.addTime("parse", 1_500_000);
+    stats.addCount("rules read", 4);
+    assertEquals("phase           count      time (ms)\n" +
+                 "parse               1          1.500\n" +
+                 "counter         value               \n" +
+                 "rules read          4               \n",
+                 stats.toString().replace(System.lineSeparator(), "\n"));
+  }
+}
@@ -0,0 +1,108 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import charlie.util.Statistics;
+import cora.BenchmarkRunner.Result;
+
+public class BenchmarkRunnerTest {
+  private Map<?,?> baseResult(String answer, long millis) {
+    return Map.of("answer", answer, "total", millis * 1000);
+  }
+
+  @Test
+  public void testCompareAnswers() {
+    List<Result> results = List.of(new Result("a", "MAYBE", 0, null),
+                                   new Result("b", "YES", 0, null),
+                                   new Result("c", "TIMEOUT", 0, null),
+                                   new Result("d", "NO", 0, null));
+    Map<String,Map<?,?>> baseline = Map.of("a", baseResult("YES", 0), "b", baseResult("MAYBE", 0),
+                                           "c", baseResult("NO", 0));
+    List<String> regressions = BenchmarkRunner.compare(results, baseline, 25);
+    assertEquals(List.of("a: answer MAYBE instead of YES.", "c: answer TIMEOUT instead of NO."),
+                 regressions);
+  }
+
+  @Test
+  public void testCompareTimes() {
+    List<Result> results = List.of(new Result("a", "YES", 1000_000_000L, null),
+                                   new Result("b", "YES", 1100_000_000L, null),
+                                   new Result("c", "YES", 150_000_000L, null));
+    Map<String,Map<?,?>> baseline = Map.of("a", baseResult("YES", 500),
+                                           "b", baseResult("YES", 1000),
+                                           "c", baseResult("YES", 100));
+    List<String> regressions = BenchmarkRunner.compare(results, baseline, 25);
+    assertEquals(List.of("a: took 1000.0 ms instead of 500.0 ms."), regressions);
+  }
+
+  @Test
+  public void testCsv() {
+    Statistics stats = Statistics.startRecording();
+    Statistics.stopRecording();
+    stats.addTime("parse", 2_000_000);
+    String csv = BenchmarkRunner.toCsv(List.of(new Result("x.trs", "YES", 5_000_000, stats),
+                                               new Result("y.trs", "TIMEOUT", 1_000_000, null)));
+    assertEquals("file,answer,phase,count,milliseconds\n" +
+                 "\"x.trs\",YES,total,1,5.000\n" +
+                 "\"x.trs\",YES,parse,1,2.000\n" +
+                 "\"y.trs\",TIMEOUT,total,1,1.000\n", csv);
+  }
+
+  @Test
+  public void testAnalyseRecordsAllPhases() throws IOException {
+    Path file = Files.createTempFile("benchmark", ".cora");
+    try {
+      Files.writeString(file, "a :: o\nf :: o -> o\nf(x) -> x\n");
+      Result result = new BenchmarkRunner(new String[] { "-p" }).analyse(file.toString());
+      assertEquals(file.toString(), result.file());
+      assertTrue(result.stats().queryPhases().contains("parse"));
+      assertTrue(result.stats().queryPhases().contains("output"));
+      assertEquals(1, result.stats().queryCounter("rules read"));
+    }
+    finally { Files.deleteIfExists(file); }
+  }
+
+  @Test
+  public void testRunWritesResults() throws IOException {
+    Path dir = Files.createTempDirectory("benchmark");
+    Path a = dir.resolve("a.cora"), b = dir.resolve("b.cora");
+    Path out = dir.resolve("out");
+    try {
+      Files.writeString(a, "a :: o\nf :: o -> o\nf(x) -> x\n");
+      Files.writeString(b, "b :: o\ng :: o -> o\ng(x) -> b\n");
+      BenchmarkRunner runner = new BenchmarkRunner(new String[] {
+        "--dir", dir.toString(), "--out", out.resolve("results").toString(), "-p" });
+      assertTrue(runner.run());
+      String csv = Files.readString(out.resolve("results.csv"));
+      assertTrue(csv.startsWith("file,answer,phase,count,milliseconds\n\"" + a + "\",YES,total"));
+      assertTrue(csv.contains("\"" + b + "\",YES,parse,1,"));
+      String json = Files.readString(out.resolve("results.json"));
+      assertTrue(json.contains(a.toString()) && json.contains(b.toString()));
+      assertFalse(Files.exists(out.resolve("results.json.part")));
+    }
+    finally {
+      for (String f : List.of("results.csv", "results.json")) Files.deleteIfExists(out.resolve(f));
+      for (Path p : List.of(out, a, b, dir)) Files.deleteIfExists(p);
+    }
+  }
+}
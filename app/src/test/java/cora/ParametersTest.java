@@ -19,6 +19,10 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import charlie.reader.CoraInputReader;
+import charlie.smt.SmtProblem;
+import charlie.smt.SmtSolver;
+import charlie.solvesmt.PortfolioSmtSolver;
+import charlie.solvesmt.ProcessSmtSolver;
 import cora.io.OutputModule;
 import cora.config.Settings;
 
@@ -51,6 +55,33 @@ class ParametersTest {
     assertTrue(param.queryModuleInput().get(0).equals("f(x-y)"));
   }
 
+  @Test
+  public void testCacheDirectory() {
+    Parameters param = new Parameters(new String[] { "-p", "input", "--cache", "/tmp/cache" });
+    assertTrue(param.queryCacheDirectory().equals("/tmp/cache"));
+    assertTrue(param.querySingleFile().equals("input"));
+    param = new Parameters(new String[] { "input" });
+    assertTrue(param.queryCacheDirectory() == null);
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "input", "-C" }));
+  }
+
+  @Test
+  public void testProofFormat() {
+    Parameters param = new Parameters(new String[] { "input" });
+    assertTrue(param.queryProofFormat() == Parameters.ProofFormat.Text);
+    param = new Parameters(new String[] { "-f", "JSON", "input" });
+    assertTrue(param.queryProofFormat() == Parameters.ProofFormat.Json);
+    param = new Parameters(new String[] { "input", "--format", "answer" });
+    assertTrue(param.queryProofFormat() == Parameters.ProofFormat.Answer);
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "input", "-f", "cpf" }));
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "-f", "text", "-f", "json", "input" }));
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "input", "-f" }));
+  }
+
   @Test
   public void testRequestNothing() {
     Parameters param = new Parameters(new String[] { "input", "more input" });
@@ -119,10 +150,11 @@ class ParametersTest {
     Parameters param = new Parameters(new String[] {
       "myfile", "-d", "dp,graph", "--disable", "dp,imap" });
     param.setupSettings();
-    assertTrue(Settings.disabled.size() == 3);
-    assertTrue(Settings.disabled.contains("dp"));
-    assertTrue(Settings.disabled.contains("graph"));
-    assertTrue(Settings.disabled.contains("imap"));
+    assertTrue(param.queryDisabledTechniques().size() == 3);
+    assertTrue(Settings.isDisabled("dp"));
+    assertTrue(Settings.isDisabled("graph"));
+    assertTrue(Settings.isDisabled("imap"));
+    assertFalse(Settings.isDisabled("subcrit"));
   }
 
   @Test
@@ -130,5 +162,57 @@ class ParametersTest {
     Parameters param = new Parameters(new String[] { "myfile", "-d", "dp,extra,graph" });
     assertThrows(Parameters.WrongParametersException.class, () -> param.setupSettings());
   }
-}
 
+  @Test
+  public void testStatistics() {
+    assertFalse(new Parameters(new String[] { "myfile" }).queryStatistics());
+    Parameters param = new Parameters(new String[] { "--stats", "myfile" });
+    assertTrue(param.queryStatistics());
+    assertTrue(param.querySingleFile().equals("myfile"));
+  }
+
+  @Test
+  public void testSolvers() {
+    assertTrue(new Parameters(new String[] { "-s", "yices", "f" }).querySolver().toString()
+      .equals("YICES 2"));
+    SmtSolver solver = new Parameters(new String[] { "-s", "z3,cvc5", "f" }).querySolver();
+    assertTrue(solver instanceof PortfolioSmtSolver p && !p.queryLearning() &&
+               p.querySolvers().size() == 2);
+    solver = new Parameters(new String[] { "-s", "learn:portfolio", "f" }).querySolver();
+    assertTrue(solver instanceof PortfolioSmtSolver p && p.queryLearning() &&
+               p.querySolvers().size() == 3);
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "-s", "z3,mathsat", "f" }));
+  }
+
+  @Test
+  public void testTactics() {
+    Parameters param = new Parameters(new String[] {
+      "--tactic", "linear=qflia", "--tactic", "nonlinear=qfnra-nlsat", "f" });
+    assertTrue(param.querySolver() instanceof ProcessSmtSolver ps &&
+               ps.queryTactic(SmtProblem.Fragment.LINEAR).equals("qflia") &&
+               ps.queryTactic(SmtProblem.Fragment.NONLINEAR).equals("qfnra-nlsat") &&
+               ps.queryTactic(SmtProblem.Fragment.PROPOSITIONAL) == null);
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "--tactic", "quadratic=smt", "f" }));
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "--tactic", "linear=smt\"; rm x; \"", "f" }));
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "-s", "cvc5", "--tactic", "linear=qflia", "f" }));
+  }
+
+  @Test
+  public void testSmtTimeout() {
+    Parameters param = new Parameters(new String[] { "--smt-timeout", "3", "f" });
+    assertTrue(param.querySolver() instanceof ProcessSmtSolver ps && ps.queryTimeout() == 3);
+    param = new Parameters(new String[] { "-s", "portfolio", "--smt-timeout", "2", "f" });
+    assertTrue(param.querySolver() instanceof PortfolioSmtSolver p &&
+               p.querySolvers().stream().allMatch(s -> ((ProcessSmtSolver)s).queryTimeout() == 2));
+    assertTrue(new Parameters(new String[] { "-s", "z3", "f" }).querySolver()
+               instanceof ProcessSmtSolver ps && ps.queryTimeout() == 10);
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "--smt-timeout", "0", "f" }));
+    assertThrows(Parameters.WrongParametersException.class, () ->
+      new Parameters(new String[] { "--smt-timeout", "f" }));
+  }
+}
@@ -0,0 +1,130 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import cora.config.Settings;
+
+public class ServerTest {
+  private static final String TRS = "\"a :: o\\nb :: o\\nf :: o -> o\\nf(x) -> x\\na -> b\"";
+
+  private String handle(String request) {
+    return (new Server(new StringReader(""), new StringWriter(), 1)).handle(request);
+  }
+
+  @Test
+  public void testReduce() {
+    assertEquals("{\"id\":3,\"answer\":\"Normalised input term to: b\"}",
+      handle("{\"id\": 3, \"args\": [\"-f\", \"answer\", \"-r\", \"f(a)\"], \"trs\": " + TRS + "}"));
+    assertEquals("{\"id\":\"x\",\"answer\":\"YES\",\"proof\":{\"answer\":\"YES\",\"result\":" +
+      "\"Normalised input term to: b\"}}",
+      handle("{\"id\": \"x\", \"args\": [\"-f\", \"json\", \"-r\", \"a\"], \"trs\": " + TRS + "}"));
+  }
+
+  @Test
+  public void testPrint() {
+    String response = handle("{\"args\": [\"-p\", \"-y\", \"plain\"], \"trs\": " + TRS + "}");
+    assertTrue(response.startsWith("{\"answer\":\"\",\"proof\":\"Cora-TRS"));
+    assertTrue(response.contains("f(x) -> x"));
+  }
+
+  @Test
+  public void testErrors() {
+    assertEquals("{\"error\":\"Error reading JSON at position 1: unexpected character x.\"}",
+      handle("x"));
+    assertEquals("{\"error\":\"A request should be a JSON object.\"}", handle("[]"));
+    assertEquals("{\"id\":4,\"error\":\"PARAMETERS ERROR: No input file given!\"}",
+      handle("{\"id\": 4, \"args\": [\"-p\"]}"));
+    assertEquals("{\"id\":5,\"error\":\"PARAMETERS ERROR: Unknown code for technique to " +
+      "disable: foo\"}", handle("{\"id\": 5, \"args\": [\"-d\", \"foo\"], \"trs\": " + TRS + "}"));
+    assertTrue(handle("{\"id\": 6, \"args\": [\"-r\", \"g(a)\"], \"trs\": " + TRS + "}")
+      .startsWith("{\"id\":6,\"error\":\"Exception reading input term g(a):"));
+  }
+
+  @Test
+  public void testServe() throws Exception {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      input.append("{\"id\": " + i + ", \"args\": [\"-f\", \"answer\", \"-r\", \"f(f(a))\"], " +
+                   "\"trs\": " + TRS + "}\n\n");
+    }
+    StringWriter output = new StringWriter();
+    (new Server(new StringReader(input.toString()), output, 4)).serve();
+    String[] lines = output.toString().split("\n");
+    assertEquals(20, lines.length);
+    TreeSet<String> responses = new TreeSet<String>(Set.of(lines));
+    for (int i = 0; i < 20; i++) {
+      assertTrue(responses.contains("{\"id\":" + i + ",\"answer\":\"Normalised input term to: b\"}"));
+    }
+  }
+
+  @Test
+  public void testSolverTimeoutDoesNotStopServer() throws Exception {
+    Path dir = Files.createTempDirectory("cora-server-test");
+    Path solver = dir.resolve("hang.sh");
+    Path input = dir.resolve("count.lcstrs");
+    try {
+      Files.writeString(solver, "#!/bin/sh\nsleep 30\n");
+      solver.toFile().setExecutable(true);
+      Files.writeString(input, "f :: Int -> Int\nf(x) -> f(x - 1) | x > 0\n");
+      String response = handle("{\"id\": 1, \"args\": [\"-f\", \"answer\", \"-s\", " +
+        "\"external:" + solver + "\", \"--smt-timeout\", \"1\", \"--stats\", \"" + input +
+        "\"]}");
+      assertTrue(response.startsWith("{\"id\":1,\"answer\":"));
+      assertTrue(response.contains("\"smt timeout\""));
+      assertEquals("{\"id\":2,\"answer\":\"Normalised input term to: b\"}",
+        handle("{\"id\": 2, \"args\": [\"-f\", \"answer\", \"-r\", \"f(a)\"], \"trs\": " +
+               TRS + "}"));
+    }
+    finally {
+      Files.deleteIfExists(solver);
+      Files.deleteIfExists(input);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testSettingsArePerRequest() {
+    Settings.setDisabled(Set.of());
+    boolean inside =
+      Settings.runWith(null, Set.of("graph"), false, () -> Settings.isDisabled("graph"));
+    assertTrue(inside);
+    assertFalse(Settings.isDisabled("graph"));
+  }
+
+  @Test
+  public void testRandomSourceIsPerRequest() {
+    Random global = Settings.queryRandom();
+    Random inside = Settings.runWith(null, Set.of(), false, Settings::queryRandom);
+    assertNotSame(global, inside);
+    assertSame(global, Settings.queryRandom());
+  }
+
+  @Test
+  public void testParallelReadIsPerRequest() {
+    Settings.setParallelRead(false);
+    assertTrue(Settings.runWith(null, Set.of(), true, Settings::queryParallelRead));
+    assertFalse(Settings.queryParallelRead());
+  }
+}
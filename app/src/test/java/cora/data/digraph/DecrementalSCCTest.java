@@ -0,0 +1,99 @@
+package cora.data.digraph;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.Random;
+
+class DecrementalSCCTest {
+  /** 0 -> 1 -> 2 -> 0, 2 -> 3 -> 4 -> 3, 5 -> 5 */
+  private Digraph createGraph() {
+    Digraph g = new Digraph(6);
+    g.addEdge(0, 1);
+    g.addEdge(1, 2);
+    g.addEdge(2, 0);
+    g.addEdge(2, 3);
+    g.addEdge(3, 4);
+    g.addEdge(4, 3);
+    g.addEdge(5, 5);
+    return g;
+  }
+
+  @Test
+  void testInitialComponents() {
+    DecrementalSCC scc = new DecrementalSCC(createGraph());
+    assertEquals(3, scc.getNumberOfSCCs());
+    assertEquals(List.of(3, 4), scc.getComponent(0));
+    assertEquals(List.of(0, 1, 2), scc.getComponent(1));
+    assertEquals(List.of(5), scc.getComponent(2));
+    assertTrue(scc.isNontrivial(2));
+    assertEquals("0 |-> [1]\n1 |-> [2]\n2 |-> [0]\n", scc.getComponentGraph(1).toString());
+  }
+
+  @Test
+  void testRemoveVertex() {
+    DecrementalSCC scc = new DecrementalSCC(createGraph());
+    assertEquals(List.of(1, 3), scc.removeVertex(1));
+    assertTrue(scc.isRemoved(1));
+    assertEquals(-1, scc.getSccId(1));
+    // 0 and 2 are now separate components
+    assertEquals(4, scc.getNumberOfSCCs());
+    assertEquals(1, scc.getComponentSize(1));
+    assertEquals(1, scc.getComponentSize(3));
+    assertFalse(scc.isNontrivial(1));
+    assertFalse(scc.isNontrivial(3));
+    assertEquals(List.of(0), scc.getComponent(1));
+    assertEquals(List.of(3, 4), scc.getComponent(0));
+    assertEquals(List.of(), scc.removeVertex(1));
+    assertEquals(List.of(2), scc.removeVertices(List.of(5)));
+    assertEquals(0, scc.getComponentSize(2));
+    assertFalse(scc.isNontrivial(2));
+  }
+
+  @Test
+  void testRemoveEdge() {
+    Digraph g = createGraph();
+    DecrementalSCC scc = new DecrementalSCC(g);
+    assertEquals(List.of(), scc.removeEdge(2, 3));   // not on a cycle
+    assertFalse(g.isAdjacent(2, 3));
+    assertEquals(List.of(), scc.removeEdge(3, 2));   // does not exist
+    assertEquals(List.of(0, 3), scc.removeEdge(4, 3));
+    assertEquals(List.of(4), scc.getComponent(0));
+    assertEquals(List.of(3), scc.getComponent(3));
+    assertEquals(List.of(2), scc.removeEdge(5, 5));
+    assertFalse(scc.isNontrivial(2));
+  }
+
+  @Test
+  void testRandomRemovalsMatchRecomputation() {
+    Random rnd = new Random(39);
+    for (int round = 0; round < 20; round++) {
+      int n = 40;
+      Digraph g = new Digraph(n);
+      for (int i = 0; i < 3 * n; i++) g.addEdge(rnd.nextInt(n), rnd.nextInt(n));
+      DecrementalSCC scc = new DecrementalSCC(g);
+      boolean[] removed = new boolean[n];
+      for (int step = 0; step < 30; step++) {
+        if (rnd.nextBoolean()) {
+          int v = rnd.nextInt(n);
+          scc.removeVertex(v);
+          removed[v] = true;
+        }
+        else scc.removeEdge(rnd.nextInt(n), rnd.nextInt(n));
+        // compare with the components of the graph without the removed vertices
+        Digraph h = new Digraph(n);
+        for (int u = 0; u < n; u++) {
+          for (int v : g.getNeighbours(u)) { if (!removed[u] && !removed[v]) h.addEdge(u, v); }
+        }
+        SCC fresh = new SCC(h);
+        for (int u = 0; u < n; u++) {
+          assertEquals(removed[u], scc.isRemoved(u));
+          for (int v = 0; v < n; v++) {
+            if (removed[u] || removed[v]) continue;
+            assertEquals(fresh.isStronglyConnected(u, v), scc.getSccId(u) == scc.getSccId(v));
+          }
+        }
+      }
+    }
+  }
+}
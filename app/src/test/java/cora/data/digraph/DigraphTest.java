@@ -119,4 +119,37 @@ class DigraphTest {
       g.addEdge(0, 3);
     });
   }
+
+  @Test
+  public void testNeighboursInOrder() {
+    Digraph g = new Digraph(5);
+    g.addEdge(2, 4);
+    g.addEdge(2, 0);
+    g.addEdge(2, 3);
+    g.addEdge(2, 0);
+    g.addEdge(2, 1);
+    assertTrue(g.getOutDegree(2) == 4);
+    assertTrue(g.getNeighbour(2, 0) == 0 && g.getNeighbour(2, 1) == 1);
+    assertTrue(g.getNeighbour(2, 2) == 3 && g.getNeighbour(2, 3) == 4);
+    assertTrue(g.getNeighbours(2).toString().equals("[0, 1, 3, 4]"));
+    g.removeEdge(2, 1);
+    g.removeEdge(2, 1);
+    assertTrue(g.getNeighbours(2).toString().equals("[0, 3, 4]"));
+    assertTrue(g.getNumberOfEdges() == 3);
+    assertThrows(IndexingException.class, () -> g.getNeighbour(2, 3));
+    assertThrows(IndexingException.class, () -> g.getOutDegree(5));
+  }
+
+  @Test
+  public void testAddManyVertices() {
+    Digraph g = new Digraph(0);
+    for (int i = 0; i < 100; i++) {
+      g.addVertex();
+      if (i > 0) g.addEdge(i, i - 1);
+    }
+    assertTrue(g.getNumberOfVertices() == 100);
+    assertTrue(g.getNumberOfEdges() == 99);
+    assertTrue(g.isAdjacent(99, 98));
+    assertTrue(g.getOutDegree(0) == 0);
+  }
 }
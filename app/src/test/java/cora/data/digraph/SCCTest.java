@@ -4,6 +4,8 @@ import cora.data.digraph.Digraph;
 import cora.data.digraph.SCC;
 import cora.data.digraph.TransitiveClosure;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
 
 class SCCTest {
 
@@ -22,4 +24,38 @@ class SCCTest {
 //    System.out.println(scc);
 
   }
+
+  @Test
+  void testComponents() {
+    Digraph g = new Digraph(6);
+    g.addEdge(0, 1);
+    g.addEdge(1, 2);
+    g.addEdge(2, 0);
+    g.addEdge(2, 3);
+    g.addEdge(3, 4);
+    g.addEdge(4, 3);
+    g.addEdge(5, 5);
+    SCC scc = new SCC(g);
+    assertEquals(3, scc.getNumberOfSCCs());
+    assertTrue(scc.getSccData().equals(List.of(List.of(3, 4), List.of(0, 1, 2), List.of(5))));
+    assertTrue(scc.isStronglyConnected(0, 2));
+    assertFalse(scc.isStronglyConnected(2, 3));
+  }
+
+  @Test
+  void testLongChain() {
+    // a single cycle of a million vertices, which used to overflow the stack
+    int n = 1000000;
+    Digraph g = new Digraph(n);
+    for (int i = 0; i < n; i++) g.addEdge(i, (i + 1) % n);
+    SCC scc = new SCC(g);
+    assertEquals(1, scc.getNumberOfSCCs());
+    g.removeEdge(n - 1, 0);
+    scc = new SCC(g);
+    assertEquals(n, scc.getNumberOfSCCs());
+    Reachability reach = new Reachability(g, 1);
+    assertFalse(reach.isReachable(0));
+    assertTrue(reach.isReachable(n - 1));
+    assertEquals(n - 1, reach.getReachableVertices().size());
+  }
 }
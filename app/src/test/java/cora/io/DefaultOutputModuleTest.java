@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.StringWriter;
 import java.util.List;
 import charlie.util.Pair;
 import charlie.types.Type;
@@ -252,5 +253,48 @@ public class DefaultOutputModuleTest {
       "  Signature: (empty)\n\n" +
       "  Rules: (empty)\n\n"));
   }
-}
 
+  @Test
+  public void testUnknownCodes() {
+    OutputModule o = DefaultOutputModule.createPlainModule();
+    o.println("%{ruleArrow}%{unknown} %{lambda %{and}}");
+    assertTrue(o.toString().equals("->%{unknown} %{lambda /\\}\n\n"));
+  }
+
+  @Test
+  public void testStreamingModule() {
+    TRS trs = exampleTrs();
+    StringWriter writer = new StringWriter();
+    OutputModule o = DefaultOutputModule.createStreamingModule(OutputModule.Style.Unicode, trs,
+                                                               writer);
+    o.print("Hello %a", "world");
+    assertTrue(writer.toString().equals("Hello world"));
+    o.println("! %{lambda}");
+    o.startTable();
+    o.nextColumn("A");
+    o.print("B");
+    assertTrue(writer.toString().equals("Hello world! λ\n\n"));
+    o.endTable();
+    o.printTrs(trs);
+    assertTrue(o.toString().equals(""));
+    o.printToStdout();
+    assertTrue(writer.toString().equals(
+      "Hello world! λ\n\n" +
+      "  A B\n\n" +
+      "Cora-TRS with rule schemes Beta, Calc, and Projection:\n\n" +
+      "  Signature: a :: Int → Int\n" +
+      "             f :: Int → Int → Int\n\n" +
+      "  Rules: f(x, y) → f(y, x) | x > y\n" +
+      "         a(x) → 3\n\n\n"));
+  }
+
+  @Test
+  public void testStreamingModuleDefaultStyle() {
+    StringWriter writer = new StringWriter();
+    OutputModule o = DefaultOutputModule.createStreamingModule(null, null, writer);
+    assertTrue(o.queryStyle() == OutputModule.Style.Unicode);
+    o = DefaultOutputModule.createStreamingModule(OutputModule.Style.Plain, null, writer);
+    o.println("%{ruleArrow}");
+    assertTrue(writer.toString().equals("->\n\n"));
+  }
+}
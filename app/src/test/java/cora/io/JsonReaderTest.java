@@ -0,0 +1,71 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.io;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import charlie.exceptions.ParseException;
+
+public class JsonReaderTest {
+  @Test
+  public void testReadScalars() {
+    assertEquals("a\"b\\c\nd\u00e9", JsonReader.read(" \"a\\\"b\\\\c\\nd\\u00e9\" "));
+    assertEquals(-12L, JsonReader.read("-12"));
+    assertEquals(2.5, JsonReader.read("2.5"));
+    assertEquals(1e30, JsonReader.read("1000000000000000000000000000000"));
+    assertEquals(true, JsonReader.read("true"));
+    assertEquals(false, JsonReader.read("false"));
+    assertNull(JsonReader.read("null"));
+  }
+
+  @Test
+  public void testReadStructures() {
+    Object value = JsonReader.read("{\"id\": 3, \"args\": [\"-t\", \"x.trs\"], \"empty\": {}, " +
+                                   "\"none\": []}");
+    assertTrue(value instanceof Map);
+    Map<?,?> map = (Map<?,?>)value;
+    assertEquals(List.of("id", "args", "empty", "none"), List.copyOf(map.keySet()));
+    assertEquals(3L, map.get("id"));
+    assertEquals(List.of("-t", "x.trs"), map.get("args"));
+    assertEquals(Map.of(), map.get("empty"));
+    assertEquals(List.of(), map.get("none"));
+  }
+
+  @Test
+  public void testReadWhatWeWrite() {
+    StringWriter out = new StringWriter();
+    JsonWriter json = new JsonWriter(out, null);
+    json.beginObject().name("text").value("tab\there \"quoted\"").name("n").value(7).endObject();
+    Map<?,?> map = (Map<?,?>)JsonReader.read(out.toString());
+    assertEquals("tab\there \"quoted\"", map.get("text"));
+    assertEquals(7L, map.get("n"));
+  }
+
+  @Test
+  public void testErrors() {
+    assertThrows(ParseException.class, () -> JsonReader.read(""));
+    assertThrows(ParseException.class, () -> JsonReader.read("{\"a\": 1"));
+    assertThrows(ParseException.class, () -> JsonReader.read("{\"a\" 1}"));
+    assertThrows(ParseException.class, () -> JsonReader.read("[1, 2,]"));
+    assertThrows(ParseException.class, () -> JsonReader.read("\"abc"));
+    assertThrows(ParseException.class, () -> JsonReader.read("\"\\x\""));
+    assertThrows(ParseException.class, () -> JsonReader.read("[] []"));
+    assertThrows(ParseException.class, () -> JsonReader.read("tru"));
+  }
+}
@@ -0,0 +1,94 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.io;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import charlie.terms.Renaming;
+import charlie.terms.Term;
+import charlie.trs.TRS;
+import charlie.reader.CoraInputReader;
+
+public class JsonWriterTest {
+  @Test
+  public void testNestedStructures() {
+    StringWriter writer = new StringWriter();
+    JsonWriter out = new JsonWriter(writer, null);
+    out.beginObject().name("a").value(3).name("b").beginArray().value(true).value("x")
+       .beginObject().endObject().beginArray().endArray().endArray()
+       .name("c").value((String)null).endObject();
+    out.finish();
+    assertTrue(writer.toString().equals("{\"a\":3,\"b\":[true,\"x\",{},[]],\"c\":null}\n"));
+  }
+
+  @Test
+  public void testEscapes() {
+    StringWriter writer = new StringWriter();
+    JsonWriter out = new JsonWriter(writer, null);
+    out.value("a\"b\\c\nd\u0001");
+    assertTrue(writer.toString().equals("\"a\\\"b\\\\c\\nd\\u0001\""));
+  }
+
+  @Test
+  public void testTermsAndTypes() {
+    TRS trs = CoraInputReader.readTrsFromString("f :: Int -> Int -> Int\nx :: Int");
+    Term s = CoraInputReader.readTerm("f(x, y + 1)", trs);
+    Term t = CoraInputReader.readTerm("\\z :: Int. f(z, z)", trs);
+    StringWriter writer = new StringWriter();
+    JsonWriter out = new JsonWriter(writer, trs);
+    Renaming naming = out.queryTermPrinter().generateUniqueNaming(s);
+    out.beginArray().value(s, naming).value(t).value(s.queryType()).endArray();
+    assertTrue(writer.toString().equals(
+      "[\"f(x, y + 1)\",\"\\\\z.f(z, z)\",\"Int\"]"));
+  }
+
+  @Test
+  public void testIllegalCalls() {
+    JsonWriter out = new JsonWriter(new StringWriter(), null);
+    assertThrows(IllegalPrintError.class, () -> out.name("a"));
+    assertThrows(IllegalPrintError.class, () -> out.endObject());
+    out.beginObject();
+    assertThrows(IllegalPrintError.class, () -> out.value(1));
+    assertThrows(IllegalPrintError.class, () -> out.endArray());
+    assertThrows(IllegalPrintError.class, () -> out.finish());
+    out.name("a");
+    assertThrows(IllegalPrintError.class, () -> out.name("b"));
+    assertThrows(IllegalPrintError.class, () -> out.endObject());
+  }
+
+  @Test
+  public void testDefaultExport() {
+    ProofObject pobject = new ProofObject() {
+      public Answer queryAnswer() { return Answer.NO; }
+      public void justify(OutputModule o) { o.println("Some reason."); }
+    };
+    StringWriter writer = new StringWriter();
+    JsonWriter out = new JsonWriter(writer, null);
+    pobject.export(out);
+    assertTrue(writer.toString().equals("{\"answer\":\"NO\"}"));
+
+    pobject = new ProofObject() {
+      public Answer queryAnswer() { return Answer.YES; }
+      public String printAnswer() { return "YES: O(1)"; }
+      public void justify(OutputModule o) { }
+    };
+    writer = new StringWriter();
+    pobject.export(new JsonWriter(writer, null));
+    assertTrue(writer.toString().equals("{\"answer\":\"YES\",\"result\":\"YES: O(1)\"}"));
+  }
+}
@@ -0,0 +1,40 @@
+package cora.termination.dependency_pairs;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import charlie.reader.CoraInputReader;
+import charlie.trs.TRS;
+import charlie.trs.TrsFactory;
+
+class ProcessorEventTest {
+  @Test
+  void testEventsAreRecorded() throws Exception {
+    TRS trs = CoraInputReader.readTrsFromString(
+      "a :: o\nf :: o -> o\ng :: o -> o\nf(g(x)) -> f(x)\ng(a) -> a", TrsFactory.LCSTRS);
+    Path file = Files.createTempFile("cora", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("cora.ProcessorApplication");
+      recording.start();
+      new DPFramework().proveTermination(trs);
+      recording.stop();
+      recording.dump(file);
+      int count = 0;
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (!event.getEventType().getName().equals("cora.ProcessorApplication")) continue;
+        count++;
+        assertNotNull(event.getString("processor"));
+        assertTrue(event.getInt("inputDPs") > 0);
+        if (!event.getBoolean("success")) assertEquals(0, event.getInt("resultingProblems"));
+      }
+      assertTrue(count > 0);
+    }
+    finally { Files.deleteIfExists(file); }
+  }
+}
@@ -8,6 +8,7 @@ import cora.termination.dependency_pairs.DP;
 import cora.termination.dependency_pairs.DPGenerator;
 import cora.termination.dependency_pairs.Problem;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +33,37 @@ class GraphProcessorTest {
 
   }
 
+  @Test
+  void testSplitAfterRemovingDPs() {
+    String program =
+      " a :: sort \n b :: sort \n c :: sort \n" +
+      " a -> b \n b -> a \n b -> c \n c -> b \n c -> c";
+    Problem dpp = DPGenerator.generateProblemFromTrs(CoraInputReader.readTrsFromString(program));
+    GraphProcessor proc = new GraphProcessor();
+    assertFalse(proc.processDPP(dpp).applicable());   // a single SCC
+
+    // remove b# -> c#, as a DP-removing processor might do; the graph is not recomputed
+    List<DP> remaining = new ArrayList<>(dpp.getDPList());
+    DP removed = remaining.remove(2);
+    ProcessorProofObject ppo = proc.processDPP(new Problem(remaining, dpp.getTRS()));
+    assertTrue(ppo.applicable());
+    List<Problem> results = ppo.queryResults();
+    assertEquals(2, results.size());
+    assertEquals(List.of(remaining.get(0), remaining.get(1)), results.get(0).getDPList());
+    assertEquals(List.of(remaining.get(3)), results.get(1).getDPList());
+    assertEquals("0 |-> [0]\n", results.get(1).getGraph().get().toString());
+
+    // the result is the same as for a fresh processor, which does compute the graph
+    List<Problem> fresh =
+      new GraphProcessor().processDPP(new Problem(remaining, dpp.getTRS())).queryResults();
+    assertEquals(results.toString(), fresh.toString());
+
+    // a problem that is not a subset of a known SCC is handled from scratch
+    ppo = proc.processDPP(new Problem(List.of(removed, remaining.get(1)), dpp.getTRS()));
+    assertTrue(ppo.applicable());
+    assertEquals(0, ppo.queryResults().size());
+  }
+
   @Test
   void isApplicable() {
   }
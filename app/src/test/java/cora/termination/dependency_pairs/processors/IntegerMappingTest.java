@@ -16,7 +16,7 @@ class IntegerMappingTest {
 
   @Test
   void processDPP() {
-    Settings.smtSolver = new ProcessSmtSolver();
+    Settings.setSolver(new ProcessSmtSolver());
 
     // This is the TRS that fails and shouldn't
     TRS trs = CoraInputReader.readTrsFromString(
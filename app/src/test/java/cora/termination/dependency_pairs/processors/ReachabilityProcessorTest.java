@@ -15,7 +15,7 @@ class ReachabilityProcessorTest {
 
   @Test
   void processDPP() {
-    Settings.smtSolver = new ProcessSmtSolver();
+    Settings.setSolver(new ProcessSmtSolver());
     TRS program = CoraInputReader.readTrsFromString("nil :: intlist\n" +
       "cons :: Int -> intlist -> intlist\n" +
       "\n" +
@@ -297,7 +297,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testGreaterDown() {
     FakeSolver solver = new FakeSolver(true, false);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x+1", "Int", "x-1", "Int", "Int",
                                                          "x >= -4", Relation.GREATERTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x + 1 ≻{theory} x - 1 | x ≥ -4 { x }]\n"));
@@ -316,7 +316,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testGreaterNeither() {
     FakeSolver solver = new FakeSolver(false, false);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x+y", "Int", "y", "Int", "Int",
                                                          "x > y", Relation.GREATERTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x + y ≻{theory} y | x > y { x y }]\n"));
@@ -335,7 +335,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testGeqUp() {
     FakeSolver solver = new FakeSolver(false, true);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x+y", "Int", "y", "Int", "Int",
                                                          "x >= 0", Relation.GEQTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x + y ≽{theory} y | x ≥ 0 { x y }]\n"));
@@ -354,7 +354,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testGeqBoth() {
     FakeSolver solver = new FakeSolver(true, true);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x+y", "Int", "y", "Int", "Int",
                                                          "x = 0", Relation.GEQTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x + y ≽{theory} y | x = 0 { x y }]\n"));
@@ -373,7 +373,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testGreaterWhenNotAllVariablesAreConstrained() {
     FakeSolver solver = new FakeSolver(true, true);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x+y", "Int", "x", "Int", "Int",
                                                          "y = 0", Relation.GEQTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x + y ≽{theory} x | y = 0 { y }]\n"));
@@ -386,7 +386,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testBoolComparisonGeqTrue() {
     FakeSolver solver = new FakeSolver(true);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x", "Bool", "x ∧ false", "Bool",
                                                            "Bool", "x", Relation.GEQTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x ≽{theory} x ∧ false | x { x }]\n"));
@@ -399,7 +399,7 @@ public class HorpoConstraintListTest {
   @Test
   public void testBoolComparisonGreaterFalse() {
     FakeSolver solver = new FakeSolver(false);
-    Settings.smtSolver = solver;
+    Settings.setSolver(solver);
     Pair<HorpoConstraintList,SmtProblem> pair = setupSimplify("x", "Bool", "x ∨ false", "Bool",
                                                        "Bool", "x", Relation.GREATERTHEORY, "");
     assertTrue(pair.fst().toString().equals("$ [x ≻{theory} x ∨ false | x { x }]\n"));
@@ -0,0 +1,39 @@
+plugins {
+    java
+    // Generates and runs the JMH harness for the benchmarks in src/jmh/java.
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":app"))
+    jmh("com.google.guava:guava:33.2.1-jre")
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(22))
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // The classes of the app module use preview features, so the forked JVMs need them as well;
+    // the benchmarks directory is passed so systems can be read regardless of the working directory.
+    jvmArgs.set(listOf("--enable-preview",
+                       "-Dcora.benchmarks=" + rootProject.file("benchmarks").absolutePath))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // Select benchmarks with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=TermBenchmark.match
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf(project.property("jmhIncludes").toString()))
+    }
+}
+
+tasks.withType<JavaCompile>() {
+    options.compilerArgs = listOf("--enable-preview", "-Xlint:preview")
+    options.encoding = "UTF8"
+}
@@ -0,0 +1,55 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.solvesmt;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import charlie.smt.SmtSolver.Answer;
+
+/**
+ * Benchmarks reading the output of an SMT solver into an answer, as the solvers do: a model with
+ * the given number of integer definitions, in the form that solvers such as Z3 print it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class SmtModelReaderBenchmark {
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  private String _model;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder("sat\n(\n");
+    for (int i = 1; i <= size; i++) {
+      builder.append("  (define-fun i").append(i).append(" () Int\n    ");
+      if (i % 2 == 0) builder.append(i * 37);
+      else builder.append("(- ").append(i * 37).append(")");
+      builder.append(")\n");
+    }
+    builder.append(")\n");
+    _model = builder.toString();
+  }
+
+  @Benchmark
+  public Answer readModel() {
+    return SmtModelReader.readAnswer(_model, 0, size);
+  }
+}
@@ -0,0 +1,123 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package charlie.terms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import charlie.types.Type;
+import charlie.types.TypeFactory;
+
+/**
+ * Microbenchmarks for the basic operations on terms, which every other part of Cora relies on.
+ * The terms are balanced binary trees f(f(...), f(...)), where the size parameter is the number of
+ * occurrences of f.  The pattern has variables at the leaves (cycling through a small set, so it
+ * is non-linear), and the instance is the pattern with those variables replaced by constants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class TermBenchmark {
+  private static final int NUMVARS = 8;
+
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  private FunctionSymbol _f;
+  private List<Variable> _vars;
+  private Substitution _gamma;
+  private Term _pattern;
+  private Term _instance;
+  private Term _instanceCopy;
+  private Term _mismatch;
+  private TermPrinter _printer;
+
+  @Setup
+  public void setup() {
+    Type a = TypeFactory.createSort("a");
+    _f = TermFactory.createConstant("f", TypeFactory.createArrow(a,
+                                           TypeFactory.createArrow(a, a)));
+    _vars = new ArrayList<Variable>(NUMVARS);
+    _gamma = TermFactory.createEmptySubstitution();
+    for (int i = 0; i < NUMVARS; i++) {
+      Variable x = TermFactory.createVar("x" + i, a);
+      _vars.add(x);
+      _gamma.extend(x, TermFactory.createConstant("c" + i, a));
+    }
+    _pattern = build(size, 0, true, null);
+    _instance = build(size, 0, false, null);
+    _instanceCopy = build(size, 0, false, null);
+    _mismatch = build(size, 0, false, TermFactory.createConstant("d", a));
+    _printer = new TermPrinter(Set.of());
+  }
+
+  /**
+   * Builds a complete binary tree with the given number of occurrences of f, whose leaves are
+   * variables if vars is true and the corresponding constants otherwise.  If last is not null,
+   * then it is used as the rightmost leaf instead.
+   */
+  private Term build(int n, int leaf, boolean vars, Term last) {
+    if (n <= 0) {
+      if (last != null) return last;
+      Variable x = _vars.get(leaf % NUMVARS);
+      return vars ? x : _gamma.get(x);
+    }
+    int left = (n - 1) / 2;
+    return TermFactory.createApp(_f, build(left, 2 * leaf, vars, null),
+                                     build(n - 1 - left, 2 * leaf + 1, vars, last));
+  }
+
+  @Benchmark
+  public Term construct() {
+    return build(size, 0, false, null);
+  }
+
+  @Benchmark
+  public Substitution matchSuccess() {
+    return _pattern.match(_instance);
+  }
+
+  @Benchmark
+  public boolean matchFailure() {
+    // the mismatch only differs from an instance in its rightmost leaf
+    return _pattern.matches(_mismatch, TermFactory.createEmptySubstitution());
+  }
+
+  @Benchmark
+  public Term substitute() {
+    return _pattern.substitute(_gamma);
+  }
+
+  @Benchmark
+  public int querySubterms() {
+    return _instance.querySubterms().size();
+  }
+
+  @Benchmark
+  public boolean equality() {
+    return _instance.equals(_instanceCopy);
+  }
+
+  @Benchmark
+  public String print() {
+    return _printer.print(_instance);
+  }
+}
@@ -0,0 +1,79 @@
+/**************************************************************************************************
+ Copyright 2024 Cynthia Kop
+
+ Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software distributed under the
+ License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ express or implied.
+ See the License for the specific language governing permissions and limitations under the License.
+ *************************************************************************************************/
+
+package cora.reduction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import charlie.reader.CoraInputReader;
+import charlie.terms.Term;
+import charlie.trs.TRS;
+import cora.App;
+import cora.io.ProofObject;
+
+/**
+ * Benchmarks normalising a term with the systems from the benchmarks directory (whose location is
+ * given by the cora.benchmarks system property).  The start terms are parametrised by a number n:
+ *   add: add(s^n(0), s^n(0)), which takes n steps;
+ *   ack: ack(s(s(0)), s^n(0)), which takes a number of steps quadratic in n.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class ReducerBenchmark {
+  @Param({"add", "ack"})
+  public String system;
+
+  @Param({"10", "50"})
+  public int size;
+
+  private Reducer _reducer;
+  private Term _start;
+
+  @Setup
+  public void setup() throws IOException {
+    Path dir = Path.of(System.getProperty("cora.benchmarks", "benchmarks"));
+    String file, start;
+    switch (system) {
+      case "add" -> {
+        file = "esop2024/add.mstrs";
+        start = "add(" + numeral(size) + ", " + numeral(size) + ")";
+      }
+      case "ack" -> {
+        file = "extra/ack.mstrs";
+        start = "ack(" + numeral(2) + ", " + numeral(size) + ")";
+      }
+      default -> throw new IllegalArgumentException("Unknown system: " + system);
+    }
+    TRS trs = App.readInput(dir.resolve(file).toString());
+    _reducer = new Reducer(trs);
+    _start = CoraInputReader.readTerm(start, trs);
+  }
+
+  /** Returns the string s(s(...s(0)...)) with n occurrences of s. */
+  private static String numeral(int n) {
+    return "s(".repeat(n) + "0" + ")".repeat(n);
+  }
+
+  @Benchmark
+  public ProofObject normalise() {
+    return _reducer.normalise(_start);
+  }
+}
@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "cora"
 include("app")
+include("jmh")